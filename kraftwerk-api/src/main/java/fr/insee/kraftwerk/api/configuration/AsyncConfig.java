@@ -14,11 +14,12 @@ public class AsyncConfig {
 
     @Bean(name = "kraftwerkExecutor")
     @ConditionalOnMissingBean(name = "kraftwerkExecutor")
-    public Executor kraftwerkExecutor() {
+    public Executor kraftwerkExecutor(ConfigProperties configProperties) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(8);
-        executor.setQueueCapacity(100);
+        executor.setCorePoolSize(configProperties.getJobsExecutorCoreSize());
+        executor.setMaxPoolSize(configProperties.getJobsExecutorMaxSize());
+        // Bounded queue : a job submitted when it is full is refused (TaskRejectedException)
+        executor.setQueueCapacity(configProperties.getJobsExecutorQueueCapacity());
         executor.setThreadNamePrefix("kw-");
         executor.initialize();
         return executor;
@@ -1,9 +1,13 @@
 package fr.insee.kraftwerk.api.configuration;
 
+import fr.insee.kraftwerk.core.outputs.parquet.ParquetOutputSettings;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbSettings;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+
 @Configuration
 @Getter
 public class ConfigProperties {
@@ -33,4 +37,109 @@ public class ConfigProperties {
 
 	@Value("${fr.insee.kraftwerk.duckdb.use-memory}")
 	private boolean isDuckDbInMemory;
+	@Value("${fr.insee.kraftwerk.duckdb.threads:0}")
+	private int duckDbThreads;
+	@Value("${fr.insee.kraftwerk.duckdb.memory-limit-mb:0}")
+	private long duckDbMemoryLimitMb;
+	@Value("${fr.insee.kraftwerk.duckdb.spill-directory:}")
+	private String duckDbSpillDirectory;
+	@Value("${fr.insee.kraftwerk.duckdb.preserve-insertion-order:true}")
+	private boolean duckDbPreserveInsertionOrder;
+
+	//VTL
+	@Value("${fr.insee.kraftwerk.vtl.json-dataset-conversion:false}")
+	private boolean isJsonVtlDatasetConversion;
+	@Value("${fr.insee.kraftwerk.vtl.sql-multimodal-processing:false}")
+	private boolean isSqlMultimodalProcessing;
+	@Value("${fr.insee.kraftwerk.vtl.step-persistence-format:parquet}")
+	private String stepPersistenceFormat;
+
+	//Outputs
+	@Value("${fr.insee.kraftwerk.export.parallelism:4}")
+	private int exportParallelism;
+	@Value("${fr.insee.kraftwerk.export.parquet.partitioned:false}")
+	private boolean parquetPartitioned;
+	@Value("${fr.insee.kraftwerk.export.parquet.codec:snappy}")
+	private String parquetCodec;
+	@Value("${fr.insee.kraftwerk.export.parquet.zstd-level:3}")
+	private int parquetZstdLevel;
+	@Value("${fr.insee.kraftwerk.export.parquet.row-group-size:122880}")
+	private long parquetRowGroupSize;
+	@Value("${fr.insee.kraftwerk.export.parquet.max-rows-per-file:0}")
+	private long parquetMaxRowsPerFile;
+
+	//Lunatic XML
+	@Value("${fr.insee.kraftwerk.lunatic-xml.streaming:true}")
+	private boolean isLunaticXmlStreaming;
+
+	//Parsing
+	@Value("${fr.insee.kraftwerk.parse.parallelism:4}")
+	private int parseParallelism;
+
+	//Modes
+	@Value("${fr.insee.kraftwerk.modes.parallelism:4}")
+	private int modeParallelism;
+
+	//Metadata cache
+	@Value("${fr.insee.kraftwerk.metadata-cache.max-entries:0}")
+	private int metadataCacheMaxEntries;
+	@Value("${fr.insee.kraftwerk.metadata-cache.directory:${user.home}/.kraftwerk/metadata-cache}")
+	private String metadataCacheDirectory;
+
+	//JSON export
+	@Value("${fr.insee.kraftwerk.json.set-based-export:true}")
+	private boolean isJsonSetBasedExport;
+
+	//Genesis
+	@Value("${fr.insee.kraftwerk.genesis.prefetch-depth:1}")
+	private int genesisPrefetchDepth;
+
+	//Jobs
+	@Value("${fr.insee.kraftwerk.jobs.executor.core-size:4}")
+	private int jobsExecutorCoreSize;
+	@Value("${fr.insee.kraftwerk.jobs.executor.max-size:8}")
+	private int jobsExecutorMaxSize;
+	@Value("${fr.insee.kraftwerk.jobs.executor.queue-capacity:100}")
+	private int jobsExecutorQueueCapacity;
+	@Value("${fr.insee.kraftwerk.jobs.max-jobs:100}")
+	private int maxJobs;
+	@Value("${fr.insee.kraftwerk.jobs.max-jobs-per-tenant:20}")
+	private int maxJobsPerTenant;
+	@Value("${fr.insee.kraftwerk.jobs.max-jobs-per-questionnaire:0}")
+	private int maxJobsPerQuestionnaire;
+	@Value("${fr.insee.kraftwerk.jobs.finished-ttl-minutes:1440}")
+	private long finishedJobTtlMinutes;
+	@Value("${fr.insee.kraftwerk.jobs.store-file:}")
+	private String jobStoreFile;
+
+	//Encrypted archive
+	@Value("${fr.insee.kraftwerk.archive.prefetch-depth:4}")
+	private int archivePrefetchDepth;
+	@Value("${fr.insee.kraftwerk.archive.prefetch-budget-mb:64}")
+	private int archivePrefetchBudgetMb;
+
+	//Split
+	@Value("${fr.insee.kraftwerk.split.writer-parallelism:4}")
+	private int splitWriterParallelism;
+
+	/**
+	 * Settings of the DuckDB database of a job : threads and memory are shared between the jobs
+	 * which can run at the same time
+	 */
+	public DuckDbSettings getDuckDbSettings() {
+		int concurrentJobs = jobsExecutorMaxSize;
+		if (maxJobs > 0 && (concurrentJobs <= 0 || maxJobs < concurrentJobs)) {
+			concurrentJobs = maxJobs;
+		}
+		Path spillDirectory = duckDbSpillDirectory == null || duckDbSpillDirectory.isBlank()
+				? Path.of(System.getProperty("java.io.tmpdir"), "kraftwerk_temp", "duckdb_spill")
+				: Path.of(duckDbSpillDirectory);
+		return DuckDbSettings.forConcurrentJobs(duckDbThreads, duckDbMemoryLimitMb, concurrentJobs,
+				spillDirectory, duckDbPreserveInsertionOrder);
+	}
+
+	public ParquetOutputSettings getParquetOutputSettings() {
+		return new ParquetOutputSettings(parquetPartitioned, parquetCodec, parquetZstdLevel, parquetRowGroupSize,
+				parquetMaxRowsPerFile);
+	}
 }
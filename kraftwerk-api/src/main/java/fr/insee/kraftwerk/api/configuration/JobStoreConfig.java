@@ -0,0 +1,37 @@
+package fr.insee.kraftwerk.api.configuration;
+
+import fr.insee.kraftwerk.api.services.async.DuckDbJobRepository;
+import fr.insee.kraftwerk.api.services.async.JobRepository;
+import fr.insee.kraftwerk.api.services.async.TransientJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+@Configuration
+@Slf4j
+public class JobStoreConfig {
+
+    @Bean
+    public JobRepository jobRepository(ConfigProperties configProperties) {
+        String jobStoreFile = configProperties.getJobStoreFile();
+        if (jobStoreFile == null || jobStoreFile.isBlank()) {
+            return new TransientJobRepository();
+        }
+        try {
+            Path jobStorePath = Path.of(jobStoreFile);
+            if (jobStorePath.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(jobStorePath.toAbsolutePath().getParent());
+            }
+            return new DuckDbJobRepository(jobStorePath);
+        } catch (IOException | SQLException e) {
+            log.error("Job store {} can't be opened, job status will only be kept in memory : {}", jobStoreFile, e.getMessage());
+            return new TransientJobRepository();
+        }
+    }
+
+}
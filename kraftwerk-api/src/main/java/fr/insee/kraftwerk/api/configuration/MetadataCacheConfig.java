@@ -0,0 +1,21 @@
+package fr.insee.kraftwerk.api.configuration;
+
+import fr.insee.kraftwerk.core.metadata.MetadataCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class MetadataCacheConfig {
+
+    @Bean
+    public MetadataCache metadataCache(ConfigProperties configProperties) {
+        String cacheDirectory = configProperties.getMetadataCacheDirectory();
+        return new MetadataCache(
+                configProperties.getMetadataCacheMaxEntries(),
+                cacheDirectory == null || cacheDirectory.isBlank() ? null : Path.of(cacheDirectory)
+        );
+    }
+
+}
@@ -46,6 +46,10 @@ public class OIDCAuthConfiguration {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Processing metrics stay private, even with a whitelist including all actuator endpoints
+                        .requestMatchers("/actuator/metrics/**")
+                        .hasRole(ApplicationRole.ADMIN.name())
+
                         .requestMatchers(whitelistMatchers).permitAll()
 
                         .requestMatchers("/main/**")
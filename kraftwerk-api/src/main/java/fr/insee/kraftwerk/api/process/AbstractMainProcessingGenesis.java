@@ -4,6 +4,7 @@ import fr.insee.bpm.exceptions.MetadataParserException;
 import fr.insee.bpm.metadata.model.MetadataModel;
 import fr.insee.kraftwerk.api.client.GenesisClient;
 import fr.insee.kraftwerk.api.configuration.ConfigProperties;
+import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.data.model.InterrogationId;
 import fr.insee.kraftwerk.core.data.model.Mode;
 import fr.insee.kraftwerk.core.data.model.SurveyUnitUpdateLatest;
@@ -13,12 +14,17 @@ import fr.insee.kraftwerk.core.metadata.MetadataUtilsGenesis;
 import fr.insee.kraftwerk.core.sequence.BuildBindingsSequenceGenesis;
 import fr.insee.kraftwerk.core.sequence.ControlInputSequenceGenesis;
 import fr.insee.kraftwerk.core.sequence.InsertDatabaseSequence;
+import fr.insee.kraftwerk.core.sequence.ModesSequence;
 import fr.insee.kraftwerk.core.sequence.MultimodalSequence;
+import fr.insee.kraftwerk.core.sequence.SqlMultimodalSequence;
 import fr.insee.kraftwerk.core.sequence.UnimodalSequence;
 import fr.insee.kraftwerk.core.sequence.WriterSequence;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.TextFileWriter;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbJobDatabase;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics.StepMeasure;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import lombok.Getter;
 import lombok.Setter;
@@ -27,7 +33,9 @@ import org.apache.commons.collections4.ListUtils;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -113,7 +121,7 @@ public abstract class AbstractMainProcessingGenesis {
 
     private void loadMetadataFromFile(String questionnaireId) throws KraftwerkException {
         try {
-            metadataModelsByMode = kraftwerkExecutionContext.isWithDDI() ? MetadataUtilsGenesis.getMetadata(userInputs.getModeInputsMap(), fileUtilsInterface) : MetadataUtilsGenesis.getMetadataFromLunatic(userInputs.getModeInputsMap(), fileUtilsInterface);
+            metadataModelsByMode = kraftwerkExecutionContext.isWithDDI() ? MetadataUtilsGenesis.getMetadata(userInputs.getModeInputsMap(), fileUtilsInterface, kraftwerkExecutionContext.getMetadataCache()) : MetadataUtilsGenesis.getMetadataFromLunatic(userInputs.getModeInputsMap(), fileUtilsInterface);
         } catch (MetadataParserException mpe) {
             throw new KraftwerkException(500, mpe.getMessage());
         }
@@ -128,49 +136,85 @@ public abstract class AbstractMainProcessingGenesis {
         List<List<InterrogationId>> listIds = ListUtils.partition(ids, batchSize);
         int nbPartitions = listIds.size();
         int indexPartition = 1;
-        for (List<InterrogationId> listId : listIds) {
-            List<SurveyUnitUpdateLatest> suLatest = client.getResponses(questionnaireModelId, listId,null);
-            log.info("Number of documents retrieved from database : {}, partition {}/{}", suLatest.size(), indexPartition, nbPartitions);
-            vtlBindings = new VtlBindings();
-            if (dataMode != null){
-                suLatest = suLatest.stream().filter(su-> su.getMode()==dataMode).toList();
+        try (GenesisResponsesPrefetcher prefetcher = new GenesisResponsesPrefetcher(listIds,
+                listId -> client.getResponses(questionnaireModelId, listId, null),
+                config.getGenesisPrefetchDepth())) {
+            while (prefetcher.hasNext()) {
+                List<SurveyUnitUpdateLatest> suLatest = prefetcher.next();
+                log.info("Number of documents retrieved from database : {}, partition {}/{}", suLatest.size(), indexPartition, nbPartitions);
+                vtlBindings = new VtlBindings();
+                if (dataMode != null){
+                    suLatest = suLatest.stream().filter(su-> su.getMode()==dataMode).toList();
+                }
+                unimodalProcess(suLatest);
+                multimodalProcess();
+                insertDatabase(!prefetcher.hasNext());
+                indexPartition++;
             }
-            unimodalProcess(suLatest);
-            multimodalProcess();
-            insertDatabase();
-            indexPartition++;
         }
     }
 
     protected void unimodalProcess(List<SurveyUnitUpdateLatest> suLatest) throws KraftwerkException {
-        BuildBindingsSequenceGenesis buildBindingsSequenceGenesis = new BuildBindingsSequenceGenesis(
-                fileUtilsInterface,
-                kraftwerkExecutionContext
-        );
-        for (String dataMode : userInputs.getModeInputsMap().keySet()) {
-            buildBindingsSequenceGenesis.buildVtlBindings(dataMode, vtlBindings, metadataModelsByMode, suLatest, specsDirectory);
+        ProcessingMetrics processingMetrics = kraftwerkExecutionContext.getProcessingMetrics();
+        List<String> dataModes = new ArrayList<>(userInputs.getModeInputsMap().keySet());
+        new ModesSequence().applyToModes(dataModes, vtlBindings, kraftwerkExecutionContext,
+                (dataMode, modeVtlBindings, modeExecutionContext) -> {
+            BuildBindingsSequenceGenesis buildBindingsSequenceGenesis = new BuildBindingsSequenceGenesis(
+                    fileUtilsInterface,
+                    modeExecutionContext
+            );
+            StepMeasure buildBindingsMeasure = processingMetrics.start(ProcessingMetrics.STEP_BUILD_BINDINGS, suLatest.size());
+            buildBindingsSequenceGenesis.buildVtlBindings(dataMode, modeVtlBindings, metadataModelsByMode, suLatest, specsDirectory);
+            buildBindingsMeasure.stop(modeVtlBindings.countRows(dataMode));
+
+            StepMeasure unimodalMeasure = processingMetrics.start(ProcessingMetrics.STEP_UNIMODAL, modeVtlBindings.countRows(dataMode));
             UnimodalSequence unimodal = new UnimodalSequence();
-            unimodal.applyUnimodalSequence(userInputs, dataMode, vtlBindings, kraftwerkExecutionContext, metadataModelsByMode, fileUtilsInterface);
-        }
+            unimodal.applyUnimodalSequence(userInputs, dataMode, modeVtlBindings, modeExecutionContext, metadataModelsByMode, fileUtilsInterface);
+            unimodalMeasure.stop(modeVtlBindings.countRows(dataMode));
+        });
     }
 
     /* Step 3 : multimodal VTL data processing */
     protected void multimodalProcess() throws KraftwerkException {
+        StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+                .start(ProcessingMetrics.STEP_MULTIMODAL, vtlBindings.countRows());
+        if (kraftwerkExecutionContext.isSqlMultimodalProcessing()) {
+            SqlMultimodalSequence sqlMultimodalSequence = new SqlMultimodalSequence();
+            stepMeasure.stop(sqlMultimodalSequence.multimodalProcessing(userInputs, vtlBindings, kraftwerkExecutionContext,
+                    fileUtilsInterface, database));
+            return;
+        }
         MultimodalSequence multimodalSequence = new MultimodalSequence();
         multimodalSequence.multimodalProcessing(userInputs, vtlBindings, kraftwerkExecutionContext, metadataModelsByMode,
                 fileUtilsInterface);
+        stepMeasure.stop(vtlBindings.countRows());
     }
 
     /* Step 4 : Insert into SQL database */
     protected void insertDatabase(){
+        insertDatabase(true);
+    }
+
+    /**
+     * Insert the bindings of a batch into the database
+     * @param insertPendingRows false if other batches follow, their rows being deduplicated all at once
+     */
+    protected void insertDatabase(boolean insertPendingRows){
+        long rowCount = vtlBindings.countRows();
+        StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+                .start(ProcessingMetrics.STEP_INSERT_DATABASE, rowCount);
         InsertDatabaseSequence insertDatabaseSequence = new InsertDatabaseSequence();
-        insertDatabaseSequence.insertDatabaseProcessing(vtlBindings, database, kraftwerkExecutionContext);
+        insertDatabaseSequence.insertDatabaseProcessing(vtlBindings, database, kraftwerkExecutionContext, insertPendingRows);
+        stepMeasure.stop(rowCount);
     }
 
     /* Step 5 : Write output files */
     protected void outputFileWriter() throws KraftwerkException {
+        StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+                .start(ProcessingMetrics.STEP_OUTPUT_FILE_WRITER, vtlBindings.countRows());
         WriterSequence writerSequence = new WriterSequence();
         writerSequence.writeOutputFiles(specsDirectory, vtlBindings, userInputs.getModeInputsMap(), metadataModelsByMode, kraftwerkExecutionContext, database, fileUtilsInterface);
+        stepMeasure.stop(kraftwerkExecutionContext.getLineCountByTableMap().values().stream().mapToLong(Integer::longValue).sum());
     }
 
     /* Step 6 : Write errors */
@@ -178,4 +222,22 @@ public abstract class AbstractMainProcessingGenesis {
         TextFileWriter.writeErrorsFile(specsDirectory, kraftwerkExecutionContext, fileUtilsInterface);
     }
 
+    /**
+     * Open the DuckDB database of the job, in memory or in the given file depending on the configuration
+     * @param jobName name of the job (questionnaire or campaign)
+     * @param databasePath path of the database file if not in memory
+     */
+    protected DuckDbJobDatabase openJobDatabase(String jobName, String databasePath) throws SQLException {
+        return DuckDbJobDatabase.open(jobName,
+                config.isDuckDbInMemory() ? null : Path.of(databasePath),
+                kraftwerkExecutionContext.getDuckDbSettings(),
+                kraftwerkExecutionContext.getProcessingMetrics());
+    }
+
+    /* Step 7 : Write processing metrics in application log */
+    protected void writeProcessingMetrics() {
+        log.info("Processing metrics by step:{}{}", Constants.END_LINE,
+                kraftwerkExecutionContext.getProcessingMetrics().getFormattedString());
+    }
+
 }
@@ -0,0 +1,112 @@
+package fr.insee.kraftwerk.api.process;
+
+import fr.insee.kraftwerk.core.data.model.InterrogationId;
+import fr.insee.kraftwerk.core.data.model.SurveyUnitUpdateLatest;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Gives the Genesis responses of partitions of interrogations, in the order of the partitions.
+ * With a prefetch depth greater than 0, the responses of the next partitions are fetched on virtual threads
+ * while the current partition is processed. The depth is the maximum number of partitions fetched in advance,
+ * which caps the memory used by responses waiting to be processed.
+ * With a depth of 0, each partition is fetched when asked for.
+ */
+@Log4j2
+public class GenesisResponsesPrefetcher implements AutoCloseable {
+
+    /** Fetch the responses of the interrogations of a partition */
+    @FunctionalInterface
+    public interface ResponsesFetcher {
+        List<SurveyUnitUpdateLatest> fetch(List<InterrogationId> interrogationIds) throws KraftwerkException;
+    }
+
+    private final List<List<InterrogationId>> partitions;
+    private final ResponsesFetcher responsesFetcher;
+    private final int prefetchDepth;
+    private final ExecutorService executorService;
+    private final Deque<Future<List<SurveyUnitUpdateLatest>>> prefetchedResponses = new ArrayDeque<>();
+    /** Index of the next partition to give */
+    private int nextPartitionIndex = 0;
+    /** Index of the next partition to fetch in advance */
+    private int nextPrefetchIndex = 0;
+
+    public GenesisResponsesPrefetcher(List<List<InterrogationId>> partitions,
+                                      ResponsesFetcher responsesFetcher,
+                                      int prefetchDepth) {
+        this.partitions = partitions;
+        this.responsesFetcher = responsesFetcher;
+        this.prefetchDepth = Math.max(prefetchDepth, 0);
+        this.executorService = this.prefetchDepth > 0 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        prefetch();
+    }
+
+    public boolean hasNext() {
+        return nextPartitionIndex < partitions.size();
+    }
+
+    /**
+     * Return the responses of the next partition, and start fetching the following partitions in advance.
+     * @return responses of the next partition
+     * @throws KraftwerkException if the responses could not be fetched
+     */
+    public List<SurveyUnitUpdateLatest> next() throws KraftwerkException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more partition of interrogations");
+        }
+        if (executorService == null) {
+            return responsesFetcher.fetch(partitions.get(nextPartitionIndex++));
+        }
+        Future<List<SurveyUnitUpdateLatest>> responses = prefetchedResponses.removeFirst();
+        nextPartitionIndex++;
+        prefetch();
+        try {
+            return responses.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KraftwerkException(500, "Interrupted while fetching responses from Genesis");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof KraftwerkException kraftwerkException) {
+                throw kraftwerkException;
+            }
+            throw new KraftwerkException(500, "Error while fetching responses from Genesis : " + e.getCause());
+        }
+    }
+
+    /** Number of partitions whose fetch has been started in advance and which are not given yet */
+    int getPrefetchedPartitionsCount() {
+        return prefetchedResponses.size();
+    }
+
+    /** Submit the fetch of the next partitions, up to the prefetch depth */
+    private void prefetch() {
+        if (executorService == null) {
+            return;
+        }
+        while (nextPrefetchIndex < partitions.size() && prefetchedResponses.size() < prefetchDepth) {
+            List<InterrogationId> partition = partitions.get(nextPrefetchIndex++);
+            prefetchedResponses.addLast(executorService.submit(() -> responsesFetcher.fetch(partition)));
+        }
+        log.debug("{} partition(s) of responses fetched in advance", prefetchedResponses.size());
+    }
+
+    /** Cancel the fetches still in progress */
+    @Override
+    public void close() {
+        if (executorService != null) {
+            prefetchedResponses.forEach(future -> future.cancel(true));
+            prefetchedResponses.clear();
+            executorService.shutdownNow();
+        }
+    }
+
+}
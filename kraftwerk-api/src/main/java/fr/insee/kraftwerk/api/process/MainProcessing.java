@@ -1,6 +1,7 @@
 package fr.insee.kraftwerk.api.process;
 
 import fr.insee.bpm.metadata.model.MetadataModel;
+import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.inputs.ModeInputs;
 import fr.insee.kraftwerk.core.inputs.UserInputsFile;
@@ -8,19 +9,22 @@ import fr.insee.kraftwerk.core.metadata.MetadataUtils;
 import fr.insee.kraftwerk.core.sequence.BuildBindingsSequence;
 import fr.insee.kraftwerk.core.sequence.ControlInputSequence;
 import fr.insee.kraftwerk.core.sequence.InsertDatabaseSequence;
+import fr.insee.kraftwerk.core.sequence.ModesSequence;
 import fr.insee.kraftwerk.core.sequence.MultimodalSequence;
+import fr.insee.kraftwerk.core.sequence.SqlMultimodalSequence;
 import fr.insee.kraftwerk.core.sequence.UnimodalSequence;
 import fr.insee.kraftwerk.core.sequence.WriterSequence;
-import fr.insee.kraftwerk.core.utils.SqlUtils;
 import fr.insee.kraftwerk.core.utils.TextFileWriter;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbJobDatabase;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics.StepMeasure;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
 
 import java.nio.file.Path;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -68,27 +72,29 @@ public class MainProcessing {
 	public void runMain() throws KraftwerkException {
 		init();
 		//iterate on file(s)
-		try (Connection writeDatabaseConnection = SqlUtils.openConnection()) {
-			for (UserInputsFile userFile : userInputsFileList) {
-				this.userInputsFile = userFile;
+		try (DuckDbJobDatabase writeDatabaseConnection = DuckDbJobDatabase.open(kraftwerkExecutionContext.getInDirectoryParam(),
+				null, kraftwerkExecutionContext.getDuckDbSettings(), kraftwerkExecutionContext.getProcessingMetrics())) {
+			Statement writeDatabase = writeDatabaseConnection.getStatement();
+			for (int i = 0; i < userInputsFileList.size(); i++) {
+				this.userInputsFile = userInputsFileList.get(i);
 				vtlBindings = new VtlBindings();
 				unimodalProcess();
-				multimodalProcess();
-				try(Statement writeDatabase = writeDatabaseConnection.createStatement()){
-					insertDatabase(writeDatabase);
-				}
+				multimodalProcess(writeDatabase);
+				//Rows of all files are deduplicated once, with the last file
+				insertDatabase(writeDatabase, i == userInputsFileList.size() - 1);
 			}
 			//Export from database
-			try(Statement writeDatabase = writeDatabaseConnection.createStatement()){
-				outputFileWriter(writeDatabase);
-			}
-			writeErrors();
-			kraftwerkExecutionContext.setEndTimeStamp(System.currentTimeMillis());
-			writeLog();
+			outputFileWriter(writeDatabase);
 		} catch (SQLException e) {
 			log.error(e.toString());
 			throw new KraftwerkException(500, "SQL Error");
 		}
+		// Written once the database is closed, with the data it spilled to disk
+		writeErrors();
+		kraftwerkExecutionContext.setEndTimeStamp(System.currentTimeMillis());
+		writeLog();
+		log.info("Processing metrics by step:{}{}", Constants.END_LINE,
+				kraftwerkExecutionContext.getProcessingMetrics().getFormattedString());
 	}
 
 	/* Step 1 : Init */
@@ -101,7 +107,7 @@ public class MainProcessing {
 		userInputsFile = controlInputSequence.getUserInputs(inDirectory, fileUtilsInterface);
 
 		metadataModels = kraftwerkExecutionContext.isWithDDI() ? MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(),
-				fileUtilsInterface) :
+				fileUtilsInterface, kraftwerkExecutionContext.getMetadataCache()) :
 				MetadataUtils.getMetadataFromLunatic(userInputsFile.getModeInputsMap(), fileUtilsInterface);
 
 		userInputsFileList = getUserInputsFile(userInputsFile, kraftwerkExecutionContext.isFileByFile());
@@ -124,36 +130,60 @@ public class MainProcessing {
 
 	/* Step 2 : unimodal data */
 	private void unimodalProcess() throws KraftwerkException {
-		BuildBindingsSequence buildBindingsSequence = new BuildBindingsSequence(
-				fileUtilsInterface, kraftwerkExecutionContext
-		);
-		for (String dataMode : userInputsFile.getModeInputsMap().keySet()) {
+		ProcessingMetrics processingMetrics = kraftwerkExecutionContext.getProcessingMetrics();
+		List<String> dataModes = new ArrayList<>(userInputsFile.getModeInputsMap().keySet());
+		new ModesSequence().applyToModes(dataModes, vtlBindings, kraftwerkExecutionContext,
+				(dataMode, modeVtlBindings, modeExecutionContext) -> {
+			BuildBindingsSequence buildBindingsSequence = new BuildBindingsSequence(
+					fileUtilsInterface, modeExecutionContext
+			);
 			MetadataModel metadataForMode = metadataModels.get(dataMode);
-			buildBindingsSequence.buildVtlBindings(userInputsFile, dataMode, vtlBindings, metadataForMode, kraftwerkExecutionContext.isWithDDI(),
-					kraftwerkExecutionContext);
+			StepMeasure buildBindingsMeasure = processingMetrics.start(ProcessingMetrics.STEP_BUILD_BINDINGS, ProcessingMetrics.UNKNOWN_ROWS);
+			buildBindingsSequence.buildVtlBindings(userInputsFile, dataMode, modeVtlBindings, metadataForMode, modeExecutionContext.isWithDDI(),
+					modeExecutionContext);
+			buildBindingsMeasure.stop(modeVtlBindings.countRows(dataMode));
+
+			StepMeasure unimodalMeasure = processingMetrics.start(ProcessingMetrics.STEP_UNIMODAL, modeVtlBindings.countRows(dataMode));
 			UnimodalSequence unimodal = new UnimodalSequence();
-			unimodal.applyUnimodalSequence(userInputsFile, dataMode, vtlBindings, kraftwerkExecutionContext,
+			unimodal.applyUnimodalSequence(userInputsFile, dataMode, modeVtlBindings, modeExecutionContext,
 					metadataModels,
 					fileUtilsInterface);
-		}
+			unimodalMeasure.stop(modeVtlBindings.countRows(dataMode));
+		});
 	}
 
 	/* Step 3 : multimodal VTL data processing */
-	private void multimodalProcess() throws KraftwerkException {
+	private void multimodalProcess(Statement database) throws KraftwerkException {
+		StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+				.start(ProcessingMetrics.STEP_MULTIMODAL, vtlBindings.countRows());
+		if (kraftwerkExecutionContext.isSqlMultimodalProcessing()) {
+			SqlMultimodalSequence sqlMultimodalSequence = new SqlMultimodalSequence();
+			stepMeasure.stop(sqlMultimodalSequence.multimodalProcessing(userInputsFile, vtlBindings, kraftwerkExecutionContext,
+					fileUtilsInterface, database));
+			return;
+		}
 		MultimodalSequence multimodalSequence = new MultimodalSequence();
 		multimodalSequence.multimodalProcessing(userInputsFile, vtlBindings, kraftwerkExecutionContext, metadataModels, fileUtilsInterface);
+		stepMeasure.stop(vtlBindings.countRows());
 	}
 
 	/* Step 4 : Insert into SQL database */
-	private void insertDatabase(Statement database) {
+	private void insertDatabase(Statement database, boolean insertPendingRows) {
+		long rowCount = vtlBindings.countRows();
+		StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+				.start(ProcessingMetrics.STEP_INSERT_DATABASE, rowCount);
 		InsertDatabaseSequence insertDatabaseSequence = new InsertDatabaseSequence();
-		insertDatabaseSequence.insertDatabaseProcessing(vtlBindings, database, kraftwerkExecutionContext);
+		insertDatabaseSequence.insertDatabaseProcessing(vtlBindings, database, kraftwerkExecutionContext, insertPendingRows);
+		stepMeasure.stop(rowCount);
 	}
 
 	/* Step 5 : Write output files */
 	private void outputFileWriter(Statement database) throws KraftwerkException {
+		StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+				.start(ProcessingMetrics.STEP_OUTPUT_FILE_WRITER, vtlBindings.countRows());
 		WriterSequence writerSequence = new WriterSequence();
 		writerSequence.writeOutputFiles(inDirectory, vtlBindings, userInputsFile.getModeInputsMap(), metadataModels, kraftwerkExecutionContext, database, fileUtilsInterface);
+		stepMeasure.stop(kraftwerkExecutionContext.getLineCountByTableMap().values().stream().mapToLong(Integer::longValue).sum());
 	}
 
 	/* Step 5 : Write errors */
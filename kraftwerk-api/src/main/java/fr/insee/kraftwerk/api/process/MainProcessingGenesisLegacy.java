@@ -6,12 +6,11 @@ import fr.insee.kraftwerk.core.data.model.Mode;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbJobDatabase;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -38,13 +37,8 @@ public class MainProcessingGenesisLegacy extends AbstractMainProcessingGenesis{
 		List<Mode> modes = client.getModes(campaignId);
 		init(campaignId, modes);
 		//Try with resources to close database when done
-		try (Connection tryDatabase = config.isDuckDbInMemory() ?
-				SqlUtils.openConnection()
-				: SqlUtils.openConnection(Path.of(databasePath))) {
-			if(tryDatabase == null){
-				throw new KraftwerkException(500,"Error during internal database creation");
-			}
-			this.database = tryDatabase.createStatement();
+		try (DuckDbJobDatabase jobDatabase = openJobDatabase(campaignId, databasePath)) {
+			this.database = jobDatabase.getStatement();
 			List<String> questionnaireModelIds = client.getQuestionnaireModelIds(campaignId);
 			if (questionnaireModelIds.isEmpty()) {
 				throw new KraftwerkException(204, null);
@@ -54,11 +48,11 @@ public class MainProcessingGenesisLegacy extends AbstractMainProcessingGenesis{
 			}
 			outputFileWriter();
 			writeErrors();
-			if (!database.isClosed()){database.close();}
 		}catch (SQLException e){
 			log.error(e.toString());
 			throw new KraftwerkException(500,"SQL error");
 		}
+		writeProcessingMetrics();
 		SqlUtils.deleteDatabaseFile(databasePath);
 	}
 
@@ -19,6 +19,7 @@ import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.sequence.JsonWriterSequence;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbJobDatabase;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import lombok.extern.slf4j.Slf4j;
@@ -30,7 +31,6 @@ import tools.jackson.databind.json.JsonMapper;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.Instant;
@@ -69,21 +69,16 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
         List<Mode> modes = client.getModesByQuestionnaire(collectionInstrumentId);
         init(collectionInstrumentId, modes);
         //Try with resources to close database when done
-        try (Connection tryDatabase = config.isDuckDbInMemory() ?
-                SqlUtils.openConnection()
-                : SqlUtils.openConnection(Path.of(databasePath))) {
-            if(tryDatabase == null){
-                throw new KraftwerkException(500,"Error during internal database creation");
-            }
-            this.database = tryDatabase.createStatement();
+        try (DuckDbJobDatabase jobDatabase = openJobDatabase(collectionInstrumentId, databasePath)) {
+            this.database = jobDatabase.getStatement();
             processDataByBatch(collectionInstrumentId, batchSize, dataMode);
             outputFileWriter();
             writeErrors();
-            if (!database.isClosed()){database.close();}
         }catch (SQLException e){
             log.error(e.toString());
             throw new KraftwerkException(500,"SQL error");
         }
+        writeProcessingMetrics();
         SqlUtils.deleteDatabaseFile(databasePath);
     }
 
@@ -151,10 +146,10 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
         Path tmpOutputFile = createTempOutputFile(id);
 
         //Try with resources to close database when done
-        try (Connection connection = openDatabaseConnection(databasePath);
+        try (DuckDbJobDatabase jobDatabase = openJobDatabase(id, databasePath);
              JsonGenerator jsonGenerator = createJsonGenerator(tmpOutputFile)) {
 
-            this.database = connection.createStatement();
+            this.database = jobDatabase.getStatement();
 
             List<List<InterrogationId>> partitions = ListUtils.partition(ids, batchSize);
             int nbPartitions = partitions.size();
@@ -165,20 +160,25 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
                     .build();
             jsonGenerator.writeStartArray();
 
-            for (List<InterrogationId> listId : partitions) {
-                List<SurveyUnitUpdateLatest> suLatest = client.getResponses(id, listId, kraftwerkExecutionContext.getRecordedBefore());
-                log.info("Number of documents retrieved from database : {}, partition {}/{}", suLatest.size(), indexPartition, nbPartitions);
-                vtlBindings = new VtlBindings();
-                // if one mode is specified we filter to keep data of that mode only
-                if (dataMode != null) {
-                    suLatest = suLatest.stream().filter(su -> su.getMode() == dataMode).toList();
-                    log.info("Number of documents kept for mode {}", dataMode);
+            // Responses of the next partitions are fetched while the current partition is processed
+            try (GenesisResponsesPrefetcher prefetcher = new GenesisResponsesPrefetcher(partitions,
+                    listId -> client.getResponses(id, listId, kraftwerkExecutionContext.getRecordedBefore()),
+                    config.getGenesisPrefetchDepth())) {
+                for (List<InterrogationId> listId : partitions) {
+                    List<SurveyUnitUpdateLatest> suLatest = prefetcher.next();
+                    log.info("Number of documents retrieved from database : {}, partition {}/{}", suLatest.size(), indexPartition, nbPartitions);
+                    vtlBindings = new VtlBindings();
+                    // if one mode is specified we filter to keep data of that mode only
+                    if (dataMode != null) {
+                        suLatest = suLatest.stream().filter(su -> su.getMode() == dataMode).toList();
+                        log.info("Number of documents kept for mode {}", dataMode);
+                    }
+                    unimodalProcess(suLatest);
+                    multimodalProcess();
+                    insertDatabase();
+                    tmpJsonFileWriter(listId, suLatest, objectMapper, jsonGenerator, database);
+                    indexPartition++;
                 }
-                unimodalProcess(suLatest);
-                multimodalProcess();
-                insertDatabase();
-                tmpJsonFileWriter(listId, suLatest, objectMapper, jsonGenerator, database);
-                indexPartition++;
             }
 
             jsonGenerator.writeEndArray(); // End of Json Array
@@ -190,6 +190,7 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
 
         moveTempFile(outputFileName(id), tmpOutputFile);
         writeErrors();
+        writeProcessingMetrics();
 
         if (updateLastExtraction) {
             LastJsonExtractionDate lastJsonExtractionDate = new LastJsonExtractionDate();
@@ -228,10 +229,10 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
         List<InterrogationId> successIds = new ArrayList<>();
         List<DebugErrorDto> errors = new ArrayList<>();
 
-        try (Connection connection = openDatabaseConnection(databasePath);
+        try (DuckDbJobDatabase jobDatabase = openJobDatabase(id, databasePath);
              JsonGenerator jsonGenerator = createJsonGenerator(tmpOutputFile)) {
 
-            this.database = connection.createStatement();
+            this.database = jobDatabase.getStatement();
 
             JsonMapper objectMapper = JsonMapper.builder()
                     .enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
@@ -313,6 +314,7 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
         }
         moveTempFile(outputFileName(id), tmpOutputFile);
         writeErrors();
+        writeProcessingMetrics();
 
         return new DebugJsonExportResultDto(id, successIds, errors);
     }
@@ -330,17 +332,6 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
                 JsonEncoding.UTF8
         );    }
 
-    @SuppressWarnings("ConstantConditions")
-    private Connection openDatabaseConnection(String databasePath) throws SQLException, KraftwerkException {
-        Connection connection = config.isDuckDbInMemory()
-                ? SqlUtils.openConnection()
-                : SqlUtils.openConnection(Path.of(databasePath));
-        if (connection == null) {
-            throw new KraftwerkException(500, "Error during internal database creation");
-        }
-        return connection;
-    }
-
     /**
      * Resolve the beginning date for extraction.
      * <p>
@@ -430,7 +421,7 @@ public class MainProcessingGenesisNew extends AbstractMainProcessingGenesis{
                                         ObjectMapper objectMapper,
                                         JsonGenerator jsonGenerator,
                                         Statement database) throws KraftwerkException, IOException {
-        JsonWriterSequence jsonWriterSequence = new JsonWriterSequence();
+        JsonWriterSequence jsonWriterSequence = new JsonWriterSequence(config.isJsonSetBasedExport());
         jsonWriterSequence.tmpJsonOutput(listIds, suLatest, objectMapper, jsonGenerator, metadataModelsByMode, database);
     }
 
@@ -15,7 +15,7 @@ import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
 import fr.insee.kraftwerk.core.sequence.InsertDatabaseSequence;
 import fr.insee.kraftwerk.core.sequence.WriterSequence;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
-import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbJobDatabase;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import fr.insee.kraftwerk.core.vtl.VtlExecute;
@@ -23,7 +23,6 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.file.Path;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -82,6 +81,7 @@ public class ReportingDataProcessing {
                 0L,
                 false
         );
+        kraftwerkExecutionContext.copySettingsTo(context);
         DataProcessing dataProcessing = DataProcessingManager.getProcessingClass(
                 DataFormat.LUNATIC_XML,
                 vtlBindings,
@@ -95,20 +95,20 @@ public class ReportingDataProcessing {
                         .resolve("reporting_datas.vtl"),
                 context);
 
-        try (Connection writeDatabaseConnection = SqlUtils.openConnection()) {
-            try(Statement writeDatabase = writeDatabaseConnection.createStatement()){
-                InsertDatabaseSequence insertDatabaseSequence = new InsertDatabaseSequence();
-                insertDatabaseSequence.insertDatabaseProcessing(vtlBindings, writeDatabase, kraftwerkExecutionContext);
-                WriterSequence writerSequence = new WriterSequence();
-                writerSequence.writeOutputFiles(inOrSpecDirectory,
-                        "_REPORTING_DATA_ONLY",
-                        vtlBindings,
-                        modeInputs,
-                        context,
-                        writeDatabase,
-                        fileUtilsInterface
-                );
-            }
+        try (DuckDbJobDatabase writeDatabaseConnection = DuckDbJobDatabase.open(reportingDataFilePathParam, null,
+                kraftwerkExecutionContext.getDuckDbSettings(), kraftwerkExecutionContext.getProcessingMetrics())) {
+            Statement writeDatabase = writeDatabaseConnection.getStatement();
+            InsertDatabaseSequence insertDatabaseSequence = new InsertDatabaseSequence();
+            insertDatabaseSequence.insertDatabaseProcessing(vtlBindings, writeDatabase, kraftwerkExecutionContext);
+            WriterSequence writerSequence = new WriterSequence();
+            writerSequence.writeOutputFiles(inOrSpecDirectory,
+                    "_REPORTING_DATA_ONLY",
+                    vtlBindings,
+                    modeInputs,
+                    context,
+                    writeDatabase,
+                    fileUtilsInterface
+            );
         }catch (SQLException e){
             log.error(e.toString());
             throw new KraftwerkException(500, "SQL Error");
@@ -35,7 +35,6 @@ import java.util.UUID;
 @Slf4j
 public class BatchExportService extends KraftwerkService {
 
-    private final ConfigProperties configProperties;
     private final MinioConfig minioConfig;
     private final InMemoryExportJobStore exportJobStore;
     private final OutputZipService outputZipService;
@@ -52,7 +51,6 @@ public class BatchExportService extends KraftwerkService {
             OutputZipService outputZipService
     ) {
         super(configProperties, minioConfig);
-        this.configProperties = configProperties;
         this.minioConfig = minioConfig;
         this.exportJobStore = exportJobStore;
         this.outputZipService = outputZipService;
@@ -87,14 +85,7 @@ public class BatchExportService extends KraftwerkService {
             FileUtilsInterface fileUtilsInterface,
             boolean addStates
     ) {
-        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-                inDirectoryParam,
-                fileByFile,
-                withDDI,
-                withEncryption,
-                limitSize,
-                addStates
-        );
+        KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, fileByFile, withDDI, withEncryption, addStates);
 
         return new MainProcessing(kraftwerkExecutionContext, defaultDirectory, fileUtilsInterface);
     }
@@ -105,14 +96,7 @@ public class BatchExportService extends KraftwerkService {
             FileUtilsInterface fileUtilsInterface,
             boolean addStates
     ) {
-        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-                null,
-                false,
-                withDDI,
-                withEncryption,
-                limitSize,
-                addStates
-        );
+        KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(null, false, withDDI, withEncryption, addStates);
 
         return new MainProcessingGenesisNew(
                 configProperties,
@@ -28,14 +28,12 @@ public class HealthcheckService extends KraftwerkService {
 
 	private final GenesisClient client;
 
-	ConfigProperties configProperties;
 
     @Autowired
     public HealthcheckService(ConfigProperties configProperties,
                               MinioConfig minioConfig,
                               GenesisClient genesisClient) {
         super(configProperties, minioConfig);
-        this.configProperties = configProperties;
         this.client = genesisClient;
     }
 
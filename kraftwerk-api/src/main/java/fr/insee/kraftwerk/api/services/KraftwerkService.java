@@ -5,10 +5,13 @@ import fr.insee.kraftwerk.api.configuration.ConfigProperties;
 import fr.insee.kraftwerk.api.configuration.MinioConfig;
 import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.metadata.MetadataCache;
 import fr.insee.kraftwerk.core.sequence.ControlInputSequence;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.utils.files.MinioImpl;
+import fr.insee.kraftwerk.core.vtl.StepPersistenceFormat;
 import io.minio.MinioClient;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -45,11 +48,16 @@ public class KraftwerkService {
 
 	MinioConfig minioConfig;
 
+	protected ConfigProperties configProperties;
 
 	protected ControlInputSequence controlInputSequence ;
 
+	/** Cache of the metadata models, given to the processing contexts */
+	private MetadataCache metadataCache = MetadataCache.DISABLED;
+
 	@Autowired
 	public KraftwerkService(ConfigProperties configProperties, MinioConfig minioConfig){
+		this.configProperties = configProperties;
 		this.minioConfig = minioConfig;
 		FileUtilsInterface fileUtilsInterface;
 		if(minioConfig != null && minioConfig.isEnable()){
@@ -64,6 +72,38 @@ public class KraftwerkService {
 		controlInputSequence = new ControlInputSequence(configProperties.getDefaultDirectory(), fileUtilsInterface);
 	}
 	
+	/**
+	 * Create the execution context of a processing, with the processing settings of the configuration
+	 */
+	protected KraftwerkExecutionContext createExecutionContext(String inDirectoryParam, boolean fileByFile,
+																boolean withDDI, boolean withEncryption, boolean addStates) {
+		KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
+				inDirectoryParam,
+				fileByFile,
+				withDDI,
+				withEncryption,
+				limitSize,
+				addStates
+		);
+		kraftwerkExecutionContext.setJsonVtlDatasetConversion(configProperties.isJsonVtlDatasetConversion());
+		kraftwerkExecutionContext.setSqlMultimodalProcessing(configProperties.isSqlMultimodalProcessing());
+		kraftwerkExecutionContext.setStepPersistenceFormat(
+				StepPersistenceFormat.fromLabel(configProperties.getStepPersistenceFormat()));
+		kraftwerkExecutionContext.setExportParallelism(configProperties.getExportParallelism());
+		kraftwerkExecutionContext.setLunaticXmlStreaming(configProperties.isLunaticXmlStreaming());
+		kraftwerkExecutionContext.setParseParallelism(configProperties.getParseParallelism());
+		kraftwerkExecutionContext.setModeParallelism(configProperties.getModeParallelism());
+		kraftwerkExecutionContext.setDuckDbSettings(configProperties.getDuckDbSettings());
+		kraftwerkExecutionContext.setParquetOutputSettings(configProperties.getParquetOutputSettings());
+		kraftwerkExecutionContext.setMetadataCache(metadataCache);
+		return kraftwerkExecutionContext;
+	}
+
+	@Autowired(required = false)
+	public void setMetadataCache(MetadataCache metadataCache) {
+		this.metadataCache = metadataCache;
+	}
+
 	public ResponseEntity<String> archive(String inDirectoryParam, FileUtilsInterface fileUtilsInterface) {
 		Path inDirectory;
 		try {
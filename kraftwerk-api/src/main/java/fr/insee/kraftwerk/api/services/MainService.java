@@ -14,6 +14,7 @@ import fr.insee.kraftwerk.api.process.MainProcessing;
 import fr.insee.kraftwerk.api.process.MainProcessingGenesisLegacy;
 import fr.insee.kraftwerk.api.process.MainProcessingGenesisNew;
 import fr.insee.kraftwerk.api.services.async.InMemoryExportJobStore;
+import fr.insee.kraftwerk.api.services.async.JobAdmissionController;
 import fr.insee.kraftwerk.api.services.async.MainAsyncService;
 import fr.insee.kraftwerk.api.utils.DateTimeUtils;
 import fr.insee.kraftwerk.core.data.model.Mode;
@@ -31,9 +32,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -55,11 +59,11 @@ import java.util.UUID;
 public class MainService extends KraftwerkService {
 
     MainAsyncService mainAsyncService;
-    ConfigProperties configProperties;
     MinioClient minioClient;
     VaultConfig vaultConfig;
     boolean useMinio;
     InMemoryExportJobStore exportJobStore;
+    JobAdmissionController jobAdmissionController;
     private final Clock clock;
     private final OutputZipService outputZipService;
     private final GenesisClient genesisClient;
@@ -67,16 +71,16 @@ public class MainService extends KraftwerkService {
 
 
     @Autowired
-    public MainService(MainAsyncService mainAsyncService, ConfigProperties configProperties, MinioConfig minioConfig, VaultConfig vaultConfig, Environment env, InMemoryExportJobStore exportJobStore, Clock clock, OutputZipService outputZipService, GenesisClient genesisClient) {
+    public MainService(MainAsyncService mainAsyncService, ConfigProperties configProperties, MinioConfig minioConfig, VaultConfig vaultConfig, Environment env, InMemoryExportJobStore exportJobStore, JobAdmissionController jobAdmissionController, Clock clock, OutputZipService outputZipService, GenesisClient genesisClient) {
         super(configProperties, minioConfig);
         this.mainAsyncService = mainAsyncService;
-        this.configProperties = configProperties;
         this.clock = clock;
         this.outputZipService = outputZipService;
         this.genesisClient = genesisClient;
         this.minioConfig = minioConfig;
         this.vaultConfig = vaultConfig;
         this.exportJobStore = exportJobStore;
+        this.jobAdmissionController = jobAdmissionController;
 
         useMinio = false;
         if(minioConfig == null){
@@ -108,8 +112,8 @@ public class MainService extends KraftwerkService {
                 addStates
         );
         String jobId = UUID.randomUUID().toString();
-        mainAsyncService.runWithoutGenesis(jobId, fileUtilsInterface, mp, inDirectoryParam, archiveAtEnd, fileByFile, withDDI, withEncryption);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, inDirectoryParam, () ->
+                mainAsyncService.runWithoutGenesis(jobId, fileUtilsInterface, mp, inDirectoryParam, archiveAtEnd, fileByFile, withDDI, withEncryption));
     }
 
     @PutMapping(value = "/main/file-by-file")
@@ -133,8 +137,8 @@ public class MainService extends KraftwerkService {
                 addStates
         );
         String jobId = UUID.randomUUID().toString();
-        mainAsyncService.runWithoutGenesis(jobId, fileUtilsInterface, mp, inDirectoryParam, archiveAtEnd, fileByFile, withDDI, withEncryption);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, inDirectoryParam, () ->
+                mainAsyncService.runWithoutGenesis(jobId, fileUtilsInterface, mp, inDirectoryParam, archiveAtEnd, fileByFile, withDDI, withEncryption));
     }
 
     @PutMapping(value = "/main/lunatic-only")
@@ -157,8 +161,8 @@ public class MainService extends KraftwerkService {
                 addStates
         );
         String jobId = UUID.randomUUID().toString();
-        mainAsyncService.runWithoutGenesis(jobId, fileUtilsInterface, mp, inDirectoryParam, archiveAtEnd, fileByFile, withDDI, withEncryption);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, inDirectoryParam, () ->
+                mainAsyncService.runWithoutGenesis(jobId, fileUtilsInterface, mp, inDirectoryParam, archiveAtEnd, fileByFile, withDDI, withEncryption));
     }
 
     /**
@@ -183,8 +187,8 @@ public class MainService extends KraftwerkService {
                 false
         );
         String jobId = UUID.randomUUID().toString();
-        mainAsyncService.runWithGenesis(jobId,fileUtilsInterface, mpGenesis, campaignId, withDDI, withEncryption, batchSize);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, campaignId, () ->
+                mainAsyncService.runWithGenesis(jobId,fileUtilsInterface, mpGenesis, campaignId, withDDI, withEncryption, batchSize));
     }
 
     @PutMapping(value = "/main/genesis/by-questionnaire")
@@ -199,15 +203,16 @@ public class MainService extends KraftwerkService {
         boolean withDDI = true;
         FileUtilsInterface fileUtilsInterface = getFileUtilsInterface();
         String jobId = UUID.randomUUID().toString();
-        exportJobStore.start(jobId);
         MainProcessingGenesisNew mpGenesis = getMainProcessingGenesisByQuestionnaire(
                 withDDI,
                 withEncryption,
                 fileUtilsInterface,
                 addStates
         );
-        mainAsyncService.runWithGenesisByQuestionnaire(jobId,fileUtilsInterface, mpGenesis, questionnaireModelId, withDDI, withEncryption, batchSize, dataMode);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, questionnaireModelId, () -> {
+            exportJobStore.start(jobId);
+            mainAsyncService.runWithGenesisByQuestionnaire(jobId,fileUtilsInterface, mpGenesis, questionnaireModelId, withDDI, withEncryption, batchSize, dataMode);
+        });
     }
 
     @GetMapping("/jobs/{jobId}")
@@ -247,8 +252,8 @@ public class MainService extends KraftwerkService {
                 false
         );
         String jobId = UUID.randomUUID().toString();
-        mainAsyncService.runWithGenesis(jobId,fileUtilsInterface, mpGenesis, campaignId, withDDI, withEncryption, batchSize);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, campaignId, () ->
+                mainAsyncService.runWithGenesis(jobId,fileUtilsInterface, mpGenesis, campaignId, withDDI, withEncryption, batchSize));
     }
 
     @PutMapping(value = "/main/genesis/by-questionnaire/lunatic-only")
@@ -269,8 +274,8 @@ public class MainService extends KraftwerkService {
                 addStates
         );
         String jobId = UUID.randomUUID().toString();
-        mainAsyncService.runWithGenesisByQuestionnaire(jobId,fileUtilsInterface, mpGenesis, questionnaireModelId, withDDI, withEncryption, batchSize, dataMode);
-        return ResponseEntity.accepted().body(jobId);
+        return submitJob(jobId, questionnaireModelId, () ->
+                mainAsyncService.runWithGenesisByQuestionnaire(jobId,fileUtilsInterface, mpGenesis, questionnaireModelId, withDDI, withEncryption, batchSize, dataMode));
 
     }
 
@@ -479,14 +484,7 @@ public class MainService extends KraftwerkService {
             boolean addStates
     ){
 
-        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-                null,
-                false,
-                withDDI,
-                withEncryption,
-                limitSize,
-                addStates
-        );
+        KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(null, false, withDDI, withEncryption, addStates);
 
         return new MainProcessingGenesisLegacy(
                 configProperties,
@@ -503,14 +501,7 @@ public class MainService extends KraftwerkService {
             FileUtilsInterface fileUtilsInterface,
             boolean addStates
     ){
-        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-                null,
-                false,
-                withDDI,
-                withEncryption,
-                limitSize,
-                addStates
-        );
+        KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(null, false, withDDI, withEncryption, addStates);
 
         return new MainProcessingGenesisNew(
                 configProperties,
@@ -528,18 +519,40 @@ public class MainService extends KraftwerkService {
             FileUtilsInterface fileUtilsInterface,
             boolean addStates
     ) {
-        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-                inDirectoryParam,
-                fileByFile,
-                withDDI,
-                withEncryption,
-                limitSize,
-                addStates
-        );
+        KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, fileByFile, withDDI, withEncryption, addStates);
 
         return new MainProcessing(kraftwerkExecutionContext, defaultDirectory, fileUtilsInterface);
     }
 
+    /**
+     * Submit an asynchronous job if it is admitted, the admission being released by the job when it ends
+     * @param jobId id of the job
+     * @param questionnaire questionnaire, campaign or folder the job works on
+     * @param submission submission of the job to the asynchronous service
+     * @return 202 with the job id, or 429 if too many jobs are running or queued
+     */
+    ResponseEntity<String> submitJob(String jobId, String questionnaire, Runnable submission) {
+        String tenant = getTenant();
+        if (!jobAdmissionController.tryAdmit(jobId, tenant, questionnaire)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("Too many jobs running for %s, retry later".formatted(questionnaire));
+        }
+        try {
+            submission.run();
+        } catch (TaskRejectedException e) {
+            log.warn("Job {} rejected by the executor : {}", jobId, e.getMessage());
+            jobAdmissionController.release(jobId);
+            exportJobStore.fail(jobId, e);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Job queue is full, retry later");
+        }
+        return ResponseEntity.accepted().body(jobId);
+    }
+
+    private static String getTenant() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication.getName() == null ? "anonymous" : authentication.getName();
+    }
+
     @NotNull FileUtilsInterface getFileUtilsInterface() {
         FileUtilsInterface fileUtilsInterface;
         if(useMinio){
@@ -0,0 +1,162 @@
+package fr.insee.kraftwerk.api.services;
+
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Gives the content of storage objects, in the order of their paths.
+ * With a prefetch depth greater than 0, the next objects are read on virtual threads while the current one
+ * is processed. Objects read in advance are kept in memory within a byte budget : an object which doesn't fit
+ * in the remaining budget is read when its turn comes.
+ * With a depth of 0, each object is read when asked for.
+ */
+@Slf4j
+public class ObjectStreamPrefetcher implements AutoCloseable {
+
+    /** Content of an object read in advance, null if the object could not be read */
+    private record PrefetchedObject(byte[] content, int reservedBytes) {}
+
+    private final List<String> objectPaths;
+    private final FileUtilsInterface fileUtils;
+    private final int prefetchDepth;
+    private final Semaphore byteBudget;
+    private final ExecutorService executorService;
+    /** Objects read in advance, null for an object to read when its turn comes */
+    private final Deque<Future<PrefetchedObject>> prefetchedObjects = new ArrayDeque<>();
+    /** Index of the next object to give */
+    private int nextObjectIndex = 0;
+    /** Index of the next object to read in advance */
+    private int nextPrefetchIndex = 0;
+
+    /**
+     * @param objectPaths paths of the objects, in the order they are asked for
+     * @param fileUtils abstraction used to read the objects
+     * @param prefetchDepth maximum number of objects read in advance
+     * @param byteBudget maximum number of bytes of the objects read in advance and not yet processed
+     */
+    public ObjectStreamPrefetcher(List<String> objectPaths, FileUtilsInterface fileUtils,
+                                  int prefetchDepth, long byteBudget) {
+        this.objectPaths = objectPaths;
+        this.fileUtils = fileUtils;
+        this.prefetchDepth = byteBudget > 0 ? Math.max(prefetchDepth, 0) : 0;
+        this.byteBudget = new Semaphore((int) Math.min(Math.max(byteBudget, 0), Integer.MAX_VALUE));
+        this.executorService = this.prefetchDepth > 0 ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        prefetch();
+    }
+
+    public boolean hasNext() {
+        return nextObjectIndex < objectPaths.size();
+    }
+
+    /**
+     * Return the content of the next object, and start reading the following objects in advance.
+     * The stream must be closed to give its bytes back to the budget.
+     * @return content of the next object, null if it can't be read
+     * @throws KraftwerkException if the object read in advance failed
+     */
+    public InputStream next() throws KraftwerkException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more object to read");
+        }
+        String objectPath = objectPaths.get(nextObjectIndex++);
+        if (executorService == null) {
+            return fileUtils.readFile(objectPath);
+        }
+        Future<PrefetchedObject> prefetchedObject = prefetchedObjects.removeFirst();
+        prefetch();
+        PrefetchedObject object;
+        try {
+            object = prefetchedObject.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KraftwerkException(500, "Interrupted while reading object " + objectPath);
+        } catch (ExecutionException e) {
+            throw new KraftwerkException(500, "IO error reading object " + objectPath + ": " + e.getCause().getMessage());
+        }
+        if (object == null) {
+            return fileUtils.readFile(objectPath);
+        }
+        if (object.content() == null) {
+            return null;
+        }
+        return new BudgetInputStream(object.content(), object.reservedBytes());
+    }
+
+    /** Submit the reading of the next objects, up to the prefetch depth */
+    private void prefetch() {
+        if (executorService == null) {
+            return;
+        }
+        while (nextPrefetchIndex < objectPaths.size() && prefetchedObjects.size() < prefetchDepth) {
+            String objectPath = objectPaths.get(nextPrefetchIndex++);
+            prefetchedObjects.addLast(executorService.submit(() -> readObject(objectPath)));
+        }
+        log.debug("{} object(s) read in advance", prefetchedObjects.size());
+    }
+
+    private PrefetchedObject readObject(String objectPath) throws IOException {
+        long size;
+        try {
+            size = fileUtils.getSizeOf(objectPath);
+        } catch (RuntimeException e) {
+            // Unknown size : the object is read when its turn comes
+            size = 0;
+        }
+        if (size <= 0 || size > Integer.MAX_VALUE || !byteBudget.tryAcquire((int) size)) {
+            return null;
+        }
+        int reservedBytes = (int) size;
+        try (InputStream inputStream = fileUtils.readFile(objectPath)) {
+            if (inputStream == null) {
+                byteBudget.release(reservedBytes);
+                return new PrefetchedObject(null, 0);
+            }
+            return new PrefetchedObject(inputStream.readAllBytes(), reservedBytes);
+        } catch (IOException | RuntimeException e) {
+            byteBudget.release(reservedBytes);
+            throw e;
+        }
+    }
+
+    /** Cancel the readings still in progress */
+    @Override
+    public void close() {
+        if (executorService != null) {
+            prefetchedObjects.forEach(future -> future.cancel(true));
+            prefetchedObjects.clear();
+            executorService.shutdownNow();
+        }
+    }
+
+    /** Content of an object read in advance, giving its bytes back to the budget when closed */
+    private final class BudgetInputStream extends ByteArrayInputStream {
+
+        private int reservedBytes;
+
+        private BudgetInputStream(byte[] content, int reservedBytes) {
+            super(content);
+            this.reservedBytes = reservedBytes;
+        }
+
+        @Override
+        public void close() {
+            byteBudget.release(reservedBytes);
+            reservedBytes = 0;
+        }
+    }
+
+}
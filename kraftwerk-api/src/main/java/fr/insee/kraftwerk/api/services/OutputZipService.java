@@ -1,35 +1,68 @@
 package fr.insee.kraftwerk.api.services;
 
 
+import fr.insee.kraftwerk.api.configuration.ConfigProperties;
 import fr.insee.kraftwerk.core.encryption.EncryptionUtils;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static fr.insee.kraftwerk.core.Constants.ENCRYPTED_FILE_EXTENSION;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OutputZipService {
 
     private static final String ZIP_EXTENSION = ".zip";
-    private static final String TMPDIR_PROPERTY = "java.io.tmpdir";
+    /** Size of the pipe between the zip and its encryption */
+    private static final int PIPE_SIZE = 1024 * 1024;
 
     private final EncryptionUtils encryptionUtils;
+    /** Number of storage objects read in advance while the current one is zipped */
+    private final int prefetchDepth;
+    /** Maximum number of bytes of the objects read in advance */
+    private final long prefetchBudgetBytes;
+
+    /** File or object to put in the archive */
+    private record ZipSource(String entryName, String path) {}
+
+    public OutputZipService(EncryptionUtils encryptionUtils) {
+        this(encryptionUtils, 0, 0);
+    }
+
+    @Autowired
+    public OutputZipService(EncryptionUtils encryptionUtils, ConfigProperties configProperties) {
+        this(encryptionUtils,
+                configProperties.getArchivePrefetchDepth(),
+                configProperties.getArchivePrefetchBudgetMb() * 1024L * 1024L);
+    }
+
+    public OutputZipService(EncryptionUtils encryptionUtils, int prefetchDepth, long prefetchBudgetBytes) {
+        this.encryptionUtils = encryptionUtils;
+        this.prefetchDepth = prefetchDepth;
+        this.prefetchBudgetBytes = prefetchBudgetBytes;
+    }
 
     /**
      * Archives outputs only when encryption is enabled.
@@ -38,9 +71,10 @@ public class OutputZipService {
      *
      * <p>If withEncryption=true:</p>
      * <ul>
-     *   <li>creates a zip from outDirectory (local directory or Minio/S3 prefix),</li>
-     *   <li>encrypts it into outDirectoryName.zip.enc next to outDirectory (same parent),</li>
-     *   <li>then deletes outDirectory.</li>
+     *   <li>zips the content of outDirectory (local directory or Minio/S3 prefix),</li>
+     *   <li>encrypts the zip as it is built into outDirectory/outDirectoryName.zip.enc,
+     *   outputs being read once and no temporary file being written,</li>
+     *   <li>then deletes the archived content of outDirectory.</li>
      * </ul>
      */
     public void encryptAndArchiveOutputs(KraftwerkExecutionContext kraftwerkExecutionContext,
@@ -51,49 +85,85 @@ public class OutputZipService {
             return;
         }
         Path outDirectory = requireOutDirectory(kraftwerkExecutionContext);
+        String baseName = outDirectory.getFileName().toString();
+        String targetEncPath = resolveTargetEncPath(outDirectory, baseName, ENCRYPTED_FILE_EXTENSION);
 
-        Path tempZipFile = null;
-        Path tempEncFile = null;
-
-        try {
-            Path tmpDir = Path.of(System.getProperty(TMPDIR_PROPERTY));
-            Files.createDirectories(tmpDir);
-            String baseName = outDirectory.getFileName().toString();
-
-            tempZipFile = Files.createTempFile(tmpDir, baseName + "_", ZIP_EXTENSION);
-            buildZip(outDirectory, tempZipFile, fileUtils);
-
-            tempEncFile = Files.createTempFile(tmpDir, baseName + "_", ZIP_EXTENSION + ENCRYPTED_FILE_EXTENSION);
-
-            encryptZipToEncryptedFile(tempZipFile, tempEncFile, kraftwerkExecutionContext);
-
-            String targetEncPath = resolveTargetEncPath(outDirectory, baseName, ENCRYPTED_FILE_EXTENSION);
+        boolean isLocalDirectory = Files.isDirectory(outDirectory);
+        if (!isLocalDirectory && Files.exists(outDirectory)) {
+            throw new KraftwerkException(400, "outDirectory must be a directory, got: " + outDirectory);
+        }
+        // Sources are listed before the encrypted archive is written next to them
+        List<ZipSource> zipSources = isLocalDirectory
+                ? listLocalDirectory(outDirectory, targetEncPath)
+                : listMinioPrefix(outDirectory, targetEncPath, fileUtils);
 
-            deleteWithRetry(tempZipFile);
-            tempZipFile = null;
+        writeEncryptedZip(zipSources, isLocalDirectory ? null : fileUtils, targetEncPath,
+                kraftwerkExecutionContext, fileUtils);
 
-            fileUtils.deleteDirectoryContent(outDirectory);
+        deleteArchivedContent(outDirectory, isLocalDirectory, targetEncPath, fileUtils);
 
-            fileUtils.moveFile(tempEncFile, targetEncPath);
-            tempEncFile = null;
+        log.info("Encrypted archive created at {}", targetEncPath);
+        log.info("Deleted non-encrypted content from {}", outDirectory);
+    }
 
-            log.info("Encrypted archive created at {}", targetEncPath);
-            log.info("Deleted non-encrypted content from {}", outDirectory);
+    /**
+     * Writes the encrypted zip of the sources : the zip is built by another thread into a pipe,
+     * which is encrypted and written to the target as it is read.
+     * @param sourceFileUtils abstraction used to read Minio objects, null to read local files
+     */
+    private void writeEncryptedZip(List<ZipSource> zipSources,
+                                   FileUtilsInterface sourceFileUtils,
+                                   String targetEncPath,
+                                   KraftwerkExecutionContext kraftwerkExecutionContext,
+                                   FileUtilsInterface fileUtils) throws KraftwerkException {
+        try (ExecutorService zipExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ZipPipeInputStream zipInputStream = new ZipPipeInputStream();
+            PipedOutputStream zipPipeOutputStream = new PipedOutputStream(zipInputStream);
+
+            Future<Void> zipWriting = zipExecutor.submit(() -> {
+                try {
+                    ZipOutputStream zipOutputStream = new ZipOutputStream(zipPipeOutputStream);
+                    writeZipEntries(zipSources, zipOutputStream, sourceFileUtils);
+                    zipOutputStream.close();
+                } catch (IOException | KraftwerkException | RuntimeException e) {
+                    zipInputStream.fail(e, zipPipeOutputStream);
+                    throw e;
+                }
+                return null;
+            });
 
+            CountingInputStream encrypted;
+            try {
+                encrypted = new CountingInputStream(
+                        encryptionUtils.encryptInputStream(zipInputStream, kraftwerkExecutionContext));
+                try (encrypted) {
+                    fileUtils.writeFile(targetEncPath, encrypted, true);
+                }
+            } finally {
+                // Stops the zip if the encrypted archive has not been entirely read
+                zipInputStream.close();
+            }
+            zipWriting.get();
+            // Storage implementations log write errors : the written size is checked before outputs are deleted
+            if (!encrypted.isEnded() || fileUtils.getSizeOf(targetEncPath) != encrypted.getCount()) {
+                fileUtils.deleteFile(targetEncPath);
+                throw new KraftwerkException(500, "Encrypted archive could not be entirely written to " + targetEncPath);
+            }
         } catch (IOException e) {
-            cleanupTemps(tempZipFile, tempEncFile);
             throw new KraftwerkException(500, "IO error during output archive: " + e.getMessage());
+        } catch (ExecutionException e) {
+            fileUtils.deleteFile(targetEncPath);
+            if (e.getCause() instanceof KraftwerkException kraftwerkException) {
+                throw kraftwerkException;
+            }
+            throw new KraftwerkException(500, "IO error during output archive: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fileUtils.deleteFile(targetEncPath);
+            throw new KraftwerkException(500, "Interrupted during output archive");
         }
-    }
-
-    /**
-     * Encrypts a local zip file into a local encrypted file.
-     */
-    private void encryptZipToEncryptedFile(Path zipFile, Path encFile, KraftwerkExecutionContext kraftwerkExecutionContext)
-            throws IOException, KraftwerkException {
-        try (InputStream encrypted = encryptionUtils.encryptOutputFile(zipFile, kraftwerkExecutionContext);
-             OutputStream out = Files.newOutputStream(encFile, StandardOpenOption.TRUNCATE_EXISTING)) {
-            encrypted.transferTo(out);
+        if (!fileUtils.isFileExists(targetEncPath)) {
+            throw new KraftwerkException(500, "Encrypted archive could not be written to " + targetEncPath);
         }
     }
 
@@ -112,51 +182,23 @@ public class OutputZipService {
         return outDirectory;
     }
 
-
-    private void cleanupTemps(Path zip, Path enc) {
-        if (enc != null) deleteWithRetry(enc);
-        if (zip != null) deleteWithRetry(zip);
-    }
-
-
-    /**
-     * Builds the zip at zipFile from outDir, supporting both:
-     * - filesystem outDir (exists locally)
-     * - Minio outDir (prefix)
-     */
-    private void buildZip(Path outDirectory, Path zipFile, FileUtilsInterface fileUtils)
-            throws KraftwerkException, IOException {
-
-        Files.deleteIfExists(zipFile);
-
-        try (ZipOutputStream zipOutputStream = new ZipOutputStream(
-                Files.newOutputStream(zipFile, StandardOpenOption.CREATE_NEW))) {
-
-            if (Files.isDirectory(outDirectory)) {
-                zipLocalDirectory(outDirectory, zipOutputStream);
-                return;
-            }
-
-            if (Files.exists(outDirectory)) {
-                throw new KraftwerkException(400, "outDirectory must be a directory, got: " + outDirectory);
-            }
-
-            zipMinioPrefix(outDirectory, zipOutputStream, fileUtils);
-        }
-    }
-
-    private void zipLocalDirectory(Path outDirectory, ZipOutputStream zipOutputStream) throws IOException {
-        try (var paths = Files.walk(outDirectory)) {
+    private List<ZipSource> listLocalDirectory(Path outDirectory, String targetEncPath) throws KraftwerkException {
+        List<ZipSource> zipSources = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(outDirectory)) {
             for (Path path : (Iterable<Path>) paths::iterator) {
-                if (!Files.isRegularFile(path)) {
+                if (!Files.isRegularFile(path) || path.equals(Path.of(targetEncPath))) {
                     continue;
                 }
-                addFileToZip(outDirectory, path, zipOutputStream);
+                String entryName = outDirectory.relativize(path).toString().replace("\\", "/");
+                zipSources.add(new ZipSource(entryName, path.toString()));
             }
+        } catch (IOException e) {
+            throw new KraftwerkException(500, "IO error during output archive: " + e.getMessage());
         }
+        return zipSources;
     }
 
-    private void zipMinioPrefix(Path outDirectory, ZipOutputStream zipOutputStream, FileUtilsInterface fileUtils)
+    private List<ZipSource> listMinioPrefix(Path outDirectory, String targetEncPath, FileUtilsInterface fileUtils)
             throws KraftwerkException {
 
         String prefix = normalizePrefix(outDirectory.toString());
@@ -166,45 +208,94 @@ public class OutputZipService {
             throw new KraftwerkException(404, "No objects found for Minio prefix: " + prefix);
         }
 
+        String targetObjectPath = targetEncPath.replace("\\", "/");
+        List<ZipSource> zipSources = new ArrayList<>();
         for (String objectPath : objects) {
-            if (objectPath.endsWith("/")) continue;
-            addMinioObjectToZip(prefix, objectPath, zipOutputStream, fileUtils);
+            if (objectPath.endsWith("/") || objectPath.replace("\\", "/").equals(targetObjectPath)) continue;
+            String entryName = relativize(prefix, objectPath);
+            if (entryName.isBlank()) continue;
+            zipSources.add(new ZipSource(entryName, objectPath));
         }
+        return zipSources;
     }
 
-    private void addFileToZip(Path rootDir, Path file, ZipOutputStream zipOutputStream) throws IOException {
-        String entryName = rootDir.relativize(file).toString().replace("\\", "/");
-        zipOutputStream.putNextEntry(new ZipEntry(entryName));
-        Files.copy(file, zipOutputStream);
+    /**
+     * Writes the entries of the zip archive, in the order of the sources.
+     * Minio/S3 objects are read in advance while the current entry is compressed.
+     *
+     * @param fileUtils abstraction used to read Minio objects, null for local files
+     */
+    private void writeZipEntries(List<ZipSource> zipSources,
+                                 ZipOutputStream zipOutputStream,
+                                 FileUtilsInterface fileUtils) throws KraftwerkException, IOException {
+        if (fileUtils == null) {
+            for (ZipSource zipSource : zipSources) {
+                addFileToZip(zipSource, zipOutputStream);
+            }
+            return;
+        }
+        List<String> objectPaths = zipSources.stream().map(ZipSource::path).toList();
+        try (ObjectStreamPrefetcher objectStreamPrefetcher =
+                     new ObjectStreamPrefetcher(objectPaths, fileUtils, prefetchDepth, prefetchBudgetBytes)) {
+            for (ZipSource zipSource : zipSources) {
+                addMinioObjectToZip(zipSource, objectStreamPrefetcher.next(), zipOutputStream);
+            }
+        }
+    }
+
+    private void addFileToZip(ZipSource zipSource, ZipOutputStream zipOutputStream) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(zipSource.entryName()));
+        Files.copy(Path.of(zipSource.path()), zipOutputStream);
         zipOutputStream.closeEntry();
     }
 
     /**
      * Adds a Minio/S3 object to the zip archive.
      *
-     * @param prefix Minio directory prefix (used to compute relative zip entry name)
-     * @param objectPath full Minio object path
+     * @param zipSource entry name and full Minio object path
+     * @param objectInputStream content of the object, null if it can't be read
      * @param zipOutputStream open zip output stream
-     * @param fileUtils abstraction used to read Minio objects
      */
-    private void addMinioObjectToZip(String prefix,
-                                     String objectPath,
-                                     ZipOutputStream zipOutputStream,
-                                     FileUtilsInterface fileUtils) throws KraftwerkException {
-
-        String entryName = relativize(prefix, objectPath);
-        if (entryName.isBlank()) return;
-
-        try (InputStream inputStream = fileUtils.readFile(objectPath)) {
-            if (inputStream == null) {
-                log.warn("Cannot read object {}, skipping", objectPath);
-                return;
-            }
-            zipOutputStream.putNextEntry(new ZipEntry(entryName));
+    private void addMinioObjectToZip(ZipSource zipSource,
+                                     InputStream objectInputStream,
+                                     ZipOutputStream zipOutputStream) throws KraftwerkException {
+        if (objectInputStream == null) {
+            log.warn("Cannot read object {}, skipping", zipSource.path());
+            return;
+        }
+        try (InputStream inputStream = objectInputStream) {
+            zipOutputStream.putNextEntry(new ZipEntry(zipSource.entryName()));
             inputStream.transferTo(zipOutputStream);
             zipOutputStream.closeEntry();
         } catch (IOException e) {
-            throw new KraftwerkException(500, "IO error zipping object " + objectPath + ": " + e.getMessage());
+            throw new KraftwerkException(500, "IO error zipping object " + zipSource.path() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the content of outDirectory, except the encrypted archive.
+     */
+    private void deleteArchivedContent(Path outDirectory,
+                                       boolean isLocalDirectory,
+                                       String targetEncPath,
+                                       FileUtilsInterface fileUtils) throws KraftwerkException {
+        if (!isLocalDirectory) {
+            String targetObjectPath = targetEncPath.replace("\\", "/");
+            for (String objectPath : fileUtils.listFileNames(normalizePrefix(outDirectory.toString()))) {
+                if (!objectPath.replace("\\", "/").equals(targetObjectPath)) {
+                    fileUtils.deleteFile(objectPath);
+                }
+            }
+            return;
+        }
+        try (Stream<Path> paths = Files.list(outDirectory)) {
+            for (Path child : (Iterable<Path>) paths::iterator) {
+                if (!child.equals(Path.of(targetEncPath))) {
+                    FileSystemUtils.deleteRecursively(child);
+                }
+            }
+        } catch (IOException e) {
+            throw new KraftwerkException(500, "IOException when deleting directory content : " + e.getMessage());
         }
     }
 
@@ -230,17 +321,100 @@ public class OutputZipService {
         return normalizedObject;
     }
 
-    private void deleteWithRetry(Path path) {
-        for (int i = 0; i < 8; i++) {
+    /**
+     * Stream counting the bytes read, to check that the whole encrypted archive has been written.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+        private boolean ended;
+
+        private CountingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int readByte = super.read();
+            if (readByte == -1) {
+                ended = true;
+            } else {
+                count++;
+            }
+            return readByte;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int readBytes = super.read(bytes, offset, length);
+            if (readBytes == -1) {
+                ended = true;
+            } else {
+                count += readBytes;
+            }
+            return readBytes;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        private long getCount() {
+            return count;
+        }
+
+        private boolean isEnded() {
+            return ended;
+        }
+    }
+
+    /**
+     * Read side of the zip pipe. When the zip fails, the end of the pipe is reported as an error
+     * rather than as the end of a truncated archive.
+     */
+    private static final class ZipPipeInputStream extends PipedInputStream {
+
+        private volatile Exception zipFailure;
+
+        private ZipPipeInputStream() {
+            super(PIPE_SIZE);
+        }
+
+        private void fail(Exception e, PipedOutputStream zipPipeOutputStream) {
+            zipFailure = e;
             try {
-                Files.deleteIfExists(path);
-                return;
-            } catch (IOException e) {
-                try { Thread.sleep(80L); } catch (InterruptedException ignored) {}
+                zipPipeOutputStream.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int readByte = super.read();
+            if (readByte == -1) {
+                checkZip();
+            }
+            return readByte;
+        }
+
+        @Override
+        public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+            int readBytes = super.read(bytes, offset, length);
+            if (readBytes == -1) {
+                checkZip();
+            }
+            return readBytes;
+        }
+
+        private void checkZip() throws IOException {
+            if (zipFailure != null) {
+                throw new IOException("Zip of the outputs failed", zipFailure);
             }
         }
-        path.toFile().deleteOnExit();
-        log.warn("Could not delete temp file (locked), will deleteOnExit: {}", path);
     }
 
-}
\ No newline at end of file
+}
@@ -27,7 +27,6 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 @Tag(name = "${tag.reportingdata}")
 public class ReportingDataService extends KraftwerkService{
-    ConfigProperties configProperties;
     FileUtilsInterface fileUtilsInterface;
 
     @Value("${fr.insee.postcollecte.files}")
@@ -35,7 +34,6 @@ public class ReportingDataService extends KraftwerkService{
 
     public ReportingDataService(ConfigProperties configProperties, MinioConfig minioConfig) {
         super(configProperties, minioConfig);
-        this.configProperties = configProperties;
         if(minioConfig != null && minioConfig.isEnable()){
             MinioClient minioClient = MinioClient.builder().endpoint(minioConfig.getEndpoint()).credentials(minioConfig.getAccessKey(), minioConfig.getSecretKey()).build();
             fileUtilsInterface = new MinioImpl(minioClient, minioConfig.getBucketName());
@@ -74,14 +72,8 @@ public class ReportingDataService extends KraftwerkService{
                                                                  String campaignId,
                                                                  FolderSystem folderSystem,
                                                                  @Nullable Mode mode) {
-        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-                defaultDirectory,
-                false,
-                true,
-                false,
-                limitSize,
-                false //We have to instanciate this KraftwerkExecutionContext just to send this to vtlExecute
-        );
+        //We have to instanciate this KraftwerkExecutionContext just to send this to vtlExecute
+        KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(defaultDirectory, false, true, false, false);
         ReportingDataProcessing reportingDataProcessing = new ReportingDataProcessing();
         try {
             if(folderSystem.equals(FolderSystem.MAIN)){
@@ -6,6 +6,7 @@ import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileSystemType;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.utils.files.MinioImpl;
+import fr.insee.kraftwerk.core.utils.xml.XmlChunk;
 import fr.insee.kraftwerk.core.utils.xml.XmlSplitter;
 import io.minio.MinioClient;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,14 +19,19 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @Tag(name = "${tag.splitter}")
 @Log4j2
 public class SplitterService extends KraftwerkService{
 
+	private final int writerParallelism;
+
 	@Autowired
 	public SplitterService(ConfigProperties configProperties, MinioConfig minioConfig) {
 		super(configProperties, minioConfig);
+		this.writerParallelism = configProperties.getSplitWriterParallelism();
 	}
 
 	@Operation(summary = "Split a XML file into smaller ones")
@@ -34,6 +40,7 @@ public class SplitterService extends KraftwerkService{
 														   @RequestParam("outputFolder") String outputFolder,
 														   @RequestParam("filename") String filename,
 														   @RequestParam("nbResponsesByFile") int nbSU,
+														   @RequestParam(value = "maxMegabytesByFile", defaultValue = "0") int maxMegabytesByFile,
 														   @RequestParam("fileSystemType") FileSystemType fileSystemType)
 			throws Exception {
 		log.info("Split XML file : {} into {} SU by file using {}", filename , nbSU ,
@@ -43,7 +50,14 @@ public class SplitterService extends KraftwerkService{
 				new MinioImpl(MinioClient.builder().credentials(minioConfig.getAccessKey(),minioConfig.getSecretKey()).endpoint(minioConfig.getEndpoint()).build(), minioConfig.getBucketName()) :
 				new FileSystemImpl(defaultDirectory);
 
-		XmlSplitter.split(String.format("%s/in/%s/",defaultDirectory,inputFolder), filename, String.format("%s/in/%s/",defaultDirectory,outputFolder), "SurveyUnit", nbSU, fileUtilsInterface);
+		List<XmlChunk> chunks = XmlSplitter.split(String.format("%s/in/%s/",defaultDirectory,inputFolder), filename,
+				String.format("%s/in/%s/",defaultDirectory,outputFolder), "SurveyUnit", nbSU,
+				maxMegabytesByFile * 1024L * 1024L, writerParallelism, fileUtilsInterface);
+		List<XmlChunk> failedChunks = chunks.stream().filter(chunk -> !chunk.written()).toList();
+		if (!failedChunks.isEmpty()) {
+			// Units and offsets of the failed chunks, to write them again alone
+			return new ResponseEntity<>(failedChunks, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
 		return new ResponseEntity<>("File split", HttpStatus.OK);
 	}
 
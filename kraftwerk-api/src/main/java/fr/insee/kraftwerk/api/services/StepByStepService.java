@@ -14,8 +14,8 @@ import fr.insee.kraftwerk.core.sequence.UnimodalSequence;
 import fr.insee.kraftwerk.core.sequence.VtlReaderWriterSequence;
 import fr.insee.kraftwerk.core.sequence.WriterSequence;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
-import fr.insee.kraftwerk.core.utils.SqlUtils;
 import fr.insee.kraftwerk.core.utils.TextFileWriter;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbJobDatabase;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.utils.files.MinioImpl;
@@ -38,7 +38,6 @@ import org.springframework.web.bind.annotation.RestController;
 import java.io.File;
 import java.nio.file.Path;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
 
@@ -76,14 +75,7 @@ public class StepByStepService extends KraftwerkService {
 		boolean fileByFile = false;
 		boolean withDDI = true;
 		FileUtilsInterface fileUtilsInterface = getFileUtilsInterface();
-		KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-				inDirectoryParam,
-				fileByFile,
-				withDDI,
-				false,
-				limitSize,
-				false
-		);
+		KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, fileByFile, withDDI, false, false);
 
 		MainProcessing mp = new MainProcessing(kraftwerkExecutionContext, defaultDirectory, fileUtilsInterface);
 
@@ -132,14 +124,7 @@ public class StepByStepService extends KraftwerkService {
 		FileUtilsInterface fileUtilsInterface = getFileUtilsInterface();
 
 
-		KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-				inDirectoryParam,
-				fileByFile,
-				withDDI,
-				false,
-				limitSize,
-				false
-		);
+		KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, fileByFile, withDDI, false, false);
 		MainProcessing mp = new MainProcessing(kraftwerkExecutionContext, defaultDirectory, fileUtilsInterface);
 
 		try {
@@ -178,14 +163,7 @@ public class StepByStepService extends KraftwerkService {
 			@Parameter(description = "${param.dataMode}", required = true) @RequestParam  String dataMode
 			) throws KraftwerkException {
 		FileUtilsInterface fileUtilsInterface = getFileUtilsInterface();
-		KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-				inDirectoryParam,
-				false,
-				true,
-				false,
-				limitSize,
-				false
-		);
+		KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, false, true, false, false);
 
 		//Read data in JSON file
 		Path inDirectory;
@@ -208,7 +186,8 @@ public class StepByStepService extends KraftwerkService {
 		);
 		vtlReaderSequence.readDataset(FileUtilsInterface.transformToTemp(inDirectory).toString(),dataMode, StepEnum.BUILD_BINDINGS, vtlBindings);
 
-		Map<String, MetadataModel> metadataModelMap = MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(), fileUtilsInterface);
+		Map<String, MetadataModel> metadataModelMap = MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(), fileUtilsInterface,
+				kraftwerkExecutionContext.getMetadataCache());
 		
 		//Process
 		UnimodalSequence unimodal = new UnimodalSequence();
@@ -248,14 +227,7 @@ public class StepByStepService extends KraftwerkService {
 		} catch (KraftwerkException e) {
 			return ResponseEntity.status(e.getStatus()).body(e.getMessage());
 		}
-		KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-				inDirectoryParam,
-				false,
-				true,
-				false,
-				limitSize,
-				false
-		);
+		KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, false, true, false, false);
 
 
 		VtlReaderWriterSequence vtlReaderWriterSequence = new VtlReaderWriterSequence(
@@ -269,7 +241,8 @@ public class StepByStepService extends KraftwerkService {
 			vtlReaderWriterSequence.readDataset(FileUtilsInterface.transformToTemp(inDirectory).toString(),dataMode, StepEnum.UNIMODAL_PROCESSING, vtlBindings);
 		}
 
-		Map<String, MetadataModel> metadataModelMap = MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(), fileUtilsInterface);
+		Map<String, MetadataModel> metadataModelMap = MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(), fileUtilsInterface,
+				kraftwerkExecutionContext.getMetadataCache());
 
 		//Process
 		MultimodalSequence multimodalSequence = new MultimodalSequence();
@@ -300,19 +273,12 @@ public class StepByStepService extends KraftwerkService {
 			return ResponseEntity.status(e.getStatus()).body(e.getMessage());
 		}
 		VtlBindings vtlBindings = new VtlBindings();
-		KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
-				inDirectoryParam,
-				false,
-				true,
-				false,
-				limitSize,
-				false
-		);
+		KraftwerkExecutionContext kraftwerkExecutionContext = createExecutionContext(inDirectoryParam, false, true, false, false);
 
 		// Read all bindings necessary to produce output
 		String path = FileUtilsInterface.transformToTemp(inDirectory).toString();
 		List<String> fileNames = fileUtilsInterface.listFileNames(path);
-		fileNames = fileNames.stream().filter(name -> name.endsWith(StepEnum.MULTIMODAL_PROCESSING.getStepLabel()+JSON)).toList();
+		fileNames = fileNames.stream().filter(name -> name.endsWith(StepEnum.MULTIMODAL_PROCESSING.getStepLabel()+kraftwerkExecutionContext.getStepPersistenceFormat().getFileExtension())).toList();
 		for (String name : fileNames){
 			String pathBindings = path + File.separator + name;
 			String bindingName =  name.substring(0, name.indexOf("_"+StepEnum.MULTIMODAL_PROCESSING.getStepLabel()));
@@ -329,9 +295,11 @@ public class StepByStepService extends KraftwerkService {
 		} catch (KraftwerkException e) {
 			return ResponseEntity.status(e.getStatus()).body(e.getMessage());
 		}
-		Map<String, MetadataModel> metadataModelMap = MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(), fileUtilsInterface);
-		try (Statement database = SqlUtils.openConnection().createStatement()) {
-			writerSequence.writeOutputFiles(inDirectory, vtlBindings, userInputsFile.getModeInputsMap(), metadataModelMap, kraftwerkExecutionContext, database, fileUtilsInterface);
+		Map<String, MetadataModel> metadataModelMap = MetadataUtils.getMetadata(userInputsFile.getModeInputsMap(), fileUtilsInterface,
+				kraftwerkExecutionContext.getMetadataCache());
+		try (DuckDbJobDatabase database = DuckDbJobDatabase.open(inDirectoryParam, null,
+				kraftwerkExecutionContext.getDuckDbSettings(), kraftwerkExecutionContext.getProcessingMetrics())) {
+			writerSequence.writeOutputFiles(inDirectory, vtlBindings, userInputsFile.getModeInputsMap(), metadataModelMap, kraftwerkExecutionContext, database.getStatement(), fileUtilsInterface);
 		}
 		return ResponseEntity.ok(inDirectoryParam);
 
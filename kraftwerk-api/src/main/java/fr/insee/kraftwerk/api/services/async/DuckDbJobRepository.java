@@ -0,0 +1,178 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import fr.insee.kraftwerk.api.dto.ExportCheckResultDto;
+import fr.insee.kraftwerk.api.dto.ExportJobResultDto;
+import fr.insee.kraftwerk.core.Constants;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Export jobs and processing jobs persisted in an embedded DuckDB database file
+ */
+@Slf4j
+public class DuckDbJobRepository implements JobRepository, AutoCloseable {
+
+    private static final String JOBS_TABLE = "kraftwerk_jobs";
+    private static final String EXECUTIONS_TABLE = "kraftwerk_job_executions";
+    private static final TypeReference<List<String>> ERRORS_TYPE = new TypeReference<>() {};
+
+    private final Connection connection;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public DuckDbJobRepository(Path databaseFile) throws SQLException {
+        this.connection = DriverManager.getConnection(Constants.DUCKDB_URL + databaseFile.toAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + JOBS_TABLE + " ("
+                    + "job_id VARCHAR PRIMARY KEY, "
+                    + "status VARCHAR, "
+                    + "collection_instrument_id VARCHAR, "
+                    + "interrogations_count BIGINT, "
+                    + "errors VARCHAR, "
+                    + "start_time TIMESTAMP, "
+                    + "end_time TIMESTAMP)");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + EXECUTIONS_TABLE + " ("
+                    + "job_id VARCHAR PRIMARY KEY, "
+                    + "status VARCHAR, "
+                    + "error_message VARCHAR, "
+                    + "started_at TIMESTAMPTZ, "
+                    + "ended_at TIMESTAMPTZ)");
+        }
+    }
+
+    @Override
+    public synchronized void save(String jobId, ExportJobResultDto job) {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT OR REPLACE INTO " + JOBS_TABLE + " VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            statement.setString(1, jobId);
+            statement.setString(2, job.getStatus() == null ? null : job.getStatus().name());
+            statement.setString(3, job.getCheckResult() == null ? null : job.getCheckResult().collectionInstrumentId());
+            if (job.getCheckResult() == null) {
+                statement.setNull(4, Types.BIGINT);
+            } else {
+                statement.setLong(4, job.getCheckResult().interrogationsCount());
+            }
+            statement.setString(5, job.getErrors() == null ? null : objectMapper.writeValueAsString(job.getErrors()));
+            statement.setTimestamp(6, job.getStartTime() == null ? null : Timestamp.valueOf(job.getStartTime()));
+            statement.setTimestamp(7, job.getEndTime() == null ? null : Timestamp.valueOf(job.getEndTime()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("Job {} can't be persisted : {}", jobId, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void delete(String jobId) {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM " + JOBS_TABLE + " WHERE job_id = ?")) {
+            statement.setString(1, jobId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("Job {} can't be deleted from the job store : {}", jobId, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized Map<String, ExportJobResultDto> findAll() {
+        Map<String, ExportJobResultDto> jobs = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + JOBS_TABLE + " ORDER BY start_time")) {
+            while (resultSet.next()) {
+                String collectionInstrumentId = resultSet.getString("collection_instrument_id");
+                long interrogationsCount = resultSet.getLong("interrogations_count");
+                boolean hasCheckResult = !resultSet.wasNull();
+                String errors = resultSet.getString("errors");
+                Timestamp startTime = resultSet.getTimestamp("start_time");
+                Timestamp endTime = resultSet.getTimestamp("end_time");
+                String status = resultSet.getString("status");
+                jobs.put(resultSet.getString("job_id"), ExportJobResultDto.builder()
+                        .status(status == null ? null : JobStatus.valueOf(status))
+                        .checkResult(hasCheckResult ? new ExportCheckResultDto(collectionInstrumentId, interrogationsCount) : null)
+                        .errors(errors == null ? new ArrayList<>() : new ArrayList<>(objectMapper.readValue(errors, ERRORS_TYPE)))
+                        .startTime(startTime == null ? null : startTime.toLocalDateTime())
+                        .endTime(endTime == null ? null : endTime.toLocalDateTime())
+                        .build());
+            }
+        } catch (SQLException e) {
+            log.error("Jobs can't be read from the job store : {}", e.getMessage());
+        }
+        return jobs;
+    }
+
+    @Override
+    public synchronized void saveExecution(JobExecution jobExecution) {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT OR REPLACE INTO " + EXECUTIONS_TABLE + " VALUES (?, ?, ?, ?, ?)")) {
+            statement.setString(1, jobExecution.jobId());
+            statement.setString(2, jobExecution.status() == null ? null : jobExecution.status().name());
+            statement.setString(3, jobExecution.errorMessage());
+            statement.setObject(4, toOffsetDateTime(jobExecution.startedAt()));
+            statement.setObject(5, toOffsetDateTime(jobExecution.endedAt()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("Job {} can't be persisted : {}", jobExecution.jobId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void deleteExecution(String jobId) {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM " + EXECUTIONS_TABLE + " WHERE job_id = ?")) {
+            statement.setString(1, jobId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("Job {} can't be deleted from the job store : {}", jobId, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized Map<String, JobExecution> findAllExecutions() {
+        Map<String, JobExecution> jobExecutions = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + EXECUTIONS_TABLE + " ORDER BY started_at")) {
+            while (resultSet.next()) {
+                String jobId = resultSet.getString("job_id");
+                String status = resultSet.getString("status");
+                OffsetDateTime startedAt = resultSet.getObject("started_at", OffsetDateTime.class);
+                OffsetDateTime endedAt = resultSet.getObject("ended_at", OffsetDateTime.class);
+                jobExecutions.put(jobId, new JobExecution(
+                        jobId,
+                        status == null ? null : JobStatus.valueOf(status),
+                        resultSet.getString("error_message"),
+                        startedAt == null ? null : startedAt.toInstant(),
+                        endedAt == null ? null : endedAt.toInstant()
+                ));
+            }
+        } catch (SQLException e) {
+            log.error("Jobs can't be read from the job store : {}", e.getMessage());
+        }
+        return jobExecutions;
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        connection.close();
+    }
+
+}
@@ -1,38 +1,87 @@
 package fr.insee.kraftwerk.api.services.async;
 
+import fr.insee.kraftwerk.api.configuration.ConfigProperties;
 import fr.insee.kraftwerk.api.dto.ExportCheckResultDto;
 import fr.insee.kraftwerk.api.dto.ExportJobResultDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Status of the export jobs, kept in memory and written through to the job repository.
+ * Finished jobs are evicted once their time to live is over, when a job is started or read, and jobs
+ * still running when the service stopped are reloaded as failed.
+ */
 @Component
+@Slf4j
 public class InMemoryExportJobStore {
 
+    static final String INTERRUPTED_JOB_ERROR = "Job interrupted by a restart of the service";
+
     private final Map<String, ExportJobResultDto> jobsMap = new ConcurrentHashMap<>();
+    private final JobRepository jobRepository;
+    private final Clock clock;
+    private final Duration finishedJobTtl;
+
+    public InMemoryExportJobStore() {
+        this(new TransientJobRepository(), Clock.systemDefaultZone(), Duration.ZERO);
+    }
+
+    @Autowired
+    public InMemoryExportJobStore(JobRepository jobRepository, Clock clock, ConfigProperties configProperties) {
+        this(jobRepository, clock, Duration.ofMinutes(configProperties.getFinishedJobTtlMinutes()));
+    }
+
+    /**
+     * @param finishedJobTtl time during which a finished job status is kept, zero to keep it forever
+     */
+    public InMemoryExportJobStore(JobRepository jobRepository, Clock clock, Duration finishedJobTtl) {
+        this.jobRepository = jobRepository;
+        // Job times are given in the local time of the service
+        this.clock = clock.withZone(ZoneId.systemDefault());
+        this.finishedJobTtl = finishedJobTtl;
+        jobRepository.findAll().forEach((jobId, job) -> {
+            if (job.getStatus() == JobStatus.RUNNING) {
+                job.getErrors().add(INTERRUPTED_JOB_ERROR);
+                job.setStatus(JobStatus.FAILED);
+                job.setEndTime(LocalDateTime.now(this.clock));
+                jobRepository.save(jobId, job);
+            }
+            jobsMap.put(jobId, job);
+        });
+        if (!jobsMap.isEmpty()) {
+            log.info("{} jobs loaded from the job store", jobsMap.size());
+        }
+        evictFinishedJobs();
+    }
 
     public void start(String jobId) {
-        jobsMap.put(
-                jobId,
-                ExportJobResultDto.builder()
-                        .status(JobStatus.RUNNING)
-                        .errors(new ArrayList<>())
-                        .startTime(LocalDateTime.now())
-                        .build()
-        );
+        evictFinishedJobs();
+        ExportJobResultDto job = ExportJobResultDto.builder()
+                .status(JobStatus.RUNNING)
+                .errors(new ArrayList<>())
+                .startTime(LocalDateTime.now(clock))
+                .build();
+        jobsMap.put(jobId, job);
+        jobRepository.save(jobId, job);
     }
 
     public void complete(String jobId, ExportCheckResultDto result, List<String> errors) {
 
-        jobsMap.computeIfPresent(jobId, (id, job) -> {
+        ExportJobResultDto completedJob = jobsMap.computeIfPresent(jobId, (id, job) -> {
             job.setCheckResult(result);
             job.setErrors(errors);
-            job.setEndTime(LocalDateTime.now());
+            job.setEndTime(LocalDateTime.now(clock));
 
             job.setStatus(errors == null || errors.isEmpty()
                     ? JobStatus.DONE
@@ -40,20 +89,43 @@ public class InMemoryExportJobStore {
 
             return job;
         });
+        if (completedJob != null) {
+            jobRepository.save(jobId, completedJob);
+        }
     }
 
     public void fail(String jobId, Exception e) {
-        jobsMap.computeIfPresent(jobId, (id, job) -> {
+        ExportJobResultDto failedJob = jobsMap.computeIfPresent(jobId, (id, job) -> {
 
             job.getErrors().add(e.getMessage());
             job.setStatus(JobStatus.FAILED);
-            job.setEndTime(LocalDateTime.now());
+            job.setEndTime(LocalDateTime.now(clock));
 
             return job;
         });
+        if (failedJob != null) {
+            jobRepository.save(jobId, failedJob);
+        }
     }
 
     public Optional<ExportJobResultDto> get(String jobId) {
+        evictFinishedJobs();
         return Optional.ofNullable(jobsMap.get(jobId));
     }
-}
\ No newline at end of file
+
+    /**
+     * Remove the jobs which ended before the time to live of finished jobs
+     */
+    public void evictFinishedJobs() {
+        if (finishedJobTtl.isZero() || finishedJobTtl.isNegative()) {
+            return;
+        }
+        LocalDateTime expirationTime = LocalDateTime.now(clock).minus(finishedJobTtl);
+        jobsMap.forEach((jobId, job) -> {
+            if (job.getEndTime() != null && job.getEndTime().isBefore(expirationTime)
+                    && jobsMap.remove(jobId, job)) {
+                jobRepository.delete(jobId);
+            }
+        });
+    }
+}
@@ -1,52 +1,128 @@
 package fr.insee.kraftwerk.api.services.async;
 
+import fr.insee.kraftwerk.api.configuration.ConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Status of the processing jobs, kept in memory and written through to the job repository.
+ * Finished jobs are evicted once their time to live is over, when a job is started or read, and jobs
+ * still running when the service stopped are reloaded as failed.
+ */
 @Component
+@Slf4j
 public class InMemoryJobStore {
 
     private final ConcurrentMap<String, JobExecution> jobs = new ConcurrentHashMap<>();
+    private final JobRepository jobRepository;
+    private final Clock clock;
+    private final Duration finishedJobTtl;
+
+    public InMemoryJobStore() {
+        this(new TransientJobRepository(), Clock.systemUTC(), Duration.ZERO);
+    }
+
+    @Autowired
+    public InMemoryJobStore(JobRepository jobRepository, Clock clock, ConfigProperties configProperties) {
+        this(jobRepository, clock, Duration.ofMinutes(configProperties.getFinishedJobTtlMinutes()));
+    }
+
+    /**
+     * @param finishedJobTtl time during which a finished job is kept, zero to keep it forever
+     */
+    public InMemoryJobStore(JobRepository jobRepository, Clock clock, Duration finishedJobTtl) {
+        this.jobRepository = jobRepository;
+        this.clock = clock;
+        this.finishedJobTtl = finishedJobTtl;
+        jobRepository.findAllExecutions().forEach((jobId, job) -> {
+            JobExecution loadedJob = job;
+            if (job.status() == JobStatus.RUNNING) {
+                loadedJob = new JobExecution(
+                        jobId,
+                        JobStatus.FAILED,
+                        InMemoryExportJobStore.INTERRUPTED_JOB_ERROR,
+                        job.startedAt(),
+                        clock.instant()
+                );
+                jobRepository.saveExecution(loadedJob);
+            }
+            jobs.put(jobId, loadedJob);
+        });
+        if (!jobs.isEmpty()) {
+            log.info("{} processing jobs loaded from the job store", jobs.size());
+        }
+        evictFinishedJobs();
+    }
 
     public void start(String jobId) {
-        jobs.put(jobId, new JobExecution(
+        evictFinishedJobs();
+        JobExecution job = new JobExecution(
                 jobId,
                 JobStatus.RUNNING,
                 null,
-                Instant.now(),
+                clock.instant(),
                 null
-        ));
+        );
+        jobs.put(jobId, job);
+        jobRepository.saveExecution(job);
     }
 
     public void success(String jobId) {
-        jobs.computeIfPresent(jobId, (id, job) ->
+        JobExecution succeededJob = jobs.computeIfPresent(jobId, (id, job) ->
                 new JobExecution(
                         id,
                         JobStatus.DONE,
                         null,
                         job.startedAt(),
-                        Instant.now()
+                        clock.instant()
                 )
         );
+        if (succeededJob != null) {
+            jobRepository.saveExecution(succeededJob);
+        }
     }
 
     public void fail(String jobId, Exception e) {
-        jobs.computeIfPresent(jobId, (id, job) ->
+        JobExecution failedJob = jobs.computeIfPresent(jobId, (id, job) ->
                 new JobExecution(
                         id,
                         JobStatus.FAILED,
                         e.getMessage(),
                         job.startedAt(),
-                        Instant.now()
+                        clock.instant()
                 )
         );
+        if (failedJob != null) {
+            jobRepository.saveExecution(failedJob);
+        }
     }
 
     public Optional<JobExecution> get(String jobId) {
+        evictFinishedJobs();
         return Optional.ofNullable(jobs.get(jobId));
     }
+
+    /**
+     * Remove the jobs which ended before the time to live of finished jobs
+     */
+    public void evictFinishedJobs() {
+        if (finishedJobTtl.isZero() || finishedJobTtl.isNegative()) {
+            return;
+        }
+        Instant expirationTime = clock.instant().minus(finishedJobTtl);
+        jobs.forEach((jobId, job) -> {
+            if (job.endedAt() != null && job.endedAt().isBefore(expirationTime)
+                    && jobs.remove(jobId, job)) {
+                jobRepository.deleteExecution(jobId);
+            }
+        });
+    }
 }
@@ -0,0 +1,83 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import fr.insee.kraftwerk.api.configuration.ConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admission of the asynchronous jobs : a job is refused when the maximum number of jobs admitted
+ * (running or queued) is reached, in total, for its tenant or for its questionnaire.
+ * A limit of 0 means no limit.
+ */
+@Component
+@Slf4j
+public class JobAdmissionController {
+
+    private record Admission(String tenant, String questionnaire) {}
+
+    private final int maxJobs;
+    private final int maxJobsPerTenant;
+    private final int maxJobsPerQuestionnaire;
+
+    private final Map<String, Admission> admissions = new HashMap<>();
+    private final Map<String, Integer> tenantJobCounts = new HashMap<>();
+    private final Map<String, Integer> questionnaireJobCounts = new HashMap<>();
+
+    @Autowired
+    public JobAdmissionController(ConfigProperties configProperties) {
+        this(configProperties.getMaxJobs(),
+                configProperties.getMaxJobsPerTenant(),
+                configProperties.getMaxJobsPerQuestionnaire());
+    }
+
+    public JobAdmissionController(int maxJobs, int maxJobsPerTenant, int maxJobsPerQuestionnaire) {
+        this.maxJobs = maxJobs;
+        this.maxJobsPerTenant = maxJobsPerTenant;
+        this.maxJobsPerQuestionnaire = maxJobsPerQuestionnaire;
+    }
+
+    /**
+     * Admit a job if no limit is reached. An admitted job must be released when it ends.
+     * @param jobId id of the job
+     * @param tenant user or application which submitted the job
+     * @param questionnaire questionnaire, campaign or folder the job works on
+     * @return false if the job is refused
+     */
+    public synchronized boolean tryAdmit(String jobId, String tenant, String questionnaire) {
+        if (isReached(maxJobs, admissions.size())
+                || isReached(maxJobsPerTenant, tenantJobCounts.getOrDefault(tenant, 0))
+                || isReached(maxJobsPerQuestionnaire, questionnaireJobCounts.getOrDefault(questionnaire, 0))) {
+            log.warn("Job refused for tenant {} on {} : {} jobs already admitted", tenant, questionnaire, admissions.size());
+            return false;
+        }
+        admissions.put(jobId, new Admission(tenant, questionnaire));
+        tenantJobCounts.merge(tenant, 1, Integer::sum);
+        questionnaireJobCounts.merge(questionnaire, 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * Release the admission of a job, does nothing if the job was not admitted
+     */
+    public synchronized void release(String jobId) {
+        Admission admission = admissions.remove(jobId);
+        if (admission == null) {
+            return;
+        }
+        tenantJobCounts.computeIfPresent(admission.tenant(), (tenant, count) -> count > 1 ? count - 1 : null);
+        questionnaireJobCounts.computeIfPresent(admission.questionnaire(), (questionnaire, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public synchronized int getAdmittedJobsCount() {
+        return admissions.size();
+    }
+
+    private static boolean isReached(int limit, int count) {
+        return limit > 0 && count >= limit;
+    }
+
+}
@@ -0,0 +1,30 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import fr.insee.kraftwerk.api.dto.ExportJobResultDto;
+
+import java.util.Map;
+
+/**
+ * Persistence of the export jobs and of the processing jobs, so that their status survives a restart of the service
+ */
+public interface JobRepository {
+
+    void save(String jobId, ExportJobResultDto job);
+
+    void delete(String jobId);
+
+    /**
+     * @return all the persisted jobs, by job id
+     */
+    Map<String, ExportJobResultDto> findAll();
+
+    void saveExecution(JobExecution jobExecution);
+
+    void deleteExecution(String jobId);
+
+    /**
+     * @return all the persisted processing jobs, by job id
+     */
+    Map<String, JobExecution> findAllExecutions();
+
+}
@@ -31,13 +31,15 @@ public class MainAsyncService extends KraftwerkService {
 	private final InMemoryJobStore jobStore;
 	private final OutputZipService outputZipService;
     private final InMemoryExportJobStore exportJobStore;
+    private final JobAdmissionController jobAdmissionController;
     protected final GenesisClient client;
 
-    public MainAsyncService(ConfigProperties configProperties, MinioConfig minioConfig, InMemoryJobStore jobStore, OutputZipService outputZipService, InMemoryExportJobStore exportJobStore, GenesisClient client) {
+    public MainAsyncService(ConfigProperties configProperties, MinioConfig minioConfig, InMemoryJobStore jobStore, OutputZipService outputZipService, InMemoryExportJobStore exportJobStore, JobAdmissionController jobAdmissionController, GenesisClient client) {
 		super(configProperties, minioConfig);
 		this.jobStore = jobStore;
         this.outputZipService = outputZipService;
         this.exportJobStore = exportJobStore;
+        this.jobAdmissionController = jobAdmissionController;
         this.client = client;
     }
 
@@ -53,16 +55,21 @@ public class MainAsyncService extends KraftwerkService {
 	public void runWithoutGenesis(String jobId, FileUtilsInterface fileUtilsInterface, MainProcessing mp, String inDirectoryParam, boolean archiveAtEnd, boolean fileByFile, boolean withDDI, boolean withEncryption) {
 		jobStore.start(jobId);
 		try {
-            mp.runMain();
-            outputZipService.encryptAndArchiveOutputs(mp.getKraftwerkExecutionContext(),fileUtilsInterface);
-            jobStore.success(jobId);
-
-		} catch (KraftwerkException e) {
-			log.error(e.getMessage());
-			jobStore.fail(jobId, e);
+			try {
+				mp.runMain();
+				outputZipService.encryptAndArchiveOutputs(mp.getKraftwerkExecutionContext(),fileUtilsInterface);
+				jobStore.success(jobId);
+
+			} catch (KraftwerkException e) {
+				log.error(e.getMessage());
+				jobStore.fail(jobId, e);
+			}
+			/* Step 4.3- 4.4 : Archive */
+			if (archiveAtEnd) archive(inDirectoryParam, fileUtilsInterface);
+		} finally {
+			// The folder is released once archived
+			jobAdmissionController.release(jobId);
 		}
-		/* Step 4.3- 4.4 : Archive */
-		if (archiveAtEnd) archive(inDirectoryParam, fileUtilsInterface);
 
 	}
 
@@ -85,6 +92,8 @@ public class MainAsyncService extends KraftwerkService {
 			log.error("INTERNAL ERROR for campaign {}: {}",campaignId, e.getMessage());
 			jobStore.fail(jobId, e);
 
+		} finally {
+			jobAdmissionController.release(jobId);
 		}
 	}
 
@@ -133,6 +142,8 @@ public class MainAsyncService extends KraftwerkService {
         } catch (IOException e) {
             log.error("INTERNAL ERROR for questionnaireModelId {}: {}", questionnaireModelId, e.getMessage());
             exportJobStore.fail(jobId, e);
+        } finally {
+            jobAdmissionController.release(jobId);
         }
     }
 
@@ -0,0 +1,42 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import fr.insee.kraftwerk.api.dto.ExportJobResultDto;
+
+import java.util.Map;
+
+/**
+ * Repository used when no job store is configured : jobs are only kept in memory
+ */
+public class TransientJobRepository implements JobRepository {
+
+    @Override
+    public void save(String jobId, ExportJobResultDto job) {
+        // Nothing persisted
+    }
+
+    @Override
+    public void delete(String jobId) {
+        // Nothing persisted
+    }
+
+    @Override
+    public Map<String, ExportJobResultDto> findAll() {
+        return Map.of();
+    }
+
+    @Override
+    public void saveExecution(JobExecution jobExecution) {
+        // Nothing persisted
+    }
+
+    @Override
+    public void deleteExecution(String jobId) {
+        // Nothing persisted
+    }
+
+    @Override
+    public Map<String, JobExecution> findAllExecutions() {
+        return Map.of();
+    }
+
+}
@@ -0,0 +1,127 @@
+package fr.insee.kraftwerk.api.process;
+
+import fr.insee.kraftwerk.core.data.model.InterrogationId;
+import fr.insee.kraftwerk.core.data.model.SurveyUnitUpdateLatest;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import org.apache.commons.collections4.ListUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenesisResponsesPrefetcherTest {
+
+    private static final int INTERROGATION_COUNT = 10;
+    private static final int BATCH_SIZE = 3;
+
+    private final List<List<InterrogationId>> partitions = ListUtils.partition(interrogationIds(), BATCH_SIZE);
+
+    @Test
+    void next_responsesInPartitionOrder() throws KraftwerkException {
+        for (int depth = 0; depth <= 3; depth++) {
+            List<String> fetchedIds = new ArrayList<>();
+            try (GenesisResponsesPrefetcher prefetcher =
+                         new GenesisResponsesPrefetcher(partitions, GenesisResponsesPrefetcherTest::stubResponses, depth)) {
+                while (prefetcher.hasNext()) {
+                    prefetcher.next().forEach(su -> fetchedIds.add(su.getInterrogationId()));
+                }
+            }
+            assertEquals(interrogationIds().stream().map(InterrogationId::getId).toList(), fetchedIds);
+        }
+    }
+
+    @Test
+    void next_nextPartitionFetchedWhileProcessing() throws Exception {
+        CountDownLatch secondPartitionFetched = new CountDownLatch(1);
+        try (GenesisResponsesPrefetcher prefetcher = new GenesisResponsesPrefetcher(partitions, ids -> {
+            if (ids.equals(partitions.get(1))) {
+                secondPartitionFetched.countDown();
+            }
+            return stubResponses(ids);
+        }, 1)) {
+            prefetcher.next();
+            // Processing of the first partition : the second one is fetched meanwhile
+            assertTrue(secondPartitionFetched.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void next_prefetchBoundedByDepth() throws Exception {
+        CountDownLatch firstPartitionsFetching = new CountDownLatch(2);
+        CountDownLatch thirdPartitionFetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Fetches are blocked until released
+        try (GenesisResponsesPrefetcher prefetcher = new GenesisResponsesPrefetcher(partitions, ids -> {
+            if (ids.equals(partitions.get(2))) {
+                thirdPartitionFetching.countDown();
+            } else {
+                firstPartitionsFetching.countDown();
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return stubResponses(ids);
+        }, 2)) {
+            assertTrue(firstPartitionsFetching.await(5, TimeUnit.SECONDS));
+            assertEquals(2, prefetcher.getPrefetchedPartitionsCount());
+            assertEquals(1, thirdPartitionFetching.getCount());
+
+            release.countDown();
+            prefetcher.next();
+            // The third partition is fetched once the first one is given
+            assertTrue(thirdPartitionFetching.await(5, TimeUnit.SECONDS));
+            assertEquals(2, prefetcher.getPrefetchedPartitionsCount());
+        }
+    }
+
+    @Test
+    void next_fetchErrorPropagated() {
+        try (GenesisResponsesPrefetcher prefetcher = new GenesisResponsesPrefetcher(partitions, ids -> {
+            if (ids.equals(partitions.get(1))) {
+                throw new KraftwerkException(503, "Genesis unavailable");
+            }
+            return stubResponses(ids);
+        }, 1)) {
+            assertFalse(assertDoesNotThrowNext(prefetcher).isEmpty());
+            KraftwerkException exception = assertThrows(KraftwerkException.class, prefetcher::next);
+            assertEquals(503, exception.getStatus());
+        }
+    }
+
+    private static List<SurveyUnitUpdateLatest> assertDoesNotThrowNext(GenesisResponsesPrefetcher prefetcher) {
+        try {
+            return prefetcher.next();
+        } catch (KraftwerkException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** Stub of the Genesis responses : one survey unit by interrogation */
+    private static List<SurveyUnitUpdateLatest> stubResponses(List<InterrogationId> ids) {
+        return ids.stream().map(id -> {
+            SurveyUnitUpdateLatest surveyUnit = new SurveyUnitUpdateLatest();
+            surveyUnit.setInterrogationId(id.getId());
+            return surveyUnit;
+        }).toList();
+    }
+
+    private static List<InterrogationId> interrogationIds() {
+        List<InterrogationId> ids = new ArrayList<>();
+        for (int i = 0; i < INTERROGATION_COUNT; i++) {
+            InterrogationId interrogationId = new InterrogationId();
+            interrogationId.setId("ID" + i);
+            ids.add(interrogationId);
+        }
+        return ids;
+    }
+
+}
@@ -61,7 +61,8 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// Jobs are submitted again and again for the same questionnaire
+@SpringBootTest(properties = "fr.insee.kraftwerk.jobs.max-jobs-per-questionnaire=0")
 @ActiveProfiles({"test", "ci-public"})
 @AutoConfigureMockMvc
 @Import(TestConfig.class)
@@ -0,0 +1,124 @@
+package fr.insee.kraftwerk.api.services;
+
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectStreamPrefetcherTest {
+
+    private static final int OBJECT_COUNT = 6;
+
+    @TempDir
+    Path objectsDirectory;
+
+    private final List<String> objectPaths = new ArrayList<>();
+
+    @BeforeEach
+    void createObjects() throws IOException {
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            Path objectPath = objectsDirectory.resolve("object" + i + ".csv");
+            Files.writeString(objectPath, "content" + i);
+            objectPaths.add(objectPath.toString());
+        }
+    }
+
+    @Test
+    void next_contentInObjectOrder() throws KraftwerkException, IOException {
+        for (int depth = 0; depth <= 3; depth++) {
+            List<String> contents = new ArrayList<>();
+            try (ObjectStreamPrefetcher prefetcher = new ObjectStreamPrefetcher(objectPaths,
+                    new FileSystemImpl(objectsDirectory.toString()), depth, 1024)) {
+                while (prefetcher.hasNext()) {
+                    try (InputStream inputStream = prefetcher.next()) {
+                        contents.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            assertEquals(List.of("content0", "content1", "content2", "content3", "content4", "content5"), contents);
+        }
+    }
+
+    @Test
+    void next_nextObjectReadWhileProcessing() throws Exception {
+        CountDownLatch secondObjectRead = new CountDownLatch(1);
+        FileSystemImpl fileUtils = new FileSystemImpl(objectsDirectory.toString()) {
+            @Override
+            public InputStream readFile(String path) {
+                if (path.equals(objectPaths.get(1))) {
+                    secondObjectRead.countDown();
+                }
+                return super.readFile(path);
+            }
+        };
+        try (ObjectStreamPrefetcher prefetcher = new ObjectStreamPrefetcher(objectPaths, fileUtils, 2, 1024);
+             InputStream ignored = prefetcher.next()) {
+            // Processing of the first object : the second one is read meanwhile
+            assertTrue(secondObjectRead.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void next_prefetchBoundedByBudget() throws Exception {
+        Map<String, Boolean> readInAdvance = new ConcurrentHashMap<>();
+        FileSystemImpl fileUtils = new FileSystemImpl(objectsDirectory.toString()) {
+            @Override
+            public InputStream readFile(String path) {
+                // Objects are read in advance on virtual threads, and on the caller thread when their turn comes
+                readInAdvance.put(path, Thread.currentThread().isVirtual());
+                return super.readFile(path);
+            }
+        };
+        // Budget of one object, never given back as the streams stay open :
+        // a single object is read in advance, the others are read when their turn comes
+        List<InputStream> openStreams = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        try (ObjectStreamPrefetcher prefetcher = new ObjectStreamPrefetcher(objectPaths, fileUtils, 4, "content0".length())) {
+            while (prefetcher.hasNext()) {
+                InputStream inputStream = prefetcher.next();
+                openStreams.add(inputStream);
+                contents.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            for (InputStream openStream : openStreams) {
+                openStream.close();
+            }
+        }
+        assertEquals(List.of("content0", "content1", "content2", "content3", "content4", "content5"), contents);
+        assertEquals(OBJECT_COUNT, readInAdvance.size());
+        assertEquals(1, readInAdvance.values().stream().filter(Boolean::booleanValue).count());
+    }
+
+    @Test
+    void next_unreadableObject() throws KraftwerkException {
+        List<String> paths = List.of(objectsDirectory.resolve("missing.csv").toString(), objectPaths.getFirst());
+        FileSystemImpl fileUtils = new FileSystemImpl(objectsDirectory.toString()) {
+            @Override
+            public InputStream readFile(String path) {
+                return path.endsWith("missing.csv") ? null : super.readFile(path);
+            }
+        };
+        try (ObjectStreamPrefetcher prefetcher = new ObjectStreamPrefetcher(paths, fileUtils, 2, 1024)) {
+            assertNull(prefetcher.next());
+            assertTrue(prefetcher.hasNext());
+        }
+    }
+
+}
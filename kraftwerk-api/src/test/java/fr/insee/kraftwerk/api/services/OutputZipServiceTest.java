@@ -0,0 +1,204 @@
+package fr.insee.kraftwerk.api.services;
+
+import fr.insee.kraftwerk.core.encryption.EncryptionUtils;
+import fr.insee.kraftwerk.core.encryption.EncryptionUtilsStub;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static fr.insee.kraftwerk.core.Constants.ENCRYPTED_FILE_EXTENSION;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputZipServiceTest {
+
+    private static final byte KEY = 0x5A;
+
+    @TempDir
+    Path tempDirectory;
+
+    /** Encryption xoring each byte, read as the encrypted stream is read */
+    private static final EncryptionUtils XOR_ENCRYPTION = new EncryptionUtils() {
+        @Override
+        public InputStream encryptOutputFile(Path pathOfFileToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream encryptInputStream(InputStream inputStreamToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext) {
+            return new FilterInputStream(inputStreamToEncrypt) {
+                @Override
+                public int read() throws IOException {
+                    int readByte = super.read();
+                    return readByte == -1 ? -1 : (readByte ^ KEY) & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    int readBytes = super.read(bytes, offset, length);
+                    for (int i = offset; i < offset + readBytes; i++) {
+                        bytes[i] ^= KEY;
+                    }
+                    return readBytes;
+                }
+            };
+        }
+
+        @Override
+        public String getEncryptedFileExtension() {
+            return ENCRYPTED_FILE_EXTENSION;
+        }
+    };
+
+    @Test
+    void encryptAndArchiveOutputs_streamedArchive() throws KraftwerkException, IOException {
+        Path outDirectory = tempDirectory.resolve("out").resolve("CAMPAIGN");
+        Files.createDirectories(outDirectory.resolve("sub"));
+        byte[] bigContent = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < bigContent.length; i++) {
+            bigContent[i] = (byte) (i % 251);
+        }
+        Files.write(outDirectory.resolve("big.parquet"), bigContent);
+        Files.writeString(outDirectory.resolve("sub").resolve("table.csv"), "A;B\n1;2\n");
+
+        new OutputZipService(XOR_ENCRYPTION).encryptAndArchiveOutputs(
+                createContext(outDirectory), new FileSystemImpl(tempDirectory.toString()));
+
+        Path encryptedArchive = outDirectory.resolve("CAMPAIGN.zip" + ENCRYPTED_FILE_EXTENSION);
+        try (var paths = Files.list(outDirectory)) {
+            assertEquals(List.of(encryptedArchive), paths.toList());
+        }
+        Map<String, byte[]> entries = readEncryptedZip(encryptedArchive);
+        assertEquals(2, entries.size());
+        assertArrayEquals(bigContent, entries.get("big.parquet"));
+        assertEquals("A;B\n1;2\n", new String(entries.get("sub/table.csv"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encryptAndArchiveOutputs_failedZip_outputsKept() {
+        // Outputs are objects of a storage, the second one can't be entirely read
+        Path outDirectory = tempDirectory.resolve("out").resolve("CAMPAIGN");
+        String prefix = outDirectory.toString().replace("\\", "/") + "/";
+        List<String> deletedPaths = new ArrayList<>();
+        FileUtilsInterface fileUtils = new FileSystemImpl(tempDirectory.toString()) {
+            @Override
+            public List<String> listFileNames(String dir) {
+                return List.of(prefix + "a.csv", prefix + "b.csv");
+            }
+
+            @Override
+            public InputStream readFile(String path) {
+                if (path.endsWith("a.csv")) {
+                    return new ByteArrayInputStream("A;B\n1;2\n".getBytes(StandardCharsets.UTF_8));
+                }
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                };
+            }
+
+            @Override
+            public void deleteFile(String path) {
+                deletedPaths.add(path);
+                super.deleteFile(path);
+            }
+        };
+        OutputZipService outputZipService = new OutputZipService(XOR_ENCRYPTION);
+        KraftwerkExecutionContext kraftwerkExecutionContext = createContext(outDirectory);
+
+        assertThrows(KraftwerkException.class, () ->
+                outputZipService.encryptAndArchiveOutputs(kraftwerkExecutionContext, fileUtils));
+        Path encryptedArchive = outDirectory.resolve("CAMPAIGN.zip" + ENCRYPTED_FILE_EXTENSION);
+        assertFalse(Files.exists(encryptedArchive));
+        assertEquals(List.of(encryptedArchive.toString()), deletedPaths);
+    }
+
+    @Test
+    void encryptAndArchiveOutputs_failedWrite_outputsKept() throws IOException {
+        Path outDirectory = tempDirectory.resolve("out").resolve("CAMPAIGN");
+        Files.createDirectories(outDirectory);
+        Files.writeString(outDirectory.resolve("table.csv"), "A;B\n1;2\n");
+        // The storage logs the write error, like FileSystemImpl, and leaves a truncated archive
+        FileUtilsInterface fileUtils = new FileSystemImpl(tempDirectory.toString()) {
+            @Override
+            public void writeFile(String path, InputStream inputStream, boolean replace) {
+                try {
+                    Files.write(Path.of(path), inputStream.readNBytes(10));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        OutputZipService outputZipService = new OutputZipService(XOR_ENCRYPTION);
+        KraftwerkExecutionContext kraftwerkExecutionContext = createContext(outDirectory);
+
+        assertThrows(KraftwerkException.class, () ->
+                outputZipService.encryptAndArchiveOutputs(kraftwerkExecutionContext, fileUtils));
+        assertFalse(Files.exists(outDirectory.resolve("CAMPAIGN.zip" + ENCRYPTED_FILE_EXTENSION)));
+        assertTrue(Files.exists(outDirectory.resolve("table.csv")));
+    }
+
+    @Test
+    void encryptAndArchiveOutputs_encryptionStub_noArchive() throws IOException {
+        // Without the encryption module, outputs are kept rather than archived unencrypted
+        Path outDirectory = tempDirectory.resolve("out").resolve("CAMPAIGN");
+        Files.createDirectories(outDirectory);
+        byte[] bigContent = new byte[3 * 1024 * 1024];
+        Files.write(outDirectory.resolve("big.parquet"), bigContent);
+        OutputZipService outputZipService = new OutputZipService(new EncryptionUtilsStub());
+        KraftwerkExecutionContext kraftwerkExecutionContext = createContext(outDirectory);
+        FileUtilsInterface fileUtils = new FileSystemImpl(tempDirectory.toString());
+
+        assertThrows(KraftwerkException.class, () ->
+                outputZipService.encryptAndArchiveOutputs(kraftwerkExecutionContext, fileUtils));
+        try (var paths = Files.walk(tempDirectory)) {
+            assertFalse(paths.anyMatch(path -> path.toString().endsWith(ENCRYPTED_FILE_EXTENSION)));
+        }
+        assertArrayEquals(bigContent, Files.readAllBytes(outDirectory.resolve("big.parquet")));
+    }
+
+    private static KraftwerkExecutionContext createContext(Path outDirectory) {
+        KraftwerkExecutionContext kraftwerkExecutionContext = new KraftwerkExecutionContext(
+                null, false, true, true, 419430400L, false);
+        kraftwerkExecutionContext.setOutDirectory(outDirectory);
+        return kraftwerkExecutionContext;
+    }
+
+    private static Map<String, byte[]> readEncryptedZip(Path encryptedArchive) throws IOException {
+        byte[] zipContent = Files.readAllBytes(encryptedArchive);
+        for (int i = 0; i < zipContent.length; i++) {
+            zipContent[i] ^= KEY;
+        }
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipContent))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                entries.put(zipEntry.getName(), zipInputStream.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+}
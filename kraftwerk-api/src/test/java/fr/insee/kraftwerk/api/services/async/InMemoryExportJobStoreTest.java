@@ -0,0 +1,74 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import fr.insee.kraftwerk.api.dto.ExportCheckResultDto;
+import fr.insee.kraftwerk.api.dto.ExportJobResultDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryExportJobStoreTest {
+
+    @TempDir
+    Path tempDirectory;
+
+    private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+    @Test
+    void jobStatus_survivesRestart() throws SQLException {
+        Path jobStoreFile = tempDirectory.resolve("jobs.duckdb");
+        Clock clock = Clock.fixed(NOW, ZoneId.systemDefault());
+        try (DuckDbJobRepository jobRepository = new DuckDbJobRepository(jobStoreFile)) {
+            InMemoryExportJobStore exportJobStore = new InMemoryExportJobStore(jobRepository, clock, Duration.ZERO);
+            exportJobStore.start("done");
+            exportJobStore.complete("done", new ExportCheckResultDto("QUEST", 12), List.of("error"));
+            exportJobStore.start("running");
+        }
+
+        try (DuckDbJobRepository jobRepository = new DuckDbJobRepository(jobStoreFile)) {
+            InMemoryExportJobStore exportJobStore = new InMemoryExportJobStore(jobRepository, clock, Duration.ZERO);
+
+            ExportJobResultDto doneJob = exportJobStore.get("done").orElseThrow();
+            assertEquals(JobStatus.PARTIAL, doneJob.getStatus());
+            assertEquals(new ExportCheckResultDto("QUEST", 12), doneJob.getCheckResult());
+            assertEquals(List.of("error"), doneJob.getErrors());
+
+            ExportJobResultDto interruptedJob = exportJobStore.get("running").orElseThrow();
+            assertEquals(JobStatus.FAILED, interruptedJob.getStatus());
+            assertEquals(List.of(InMemoryExportJobStore.INTERRUPTED_JOB_ERROR), interruptedJob.getErrors());
+            assertEquals(JobStatus.FAILED, jobRepository.findAll().get("running").getStatus());
+        }
+    }
+
+    @Test
+    void finishedJobs_evictedAfterTtl() throws SQLException {
+        Path jobStoreFile = tempDirectory.resolve("jobs.duckdb");
+        try (DuckDbJobRepository jobRepository = new DuckDbJobRepository(jobStoreFile)) {
+            InMemoryExportJobStore exportJobStore = new InMemoryExportJobStore(jobRepository,
+                    Clock.fixed(NOW, ZoneId.systemDefault()), Duration.ofHours(1));
+            exportJobStore.start("finished");
+            exportJobStore.complete("finished", new ExportCheckResultDto("QUEST", 1), List.of());
+            exportJobStore.start("recent");
+            exportJobStore.evictFinishedJobs();
+            assertTrue(exportJobStore.get("finished").isPresent());
+
+            InMemoryExportJobStore laterExportJobStore = new InMemoryExportJobStore(jobRepository,
+                    Clock.fixed(NOW.plus(Duration.ofHours(2)), ZoneId.systemDefault()), Duration.ofHours(1));
+            assertTrue(laterExportJobStore.get("finished").isEmpty());
+            assertFalse(jobRepository.findAll().containsKey("finished"));
+            // Interrupted by the restart but ended just now, so still kept
+            assertTrue(laterExportJobStore.get("recent").isPresent());
+        }
+    }
+
+}
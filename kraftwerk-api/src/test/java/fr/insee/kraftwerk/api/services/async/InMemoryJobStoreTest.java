@@ -0,0 +1,99 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryJobStoreTest {
+
+    @TempDir
+    Path tempDirectory;
+
+    private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+    @Test
+    void jobStatus_survivesRestart() throws SQLException {
+        Path jobStoreFile = tempDirectory.resolve("jobs.duckdb");
+        Clock clock = Clock.fixed(NOW, ZoneId.systemDefault());
+        try (DuckDbJobRepository jobRepository = new DuckDbJobRepository(jobStoreFile)) {
+            InMemoryJobStore jobStore = new InMemoryJobStore(jobRepository, clock, Duration.ZERO);
+            jobStore.start("done");
+            jobStore.success("done");
+            jobStore.start("failed");
+            jobStore.fail("failed", new IllegalStateException("error"));
+            jobStore.start("running");
+        }
+
+        try (DuckDbJobRepository jobRepository = new DuckDbJobRepository(jobStoreFile)) {
+            InMemoryJobStore jobStore = new InMemoryJobStore(jobRepository, clock, Duration.ZERO);
+
+            JobExecution doneJob = jobStore.get("done").orElseThrow();
+            assertEquals(JobStatus.DONE, doneJob.status());
+            assertEquals(NOW, doneJob.startedAt());
+            assertEquals(NOW, doneJob.endedAt());
+
+            JobExecution failedJob = jobStore.get("failed").orElseThrow();
+            assertEquals(JobStatus.FAILED, failedJob.status());
+            assertEquals("error", failedJob.errorMessage());
+
+            JobExecution interruptedJob = jobStore.get("running").orElseThrow();
+            assertEquals(JobStatus.FAILED, interruptedJob.status());
+            assertEquals(InMemoryExportJobStore.INTERRUPTED_JOB_ERROR, interruptedJob.errorMessage());
+            assertEquals(JobStatus.FAILED, jobRepository.findAllExecutions().get("running").status());
+        }
+    }
+
+    @Test
+    void finishedJobs_evictedWhenRead() throws SQLException {
+        Path jobStoreFile = tempDirectory.resolve("jobs.duckdb");
+        MutableClock clock = new MutableClock(NOW);
+        try (DuckDbJobRepository jobRepository = new DuckDbJobRepository(jobStoreFile)) {
+            InMemoryJobStore jobStore = new InMemoryJobStore(jobRepository, clock, Duration.ofHours(1));
+            jobStore.start("finished");
+            jobStore.success("finished");
+            jobStore.start("running");
+            assertTrue(jobStore.get("finished").isPresent());
+
+            clock.instant = NOW.plus(Duration.ofHours(2));
+
+            assertTrue(jobStore.get("finished").isEmpty());
+            assertFalse(jobRepository.findAllExecutions().containsKey("finished"));
+            assertTrue(jobStore.get("running").isPresent());
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+}
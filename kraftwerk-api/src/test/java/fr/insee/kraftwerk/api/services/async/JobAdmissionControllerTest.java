@@ -0,0 +1,42 @@
+package fr.insee.kraftwerk.api.services.async;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobAdmissionControllerTest {
+
+    @Test
+    void tryAdmit_questionnaireLimit() {
+        JobAdmissionController jobAdmissionController = new JobAdmissionController(0, 0, 1);
+
+        assertTrue(jobAdmissionController.tryAdmit("job1", "tenant", "QUEST1"));
+        assertFalse(jobAdmissionController.tryAdmit("job2", "other-tenant", "QUEST1"));
+        assertTrue(jobAdmissionController.tryAdmit("job3", "tenant", "QUEST2"));
+
+        jobAdmissionController.release("job1");
+        assertTrue(jobAdmissionController.tryAdmit("job4", "other-tenant", "QUEST1"));
+    }
+
+    @Test
+    void tryAdmit_tenantAndTotalLimits() {
+        JobAdmissionController jobAdmissionController = new JobAdmissionController(3, 2, 0);
+
+        assertTrue(jobAdmissionController.tryAdmit("job1", "tenant", "QUEST1"));
+        assertTrue(jobAdmissionController.tryAdmit("job2", "tenant", "QUEST2"));
+        assertFalse(jobAdmissionController.tryAdmit("job3", "tenant", "QUEST3"));
+        assertTrue(jobAdmissionController.tryAdmit("job4", "other-tenant", "QUEST3"));
+        assertFalse(jobAdmissionController.tryAdmit("job5", "third-tenant", "QUEST4"));
+        assertEquals(3, jobAdmissionController.getAdmittedJobsCount());
+
+        // Releasing an unknown or already released job changes nothing
+        jobAdmissionController.release("job3");
+        jobAdmissionController.release("job4");
+        jobAdmissionController.release("job4");
+        assertEquals(2, jobAdmissionController.getAdmittedJobsCount());
+        assertTrue(jobAdmissionController.tryAdmit("job6", "third-tenant", "QUEST4"));
+    }
+
+}
@@ -63,6 +63,7 @@ public final class Constants {
 	public static final String QUESTIONNAIRE_STATE_NAME = "questionnaireState";
 	public static final String LOOP_NAME_PREFIX = "BOUCLE";
 	public static final String MULTIMODE_DATASET_NAME = "MULTIMODE";
+	public static final String MODE_VARIABLE_NAME = "MODE_KRAFTWERK";
 	public static final String REPORTING_DATA_GROUP_NAME = "REPORTINGDATA";
 	public static final String REPORTING_DATA_INTERVIEWER_ID_NULL_PLACEHOLDER = "NON_AFFECTE_";
 	public static final String REPORTING_DATA_INPUT_DATE_FORMAT = "dd/MM/yyyy HH:mm:ss";
@@ -1,5 +1,6 @@
 package fr.insee.kraftwerk.core.dataprocessing;
 
+import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
@@ -25,7 +26,7 @@ import java.util.List;
 @Log4j2
 public abstract class DataProcessing {
 
-    protected static final String MODE_VARIABLE_NAME = "MODE_KRAFTWERK";
+    protected static final String MODE_VARIABLE_NAME = Constants.MODE_VARIABLE_NAME;
 
     protected final VtlBindings vtlBindings;
 	VtlExecute vtlExecute;
@@ -47,12 +48,25 @@ public abstract class DataProcessing {
         // First step
         String automatedVtlInstructions = applyAutomatedVtlInstructions(bindingName, kraftwerkExecutionContext);
         // Second step
-        if(userVtlInstructionsPath == null || !fileUtilsInterface.isFileExists(userVtlInstructionsPath.toString())){
+        applyUserVtlTransformations(bindingName, userVtlInstructionsPath, kraftwerkExecutionContext);
+        return automatedVtlInstructions;
+    }
+
+    /**
+     * Apply only the second step : the user VTL instructions file, if given.
+     * Used when the automated step has been done outside VTL.
+     */
+    public void applyUserVtlTransformations(String bindingName, Path userVtlInstructionsPath, KraftwerkExecutionContext kraftwerkExecutionContext) throws KraftwerkException {
+        if(!hasUserVtlInstructions(userVtlInstructionsPath)){
             log.info("No user VTL instructions given for dataset named {} (step {}).", bindingName, getStepName());
-            return automatedVtlInstructions;
+            return;
         }
         applyUserVtlInstructions(userVtlInstructionsPath, kraftwerkExecutionContext);
-        return automatedVtlInstructions;
+    }
+
+    /** Return true if the user VTL instructions file of the step is given and exists. */
+    public boolean hasUserVtlInstructions(Path userVtlInstructionsPath) {
+        return userVtlInstructionsPath != null && fileUtilsInterface.isFileExists(userVtlInstructionsPath.toString());
     }
 
     /**
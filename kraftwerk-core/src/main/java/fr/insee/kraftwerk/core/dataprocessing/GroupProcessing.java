@@ -6,8 +6,13 @@ import fr.insee.bpm.metadata.model.VariablesMap;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
+import fr.insee.kraftwerk.core.vtl.VtlMacros;
 import fr.insee.kraftwerk.core.vtl.VtlScript;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 public class GroupProcessing extends DataProcessing{
 
 	private MetadataModel metadataModel;
@@ -29,6 +34,7 @@ public class GroupProcessing extends DataProcessing{
     /**
      * Rename variables with their "fully qualified name".
      * For each variable that is not in the root group, add a group prefix to its name.
+     * All the variables are renamed in one instruction, variables which are not in the dataset are ignored.
      * Examples:
      * - FIRST_NAME -> INDIVIDUALS_LOOP.FIRST_NAME
      * - CAR_COLOR -> INDIVIDUALS_LOOP.CARS_LOOP.CAR_COLOR
@@ -40,13 +46,23 @@ public class GroupProcessing extends DataProcessing{
     protected VtlScript generateVtlInstructions(String bindingName) {
         VtlScript vtlScript = new VtlScript();
         VariablesMap variablesMap = metadataModel.getVariables();
+        Set<String> datasetVariableNames = vtlBindings.containsKey(bindingName) ?
+                vtlBindings.getDataset(bindingName).getDataStructure().keySet() : null;
 
+        Map<String, String> fullyQualifiedNames = new LinkedHashMap<>();
         for (String variableName : variablesMap.getVariableNames()) {
-            if (variablesMap.getVariable(variableName).getGroup() != metadataModel.getRootGroup()) {
-                vtlScript.add(String.format("%s := %s [rename %s to %s];",
-                        bindingName, bindingName, variableName, metadataModel.getFullyQualifiedName(variableName)));
+            // Group objects of a model read from the metadata cache are copies : groups are compared by name
+            if (!metadataModel.getRootGroup().getName().equals(variablesMap.getVariable(variableName).getGroupName())) {
+                String fullyQualifiedName = metadataModel.getFullyQualifiedName(variableName);
+                if (datasetVariableNames == null || (datasetVariableNames.contains(variableName)
+                        && !datasetVariableNames.contains(fullyQualifiedName))) {
+                    fullyQualifiedNames.put(variableName, fullyQualifiedName);
+                }
             }
         }
+        if (!fullyQualifiedNames.isEmpty()) {
+            vtlScript.add(VtlMacros.toVtlRenameInstruction(bindingName, fullyQualifiedNames));
+        }
 
         return vtlScript;
     }
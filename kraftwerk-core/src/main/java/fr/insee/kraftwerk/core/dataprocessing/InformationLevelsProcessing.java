@@ -10,7 +10,9 @@ import fr.insee.kraftwerk.core.vtl.VtlScript;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -76,14 +78,13 @@ public class InformationLevelsProcessing extends DataProcessing {
 			// To delete duplicates
 			addDeduplicateVTLScript(groupName, vtlScript);
 
-			// Then rename fully qualified names into simple names
+			// Then rename fully qualified names into simple names, in one instruction
+			Map<String, String> simpleNames = new LinkedHashMap<>();
 			for (int j = 0; j < groupVariableNames.size(); j++) {
-				String variableName = groupVariableNames.get(j);
-				String fullyQualifiedName = groupMeasureNames.get(j);
-				vtlScript.add(String.format("%1$s := %1$s [rename %2$s to %3$s];",
-						groupName,
-						fullyQualifiedName,
-						variableName));
+				simpleNames.put(groupMeasureNames.get(j), groupVariableNames.get(j));
+			}
+			if (!simpleNames.isEmpty()) {
+				vtlScript.add(VtlMacros.toVtlRenameInstruction(groupName, simpleNames));
 			}
 
 			//Use the last temp group dataset as definitive
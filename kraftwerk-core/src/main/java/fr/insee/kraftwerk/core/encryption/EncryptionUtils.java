@@ -13,5 +13,17 @@ public interface EncryptionUtils {
                 Path pathOfFileToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext
         ) throws KraftwerkException;
 
+        /**
+         * Encrypts a stream : the content is read from the given stream and encrypted as the returned stream is read,
+         * so that it never needs to be written to a temporary file
+         * @param inputStreamToEncrypt stream of the content to encrypt, closed with the returned stream
+         * @param kraftwerkExecutionContext Context
+         * @return stream of the encrypted content
+         * @throws KraftwerkException if the encryption can't be initialized
+         */
+        InputStream encryptInputStream(
+                InputStream inputStreamToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext
+        ) throws KraftwerkException;
+
         String getEncryptedFileExtension();
 }
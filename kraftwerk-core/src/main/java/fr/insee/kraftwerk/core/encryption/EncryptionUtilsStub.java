@@ -19,6 +19,12 @@ public class EncryptionUtilsStub implements EncryptionUtils { //Stub used when m
         return null;
     }
 
+    @Override
+    public InputStream encryptInputStream(InputStream inputStreamToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext) throws KraftwerkException {
+        // Outputs must never be written unencrypted where an encrypted archive is expected
+        throw new KraftwerkException(500, "Encryption module not loaded, outputs can't be encrypted");
+    }
+
     @Override
     public String getEncryptedFileExtension() {
         return "";
@@ -41,6 +41,15 @@ public class ParaDataUE {
 		}
 	}
 
+	/**
+	 * Release the events and paradata variables, once sessions and orchestrators are computed
+	 * and integrated into the survey data.
+	 */
+	public void keepSummary() {
+		this.events = new ArrayList<>();
+		this.paraDataVariables = new LinkedHashMap<>();
+	}
+
 	public void addSession(Session session) {
 		this.sessions.add(session);
 	}
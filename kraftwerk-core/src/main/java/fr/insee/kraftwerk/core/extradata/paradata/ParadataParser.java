@@ -12,52 +12,89 @@ import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import lombok.extern.log4j.Log4j2;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Log4j2
 public class ParadataParser {
 
 	private static final String NEW_VALUE = "newValue";
+	private static final String COLLECT_ORCHESTRATOR = "orchestrator-collect";
+	/** Events are read one by one from the parser : the rest of the file must not be checked */
+	private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder()
+			.disable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+			.build();
 
 	private final List<String> inputFields = Arrays.asList("RADIO", "CHECKBOX", "INPUT", "DATEPICKER");
 
 	private final FileUtilsInterface fileUtilsInterface;
+	/** Number of paradata files read at the same time */
+	private final int parallelism;
+
+	/** Identifier and collect orchestrator events of a paradata file */
+	private record CollectedParadata(String identifier, List<JSONObject> collectedEvents) {}
+
+	/** Integrates a parsed ParaDataUE into the survey data */
+	@FunctionalInterface
+	private interface ParaDataUEConsumer {
+		void accept(ParaDataUE paraDataUE);
+	}
 
 	public ParadataParser(FileUtilsInterface fileUtilsInterface) {
+		this(fileUtilsInterface, 1);
+	}
+
+	/**
+	 * @param parallelism number of paradata files read at the same time, files are still integrated one
+	 *                    after the other in the order of the folder
+	 */
+	public ParadataParser(FileUtilsInterface fileUtilsInterface, int parallelism) {
 		this.fileUtilsInterface = fileUtilsInterface;
+		this.parallelism = parallelism;
 	}
 
 	public void parseParadata(Paradata paradata, SurveyRawData surveyRawData) throws NullException {
 
-		log.info("Paradata parser being implemented for Survey Unit : {} !",
-				surveyRawData.getIdSurveyUnits().toString());
+		log.info("Paradata parser being implemented for {} survey units !",
+				surveyRawData.getIdSurveyUnits().size());
 		Path filePath = paradata.getFilepath();
 		if (filePath == null)
 			throw new NullException("JSONFile not defined");
 
 		if (!filePath.toString().contentEquals("")) {
 			try {
-				// Parse each ParaDataUE
-				List<ParaDataUE> listParaDataUE = new ArrayList<>();
+				Set<String> idSurveyUnits = new HashSet<>(surveyRawData.getIdSurveyUnits());
+				Set<String> variableNames = new HashSet<>(surveyRawData.getMetadataModel().getVariables().getVariableNames());
 				// Get all filepaths for each ParadataUE
-				for (String fileParaDataPath : fileUtilsInterface.listFilePaths(filePath.toString()).stream().filter(
-						s -> surveyRawData.getIdSurveyUnits().contains(getIdFromFilename(Path.of(s)))
-				).toList()) {
-					ParaDataUE paraDataUE = new ParaDataUE();
-					paraDataUE.setFilepath(Path.of(fileParaDataPath));
-					parseParadataUE(paraDataUE, surveyRawData);
-					paraDataUE.sortEvents();
-					paraDataUE.setSurveyValidationDateTimeStamp(Constants.PARADATA_SURVEY_VALIDATION_EVENT_NAME);
+				List<Path> paradataFilePaths = fileUtilsInterface.listFilePaths(filePath.toString()).stream()
+						.map(Path::of)
+						.filter(paradataFilePath -> idSurveyUnits.contains(getIdFromFilename(paradataFilePath)))
+						.toList();
+				// Parse each ParaDataUE, keeping only its summary once integrated
+				List<ParaDataUE> listParaDataUE = new ArrayList<>();
+				parseParadataFiles(paradataFilePaths, variableNames, paraDataUE -> {
 					if (paraDataUE.getEvents().size() > 2) {
-						paraDataUE.createOrchestratorsAndSessions();
 						integrateParaDataVariablesIntoUE(paraDataUE, surveyRawData);
+						paraDataUE.keepSummary();
 						listParaDataUE.add(paraDataUE);
 					}
-				}
+				});
 				paradata.setListParadataUE(listParaDataUE);
 			} catch (NullException e){
 				log.error("Error parsing paradata : {}", e.getMessage());
@@ -65,84 +102,209 @@ public class ParadataParser {
 		}
 	}
 
+	/**
+	 * Parse the paradata files, at most parallelism files at a time, and give them to the consumer in the
+	 * order of the files.
+	 */
+	private void parseParadataFiles(List<Path> paradataFilePaths, Set<String> variableNames,
+									ParaDataUEConsumer paraDataUEConsumer) throws NullException {
+		if (parallelism <= 1 || paradataFilePaths.size() <= 1) {
+			for (Path paradataFilePath : paradataFilePaths) {
+				paraDataUEConsumer.accept(parseParadataFile(paradataFilePath, variableNames));
+			}
+			return;
+		}
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Deque<Future<ParaDataUE>> parsedFiles = new ArrayDeque<>();
+			int nextToParse = 0;
+			try {
+				for (int i = 0; i < paradataFilePaths.size(); i++) {
+					while (nextToParse < paradataFilePaths.size() && parsedFiles.size() < parallelism) {
+						Path paradataFilePath = paradataFilePaths.get(nextToParse++);
+						parsedFiles.add(executor.submit(() -> parseParadataFile(paradataFilePath, variableNames)));
+					}
+					paraDataUEConsumer.accept(getParsedFile(parsedFiles.poll()));
+				}
+			} finally {
+				parsedFiles.forEach(parsedFile -> parsedFile.cancel(true));
+			}
+		}
+	}
+
+	private static ParaDataUE getParsedFile(Future<ParaDataUE> parsedFile) throws NullException {
+		try {
+			return parsedFile.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new NullException("Interrupted while reading paradata file");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof NullException nullException) {
+				throw nullException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Read a paradata file and compute its orchestrators and sessions, without touching the survey data
+	 */
+	private ParaDataUE parseParadataFile(Path paradataFilePath, Set<String> variableNames) throws NullException {
+		ParaDataUE paraDataUE = new ParaDataUE();
+		paraDataUE.setFilepath(paradataFilePath);
+		parseParadataUE(paraDataUE, variableNames);
+		paraDataUE.sortEvents();
+		paraDataUE.setSurveyValidationDateTimeStamp(Constants.PARADATA_SURVEY_VALIDATION_EVENT_NAME);
+		if (paraDataUE.getEvents().size() > 2) {
+			paraDataUE.createOrchestratorsAndSessions();
+		}
+		return paraDataUE;
+	}
+
 	private String getIdFromFilename(Path file) {
 		String[] splitFilename = file.getFileName().toString().split("\\.");
 		return splitFilename[splitFilename.length - 2];
 	}
 
-	private void parseParadataUE(ParaDataUE paradataUE, SurveyRawData surveyRawData) throws NullException {
-		// To convert to an entire folder instead of a single file
-		VariablesMap variablesMap = surveyRawData.getMetadataModel().getVariables();
-		JSONObject jsonObject = getParadataFromJson(paradataUE);
+	private void parseParadataUE(ParaDataUE paradataUE, Set<String> variableNames) throws NullException {
+		CollectedParadata collectedParadata = readCollectedParadata(paradataUE.getFilepath());
 		// Get Identifier
-		String identifier = (String) jsonObject.get("idSu");
+		String identifier = collectedParadata.identifier();
 		paradataUE.setIdentifier(identifier);
 
 		// Now we get each event recorded
 		ArrayList<Event> events = new ArrayList<>();
-		JSONArray collectedEvents = (JSONArray) jsonObject.get("events");
-		for (Object collectedEvent : collectedEvents) {
-			JSONArray subParadata = (JSONArray) collectedEvent;
-			for (int j = 0; j < subParadata.size(); j++) {
-				parseEventFromParadataUE(paradataUE, variablesMap, identifier, events, subParadata, j);
-			}
+		for (JSONObject collectedEvent : collectedParadata.collectedEvents()) {
+			parseEventFromParadataUE(paradataUE, variableNames, identifier, events, collectedEvent);
 		}
 		paradataUE.setEvents(events);
 	}
 
-	private void parseEventFromParadataUE(ParaDataUE paradataUE, VariablesMap variablesMap, String identifier,
-			ArrayList<Event> events, JSONArray subParadata, int j) {
-		JSONObject collectedEvent = (JSONObject) subParadata.get(j);
-		if (isCollectedParadata(collectedEvent)) { // check that paradata are linked to collect (not visualisation or
-													// readonly))
-
-			Event event = new Event(identifier);
-			event.setIdParadataObject((String) collectedEvent.get("idParadataObject"));
-			event.setIdSession((String) collectedEvent.get("idSession"));
-			String timestamp = "timestamp";
-			event.setTimestamp((long) collectedEvent.get(timestamp));
-
-			ParadataVariable paradataVariable = new ParadataVariable(identifier);
-			paradataVariable.setTimestamp((long) collectedEvent.get(timestamp));
-			paradataVariable.setValue(collectedEvent.get(NEW_VALUE));
-
-			if (variablesMap.getVariableNames().contains(event.getIdParadataObject())) {
-				paradataVariable.setVariableName(event.getIdParadataObject().toUpperCase());
-				// Change value -> not String dependant
-				Object newValue = getValue(new JSONObject(collectedEvent).get(NEW_VALUE));
-				event.setValue(newValue);
-				paradataVariable.setValue(newValue);
-				paradataUE.addParadataVariable(paradataVariable);
+	private void parseEventFromParadataUE(ParaDataUE paradataUE, Set<String> variableNames, String identifier,
+			ArrayList<Event> events, JSONObject collectedEvent) {
+		Event event = new Event(identifier);
+		event.setIdParadataObject((String) collectedEvent.get("idParadataObject"));
+		event.setIdSession((String) collectedEvent.get("idSession"));
+		String timestamp = "timestamp";
+		event.setTimestamp((long) collectedEvent.get(timestamp));
+
+		ParadataVariable paradataVariable = new ParadataVariable(identifier);
+		paradataVariable.setTimestamp((long) collectedEvent.get(timestamp));
+		paradataVariable.setValue(collectedEvent.get(NEW_VALUE));
+
+		if (variableNames.contains(event.getIdParadataObject())) {
+			paradataVariable.setVariableName(event.getIdParadataObject().toUpperCase());
+			// Change value -> not String dependant
+			Object newValue = getValue(collectedEvent.get(NEW_VALUE));
+			event.setValue(newValue);
+			paradataVariable.setValue(newValue);
+			paradataUE.addParadataVariable(paradataVariable);
+
+		}
+		if (inputFields.stream().anyMatch(event.getIdParadataObject().toUpperCase()::contains)) {
+			paradataVariable.setVariableName((String) collectedEvent.get("responseName"));
+			paradataUE.addParadataVariable(paradataVariable);
+		}
+		if (event.getIdParadataObject().toUpperCase().contains(Constants.FILTER_RESULT_PREFIX)) {
+			paradataVariable.setVariableName(event.getIdParadataObject());
+			paradataUE.addParadataVariable(paradataVariable);
+		}
+		events.add(event);
+	}
 
+	/**
+	 * Read a paradata file with a streaming parser : only the events linked to collect (not visualisation
+	 * or readonly) are kept in memory.
+	 */
+	private CollectedParadata readCollectedParadata(Path filePath) throws NullException {
+		try (InputStream inputStream = fileUtilsInterface.readFile(filePath.toString())) {
+			if (inputStream == null)
+				throw new NullException("Error reading file - NullPointer");
+			try (JsonParser jsonParser = OBJECT_MAPPER.createParser(inputStream)) {
+				if (jsonParser.nextToken() != JsonToken.START_OBJECT)
+					throw new NullException("Error reading file - NullPointer");
+				String identifier = null;
+				List<JSONObject> collectedEvents = new ArrayList<>();
+				while (jsonParser.nextToken() == JsonToken.PROPERTY_NAME) {
+					String fieldName = jsonParser.currentName();
+					JsonToken valueToken = jsonParser.nextToken();
+					if ("idSu".equals(fieldName) && valueToken != JsonToken.VALUE_NULL) {
+						identifier = jsonParser.getValueAsString();
+					} else if ("events".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+						readCollectedEvents(jsonParser, collectedEvents);
+					} else {
+						jsonParser.skipChildren();
+					}
+				}
+				if (jsonParser.nextToken() != null)
+					throw new NullException("Can't read JSON file - unexpected content after the paradata object");
+				return new CollectedParadata(identifier, collectedEvents);
 			}
-			if (inputFields.stream().anyMatch(event.getIdParadataObject().toUpperCase()::contains)) {
-				paradataVariable.setVariableName((String) collectedEvent.get("responseName"));
-				paradataUE.addParadataVariable(paradataVariable);
+		} catch (IOException | JacksonException e) {
+			throw new NullException("Can't read JSON file - " + e.getClass() + " " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Read the events array, made of arrays of events, the parser being on its start
+	 */
+	private static void readCollectedEvents(JsonParser jsonParser, List<JSONObject> collectedEvents) {
+		JsonToken token;
+		while ((token = jsonParser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+			if (token != JsonToken.START_ARRAY) {
+				jsonParser.skipChildren();
+				continue;
 			}
-			if (event.getIdParadataObject().toUpperCase().contains(Constants.FILTER_RESULT_PREFIX)) {
-				paradataVariable.setVariableName(event.getIdParadataObject());
-				paradataUE.addParadataVariable(paradataVariable);
+			while ((token = jsonParser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+				if (token != JsonToken.START_OBJECT) {
+					jsonParser.skipChildren();
+					continue;
+				}
+				JsonNode eventNode = OBJECT_MAPPER.readTree(jsonParser);
+				if (isCollectedParadata(eventNode)) {
+					collectedEvents.add((JSONObject) toJsonSimpleValue(eventNode));
+				}
 			}
-			events.add(event);
 		}
 	}
 
-	private boolean isCollectedParadata(JSONObject collectedEvent) {
-		return collectedEvent.containsKey("idOrchestrator")
-				&& collectedEvent.get("idOrchestrator").equals("orchestrator-collect");
+	private static boolean isCollectedParadata(JsonNode collectedEvent) {
+		JsonNode idOrchestrator = collectedEvent.get("idOrchestrator");
+		return idOrchestrator != null && COLLECT_ORCHESTRATOR.equals(idOrchestrator.stringValue(null));
 	}
 
-	private JSONObject getParadataFromJson(ParaDataUE paradataUE) throws NullException {
-		Path filePath = paradataUE.getFilepath();
-		JSONObject jsonObject;
-		try {
-			jsonObject = (JSONObject) Constants.readJsonSimple(filePath, fileUtilsInterface);
-		} catch (Exception e) {
-			throw new NullException("Can't read JSON file - " + e.getClass() + " " + e.getMessage());
+	/** Convert a JSON node to the json-simple value read from the same JSON */
+	@SuppressWarnings("unchecked")
+	private static Object toJsonSimpleValue(JsonNode jsonNode) {
+		if (jsonNode.isObject()) {
+			JSONObject jsonObject = new JSONObject();
+			for (Map.Entry<String, JsonNode> property : jsonNode.properties()) {
+				jsonObject.put(property.getKey(), toJsonSimpleValue(property.getValue()));
+			}
+			return jsonObject;
+		}
+		if (jsonNode.isArray()) {
+			JSONArray jsonArray = new JSONArray();
+			for (JsonNode element : jsonNode) {
+				jsonArray.add(toJsonSimpleValue(element));
+			}
+			return jsonArray;
+		}
+		if (jsonNode.isIntegralNumber()) {
+			return jsonNode.longValue();
+		}
+		if (jsonNode.isNumber()) {
+			return jsonNode.doubleValue();
+		}
+		if (jsonNode.isBoolean()) {
+			return jsonNode.booleanValue();
+		}
+		if (jsonNode.isNull()) {
+			return null;
 		}
-		if (jsonObject == null)
-			throw new NullException("Error reading file - NullPointer");
-		return jsonObject;
+		return jsonNode.asString();
 	}
 
 	private Object getValue(Object object) {
@@ -221,10 +383,8 @@ public class ParadataParser {
 		long lengthOrchestrators = paraDataUE.createLengthOrchestratorsVariable();
 		long lengthSessions = paraDataUE.createLengthSessionsVariable();
 
-		QuestionnaireData questionnaire = surveyRawData.getQuestionnaires().stream()
-				.filter(questionnaireToSearch -> paraDataUE.getOrchestrators().getFirst().getIdentifier()
-						.equals(questionnaireToSearch.getIdentifier()))
-				.findAny().orElse(null);
+		QuestionnaireData questionnaire = surveyRawData.getQuestionnaire(
+				paraDataUE.getOrchestrators().getFirst().getIdentifier());
 		
 		if (questionnaire == null)	return;
 		
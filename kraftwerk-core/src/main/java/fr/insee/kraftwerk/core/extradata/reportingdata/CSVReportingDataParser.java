@@ -41,14 +41,10 @@ public class CSVReportingDataParser extends ReportingDataParser {
 					String rowState = nextRecord[0];
 					String rowTimestamp = nextRecord[1];
 					State state = new State(rowState, convertToTimestamp(rowTimestamp));
-					if (reportingData.containsReportingDataUE(rowIdentifier)) {
-						ReportingDataUE reportingDataUE1 = reportingData.getListReportingDataUE().stream().filter(
-										reportingDataUEToSearch -> rowIdentifier.equals(reportingDataUEToSearch.getIdentifier()))
-								.findAny().orElse(null);
-						if (reportingDataUE1 != null) {
-							reportingDataUE1.addState(state);
-							reportingDataUE1.sortStates();
-						}
+					ReportingDataUE reportingDataUE1 = reportingData.getReportingDataUE(rowIdentifier);
+					if (reportingDataUE1 != null) {
+						reportingDataUE1.addState(state);
+						reportingDataUE1.sortStates();
 						continue;
 					}
 					ReportingDataUE reportingDataUE = new ReportingDataUE(rowIdentifier);
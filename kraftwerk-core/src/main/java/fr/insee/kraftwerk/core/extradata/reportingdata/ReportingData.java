@@ -1,6 +1,6 @@
 package fr.insee.kraftwerk.core.extradata.reportingdata;
 
-import lombok.AllArgsConstructor;
+import fr.insee.kraftwerk.core.utils.IndexedList;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,12 +9,20 @@ import java.util.List;
 
 @Getter
 @Setter
-@AllArgsConstructor
 public class ReportingData {
 
   private final Path filepath;
   
-  private final List<ReportingDataUE> listReportingDataUE ;
+  /** Reporting data of the survey units, indexed by identifier */
+  private final IndexedList<ReportingDataUE> listReportingDataUE ;
+
+  /**
+   * @param listReportingDataUE reporting data already read, copied into the list of this object
+   */
+  public ReportingData(Path filepath, List<ReportingDataUE> listReportingDataUE) {
+    this.filepath = filepath;
+    this.listReportingDataUE = new IndexedList<>(listReportingDataUE, ReportingDataUE::getIdentifier);
+  }
 
   public void addReportingDataUE(ReportingDataUE reportingDataUE) {
 	  if (reportingDataUE != null) {
@@ -29,9 +37,14 @@ public class ReportingData {
   }
   
   public boolean containsReportingDataUE(String identifier) {
-    ReportingDataUE result = this.listReportingDataUE.stream()
-      .filter(reportingDataUE -> identifier.equals(reportingDataUE.getIdentifier()))
-      .findAny().orElse(null);
-    return (result != null);
+    return getReportingDataUE(identifier) != null;
+  }
+
+  /**
+   * Return the first reporting data of the survey unit with the given identifier, null if there is none.
+   * Reporting data added to the list since the last call are indexed first.
+   */
+  public ReportingDataUE getReportingDataUE(String identifier) {
+    return listReportingDataUE.getByKey(identifier);
   }
 }
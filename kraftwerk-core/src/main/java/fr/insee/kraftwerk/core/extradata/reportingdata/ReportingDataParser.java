@@ -147,10 +147,7 @@ public abstract class ReportingDataParser {
 		List<String> missingQuestionnaireIds = new ArrayList<>();
 		for (int i = 0; i < reportingData.getListReportingDataUE().size(); i++) {
 			ReportingDataUE reportingDataUE = reportingData.getListReportingDataUE().get(i);
-			QuestionnaireData questionnaire = surveyRawData.getQuestionnaires().stream()
-					.filter(questionnaireToSearch -> reportingDataUE.getIdentifier()
-							.equals(questionnaireToSearch.getIdentifier()))
-					.findAny().orElse(null);
+			QuestionnaireData questionnaire = surveyRawData.getQuestionnaire(reportingDataUE.getIdentifier());
 			if (questionnaire != null || withAllReportingData) {
 				addReportingDataUEToQuestionnaire(surveyRawData, reportingDataUE, questionnaire, missingQuestionnaireIds);
 			}
@@ -168,7 +165,7 @@ public abstract class ReportingDataParser {
 	private void addReportingDataUEToQuestionnaire(SurveyRawData surveyRawData, ReportingDataUE reportingDataUE,
 			QuestionnaireData questionnaire, List<String> missingQuestionnaireIds) {
 		if (questionnaire == null) {
-			questionnaire = new QuestionnaireData();
+			questionnaire = new QuestionnaireData(surveyRawData.getColumns());
 			questionnaire.setIdentifier(reportingDataUE.getIdentifier());
 			surveyRawData.addQuestionnaire(questionnaire);
 			missingQuestionnaireIds.add(reportingDataUE.getIdentifier());
@@ -0,0 +1,233 @@
+package fr.insee.kraftwerk.core.metadata;
+
+import fr.insee.bpm.exceptions.MetadataParserException;
+import fr.insee.bpm.metadata.model.MetadataModel;
+import lombok.extern.log4j.Log4j2;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of the metadata models read from specification files (DDI, Lunatic), keyed by a hash of the content
+ * of these files.
+ * Models are kept as JSON, in the same form as the metadata saved in Genesis, in memory with a least recently
+ * used eviction and in a local cache directory. Each read returns a new copy : the models given to a processing
+ * can be modified without altering the cache.
+ * The cache directory is created readable by its owner only, and it isn't used if other users can write in it.
+ */
+@Log4j2
+public class MetadataCache {
+
+	private static final String CACHE_FILE_EXTENSION = ".json";
+	private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+	/** Cache which always reads the specification files */
+	public static final MetadataCache DISABLED = new MetadataCache(0, null);
+
+	/** Reads a metadata model from the specification files */
+	@FunctionalInterface
+	public interface MetadataReader {
+		MetadataModel read() throws MetadataParserException;
+	}
+
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.build();
+	private final int maxEntries;
+	private final Path cacheDirectory;
+	private final Map<String, byte[]> serializedModels;
+
+	/**
+	 * @param maxEntries maximum number of models kept in memory, 0 to disable the cache
+	 * @param cacheDirectory directory where models are persisted, null to keep them in memory only
+	 */
+	public MetadataCache(int maxEntries, Path cacheDirectory) {
+		this.maxEntries = maxEntries;
+		this.cacheDirectory = maxEntries > 0 ? prepareCacheDirectory(cacheDirectory) : null;
+		this.serializedModels = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+				return size() > MetadataCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Create the cache directory, readable by its owner only
+	 * @return the directory, null if it can't be created or if other users can write in it
+	 */
+	private static Path prepareCacheDirectory(Path cacheDirectory) {
+		if (cacheDirectory == null) {
+			return null;
+		}
+		boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+		try {
+			if (!Files.exists(cacheDirectory, LinkOption.NOFOLLOW_LINKS)) {
+				if (posix) {
+					Files.createDirectories(cacheDirectory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+				} else {
+					Files.createDirectories(cacheDirectory);
+				}
+			}
+			if (!Files.isDirectory(cacheDirectory, LinkOption.NOFOLLOW_LINKS)) {
+				log.warn("Metadata cache directory {} is not a directory, models are cached in memory only", cacheDirectory);
+				return null;
+			}
+			if (posix) {
+				Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(cacheDirectory, LinkOption.NOFOLLOW_LINKS);
+				boolean ownedByUser = Files.getOwner(cacheDirectory, LinkOption.NOFOLLOW_LINKS).getName()
+						.equals(System.getProperty("user.name"));
+				if (!ownedByUser || permissions.contains(PosixFilePermission.GROUP_WRITE)
+						|| permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+					log.warn("Metadata cache directory {} can be written by other users, models are cached in memory only",
+							cacheDirectory);
+					return null;
+				}
+			}
+			return cacheDirectory;
+		} catch (IOException | UnsupportedOperationException e) {
+			log.warn("Metadata cache directory {} can't be used, models are cached in memory only : {}",
+					cacheDirectory, e.toString());
+			return null;
+		}
+	}
+
+	/** Directory where models are persisted, null if they are kept in memory only */
+	public Path getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	public boolean isEnabled() {
+		return maxEntries > 0;
+	}
+
+	/**
+	 * Compute the cache key of specification files
+	 * @param kind kind of reading of the files
+	 * @param contents contents of the files, null for an absent file
+	 * @return SHA-256 hash of the kind and contents, in hexadecimal
+	 */
+	public static String computeKey(String kind, byte[]... contents) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			messageDigest.update(kind.getBytes(StandardCharsets.UTF_8));
+			for (byte[] content : contents) {
+				messageDigest.update(ByteBuffer.allocate(Long.BYTES).putLong(content == null ? -1 : content.length).array());
+				if (content != null) {
+					messageDigest.update(content);
+				}
+			}
+			return HexFormat.of().formatHex(messageDigest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Get the metadata model of the given key, read by the reader if it is not in the cache
+	 * @param key key computed from the content of the specification files
+	 * @param metadataReader reader of the specification files
+	 * @return a copy of the cached model, or the model read
+	 * @throws MetadataParserException if the specification files can't be read
+	 */
+	public MetadataModel getMetadata(String key, MetadataReader metadataReader) throws MetadataParserException {
+		if (!isEnabled()) {
+			return metadataReader.read();
+		}
+		byte[] serializedModel = getSerializedModel(key);
+		if (serializedModel != null) {
+			MetadataModel metadataModel = deserialize(serializedModel);
+			if (metadataModel != null) {
+				log.info("Metadata read from cache ({})", key);
+				return metadataModel;
+			}
+		}
+
+		MetadataModel metadataModel = metadataReader.read();
+		serializedModel = serialize(metadataModel);
+		if (serializedModel != null) {
+			synchronized (serializedModels) {
+				serializedModels.put(key, serializedModel);
+			}
+			writeCacheFile(key, serializedModel);
+		}
+		return metadataModel;
+	}
+
+	private byte[] getSerializedModel(String key) {
+		synchronized (serializedModels) {
+			byte[] serializedModel = serializedModels.get(key);
+			if (serializedModel != null) {
+				return serializedModel;
+			}
+		}
+		if (cacheDirectory == null) {
+			return null;
+		}
+		Path cacheFile = cacheDirectory.resolve(key + CACHE_FILE_EXTENSION);
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+		try {
+			byte[] serializedModel = Files.readAllBytes(cacheFile);
+			synchronized (serializedModels) {
+				serializedModels.put(key, serializedModel);
+			}
+			return serializedModel;
+		} catch (IOException e) {
+			log.warn("Metadata cache file {} can't be read : {}", cacheFile, e.toString());
+			return null;
+		}
+	}
+
+	private void writeCacheFile(String key, byte[] serializedModel) {
+		if (cacheDirectory == null) {
+			return;
+		}
+		try {
+			Path temporaryFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+			Files.write(temporaryFile, serializedModel);
+			Files.move(temporaryFile, cacheDirectory.resolve(key + CACHE_FILE_EXTENSION),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.warn("Metadata cache file of {} can't be written : {}", key, e.toString());
+		}
+	}
+
+	private byte[] serialize(MetadataModel metadataModel) {
+		try {
+			return objectMapper.writeValueAsBytes(metadataModel);
+		} catch (JacksonException e) {
+			log.warn("Metadata model can't be cached : {}", e.toString());
+			return null;
+		}
+	}
+
+	private MetadataModel deserialize(byte[] serializedModel) {
+		try {
+			return objectMapper.readValue(serializedModel, MetadataModel.class);
+		} catch (JacksonException e) {
+			log.warn("Cached metadata model can't be read, specification files will be parsed : {}", e.toString());
+			return null;
+		}
+	}
+
+}
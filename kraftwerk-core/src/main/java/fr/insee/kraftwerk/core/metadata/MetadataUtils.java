@@ -11,6 +11,7 @@ import fr.insee.kraftwerk.core.inputs.ModeInputs;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import lombok.extern.log4j.Log4j2;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.LinkedHashMap;
@@ -19,45 +20,43 @@ import java.util.Map;
 @Log4j2
 public class MetadataUtils {
 
+	/** Kinds of reading of the metadata cache keys */
+	private static final String DDI_AND_LUNATIC = "DDI_AND_LUNATIC";
+	private static final String DDI_AND_LUNATIC_WITH_VERSION = "DDI_AND_LUNATIC_WITH_VERSION";
+
 	private MetadataUtils(){
 		throw new IllegalStateException("Utility class");
 	}
 
 	public static Map<String, MetadataModel> getMetadata(Map<String, ModeInputs> modeInputsMap, FileUtilsInterface fileUtilsInterface){
+		return getMetadata(modeInputsMap, fileUtilsInterface, MetadataCache.DISABLED);
+	}
+
+	/**
+	 * Read the metadata of each mode, through the given metadata cache
+	 */
+	public static Map<String, MetadataModel> getMetadata(Map<String, ModeInputs> modeInputsMap, FileUtilsInterface fileUtilsInterface,
+														 MetadataCache metadataCache){
 		Map<String, MetadataModel> metadataModels = new LinkedHashMap<>();
-		modeInputsMap.forEach((k, v) -> putToMetadataModels(k,v,metadataModels, fileUtilsInterface));
+		modeInputsMap.forEach((k, v) -> putToMetadataModels(k,v,metadataModels, fileUtilsInterface, metadataCache));
 		return metadataModels;
 	}
 
-	private static void putToMetadataModels(String dataMode, ModeInputs modeInputs, Map<String, MetadataModel> metadataModels, FileUtilsInterface fileUtilsInterface) {
+	private static void putToMetadataModels(String dataMode, ModeInputs modeInputs, Map<String, MetadataModel> metadataModels,
+											FileUtilsInterface fileUtilsInterface, MetadataCache metadataCache) {
 		// Step 1 : we add the variables read in the DDI and Lunatic if found
 		try {
-            InputStream ddiStream = fileUtilsInterface.readFile(modeInputs.getDdiUrl());
-            InputStream lunaticStream = null;
+            byte[] ddiContent = readContent(fileUtilsInterface, modeInputs.getDdiUrl());
+            byte[] lunaticContent = null;
             boolean hasLunatic = modeInputs.getLunaticFile() != null;
 
             if (hasLunatic) {
-                lunaticStream = fileUtilsInterface.readFile(modeInputs.getLunaticFile().toString());
+                lunaticContent = readContent(fileUtilsInterface, modeInputs.getLunaticFile().toString());
                 log.info("Adding variables from Lunatic file: {}", modeInputs.getLunaticFile().getFileName());
             }
 
-            MetadataModel metadataModel = ReaderUtils.getMetadataFromDDIAndLunatic(
-                    modeInputs.getDdiUrl(),
-                    ddiStream,
-                    lunaticStream
-            );
-            if (hasLunatic) {
-                try (InputStream lunaticVersionStream =
-                             fileUtilsInterface.readFile(modeInputs.getLunaticFile().toString())) {
-
-                    metadataModel.putSpecVersions(
-                            SpecType.LUNATIC,
-                            LunaticReader.getLunaticModelVersion(lunaticVersionStream)
-                    );
-                } catch (IOException e) {
-                    log.error(e.getMessage(), e);
-                }
-            }
+            MetadataModel metadataModel = getMetadataFromDDIAndLunatic(modeInputs.getDdiUrl(), ddiContent, lunaticContent,
+                    hasLunatic, metadataCache);
             // Step 3 : we add reporting data group if there is any reporting data
             if(modeInputs.getReportingDataFile() != null){
                 metadataModel.getGroups().put(Constants.REPORTING_DATA_GROUP_NAME, new Group(Constants.REPORTING_DATA_GROUP_NAME));
@@ -71,6 +70,55 @@ public class MetadataUtils {
 	}
 
 
+	/**
+	 * Read the metadata from the DDI and Lunatic contents, through the metadata cache.
+	 * An unreadable DDI is not cached, so that the reader reports it as before.
+	 * @param addLunaticVersion if the Lunatic model version is added to the spec versions
+	 * @param metadataCache cache of the metadata models
+	 */
+	static MetadataModel getMetadataFromDDIAndLunatic(String ddiUrl, byte[] ddiContent, byte[] lunaticContent,
+													 boolean addLunaticVersion, MetadataCache metadataCache) throws MetadataParserException {
+		MetadataCache.MetadataReader metadataReader = () -> {
+			MetadataModel metadataModel = ReaderUtils.getMetadataFromDDIAndLunatic(
+					ddiUrl,
+					toInputStream(ddiContent),
+					toInputStream(lunaticContent)
+			);
+			if (addLunaticVersion && lunaticContent != null) {
+				try (InputStream lunaticVersionStream = toInputStream(lunaticContent)) {
+					metadataModel.putSpecVersions(
+							SpecType.LUNATIC,
+							LunaticReader.getLunaticModelVersion(lunaticVersionStream)
+					);
+				} catch (IOException e) {
+					log.error(e.getMessage(), e);
+				}
+			}
+			return metadataModel;
+		};
+		if (ddiContent == null) {
+			return metadataReader.read();
+		}
+		return metadataCache.getMetadata(
+				MetadataCache.computeKey(addLunaticVersion ? DDI_AND_LUNATIC_WITH_VERSION : DDI_AND_LUNATIC,
+						ddiContent, lunaticContent),
+				metadataReader);
+	}
+
+	/** Read the whole content of a specification file, null if it can't be read */
+	static byte[] readContent(FileUtilsInterface fileUtilsInterface, String path) {
+		try (InputStream inputStream = fileUtilsInterface.readFile(path)) {
+			return inputStream == null ? null : inputStream.readAllBytes();
+		} catch (IOException e) {
+			log.error(e.getMessage(), e);
+			return null;
+		}
+	}
+
+	private static InputStream toInputStream(byte[] content) {
+		return content == null ? null : new ByteArrayInputStream(content);
+	}
+
 	public static Map<String, MetadataModel> getMetadataFromLunatic(Map<String, ModeInputs> modeInputsMap, FileUtilsInterface fileUtilsInterface) {
 		Map<String, MetadataModel> metadataModels = new LinkedHashMap<>();
 		modeInputsMap.forEach((k, v) -> putToMetadataVariableFromLunatic(k,v,metadataModels, fileUtilsInterface));
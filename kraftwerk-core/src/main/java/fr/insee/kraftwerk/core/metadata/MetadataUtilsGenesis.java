@@ -2,13 +2,11 @@ package fr.insee.kraftwerk.core.metadata;
 
 import fr.insee.bpm.exceptions.MetadataParserException;
 import fr.insee.bpm.metadata.model.MetadataModel;
-import fr.insee.bpm.metadata.reader.ReaderUtils;
 import fr.insee.bpm.metadata.reader.lunatic.LunaticReader;
 import fr.insee.kraftwerk.core.inputs.ModeInputs;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import lombok.extern.log4j.Log4j2;
 
-import java.io.InputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -20,27 +18,38 @@ public class MetadataUtilsGenesis {
 	}
 
 	public static Map<String, MetadataModel> getMetadata(Map<String, ModeInputs> modeInputsMap, FileUtilsInterface fileUtilsInterface) throws MetadataParserException {
+		return getMetadata(modeInputsMap, fileUtilsInterface, MetadataCache.DISABLED);
+	}
+
+	/**
+	 * Read the metadata of each mode, through the given metadata cache
+	 */
+	public static Map<String, MetadataModel> getMetadata(Map<String, ModeInputs> modeInputsMap, FileUtilsInterface fileUtilsInterface,
+														 MetadataCache metadataCache) throws MetadataParserException {
 		Map<String, MetadataModel> metadataModels = new LinkedHashMap<>();
 		for (Map.Entry<String, ModeInputs> entry : modeInputsMap.entrySet()) {
 			String k = entry.getKey();
 			ModeInputs v = entry.getValue();
-			putToMetadataVariable(k, v, metadataModels, fileUtilsInterface);
+			putToMetadataVariable(k, v, metadataModels, fileUtilsInterface, metadataCache);
 		}
 		return metadataModels;
 	}
 
-    private static void putToMetadataVariable(String dataMode, ModeInputs modeInputsGenesis, Map<String, MetadataModel> metadataModels, FileUtilsInterface fileUtilsInterface) throws MetadataParserException {
+    private static void putToMetadataVariable(String dataMode, ModeInputs modeInputsGenesis, Map<String, MetadataModel> metadataModels,
+                                              FileUtilsInterface fileUtilsInterface, MetadataCache metadataCache) throws MetadataParserException {
         // we add the variables read in the DDI and lunatic
-        InputStream ddiStream = fileUtilsInterface.readFile(modeInputsGenesis.getDdiUrl());
-        InputStream lunaticStream = null;
+        byte[] ddiContent = MetadataUtils.readContent(fileUtilsInterface, modeInputsGenesis.getDdiUrl());
+        byte[] lunaticContent = null;
 
         if (modeInputsGenesis.getLunaticFile() != null) {
-            lunaticStream = fileUtilsInterface.readFile(modeInputsGenesis.getLunaticFile().toString());
+            lunaticContent = MetadataUtils.readContent(fileUtilsInterface, modeInputsGenesis.getLunaticFile().toString());
         }
-        MetadataModel metadataModel = ReaderUtils.getMetadataFromDDIAndLunatic(
+        MetadataModel metadataModel = MetadataUtils.getMetadataFromDDIAndLunatic(
                 modeInputsGenesis.getDdiUrl(),
-                ddiStream,
-                lunaticStream
+                ddiContent,
+                lunaticContent,
+                false,
+                metadataCache
         );
         metadataModels.put(dataMode, metadataModel);
     }
@@ -9,13 +9,21 @@ import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.duckdb.DuckDBConnection;
 
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Class to manage the writing of output tables.
@@ -89,8 +97,67 @@ public abstract class OutputFiles {
 
 	/**
 	 * Method to write output tables from datasets that are in the bindings.
-     */
+	 * Tables are written in parallel if the execution context allows it, each one
+	 * with its own connection to the database.
+	 * The time spent on each table is recorded in the execution context.
+	 */
 	public void writeOutputTables() throws KraftwerkException {
+		int parallelism = kraftwerkExecutionContext == null ? 1
+				: Math.min(kraftwerkExecutionContext.getExportParallelism(), datasetToCreate.size());
+		if (parallelism <= 1) {
+			for (String datasetName : datasetToCreate) {
+				writeTimedOutputTable(datasetName, database);
+			}
+			return;
+		}
+		ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (String datasetName : datasetToCreate) {
+				futures.add(executorService.submit(() -> {
+					try (Connection connection = duplicateConnection();
+						 Statement statement = connection.createStatement()) {
+						writeTimedOutputTable(datasetName, statement);
+					}
+					return null;
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new KraftwerkException(500, "Output tables writing interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof KraftwerkException kraftwerkException) {
+				throw kraftwerkException;
+			}
+			throw new KraftwerkException(500, e.getCause().toString());
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private void writeTimedOutputTable(String datasetName, Statement statement) throws KraftwerkException {
+		long start = System.currentTimeMillis();
+		writeOutputTable(datasetName, statement);
+		if (kraftwerkExecutionContext != null) {
+			kraftwerkExecutionContext.getExportDurationByTableMap()
+					.put(outputFileName(datasetName, kraftwerkExecutionContext), System.currentTimeMillis() - start);
+		}
+	}
+
+	/** Open a new connection to the database of the statement given at creation. */
+	private Connection duplicateConnection() throws SQLException {
+		return database.getConnection().unwrap(DuckDBConnection.class).duplicate();
+	}
+
+	/**
+	 * Method to write the output table of one dataset.
+	 * @param datasetName name of the dataset to write
+	 * @param database statement to use, which may be another than the one given at creation
+	 */
+	protected void writeOutputTable(String datasetName, Statement database) throws KraftwerkException {
 		// implemented in subclasses
 	}
 
@@ -15,9 +15,9 @@ import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -47,75 +47,76 @@ public class CsvOutputFiles extends OutputFiles {
 	}
 
 	/**
-	 * Method to write CSV output tables from datasets that are in the bindings.
+	 * Method to write the CSV output table of a dataset that is in the bindings.
 	 */
 	@Override
-	public void writeOutputTables() throws KraftwerkException {
-		for (String datasetName : getDatasetToCreate()) {
-			try {
-				//Temporary file
-				Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
-				Path tmpOutputFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")),
-						outputFileName(datasetName, kraftwerkExecutionContext), null);
-
-				//Get column names
-				List<String> columnNames = SqlUtils.getColumnNames(getDatabase(), datasetName);
-
-				if(columnNames.isEmpty()){
-					log.warn("dataset {} is empty !", datasetName);
-					return;
-				}
-
-				//Get boolean columns names
-				List<String> boolColumnNames = SqlUtils.getColumnNames(getDatabase(), datasetName, VariableType.BOOLEAN);
-				//Get indexes of boolean columns
-				List<Integer> boolColumnIndexes = new ArrayList<>();
-
-				//Create file with double quotes header
-				Files.write(tmpOutputFile, buildHeader(columnNames, boolColumnNames, boolColumnIndexes).getBytes());
-
-				//Data export into temp file
-				StringBuilder exportCsvQuery = getExportCsvQuery(datasetName, tmpOutputFile.toFile(), columnNames);
-				this.getDatabase().execute(exportCsvQuery.toString());
-
-				//Apply csv format transformations
+	protected void writeOutputTable(String datasetName, Statement database) throws KraftwerkException {
+		try {
+			//Temporary file
+			Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
+			Path tmpOutputFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")),
+					outputFileName(datasetName, kraftwerkExecutionContext), null);
+
+			//Get column names
+			List<String> columnNames = SqlUtils.getColumnNames(database, datasetName);
+
+			if(columnNames.isEmpty()){
+				log.warn("dataset {} is empty !", datasetName);
+				return;
+			}
 
-				//Merge data file with header file
-				//Read line by line to avoid memory waste
-				try(BufferedReader bufferedReader = Files.newBufferedReader(Path.of(tmpOutputFile.toAbsolutePath() + "data"))){
-					String line = bufferedReader.readLine();
-					while(line != null){
-						//Apply transformations to elements
-						line = applyNullTransformation(line);
-						line = applyBooleanTransformations(line, boolColumnIndexes);
+			//Get boolean columns names
+			List<String> boolColumnNames = SqlUtils.getColumnNames(database, datasetName, VariableType.BOOLEAN);
 
-						Files.write(tmpOutputFile,(line + "\n").getBytes(),StandardOpenOption.APPEND);
-						line = bufferedReader.readLine();
-					}
-				}
-				Files.deleteIfExists(Path.of(tmpOutputFile + "data"));
+			//Create file with double quotes header
+			Files.write(tmpOutputFile, buildHeader(columnNames).getBytes());
 
+			//Data export into temp file, csv format transformations are done by the export query
+			Path tmpDataFile = Path.of(tmpOutputFile.toAbsolutePath() + "data");
+			StringBuilder exportCsvQuery = getExportCsvQuery(datasetName, tmpDataFile.toFile(), columnNames, boolColumnNames);
+			database.execute(exportCsvQuery.toString());
 
-				String outputFile = getOutputFolder().resolve(outputFileName(datasetName, kraftwerkExecutionContext)).toString();
-				if (kraftwerkExecutionContext != null) {
-					//Count rows for functional log
-					try(ResultSet countResult =
-								this.getDatabase().executeQuery("SELECT COUNT(*) FROM '%s'".formatted(datasetName))){
-						countResult.next();
-                        kraftwerkExecutionContext.getLineCountByTableMap().put(datasetName, countResult.getInt(1));
-					}
+			//Merge data file with header file
+			try (OutputStream outputStream = Files.newOutputStream(tmpOutputFile, StandardOpenOption.APPEND)) {
+				Files.copy(tmpDataFile, outputStream);
+			}
+			Files.deleteIfExists(tmpDataFile);
+
+			String outputFile = getOutputFolder().resolve(outputFileName(datasetName, kraftwerkExecutionContext)).toString();
+			if (kraftwerkExecutionContext != null) {
+				//Count rows for functional log
+				try(ResultSet countResult =
+							database.executeQuery("SELECT COUNT(*) FROM '%s'".formatted(datasetName))){
+					countResult.next();
+					kraftwerkExecutionContext.getLineCountByTableMap().put(datasetName, countResult.getInt(1));
 				}
-				//Move to output folder
-				getFileUtilsInterface().moveFile(tmpOutputFile, outputFile);
-				log.info("File: {} successfully written", outputFile);
-			} catch (SQLException | IOException e) {
-				throw new KraftwerkException(500, e.toString());
 			}
-        }
+			//Move to output folder
+			getFileUtilsInterface().moveFile(tmpOutputFile, outputFile);
+			log.info("File: {} successfully written", outputFile);
+		} catch (SQLException | IOException e) {
+			throw new KraftwerkException(500, e.toString());
+		}
 	}
 
-	private static @NotNull StringBuilder getExportCsvQuery(String datasetName, File outputFile, List<String> columnNames) {
-		StringBuilder exportCsvQuery = new StringBuilder(String.format("COPY %s TO '%s' (FORMAT CSV, HEADER false, DELIMITER '%s', OVERWRITE_OR_IGNORE true", datasetName, outputFile.getAbsolutePath() +"data", Constants.CSV_OUTPUTS_SEPARATOR));
+	/**
+	 * Builds the export query of a table.
+	 * Values are written between double quotes, null values are written as "",
+	 * and boolean values as "1" or "0".
+	 */
+	static @NotNull StringBuilder getExportCsvQuery(String datasetName, File outputFile, List<String> columnNames, List<String> boolColumnNames) {
+		StringBuilder exportCsvQuery = new StringBuilder("COPY (SELECT ");
+		for (String columnName : columnNames) {
+			String quotedColumnName = "\"%s\"".formatted(columnName.replace("\"", "\"\""));
+			if (boolColumnNames.contains(columnName)) {
+				exportCsvQuery.append(String.format("CASE WHEN %1$s IS NULL THEN '' WHEN %1$s THEN '1' ELSE '0' END AS %1$s,", quotedColumnName));
+			} else {
+				exportCsvQuery.append(String.format("COALESCE(CAST(%1$s AS VARCHAR), '') AS %1$s,", quotedColumnName));
+			}
+		}
+		//Remove last ","
+		exportCsvQuery.deleteCharAt(exportCsvQuery.length() - 1);
+		exportCsvQuery.append(String.format(" FROM \"%s\") TO '%s' (FORMAT CSV, HEADER false, DELIMITER '%s', OVERWRITE_OR_IGNORE true", datasetName, outputFile.getAbsolutePath(), Constants.CSV_OUTPUTS_SEPARATOR));
 		//Double quote values parameter
 		exportCsvQuery.append(", FORCE_QUOTE(");
 		for (String stringColumnName : columnNames) {
@@ -127,50 +128,16 @@ public class CsvOutputFiles extends OutputFiles {
 		return exportCsvQuery;
 	}
 
-	private static String buildHeader(List<String> columnNames, List<String> boolColumnNames, List<Integer> boolColumnIndexes) {
+	private static String buildHeader(List<String> columnNames) {
 		StringBuilder headerBuilder = new StringBuilder();
 		for (String columnName : columnNames) {
 			headerBuilder.append(String.format("\"%s\"", columnName)).append(Constants.CSV_OUTPUTS_SEPARATOR);
-			if(boolColumnNames.contains(columnName)){
-				boolColumnIndexes.add(columnNames.indexOf(columnName));
-			}
 		}
 		headerBuilder.deleteCharAt(headerBuilder.length()-1);
 		headerBuilder.append("\n");
 		return headerBuilder.toString();
 	}
 
-	/**
-	 * replaces false/true by 0/1 in a line
-	 * @param csvLine line to transform
-	 * @param boolColumnIndexes indexes of booleans values to change
-	 * @return the transformed line
-	 */
-	private String applyBooleanTransformations(String csvLine, List<Integer> boolColumnIndexes) {
-		String[] lineElements = csvLine.split(String.valueOf(Constants.CSV_OUTPUTS_SEPARATOR), -1);
-		//change "true" or "false" by "1" or "0"
-		for (int elementIndex : boolColumnIndexes) {
-			lineElements[elementIndex] = lineElements[elementIndex].replace("false", "0").replace("true", "1");
-		}
-		//Rebuild csv line
-		return String.join(String.valueOf(Constants.CSV_OUTPUTS_SEPARATOR),lineElements);
-	}
-
-	/**
-	 * Changes null values to "" in a line
-	 * @param csvLine line to transform
-	 * @return the transformed line
-	 */
-	private String applyNullTransformation(String csvLine) {
-		String[] lineElements = csvLine.split(String.valueOf(Constants.CSV_OUTPUTS_SEPARATOR), -1);
-		for (int i = 0; i < lineElements.length; i++) {
-			if (lineElements[i].isEmpty()) {
-				lineElements[i] = "\"\"";
-			}
-		}
-		return String.join(String.valueOf(Constants.CSV_OUTPUTS_SEPARATOR),lineElements);
-	}
-
 	@Override
 	public void writeImportScripts(Map<String, MetadataModel> metadataModels, KraftwerkExecutionContext kraftwerkExecutionContext) {
 		// Assemble required info to write scripts
@@ -1,11 +1,13 @@
 package fr.insee.kraftwerk.core.outputs.parquet;
 
 import fr.insee.bpm.metadata.model.MetadataModel;
+import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.encryption.EncryptionUtils;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.outputs.OutputFiles;
 import fr.insee.kraftwerk.core.outputs.TableScriptInfo;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.SqlUtils;
 import fr.insee.kraftwerk.core.utils.TextFileWriter;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
@@ -14,8 +16,12 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,6 +34,8 @@ import java.util.stream.Stream;
 public class ParquetOutputFiles extends OutputFiles {
 
 	public static final String PARQUET_EXTENSION = ".parquet";
+	/** Partition column added to the tables in partitioned output */
+	public static final String EXTRACTION_DATE_PARTITION_NAME = "EXTRACTION_DATE";
 
 
     /**
@@ -47,32 +55,130 @@ public class ParquetOutputFiles extends OutputFiles {
 
 	
 	/**
-	 * Method to write output tables from datasets that are in the bindings.
+	 * Method to write the output table of a dataset that is in the bindings.
 	 */
 	@Override
-	public void writeOutputTables() throws KraftwerkException {
-		for (String datasetName : getDatasetToCreate()) {
-			try {
-				Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
-				Path tmpOutputFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")),
-						outputFileName(datasetName, kraftwerkExecutionContext), null);
+	protected void writeOutputTable(String datasetName, Statement database) throws KraftwerkException {
+		ParquetOutputSettings parquetOutputSettings = getParquetOutputSettings();
+		if (parquetOutputSettings.partitioned()) {
+			writePartitionedOutputTable(datasetName, database, parquetOutputSettings);
+			return;
+		}
+		try {
+			Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
+			Path tmpOutputFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")),
+					outputFileName(datasetName, kraftwerkExecutionContext), null);
+
+			Files.deleteIfExists(tmpOutputFile);
+			//Data export
+			database.execute(String.format("COPY %s TO '%s' (%s)", datasetName, tmpOutputFile,
+					parquetOutputSettings.toCopyOptions()));
+
+
+			String outputFile = getOutputFolder().resolve(outputFileName(datasetName, kraftwerkExecutionContext)).toString();
+
+			//Move to output folder
+			getFileUtilsInterface().moveFile(tmpOutputFile, outputFile);
+			log.info("File: {} successfully written", outputFile);
+		} catch (Exception e) {
+			throw new KraftwerkException(500, e.toString());
+		}
+	}
 
-				Files.deleteIfExists(tmpOutputFile);
-				//Data export
-				getDatabase().execute(String.format("COPY %s TO '%s' (FORMAT PARQUET)", datasetName, tmpOutputFile));
 
+	/**
+	 * Write the output table of a dataset as a directory partitioned by mode (if the table has the mode variable)
+	 * and extraction date, in hive layout : <code>MODE_KRAFTWERK=WEB/EXTRACTION_DATE=.../</code>.
+	 * Readers filtering on these columns only read the matching files.
+	 * The questionnaire is given by the name of the directory of the table.
+	 */
+	private void writePartitionedOutputTable(String datasetName, Statement database,
+											 ParquetOutputSettings parquetOutputSettings) throws KraftwerkException {
+		Path tmpOutputDirectory = null;
+		try {
+			Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
+			tmpOutputDirectory = Files.createTempDirectory(Path.of(System.getProperty("java.io.tmpdir")),
+					outputDirectoryName(datasetName));
+
+			List<String> partitionColumns = new ArrayList<>();
+			if (SqlUtils.getColumnNames(database, datasetName).contains(Constants.MODE_VARIABLE_NAME)) {
+				partitionColumns.add(Constants.MODE_VARIABLE_NAME);
+			}
+			partitionColumns.add(EXTRACTION_DATE_PARTITION_NAME);
+			String selectQuery = "SELECT *, '%s' AS %s FROM \"%s\"".formatted(
+					getExtractionDate(), EXTRACTION_DATE_PARTITION_NAME, datasetName);
+			// Each COPY adds one file by partition, named with a uuid
+			String copyOptions = "%s, PARTITION_BY (%s), APPEND true, FILENAME_PATTERN 'data_{uuid}'".formatted(
+					parquetOutputSettings.toCopyOptions(), String.join(", ", partitionColumns));
+			//Data export, by range of rows to cap the size of the files
+			for (String rowRange : getRowRanges(datasetName, database, parquetOutputSettings.maxRowsPerFile())) {
+				database.execute("COPY (%s%s) TO '%s' (%s)".formatted(selectQuery, rowRange, tmpOutputDirectory, copyOptions));
+			}
 
-				String outputFile = getOutputFolder().resolve(outputFileName(datasetName, kraftwerkExecutionContext)).toString();
+			//Move to output folder, keeping the partition directories
+			Path outputDirectory = getOutputFolder().resolve(outputDirectoryName(datasetName));
+			List<Path> partitionFiles;
+			try (Stream<Path> paths = Files.walk(tmpOutputDirectory)) {
+				partitionFiles = paths.filter(Files::isRegularFile).toList();
+			}
+			for (Path partitionFile : partitionFiles) {
+				getFileUtilsInterface().moveFile(partitionFile,
+						outputDirectory.resolve(tmpOutputDirectory.relativize(partitionFile)).toString());
+			}
+			log.info("Directory: {} successfully written ({} files)", outputDirectory, partitionFiles.size());
+		} catch (Exception e) {
+			throw new KraftwerkException(500, e.toString());
+		} finally {
+			deleteDirectory(tmpOutputDirectory);
+		}
+	}
 
-				//Move to output folder
-				getFileUtilsInterface().moveFile(tmpOutputFile, outputFile);
-				log.info("File: {} successfully written", outputFile);
-			} catch (Exception e) {
-				throw new KraftwerkException(500, e.toString());
+	/**
+	 * Conditions on the rowid splitting the table in ranges of at most maxRowsPerFile rows
+	 * @return the conditions, or a single empty condition if the rows are not capped
+	 */
+	private static List<String> getRowRanges(String datasetName, Statement database, long maxRowsPerFile) throws SQLException {
+		if (maxRowsPerFile <= 0) {
+			return List.of("");
+		}
+		List<String> rowRanges = new ArrayList<>();
+		try (ResultSet resultSet = database.executeQuery(
+				"SELECT min(rowid), max(rowid) FROM \"%s\"".formatted(datasetName))) {
+			resultSet.next();
+			long minRowId = resultSet.getLong(1);
+			if (resultSet.wasNull()) {
+				return List.of("");
+			}
+			long maxRowId = resultSet.getLong(2);
+			for (long rangeStart = minRowId; rangeStart <= maxRowId; rangeStart += maxRowsPerFile) {
+				rowRanges.add(" WHERE rowid >= %d AND rowid < %d".formatted(rangeStart, rangeStart + maxRowsPerFile));
 			}
 		}
+		return rowRanges;
+	}
+
+	private String getExtractionDate() {
+		return kraftwerkExecutionContext == null || kraftwerkExecutionContext.getExecutionDateTime() == null
+				? LocalDate.now().toString()
+				: kraftwerkExecutionContext.getExecutionDateTime().toLocalDate().toString();
+	}
+
+	private ParquetOutputSettings getParquetOutputSettings() {
+		return kraftwerkExecutionContext == null || kraftwerkExecutionContext.getParquetOutputSettings() == null
+				? ParquetOutputSettings.DEFAULT
+				: kraftwerkExecutionContext.getParquetOutputSettings();
 	}
 
+	private static void deleteDirectory(Path directory) {
+		if (directory == null) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		} catch (IOException e) {
+			log.warn("Can't delete temporary directory {} : {}", directory, e.toString());
+		}
+	}
 
 	@Override
 	public void writeImportScripts(Map<String, MetadataModel> metadataModels, KraftwerkExecutionContext kraftwerkExecutionContext) {
@@ -88,7 +194,8 @@ public class ParquetOutputFiles extends OutputFiles {
 		}
 		// Write scripts
 		TextFileWriter.writeFile(getOutputFolder().resolve("import_parquet.R"),
-				new RImportScript(tableScriptInfoList).generateScript(), this.getFileUtilsInterface());
+				new RImportScript(tableScriptInfoList, getParquetOutputSettings().partitioned()).generateScript(),
+				this.getFileUtilsInterface());
 	}
 
 	/**
@@ -100,6 +207,13 @@ public class ParquetOutputFiles extends OutputFiles {
 		return path + PARQUET_EXTENSION;
 	}
 
+	/**
+	 * Return the name of the directory to be written from the dataset name, in partitioned output.
+	 */
+	public String outputDirectoryName(String datasetName) {
+		return getOutputFolder().getParent().getFileName() + "_" + datasetName;
+	}
+
 	public List<String> getAllOutputFileNames(String datasetName) {
 		List<String> filenames = new ArrayList<>();
 		String path =  getOutputFolder().getParent().getFileName() + "_" + datasetName ;
@@ -111,8 +225,8 @@ public class ParquetOutputFiles extends OutputFiles {
 		try (Stream<Path> stream = Files.walk(dir)) {
 			return stream
 					.filter(Files::isRegularFile)
-					.map(Path::getFileName)
-					.map(Path::toString)
+					// Relative path, which contains the dataset name in partitioned output
+					.map(path -> dir.relativize(path).toString())
 					.filter(name -> name.contains(PARQUET_EXTENSION))
 					.filter(name -> getDatasetToCreate().stream().anyMatch(name::contains) )
 					.map(name -> getDatasetToCreate().stream().filter(name::contains).findFirst().orElse(""))
@@ -0,0 +1,45 @@
+package fr.insee.kraftwerk.core.outputs.parquet;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Settings of the Parquet output files.
+ * @param partitioned write each table as a directory partitioned by mode and extraction date
+ *                    (hive layout), instead of a single file
+ * @param codec compression codec (snappy, zstd, gzip, lz4, brotli or uncompressed), null for the DuckDB default
+ * @param compressionLevel compression level of the zstd codec, 0 for the DuckDB default
+ * @param rowGroupSize number of rows of a row group, 0 for the DuckDB default
+ * @param maxRowsPerFile maximum number of rows of a file in a partition, 0 for no limit (partitioned output only)
+ */
+public record ParquetOutputSettings(boolean partitioned, String codec, int compressionLevel, long rowGroupSize,
+								   long maxRowsPerFile) {
+
+	/** A single file by table, with the DuckDB settings */
+	public static final ParquetOutputSettings DEFAULT = new ParquetOutputSettings(false, null, 0, 0, 0);
+
+	private static final Set<String> CODECS = Set.of("snappy", "zstd", "gzip", "lz4", "brotli", "uncompressed");
+
+	/**
+	 * Options of the DuckDB COPY statement writing the files
+	 * @throws IllegalArgumentException if the codec is unknown
+	 */
+	String toCopyOptions() {
+		StringBuilder copyOptions = new StringBuilder("FORMAT PARQUET");
+		if (codec != null && !codec.isBlank()) {
+			String codecName = codec.strip().toLowerCase(Locale.ROOT);
+			if (!CODECS.contains(codecName)) {
+				throw new IllegalArgumentException("Unknown Parquet codec : " + codec);
+			}
+			copyOptions.append(", COMPRESSION ").append(codecName);
+			if (codecName.equals("zstd") && compressionLevel > 0) {
+				copyOptions.append(", COMPRESSION_LEVEL ").append(compressionLevel);
+			}
+		}
+		if (rowGroupSize > 0) {
+			copyOptions.append(", ROW_GROUP_SIZE ").append(rowGroupSize);
+		}
+		return copyOptions.toString();
+	}
+
+}
@@ -13,8 +13,16 @@ import java.util.Map;
  * */
 public class RImportScript extends ImportScript {
 
+    /** Tables written as hive partitioned directories instead of single files */
+    private final boolean partitioned;
+
     public RImportScript(List<TableScriptInfo> tableScriptInfoList) {
+        this(tableScriptInfoList, false);
+    }
+
+    public RImportScript(List<TableScriptInfo> tableScriptInfoList, boolean partitioned) {
         super(tableScriptInfoList);
+        this.partitioned = partitioned;
     }
 
     @Override
@@ -33,7 +41,13 @@ public class RImportScript extends ImportScript {
             String tableName = tableScriptInfo.getTableName();
             String tempTable = FilenameUtils.getName(tableScriptInfo.getFileName());
 
-            script.append(String.format("%s <- as.data.frame(arrow::read_parquet(\"%s\"))", tempTable, tableScriptInfo.getFileName())).append(END_LINE);
+            if (partitioned) {
+                // Partition columns (mode, extraction date) are read from the directory names
+                script.append(String.format("%s <- as.data.frame(dplyr::collect(arrow::open_dataset(\"%s\", format = \"parquet\", hive_style = TRUE)))",
+                        tempTable, tableScriptInfo.getFileName())).append(END_LINE);
+            } else {
+                script.append(String.format("%s <- as.data.frame(arrow::read_parquet(\"%s\"))", tempTable, tableScriptInfo.getFileName())).append(END_LINE);
+            }
             tablesToBind.merge(tableName,tempTable,(t1,t2) -> t1.concat(",").concat(t2));
 
             script.append(END_LINE).append(END_LINE);
@@ -7,6 +7,13 @@ import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import lombok.extern.log4j.Log4j2;
 
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Template method for data parsers.
@@ -48,17 +55,8 @@ public abstract class DataParser {
 			}
 		}
 		if(Boolean.TRUE.equals(fileUtilsInterface.isDirectory(dataPath.toString()))){
-			for(String path : fileUtilsInterface.listFilePaths(String.valueOf(dataPath))){
-				try {
-					Path filePath = Path.of(path);
-					parseDataFile(filePath);
-					if(kraftwerkExecutionContext != null) {
-						kraftwerkExecutionContext.getOkFileNames().add(filePath.getFileName().toString());
-					}
-				} catch (NullException e) {
-					log.error("IOException occurred when trying to list data file: {} in folder {}", path, dataPath);
-				}
-			}
+			parseFolder(dataPath, kraftwerkExecutionContext, this::parseDataFile,
+					"IOException occurred when trying to list data file: {} in folder {}");
 		}
 	}
 
@@ -87,20 +85,84 @@ public abstract class DataParser {
 			}
 		}
 		if(Boolean.TRUE.equals(fileUtilsInterface.isDirectory(dataPath.toString()))) {
-			for(String path : fileUtilsInterface.listFilePaths(dataPath.toString())){
+			parseFolder(dataPath, kraftwerkExecutionContext,
+					(filePath, dataFileContent) -> parseDataFileWithoutDDI(filePath, lunaticFile, dataFileContent),
+					"IOException occurred when trying to list data file without DDI: {} in folder {}");
+		}
+	}
+
+	/**
+	 * Parse the files of a folder in the order of the listing.
+	 * When a parse parallelism is set, the files are read concurrently (at most parallelism files at a time),
+	 * but the data object is always filled by one thread, file after file, so that the result is identical
+	 * to a sequential parsing.
+	 * Parsers which read the files while filling the data object (streamed Lunatic XML) are always sequential.
+	 */
+	private void parseFolder(Path dataPath, KraftwerkExecutionContext kraftwerkExecutionContext,
+							 FileParser fileParser, String errorMessage) {
+		List<String> paths = fileUtilsInterface.listFilePaths(dataPath.toString());
+		int parallelism = kraftwerkExecutionContext == null || !isReadAhead() ? 1
+				: kraftwerkExecutionContext.getParseParallelism();
+		if (parallelism <= 1 || paths.size() <= 1) {
+			for (String path : paths) {
+				try {
+					Path filePath = Path.of(path);
+					fileParser.parse(filePath, readDataFile(filePath));
+					addOkFileName(kraftwerkExecutionContext, filePath);
+				} catch (NullException e) {
+					log.error(errorMessage, path, dataPath);
+				}
+			}
+			return;
+		}
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Deque<Future<Object>> readFiles = new ArrayDeque<>();
+			int nextToRead = 0;
+			for (String path : paths) {
+				while (nextToRead < paths.size() && readFiles.size() < parallelism) {
+					Path filePathToRead = Path.of(paths.get(nextToRead++));
+					readFiles.add(executor.submit(() -> readDataFile(filePathToRead)));
+				}
 				try {
 					Path filePath = Path.of(path);
-					parseDataFileWithoutDDI(filePath,lunaticFile);
-					if(kraftwerkExecutionContext != null) {
-						kraftwerkExecutionContext.getOkFileNames().add(filePath.getFileName().toString());
-					}
+					fileParser.parse(filePath, getReadDataFile(readFiles.poll()));
+					addOkFileName(kraftwerkExecutionContext, filePath);
 				} catch (NullException e) {
-					log.error("IOException occurred when trying to list data file without DDI: {} in folder {}", path, dataPath);
+					log.error(errorMessage, path, dataPath);
 				}
 			}
 		}
 	}
 
+	private static Object getReadDataFile(Future<Object> readDataFile) throws NullException {
+		try {
+			return readDataFile.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new NullException("Interrupted while reading data file");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof NullException nullException) {
+				throw nullException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static void addOkFileName(KraftwerkExecutionContext kraftwerkExecutionContext, Path filePath) {
+		if(kraftwerkExecutionContext != null) {
+			kraftwerkExecutionContext.getOkFileNames().add(filePath.getFileName().toString());
+		}
+	}
+
+	/** Fills the data object with a file, given its content read by {@link #readDataFile(Path)} */
+	@FunctionalInterface
+	private interface FileParser {
+		void parse(Path dataFilePath, Object dataFileContent) throws NullException;
+	}
+
 	/**
 	 * Fill the data object with the content of the given file.
 	 * @param dataFilePath Path to a data file.
@@ -117,4 +179,43 @@ public abstract class DataParser {
 		log.info("Parsing without DDI not implemented for this data format {} {}", dataFilePath, lunaticFile);
 	}
 
+	/**
+	 * @return true if {@link #readDataFile(Path)} reads the whole file, so that files can be read concurrently
+	 */
+	boolean isReadAhead() {
+		return false;
+	}
+
+	/**
+	 * Read the content of the given file without filling the data object, so that files can be read concurrently.
+	 * Parsers which don't split reading and parsing return null and read the file in parseDataFile.
+	 * @param dataFilePath Path to a data file.
+	 * @return the content of the file, given to the parse methods
+	 * @throws NullException -- throws null exception if the file can't be read
+	 */
+	Object readDataFile(Path dataFilePath) throws NullException {
+		return null;
+	}
+
+	/**
+	 * Fill the data object with the content of the given file, read by {@link #readDataFile(Path)}.
+	 * @param dataFilePath Path to a data file.
+	 * @param dataFileContent content of the file, null if the parser doesn't read files beforehand
+	 * @throws NullException  -- throws null exception if datafilepath is missing
+	 */
+	void parseDataFile(Path dataFilePath, Object dataFileContent) throws NullException {
+		parseDataFile(dataFilePath);
+	}
+
+	/**
+	 * Fill the data object with the content of the given file, read by {@link #readDataFile(Path)},
+	 * for treatment without DDI specification
+	 * @param dataFilePath Path to a data file.
+	 * @param dataFileContent content of the file, null if the parser doesn't read files beforehand
+	 * @throws NullException -- throws null exception if datafilepath is missing
+	 */
+	void parseDataFileWithoutDDI(Path dataFilePath, Path lunaticFile, Object dataFileContent) throws NullException {
+		parseDataFileWithoutDDI(dataFilePath, lunaticFile);
+	}
+
 }
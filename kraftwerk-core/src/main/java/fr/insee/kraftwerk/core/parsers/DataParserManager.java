@@ -1,6 +1,7 @@
 package fr.insee.kraftwerk.core.parsers;
 
 import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import lombok.extern.log4j.Log4j2;
 
@@ -24,10 +25,28 @@ public class DataParserManager {
 	 * One of the concrete parsers.
 	 */
 	public static DataParser getParser(DataFormat dataFormat, SurveyRawData data, FileUtilsInterface fileUtilsInterface) {
+		return getParser(dataFormat, data, fileUtilsInterface, null);
+	}
+
+	/**
+	 * Return the parser adapted to read data from the data collection tool given,
+	 * with the parsing options of the execution context.
+	 *
+	 * @param dataFormat
+	 * One of the DataFormat.
+	 * @param kraftwerkExecutionContext
+	 * Context of the execution, default options if null.
+	 *
+	 * @return
+	 * One of the concrete parsers.
+	 */
+	public static DataParser getParser(DataFormat dataFormat, SurveyRawData data, FileUtilsInterface fileUtilsInterface,
+									   KraftwerkExecutionContext kraftwerkExecutionContext) {
 		return switch (dataFormat) {
 			case XFORMS -> new XformsDataParser(data, fileUtilsInterface);
 			case PAPER -> new PaperDataParser(data, fileUtilsInterface);
-			case LUNATIC_XML -> new LunaticXmlDataParser(data, fileUtilsInterface);
+			case LUNATIC_XML -> new LunaticXmlDataParser(data, fileUtilsInterface,
+					kraftwerkExecutionContext != null && kraftwerkExecutionContext.isLunaticXmlStreaming());
 			case LUNATIC_JSON -> new LunaticJsonDataParser(data,fileUtilsInterface);
 			default -> {
 				log.debug(String.format("Unknown data format: %s", dataFormat));
@@ -25,20 +25,36 @@ public class LunaticJsonDataParser extends DataParser {
 
 	@Override
 	void parseDataFile(Path filePath) throws NullException {
-		log.warn("Lunatic data parser being implemented!");
+		parseDataFile(filePath, readDataFile(filePath));
+	}
 
-		//
-		JSONObject jsonObject;
+	@Override
+	boolean isReadAhead() {
+		return true;
+	}
 
+	/**
+	 * Read the JSON object of the file.
+	 */
+	@Override
+	Object readDataFile(Path filePath) throws NullException {
 		try {
-			jsonObject = (JSONObject) Constants.readJsonSimple(filePath, fileUtilsInterface);
+			return Constants.readJsonSimple(filePath, fileUtilsInterface);
 		} catch (Exception e) {
 			throw new NullException("Can't read JSON file - "+e.getClass()+" "+ e.getMessage());
 		}
+	}
+
+	@Override
+	void parseDataFile(Path filePath, Object dataFileContent) throws NullException {
+		log.warn("Lunatic data parser being implemented!");
+
+		//
+		JSONObject jsonObject = (JSONObject) dataFileContent;
 		JSONObject jsonData = (JSONObject) jsonObject.get("data");
 		String identifier = (String) jsonObject.get("id");
 
-		QuestionnaireData questionnaireData = new QuestionnaireData();
+		QuestionnaireData questionnaireData = new QuestionnaireData(data.getColumns());
 
 		// Root identifier
 
@@ -12,13 +12,21 @@ import fr.insee.kraftwerk.core.rawdata.QuestionnaireData;
 import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.utils.xml.XmlFileReader;
+import fr.insee.kraftwerk.core.utils.xml.XmlStreamUtils;
 import lombok.extern.log4j.Log4j2;
 import nu.xom.Document;
 import nu.xom.Element;
 import nu.xom.Elements;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Parser add FILTER_RESULT to variablesMap
@@ -32,6 +40,9 @@ public class LunaticXmlDataParser extends DataParser {
 	 */
 	private static final String[] forbiddenWords = { "cast", "isnull", "if " };
 
+	/** Read the survey units one by one with StAX instead of loading the whole file */
+	private final boolean streaming;
+
 	/**
 	 * Parser constructor.
 	 * 
@@ -39,7 +50,19 @@ public class LunaticXmlDataParser extends DataParser {
 	 *             variables must have been previously set.
 	 */
 	public LunaticXmlDataParser(SurveyRawData data, FileUtilsInterface fileUtilsInterface) {
+		this(data, fileUtilsInterface, false);
+	}
+
+	/**
+	 * Parser constructor.
+	 *
+	 * @param data The SurveyRawData to be filled by the parseSurveyData method. The
+	 *             variables must have been previously set.
+	 * @param streaming true to read the survey units one by one with StAX instead of loading the whole file
+	 */
+	public LunaticXmlDataParser(SurveyRawData data, FileUtilsInterface fileUtilsInterface, boolean streaming) {
 		super(data, fileUtilsInterface);
+		this.streaming = streaming;
 	}
 
 	/**
@@ -58,41 +81,121 @@ public class LunaticXmlDataParser extends DataParser {
 	}
 
 	private void parseDataFile(Path filePath, Path lunaticFile) {
+		if (streaming) {
+			parseDataFileStreaming(filePath, lunaticFile);
+			return;
+		}
+
+		parseDocument(readXmlFile(filePath), filePath, lunaticFile);
+	}
 
-		Document document = readXmlFile(filePath);
+	private void parseDocument(Document document, Path filePath, Path lunaticFile) {
 		log.debug("Begin to parse {} ", filePath);
 		if (document != null) {
 			Elements questionnaireNodeList = document.getRootElement().getFirstChildElement("SurveyUnits")
 					.getChildElements("SurveyUnit");
-			String questionnaireModelId = null;
-			if (lunaticFile != null) {
-				questionnaireModelId = LunaticReader.getQuestionnaireModelId(fileUtilsInterface.readFile(lunaticFile.toString()));
-			}
+			String questionnaireModelId = getQuestionnaireModelId(lunaticFile);
 
 			for (int i = 0; i < questionnaireNodeList.size(); i++) {
+				parseQuestionnaireNode(questionnaireNodeList.get(i), lunaticFile, questionnaireModelId);
+			}
+			log.debug("Successfully parsed Lunatic answers file: {}", filePath);
+		}
+	}
 
-				// Xml questionnaire node
-				Element questionnaireNode = questionnaireNodeList.get(i);
+	/**
+	 * Parse the XML file from the given path one survey unit at a time :
+	 * only the survey unit being read is held in memory, as a XOM element.
+	 * The survey units are added to the data once the whole file is read, so that nothing is added
+	 * from a malformed file, as in document mode.
+	 */
+	private void parseDataFileStreaming(Path filePath, Path lunaticFile) {
+		try (InputStream inputStream = fileUtilsInterface.readFile(filePath.toString())) {
+			if (inputStream == null) {
+				log.warn("Failed to parse Lunatic answers file: {}", filePath);
+				return;
+			}
+			log.debug("Begin to parse {} with StAX", filePath);
+			String questionnaireModelId = getQuestionnaireModelId(lunaticFile);
+			XMLStreamReader reader = XmlStreamUtils.createXmlStreamReader(inputStream);
+			List<QuestionnaireData> questionnaires = new ArrayList<>();
+			try {
+				// Survey units are the SurveyUnit children of the first SurveyUnits element
+				int depth = 0;
+				boolean inSurveyUnits = false;
+				boolean surveyUnitsRead = false;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+						if (depth == 2 && !surveyUnitsRead && "SurveyUnits".equals(reader.getLocalName())) {
+							inSurveyUnits = true;
+						} else if (depth == 3 && inSurveyUnits && "SurveyUnit".equals(reader.getLocalName())) {
+							Element questionnaireNode = XmlStreamUtils.readElement(reader);
+							depth--;
+							QuestionnaireData questionnaireData = readQuestionnaireNode(questionnaireNode, lunaticFile, questionnaireModelId);
+							if (questionnaireData != null) {
+								questionnaires.add(questionnaireData);
+							}
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						if (depth == 2 && inSurveyUnits) {
+							inSurveyUnits = false;
+							surveyUnitsRead = true;
+						}
+						depth--;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			questionnaires.forEach(this::addQuestionnaire);
+			log.debug("Successfully parsed Lunatic answers file: {}", filePath);
+		} catch (XMLStreamException e) {
+			log.error("XML document is malformed : {}", filePath, e);
+		} catch (IOException e) {
+			log.error("Could not connect to data file {}", filePath, e);
+		}
+	}
+
+	private String getQuestionnaireModelId(Path lunaticFile) {
+		if (lunaticFile == null) {
+			return null;
+		}
+		return LunaticReader.getQuestionnaireModelId(fileUtilsInterface.readFile(lunaticFile.toString()));
+	}
 
-				if (lunaticFile == null || checkLunaticQuestionnaire(questionnaireModelId, questionnaireNode)) {
+	private void parseQuestionnaireNode(Element questionnaireNode, Path lunaticFile, String questionnaireModelId) {
+		QuestionnaireData questionnaireData = readQuestionnaireNode(questionnaireNode, lunaticFile, questionnaireModelId);
+		if (questionnaireData != null) {
+			addQuestionnaire(questionnaireData);
+		}
+	}
 
-					// Init the questionnaire data object
-					QuestionnaireData questionnaireData = new QuestionnaireData();
+	/**
+	 * Read a survey unit, without adding it to the data
+	 * @return the questionnaire data, null if the survey unit is not from the Lunatic questionnaire
+	 */
+	private QuestionnaireData readQuestionnaireNode(Element questionnaireNode, Path lunaticFile, String questionnaireModelId) {
+		if (lunaticFile != null && !checkLunaticQuestionnaire(questionnaireModelId, questionnaireNode)) {
+			return null;
+		}
+		// Init the questionnaire data object
+		QuestionnaireData questionnaireData = new QuestionnaireData(data.getColumns());
 
-					// Root identifier
-					questionnaireData.setIdentifier(questionnaireNode.getFirstChildElement("Id").getValue());
-					data.getIdSurveyUnits().add(questionnaireNode.getFirstChildElement("Id").getValue());
+		// Root identifier
+		questionnaireData.setIdentifier(questionnaireNode.getFirstChildElement("Id").getValue());
 
-					readCollected(questionnaireNode, questionnaireData, data.getMetadataModel().getVariables());
-					readExternal(questionnaireNode, questionnaireData, data.getMetadataModel());
-					// Remove this method when all questionnaires will use Lunatic V2 format
-					readCalculated(questionnaireNode, questionnaireData, data.getMetadataModel().getVariables());
+		readCollected(questionnaireNode, questionnaireData, data.getMetadataModel().getVariables());
+		readExternal(questionnaireNode, questionnaireData, data.getMetadataModel());
+		// Remove this method when all questionnaires will use Lunatic V2 format
+		readCalculated(questionnaireNode, questionnaireData, data.getMetadataModel().getVariables());
+		return questionnaireData;
+	}
 
-					data.addQuestionnaire(questionnaireData);
-				}
-			}
-			log.debug("Successfully parsed Lunatic answers file: {}", filePath);
-		}
+	private void addQuestionnaire(QuestionnaireData questionnaireData) {
+		data.getIdSurveyUnits().add(questionnaireData.getIdentifier());
+		data.addQuestionnaire(questionnaireData);
 	}
 
 	/**
@@ -103,7 +206,7 @@ public class LunaticXmlDataParser extends DataParser {
 	 */
 	@Override
 	void parseDataFile(Path filePath) {
-		parseDataFile(filePath, null);
+		parseDataFileWithoutDDI(filePath, null);
 	}
 
 	/**
@@ -117,6 +220,36 @@ public class LunaticXmlDataParser extends DataParser {
 		parseDataFile(filePath, lunaticFile);
 	}
 
+	/**
+	 * Streamed files are read while the survey units are added to the data object, so they are parsed one by one.
+	 */
+	@Override
+	boolean isReadAhead() {
+		return !streaming;
+	}
+
+	/**
+	 * Load the XML document, unless the file is streamed while parsing.
+	 */
+	@Override
+	Object readDataFile(Path filePath) {
+		return streaming ? null : readXmlFile(filePath);
+	}
+
+	@Override
+	void parseDataFile(Path filePath, Object dataFileContent) {
+		parseDataFileWithoutDDI(filePath, null, dataFileContent);
+	}
+
+	@Override
+	void parseDataFileWithoutDDI(Path filePath, Path lunaticFile, Object dataFileContent) {
+		if (streaming) {
+			parseDataFileStreaming(filePath, lunaticFile);
+			return;
+		}
+		parseDocument((Document) dataFileContent, filePath, lunaticFile);
+	}
+
 	private boolean checkLunaticQuestionnaire(String questionnaireModelId, Element questionnaireNode) {
 		return questionnaireNode.getFirstChildElement("QuestionnaireModelId").getValue().equals(questionnaireModelId);
 	}
@@ -120,7 +120,7 @@ public class PaperDataParser extends DataParser {
 			String[] nextRecord;
 			while ((nextRecord = csvReader.readNext()) != null) {
 
-				QuestionnaireData questionnaireData = new QuestionnaireData();
+				QuestionnaireData questionnaireData = new QuestionnaireData(data.getColumns());
 				GroupInstance answers = questionnaireData.getAnswers();
 
 				// Identifiers
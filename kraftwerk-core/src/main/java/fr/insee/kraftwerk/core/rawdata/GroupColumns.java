@@ -0,0 +1,122 @@
+package fr.insee.kraftwerk.core.rawdata;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Columns of a group, shared by all the instances of this group in a survey.
+ * Each variable name gets a column index once, group instances then store their values in an array
+ * using these indexes.
+ * Values of columns with few distinct values (modalities, booleans, states...) are dictionary encoded:
+ * equal values share the same String object.
+ */
+public class GroupColumns {
+
+	/** Number of distinct values above which a column is no longer dictionary encoded. */
+	static final int MAX_DICTIONARY_SIZE = 1024;
+
+	@Getter
+	private final RawDataColumns rawDataColumns;
+
+	@Getter
+	private final String groupName;
+
+	/** Keys: a variable name. Values: the column of this variable. */
+	private final Map<String, Column> columnsByName = new ConcurrentHashMap<>();
+
+	/** Columns in index order. Replaced (never modified) when a column is added. */
+	private volatile Column[] columns = new Column[0];
+
+	/** Instance ids already computed from an instance number. */
+	private final Map<Integer, String> instanceIds = new ConcurrentHashMap<>();
+
+	GroupColumns(RawDataColumns rawDataColumns, String groupName) {
+		this.rawDataColumns = rawDataColumns;
+		this.groupName = groupName;
+	}
+
+	/** Return the number of columns of the group. */
+	public int size() {
+		return columns.length;
+	}
+
+	/** Return the index of the column of the given variable, -1 if there is no such column. */
+	public int indexOf(String variableName) {
+		Column column = columnsByName.get(variableName);
+		return column == null ? -1 : column.index;
+	}
+
+	/** Return the index of the column of the given variable. The column is created if it doesn't already exist. */
+	public int getOrCreateIndex(String variableName) {
+		Column column = columnsByName.get(variableName);
+		if (column != null) {
+			return column.index;
+		}
+		synchronized (this) {
+			column = columnsByName.get(variableName);
+			if (column == null) {
+				column = new Column(variableName, columns.length);
+				Column[] newColumns = Arrays.copyOf(columns, columns.length + 1);
+				newColumns[column.index] = column;
+				columns = newColumns;
+				columnsByName.put(variableName, column);
+			}
+			return column.index;
+		}
+	}
+
+	/** Return the variable name of the column at the given index. */
+	public String getVariableName(int index) {
+		return columns[index].name;
+	}
+
+	/**
+	 * Return the value to store in the given column.
+	 * If the column is still dictionary encoded, the String object already used for an equal value is returned.
+	 */
+	String encode(int index, String value) {
+		return columns[index].encode(value);
+	}
+
+	/**
+	 * Converts the integer given to the string instance id that will be used in datasets.
+	 * Ids are computed once per group.
+	 * @param instanceNumber Instance number.
+	 * @return The string identifier of the instance.
+	 */
+	public String getInstanceId(Integer instanceNumber) {
+		return instanceIds.computeIfAbsent(instanceNumber, number -> GroupData.getInstanceId(groupName, number));
+	}
+
+	private static final class Column {
+
+		private final String name;
+		private final int index;
+		/** Distinct values of the column, null when the column has too many distinct values. */
+		private volatile Map<String, String> dictionary = new ConcurrentHashMap<>();
+
+		private Column(String name, int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		private String encode(String value) {
+			Map<String, String> currentDictionary = dictionary;
+			if (currentDictionary == null) {
+				return value;
+			}
+			String encodedValue = currentDictionary.putIfAbsent(value, value);
+			if (encodedValue != null) {
+				return encodedValue;
+			}
+			if (currentDictionary.size() > MAX_DICTIONARY_SIZE) {
+				dictionary = null;
+			}
+			return value;
+		}
+	}
+
+}
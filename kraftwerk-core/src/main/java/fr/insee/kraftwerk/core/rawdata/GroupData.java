@@ -11,8 +11,8 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class GroupData {
 
-    /** A group name. */
-    String groupName;
+    /** Columns of the group, shared by all the instances of the group. */
+    private final GroupColumns columns;
 
     /** A map containing data of one of the instances of a group.
      * Keys: a group instance id.
@@ -20,11 +20,15 @@ public class GroupData {
     protected final Map<String, GroupInstance> groupInstances = new LinkedHashMap<>();
 
     public GroupData(String name){
-        this.groupName = name;
+        this(new RawDataColumns().getGroupColumns(name));
+    }
+
+    GroupData(GroupColumns columns){
+        this.columns = columns;
     }
 
     public String getName() {
-        return groupName;
+        return columns.getGroupName();
     }
 
     /**
@@ -41,7 +45,7 @@ public class GroupData {
         if (groupInstances.containsKey(groupId)) {
             return groupInstances.get(groupId);
         } else {
-            GroupInstance newInstance = new GroupInstance(groupName, groupId);
+            GroupInstance newInstance = new GroupInstance(columns, groupId);
             groupInstances.put(groupId, newInstance);
             return newInstance;
         }
@@ -108,31 +112,32 @@ public class GroupData {
             return groupInstances.get(groupId).getValue(variableName);
         } else {
             log.debug(String.format("Instance named \"%s\" is not registered in group \"%s\", null value returned.",
-                    groupId, groupName));
+                    groupId, getName()));
             return null;
         }
     }
 
     public String getValue(String variableName, Integer instanceNumber) {
-        String groupId = getInstanceId(groupName, instanceNumber);
+        String groupId = getInstanceId(instanceNumber);
         return getValue(variableName, groupId);
     }
 
     /**
      * Converts the integer given to the string instance id that will be used in datasets.
+     * The id is computed once for all the instances of the group.
      * @param instanceNumber Instance number.
      * @return The string identifier of the instance.
      */
     protected String getInstanceId(Integer instanceNumber) {
-        return getInstanceId(groupName, instanceNumber);
+        return columns.getInstanceId(instanceNumber);
     }
 
     /** This method so that we don't duplicate code in GroupData and in GroupInstance. */
     public static String getInstanceId(String groupName, Integer instanceNumber) {
         if (instanceNumber < 9) {
-            return String.format("%s-0%d", groupName, instanceNumber + 1);
+            return groupName + "-0" + (instanceNumber + 1);
         } else {
-            return String.format("%s-%d", groupName, instanceNumber + 1);
+            return groupName + "-" + (instanceNumber + 1);
         }
     }
 
@@ -1,11 +1,14 @@
 package fr.insee.kraftwerk.core.rawdata;
 
 import fr.insee.kraftwerk.core.Constants;
-import lombok.Getter;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -13,11 +16,15 @@ import java.util.Set;
  */
 public class GroupInstance {
 
+	/** Marks a variable put with a null value, to distinguish it from a variable not put at all. */
+	private static final Object NULL_VALUE = new Object();
+	private static final Object[] NO_VALUES = new Object[0];
+
 	/**
-	 * Group name (the "typeGroupe" field of group instances in Coleman data)
+	 * Columns of the group, shared by all the instances of the group.
+	 * The group name is the "typeGroupe" field of group instances in Coleman data.
 	 */
-	@Getter
-	String groupName;
+	private final GroupColumns columns;
 
 	/**
 	 * The identifier of the group instance in data (the "idGroupe" field of group
@@ -26,24 +33,32 @@ public class GroupInstance {
 	String groupId;
 
 	/**
-	 * A map containing group's variables' data. Keys: a variable name. Values: the
-	 * String value of a variable in data file.
+	 * Group's variables' data, indexed by the column index of the variable in the group columns.
+	 * Values: the String value of a variable in data file, NULL_VALUE for a null value,
+	 * null if the variable has no value in this instance.
 	 */
-	Map<String, String> values = new LinkedHashMap<>();
+	private Object[] values = NO_VALUES;
 	/**
 	 * A map containing subgroups' data. Keys: a group name. Values: a GroupData
-	 * (which is a subgroup of the current group).
+	 * (which is a subgroup of the current group). Created with the first subgroup.
 	 */
-	Map<String, GroupData> subGroups = new LinkedHashMap<>();
+	Map<String, GroupData> subGroups;
 
 	public GroupInstance(String groupName, String groupId) {
-		this.groupName = groupName;
-		this.groupId = groupId;
+		this(new RawDataColumns().getGroupColumns(groupName), groupId);
 	}
 
 	public GroupInstance(String groupName, Integer instanceNumber) {
-		this.groupName = groupName;
-		this.groupId = GroupData.getInstanceId(groupName, instanceNumber);
+		this(groupName, GroupData.getInstanceId(groupName, instanceNumber));
+	}
+
+	GroupInstance(GroupColumns columns, String groupId) {
+		this.columns = columns;
+		this.groupId = groupId;
+	}
+
+	public String getGroupName() {
+		return columns.getGroupName();
 	}
 
 	public String getId() {
@@ -51,38 +66,110 @@ public class GroupInstance {
 	}
 
 	public String getValue(String variableName) {
-		return values.get(variableName);
+		int index = columns.indexOf(variableName);
+		if (index < 0 || index >= values.length) {
+			return null;
+		}
+		Object value = values[index];
+		return value == NULL_VALUE ? null : (String) value;
 	}
 
+	/**
+	 * Return the names of the variables put in this instance, in the order of the group columns.
+	 * The set is a view: variables put afterwards are in it.
+	 */
 	public Set<String> getVariableNames() {
-		return values.keySet();
+		return new VariableNames();
 	}
 
 	public void putValue(String variableName, String value) {
-		values.put(variableName, value);
+		int index = columns.getOrCreateIndex(variableName);
+		if (index >= values.length) {
+			// Grow to the current number of columns, at least by half to avoid a copy for each new variable
+			values = Arrays.copyOf(values, Math.max(columns.size(), values.length + (values.length >> 1) + 1));
+		}
+		values[index] = value == null ? NULL_VALUE : columns.encode(index, value);
 	}
 	public void putValues (Map<String,String> mapToAdd){
 		mapToAdd.forEach(this::putValue);
 	}
 
 	public GroupData getSubGroup(String groupName) {
-		if (subGroups.containsKey(groupName)) {
+		if (subGroups != null && subGroups.containsKey(groupName)) {
 			return subGroups.get(groupName);
 		} else {
-			GroupData newGroup = new GroupData(groupName);
-				if (!groupName.contains(Constants.ROOT_GROUP_NAME)) {
-				subGroups.put(groupName, newGroup);	
+			GroupData newGroup = new GroupData(columns.getRawDataColumns().getGroupColumns(groupName));
+			if (!groupName.contains(Constants.ROOT_GROUP_NAME)) {
+				if (subGroups == null) {
+					subGroups = new LinkedHashMap<>();
+				}
+				subGroups.put(groupName, newGroup);
 			}
 			return newGroup;
 		}
 	}
 
 	public boolean hasSubGroups() {
-		return !subGroups.isEmpty();
+		return subGroups != null && !subGroups.isEmpty();
 	}
 
 	public Set<String> getSubGroupNames() {
-		return new LinkedHashSet<>(subGroups.keySet());
+		return subGroups == null ? new LinkedHashSet<>() : new LinkedHashSet<>(subGroups.keySet());
+	}
+
+	/** View of the variable names that have a value in this instance. */
+	private final class VariableNames extends AbstractSet<String> {
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof String variableName)) {
+				return false;
+			}
+			int index = columns.indexOf(variableName);
+			return index >= 0 && index < values.length && values[index] != null;
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<>() {
+				private final Object[] iteratedValues = values;
+				private int nextIndex = findNext(0);
+
+				private int findNext(int from) {
+					int index = from;
+					while (index < iteratedValues.length && iteratedValues[index] == null) {
+						index++;
+					}
+					return index;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return nextIndex < iteratedValues.length;
+				}
+
+				@Override
+				public String next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					String variableName = columns.getVariableName(nextIndex);
+					nextIndex = findNext(nextIndex + 1);
+					return variableName;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			int size = 0;
+			for (Object value : values) {
+				if (value != null) {
+					size++;
+				}
+			}
+			return size;
+		}
 	}
 
 }
@@ -14,7 +14,19 @@ public class QuestionnaireData {
 
     @Setter
     protected String identifier;
-    protected GroupInstance answers = new GroupInstance(Constants.ROOT_GROUP_NAME, "");
+    protected GroupInstance answers;
+
+    public QuestionnaireData() {
+        this(new RawDataColumns());
+    }
+
+    /**
+     * @param columns Columns shared by the questionnaires of a survey,
+     *                cf. SurveyRawData.getColumns().
+     */
+    public QuestionnaireData(RawDataColumns columns) {
+        this.answers = new GroupInstance(columns.getGroupColumns(Constants.ROOT_GROUP_NAME), "");
+    }
 
     /**
      * Put the given value corresponding to the variable given in the data object.
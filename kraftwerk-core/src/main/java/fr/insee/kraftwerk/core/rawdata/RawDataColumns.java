@@ -0,0 +1,21 @@
+package fr.insee.kraftwerk.core.rawdata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column layout of the data of a survey.
+ * It is shared by all the questionnaires of a SurveyRawData object, so that each variable name
+ * and each group instance id is stored once instead of once per questionnaire.
+ */
+public class RawDataColumns {
+
+	/** Keys: a group name. Values: the columns of this group. */
+	private final Map<String, GroupColumns> groupColumnsByName = new ConcurrentHashMap<>();
+
+	/** Return the columns of the given group. They are created if they don't already exist. */
+	public GroupColumns getGroupColumns(String groupName) {
+		return groupColumnsByName.computeIfAbsent(groupName, name -> new GroupColumns(this, name));
+	}
+
+}
@@ -2,6 +2,7 @@ package fr.insee.kraftwerk.core.rawdata;
 
 import fr.insee.bpm.metadata.model.MetadataModel;
 import fr.insee.bpm.metadata.model.Variable;
+import fr.insee.kraftwerk.core.utils.IndexedList;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -20,7 +21,10 @@ public class SurveyRawData {
 	private Path dataFilePath;
 	private Path paraDataFolder;
 	private MetadataModel metadataModel;
-	private final List<QuestionnaireData> questionnaires = new ArrayList<>();
+	/** Questionnaires, indexed by identifier */
+	private final IndexedList<QuestionnaireData> questionnaires = new IndexedList<>(QuestionnaireData::getIdentifier);
+	/** Columns shared by the questionnaires, to be given when creating a QuestionnaireData. */
+	private final RawDataColumns columns = new RawDataColumns();
     private List<String> idSurveyUnits = new ArrayList<>();//Used for file by file operations
 
 
@@ -33,6 +37,15 @@ public class SurveyRawData {
 		questionnaires.add(questionnaireData);
 	}
 
+	/**
+	 * Return the first questionnaire with the given identifier, null if there is none.
+	 * Questionnaires added to the list since the last call are indexed first,
+	 * so their identifier must be set before the call.
+	 */
+	public QuestionnaireData getQuestionnaire(String identifier) {
+		return questionnaires.getByKey(identifier);
+	}
+
 	/** Return the number of questionnaires stored in the object. */
 	public int getQuestionnairesCount() {
 		return questionnaires.size();
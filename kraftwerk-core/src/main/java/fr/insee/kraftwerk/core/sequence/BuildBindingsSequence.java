@@ -41,7 +41,8 @@ public class BuildBindingsSequence {
 
 		/* Step 2.1 : Fill the data object with the survey answers file */
 		data.setDataFilePath(modeInputs.getDataFile());
-		DataParser parser = DataParserManager.getParser(modeInputs.getDataFormat(), data, fileUtilsInterface);
+		DataParser parser = DataParserManager.getParser(modeInputs.getDataFormat(), data, fileUtilsInterface,
+				kraftwerkExecutionContext);
 		log.info("Parsing survey data file or folder : {}" , modeInputs.getDataFile().getFileName());
 		if (withDDI) {
 			parser.parseSurveyData(modeInputs.getDataFile(), kraftwerkExecutionContext);
@@ -50,17 +51,19 @@ public class BuildBindingsSequence {
 		}
 
 		/* Step 2.2 : Get paradata for the survey */
-		parseParadata(modeInputs, data);
+		parseParadata(modeInputs, data, kraftwerkExecutionContext);
 
 		/* Step 2.3 : Convert data object to a VTL Dataset */
 		data.setDataMode(dataMode);
 		vtlExecute.convertToVtlDataset(data, dataMode, vtlBindings);
 	}
 
-	private void parseParadata(ModeInputs modeInputs, SurveyRawData data) throws NullException {
+	private void parseParadata(ModeInputs modeInputs, SurveyRawData data,
+							   KraftwerkExecutionContext kraftwerkExecutionContext) throws NullException {
 		Path paraDataFolder = modeInputs.getParadataFolder();
 		if (paraDataFolder != null) {
-			ParadataParser paraDataParser = new ParadataParser(fileUtilsInterface);
+			ParadataParser paraDataParser = new ParadataParser(fileUtilsInterface,
+					kraftwerkExecutionContext == null ? 1 : kraftwerkExecutionContext.getParseParallelism());
 			Paradata paraData = new Paradata(paraDataFolder);
 			paraDataParser.parseParadata(paraData, data);
 		}
@@ -51,7 +51,7 @@ public class BuildBindingsSequenceGenesis {
 		//TODO To be deported in another place in the code later at refactor step
 		List<SurveyUnitUpdateLatest> surveyUnitsFiltered = surveyUnits.stream().filter(surveyUnit -> dataMode.equals(surveyUnit.getMode().getModeName())).toList();
 		for(SurveyUnitUpdateLatest surveyUnit : surveyUnitsFiltered) {
-			QuestionnaireData questionnaire = new QuestionnaireData();
+			QuestionnaireData questionnaire = new QuestionnaireData(data.getColumns());
 			questionnaire.setIdentifier(surveyUnit.getInterrogationId());
 			data.getIdSurveyUnits().add(surveyUnit.getInterrogationId());
 
@@ -192,7 +192,8 @@ public class BuildBindingsSequenceGenesis {
 	private void parseParadata(String dataMode, SurveyRawData data, Path specsDirectory, FileUtilsInterface fileUtilsInterface) throws NullException {
 		Path paraDataPath = specsDirectory.resolve(dataMode+Constants.PARADATA_FOLDER);
 		if (fileUtilsInterface.isFileExists(paraDataPath.toString())) {
-			ParadataParser paraDataParser = new ParadataParser(fileUtilsInterface);
+			ParadataParser paraDataParser = new ParadataParser(fileUtilsInterface,
+					kraftwerkExecutionContext.getParseParallelism());
 			Paradata paraData = new Paradata(paraDataPath);
 			paraDataParser.parseParadata(paraData, data);
 		}
@@ -12,4 +12,13 @@ public class InsertDatabaseSequence {
     public void insertDatabaseProcessing(VtlBindings vtlBindings, Statement database, KraftwerkExecutionContext kraftwerkExecutionContext){
         SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, database, kraftwerkExecutionContext);
     }
+
+    /**
+     * Insert a batch of data, the deduplicated rows being inserted when the last batch is
+     * @param insertPendingRows false if other batches follow
+     */
+    public void insertDatabaseProcessing(VtlBindings vtlBindings, Statement database, KraftwerkExecutionContext kraftwerkExecutionContext,
+                                         boolean insertPendingRows){
+        SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, database, kraftwerkExecutionContext, insertPendingRows);
+    }
 }
@@ -2,13 +2,13 @@ package fr.insee.kraftwerk.core.sequence;
 
 import tools.jackson.core.JsonGenerator;
 import tools.jackson.databind.ObjectMapper;
-import fr.insee.bpm.metadata.model.Group;
 import fr.insee.bpm.metadata.model.MetadataModel;
 import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.data.model.InterrogationId;
 import fr.insee.kraftwerk.core.data.model.SurveyUnitUpdateLatest;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.ListUtils;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -20,38 +20,67 @@ import java.sql.Types;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
 public class JsonWriterSequence {
 
+    /** Maximum number of interrogation ids joined through the VALUES list of one query, larger batches being split */
+    private static final int MAX_IDS_BY_QUERY = 1000;
+
+    /**
+     * If true, the data of a group is read with one query for each thousand interrogations of the batch,
+     * ordered as the batch, else with one query per interrogation.
+     */
+    private final boolean setBasedQueries;
+
+    public JsonWriterSequence(boolean setBasedQueries) {
+        this.setBasedQueries = setBasedQueries;
+    }
+
     public void tmpJsonOutput(List<InterrogationId> listId,
                                 List<SurveyUnitUpdateLatest> suLatest,
                                 ObjectMapper objectMapper,
                                 JsonGenerator jsonGenerator,
                                 Map<String,MetadataModel> metadataModelsByMode,
                                 Statement database) throws KraftwerkException, IOException {
-        for (InterrogationId interrogationId : listId){
-            Map<String, Object> result = buildResultMap(suLatest, interrogationId, metadataModelsByMode, database);
-            if (result != null) {
-                objectMapper.writeValue(jsonGenerator, result);
+        Map<String, SurveyUnitUpdateLatest> suLatestById = new HashMap<>();
+        for (SurveyUnitUpdateLatest surveyUnit : suLatest) {
+            suLatestById.putIfAbsent(surveyUnit.getInterrogationId(), surveyUnit);
+        }
+        List<InterrogationId> idsToWrite = listId.stream()
+                .filter(interrogationId -> suLatestById.containsKey(interrogationId.getId()))
+                .toList();
+        Set<String> groups = getGroupNames(metadataModelsByMode);
+        if (setBasedQueries) {
+            // Interrogations are read and written by chunks, in the order of the batch
+            for (List<InterrogationId> idsOfQuery : ListUtils.partition(idsToWrite, MAX_IDS_BY_QUERY)) {
+                List<Map<String, List<Object>>> dataOfQuery = readDataInBatchOrder(idsOfQuery, groups, database);
+                for (int i = 0; i < idsOfQuery.size(); i++) {
+                    InterrogationId interrogationId = idsOfQuery.get(i);
+                    objectMapper.writeValue(jsonGenerator,
+                            buildResultMap(suLatestById.get(interrogationId.getId()), interrogationId, dataOfQuery.get(i)));
+                }
             }
+            return;
+        }
+        for (InterrogationId interrogationId : idsToWrite){
+            Map<String, List<Object>> data = transformDataToJson(interrogationId, groups, database);
+            Map<String, Object> result = buildResultMap(suLatestById.get(interrogationId.getId()), interrogationId, data);
+            objectMapper.writeValue(jsonGenerator, result);
         }
     }
 
-    private Map<String,Object> buildResultMap(List<SurveyUnitUpdateLatest> suLatest,
+    private Map<String,Object> buildResultMap(SurveyUnitUpdateLatest currentSu,
                                               InterrogationId interrogationId,
-                                              Map<String,MetadataModel> metadataModelsByMode,
-                                              Statement database) throws KraftwerkException{
+                                              Map<String, List<Object>> data) {
         Map<String,Object> resultById = new LinkedHashMap<>();
-        SurveyUnitUpdateLatest currentSu = suLatest.stream()
-                .filter(su -> su.getInterrogationId().equals(interrogationId.getId()))
-                .findFirst()
-                .orElse(null);
-
-        if (currentSu == null) return null;
         resultById.put("interrogationId", interrogationId.getId());
         resultById.put("technicalSurveyUnitId","");
         resultById.put("usualSurveyUnitId",currentSu.getUsualSurveyUnitId());
@@ -65,30 +94,32 @@ public class JsonWriterSequence {
                     .atZone(ZoneId.of("Europe/Paris"))
                     .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
         }
-        resultById.put("data",transformDataToJson(interrogationId, metadataModelsByMode, database));
+        resultById.put("data", data);
         return resultById;
     }
 
-    private Map<String,Object> transformDataToJson(InterrogationId interrogationId,
-                                                   Map<String, MetadataModel> metadataModelsByMode,
-                                                   Statement database) throws KraftwerkException {
-        Map<String, Object> resultByScope = new LinkedHashMap<>();
+    private static Set<String> getGroupNames(Map<String, MetadataModel> metadataModelsByMode) {
+        MetadataModel firstMetadataModel = metadataModelsByMode.entrySet().iterator().next().getValue();
+        return firstMetadataModel.getGroups().keySet();
+    }
+
+    /**
+     * Read the data of one interrogation, with one query per group
+     */
+    private Map<String, List<Object>> transformDataToJson(InterrogationId interrogationId,
+                                                          Set<String> groups,
+                                                          Statement database) throws KraftwerkException {
+        Map<String, List<Object>> resultByScope = new LinkedHashMap<>();
         try {
-            MetadataModel firstMetadataModel = metadataModelsByMode.entrySet().iterator().next().getValue();
-            Map<String, Group> groups = firstMetadataModel.getGroups();
-            for (String group : groups.keySet()){
+            for (String group : groups){
                 List<Object> listIteration = new ArrayList<>();
-                String request = String.format("SELECT * FROM %s WHERE interrogationId='%s'", group, interrogationId.getId());
-                ResultSet rs = database.executeQuery(request);
-                ResultSetMetaData meta = rs.getMetaData();
-                int cols = meta.getColumnCount();
-                while (rs.next()) {
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    for (int i = 1; i <= cols; i++) {
-                        if (meta.getColumnLabel(i).equals("interrogationId")) continue;
-                        addVariableToRow(rs,meta, i, row);
+                String request = String.format("SELECT * FROM %s WHERE %s=%s",
+                        group, Constants.ROOT_IDENTIFIER_NAME, toSqlLiteral(interrogationId.getId()));
+                try (ResultSet rs = database.executeQuery(request)) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    while (rs.next()) {
+                        listIteration.add(readRow(rs, meta, 1));
                     }
-                    listIteration.add(row);
                 }
                 resultByScope.put(group,listIteration);
             }
@@ -99,6 +130,62 @@ public class JsonWriterSequence {
         return resultByScope;
     }
 
+    /**
+     * Read the data of the interrogations given, with one query per group.
+     * Each query joins the group to the positions of the interrogations and is ordered by position, then by row
+     * of the group table : the rows are read in the order of the batch and merged as they are read.
+     * @return data of each interrogation by group, in the order of the interrogations given
+     */
+    private List<Map<String, List<Object>>> readDataInBatchOrder(List<InterrogationId> interrogationIds,
+                                                                 Set<String> groups,
+                                                                 Statement database) throws KraftwerkException {
+        List<Map<String, List<Object>>> dataByPosition = new ArrayList<>(interrogationIds.size());
+        for (int i = 0; i < interrogationIds.size(); i++) {
+            Map<String, List<Object>> resultByScope = new LinkedHashMap<>();
+            for (String group : groups) {
+                resultByScope.put(group, new ArrayList<>());
+            }
+            dataByPosition.add(resultByScope);
+        }
+        String positions = IntStream.range(0, interrogationIds.size())
+                .mapToObj(i -> "(%d,%s)".formatted(i, toSqlLiteral(interrogationIds.get(i).getId())))
+                .collect(Collectors.joining(","));
+        try {
+            for (String group : groups) {
+                String request = String.format("SELECT batch.position, g.* FROM %s g "
+                                + "JOIN (VALUES %s) AS batch(position, id) ON g.%s = batch.id "
+                                + "ORDER BY batch.position, g.rowid",
+                        group, positions, Constants.ROOT_IDENTIFIER_NAME);
+                try (ResultSet rs = database.executeQuery(request)) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    while (rs.next()) {
+                        dataByPosition.get(rs.getInt(1)).get(group).add(readRow(rs, meta, 2));
+                    }
+                }
+            }
+        } catch (Exception e){
+            log.error(e.getMessage());
+            throw new KraftwerkException(500,"SQL error : extraction step");
+        }
+        return dataByPosition;
+    }
+
+    /**
+     * Read the variables of a row, from the given column
+     */
+    private static Map<String, Object> readRow(ResultSet rs, ResultSetMetaData meta, int firstColumnIndex) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = firstColumnIndex; i <= meta.getColumnCount(); i++) {
+            if (meta.getColumnLabel(i).equals(Constants.ROOT_IDENTIFIER_NAME)) continue;
+            addVariableToRow(rs, meta, i, row);
+        }
+        return row;
+    }
+
+    private static String toSqlLiteral(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
     /**
      * Convert to BigDecimal if double to avoid scientific notation
      * @param resultSet source table of data
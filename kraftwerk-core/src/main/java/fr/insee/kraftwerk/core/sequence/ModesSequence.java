@@ -0,0 +1,97 @@
+package fr.insee.kraftwerk.core.sequence;
+
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.vtl.VtlBindings;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the unimodal steps of each data mode.
+ * When a mode parallelism is set, modes are processed at the same time, each one in its own VTL bindings
+ * and execution context. They are then joined in the order of the modes, so that bindings, errors
+ * and processed files are the same as with a mode-by-mode processing.
+ */
+@Slf4j
+public class ModesSequence {
+
+	/** Unimodal processing of a data mode */
+	@FunctionalInterface
+	public interface ModeProcessing {
+		void process(String dataMode, VtlBindings vtlBindings, KraftwerkExecutionContext kraftwerkExecutionContext)
+				throws KraftwerkException;
+	}
+
+	/** Result of the processing of a mode run alongside the other modes */
+	private record ModeResult(VtlBindings vtlBindings, KraftwerkExecutionContext kraftwerkExecutionContext) {}
+
+	/**
+	 * Apply the processing to each data mode, and put the unimodal datasets in the bindings
+	 * @param dataModes modes to process, in their processing order
+	 * @param vtlBindings bindings receiving the datasets of all the modes
+	 * @param kraftwerkExecutionContext context of the execution
+	 * @param modeProcessing processing of one mode
+	 * @throws KraftwerkException the exception of the first mode which failed
+	 */
+	public void applyToModes(List<String> dataModes, VtlBindings vtlBindings,
+							 KraftwerkExecutionContext kraftwerkExecutionContext,
+							 ModeProcessing modeProcessing) throws KraftwerkException {
+		int parallelism = Math.min(kraftwerkExecutionContext.getModeParallelism(), dataModes.size());
+		if (parallelism <= 1) {
+			for (String dataMode : dataModes) {
+				modeProcessing.process(dataMode, vtlBindings, kraftwerkExecutionContext);
+			}
+			return;
+		}
+
+		log.info("Processing of {} modes, {} at a time", dataModes.size(), parallelism);
+		Map<String, Future<ModeResult>> modeResults = new LinkedHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			for (String dataMode : dataModes) {
+				modeResults.put(dataMode, executor.submit(() -> {
+					ModeResult modeResult = new ModeResult(new VtlBindings(), kraftwerkExecutionContext.createModeContext());
+					modeProcessing.process(dataMode, modeResult.vtlBindings(), modeResult.kraftwerkExecutionContext());
+					return modeResult;
+				}));
+			}
+			List<ModeResult> joinedResults = new ArrayList<>();
+			for (Map.Entry<String, Future<ModeResult>> modeResult : modeResults.entrySet()) {
+				joinedResults.add(getModeResult(modeResult.getKey(), modeResult.getValue()));
+			}
+			for (ModeResult modeResult : joinedResults) {
+				vtlBindings.putAll(modeResult.vtlBindings());
+				kraftwerkExecutionContext.addModeContext(modeResult.kraftwerkExecutionContext());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static ModeResult getModeResult(String dataMode, Future<ModeResult> modeResult) throws KraftwerkException {
+		try {
+			return modeResult.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new KraftwerkException(500, "Interrupted during the processing of mode " + dataMode);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof KraftwerkException kraftwerkException) {
+				throw kraftwerkException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			log.error("Error during the processing of mode {}", dataMode, e.getCause());
+			throw new KraftwerkException(500, "Error during the processing of mode " + dataMode);
+		}
+	}
+
+}
@@ -0,0 +1,368 @@
+package fr.insee.kraftwerk.core.sequence;
+
+import fr.insee.bpm.metadata.model.MetadataModel;
+import fr.insee.kraftwerk.core.Constants;
+import fr.insee.kraftwerk.core.dataprocessing.DataProcessing;
+import fr.insee.kraftwerk.core.dataprocessing.InformationLevelsProcessing;
+import fr.insee.kraftwerk.core.dataprocessing.MultimodeTransformations;
+import fr.insee.kraftwerk.core.dataprocessing.ReconciliationProcessing;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.inputs.UserInputs;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.kraftwerk.core.vtl.VtlBindings;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multimodal processing done in DuckDB instead of VTL.
+ * The unimodal datasets are loaded into tables, the union of the modes is a view over these tables,
+ * and the dataset of each information level (group) is a view over the union, inserted into its table.
+ * The bindings only keep the structure of the group datasets, which is what the output writers need.
+ * VTL is only used for the user scripts of the multimodal steps : the dataset a script works on is then
+ * read from the database into the bindings.
+ * The rows are the ones of {@link MultimodalSequence}.
+ */
+@NoArgsConstructor
+@Slf4j
+public class SqlMultimodalSequence {
+
+	/** Suffix of the tables and views used during the processing */
+	private static final String WORK_SUFFIX = "__multimodal";
+	private static final String MULTIMODE_VIEW_NAME = Constants.MULTIMODE_DATASET_NAME + WORK_SUFFIX;
+	/** Table of the multimodal dataset modified by user scripts */
+	private static final String MULTIMODE_TABLE_NAME = Constants.MULTIMODE_DATASET_NAME + "__user" + WORK_SUFFIX;
+	private static final String MODE_ORDER_COLUMN = "__mode_order";
+	private static final String ROW_ORDER_COLUMN = "__row_order";
+
+	/**
+	 * Aggregate the unimodal datasets of the bindings and split the result into one table per group
+	 * @param database statement of the database where the group tables are written
+	 * @return the number of rows of the multimodal dataset
+	 */
+	public long multimodalProcessing(UserInputs userInputs, VtlBindings vtlBindings,
+									 KraftwerkExecutionContext kraftwerkExecutionContext,
+									 FileUtilsInterface fileUtilsInterface, Statement database) throws KraftwerkException {
+		String multimodeDatasetName = Constants.MULTIMODE_DATASET_NAME;
+		List<String> modeNames = vtlBindings.getDatasetNames().stream()
+				.filter(name -> vtlBindings.get(name) instanceof Dataset)
+				.toList();
+		if (modeNames.isEmpty()) {
+			log.debug("No unimodal dataset in the bindings at reconciliation step");
+			return 0;
+		}
+		// Statements dropping the tables and views of the processing
+		List<String> dropStatements = new ArrayList<>();
+		try {
+			/* Step 3.1 : aggregate unimodal datasets into a multimodal view */
+			Set<String> identifierNames = new LinkedHashSet<>();
+			for (String modeName : modeNames) {
+				identifierNames.addAll(vtlBindings.getDatasetIdentifierNames(modeName));
+			}
+			if (modeNames.size() > 1) {
+				identifierNames.add(Constants.MODE_VARIABLE_NAME);
+			}
+			String reconciliationQuery = getReconciliationQuery(vtlBindings, modeNames);
+			for (String modeName : modeNames) {
+				SqlUtils.loadDatasetIntoTable(database, modeName + WORK_SUFFIX, vtlBindings.getDataset(modeName));
+				dropStatements.add(dropStatement("TABLE", modeName + WORK_SUFFIX));
+			}
+			executeQuery(database, "CREATE OR REPLACE VIEW \"%s\" AS %s".formatted(MULTIMODE_VIEW_NAME, reconciliationQuery));
+			dropStatements.add(dropStatement("VIEW", MULTIMODE_VIEW_NAME));
+
+			/* Step 3.1.b and 3.2 : user scripts on the multimodal dataset, clean up unimodal datasets */
+			String multimodeSource = MULTIMODE_VIEW_NAME;
+			DataProcessing reconciliationProcessing = new ReconciliationProcessing(
+					vtlBindings, fileUtilsInterface, kraftwerkExecutionContext
+			);
+			DataProcessing multimodeTransformations = new MultimodeTransformations(
+					vtlBindings, fileUtilsInterface, kraftwerkExecutionContext
+			);
+			boolean multimodeUserScripts = reconciliationProcessing.hasUserVtlInstructions(userInputs.getVtlReconciliationFile())
+					|| multimodeTransformations.hasUserVtlInstructions(userInputs.getVtlTransformationsFile());
+			if (multimodeUserScripts) {
+				vtlBindings.put(multimodeDatasetName,
+						SqlUtils.readDataset(database, MULTIMODE_VIEW_NAME, identifierNames));
+				reconciliationProcessing.applyUserVtlTransformations(multimodeDatasetName,
+						userInputs.getVtlReconciliationFile(), kraftwerkExecutionContext);
+			}
+			removeUnimodalDatasets(modeNames, vtlBindings);
+			if (multimodeUserScripts) {
+				multimodeTransformations.applyUserVtlTransformations(multimodeDatasetName,
+						userInputs.getVtlTransformationsFile(), kraftwerkExecutionContext);
+				// The multimodal dataset stays in the bindings, as with the VTL processing
+				Dataset multimodeDataset = vtlBindings.getDataset(multimodeDatasetName);
+				identifierNames = new LinkedHashSet<>(VtlBindings.getDatasetIdentifierNames(multimodeDataset));
+				SqlUtils.loadDatasetIntoTable(database, MULTIMODE_TABLE_NAME, multimodeDataset);
+				dropStatements.add(dropStatement("TABLE", MULTIMODE_TABLE_NAME));
+				multimodeSource = MULTIMODE_TABLE_NAME;
+			} else {
+				vtlBindings.put(multimodeDatasetName, getStructure(database, multimodeSource, identifierNames));
+			}
+
+			/* Step 3.3 : create datasets on each information level (i.e. each group) */
+			MetadataModel multimodeModel = vtlBindings.getDatasetVariablesMap(multimodeDatasetName);
+			Structured.DataStructure multimodeStructure = vtlBindings.getDataset(multimodeDatasetName).getDataStructure();
+			if (!multimodeUserScripts) {
+				vtlBindings.remove(multimodeDatasetName);
+			}
+			Map<String, String> groupQueries = getInformationLevelsQueries(multimodeSource, multimodeStructure,
+					multimodeModel);
+			for (Map.Entry<String, String> groupQuery : groupQueries.entrySet()) {
+				String groupViewName = groupQuery.getKey() + WORK_SUFFIX;
+				executeQuery(database, "CREATE OR REPLACE VIEW \"%s\" AS %s".formatted(groupViewName, groupQuery.getValue()));
+				dropStatements.add(dropStatement("VIEW", groupViewName));
+			}
+			DataProcessing informationLevelsProcessing = new InformationLevelsProcessing(
+					vtlBindings, fileUtilsInterface, kraftwerkExecutionContext
+			);
+			if (informationLevelsProcessing.hasUserVtlInstructions(userInputs.getVtlInformationLevelsFile())) {
+				// Group datasets are inserted by the database insertion step, after the user script
+				for (String groupName : groupQueries.keySet()) {
+					vtlBindings.put(groupName, SqlUtils.readDataset(database, groupName + WORK_SUFFIX, identifierNames));
+				}
+				informationLevelsProcessing.applyUserVtlTransformations(multimodeDatasetName,
+						userInputs.getVtlInformationLevelsFile(), kraftwerkExecutionContext);
+			} else {
+				// Structures are all put in the bindings first : identifiers named after another group are not exported
+				// Rows are deduplicated with the pending rows of the tables, by the database insertion step
+				for (String groupName : groupQueries.keySet()) {
+					vtlBindings.put(groupName, getStructure(database, groupName + WORK_SUFFIX, identifierNames));
+				}
+				for (String groupName : groupQueries.keySet()) {
+					SqlUtils.insertQueryIntoDatasetTable(vtlBindings, groupName, database,
+							"SELECT * FROM \"%s\"".formatted(groupName + WORK_SUFFIX));
+					log.debug("Dataset {} inserted from multimodal view", groupName);
+				}
+			}
+			return countRows(database, multimodeSource);
+		} catch (SQLException e) {
+			throw new KraftwerkException(500, "SQL error during multimodal processing : " + e.getMessage());
+		} finally {
+			dropWorkObjects(database, dropStatements);
+		}
+	}
+
+	/**
+	 * Query of the union of the unimodal tables, as done by the VTL reconciliation.
+	 * A mode identifier gives the original collection mode of each row, and integer measures common to all
+	 * modes are cast into numbers. An identifier collected in several modes keeps the common measures of its
+	 * first mode. The other measures are left joined on the identifiers from the first mode that has them.
+	 */
+	static String getReconciliationQuery(VtlBindings vtlBindings, List<String> modeNames) {
+		if (modeNames.size() == 1) {
+			return "SELECT * FROM \"%s\"".formatted(modeNames.getFirst() + WORK_SUFFIX);
+		}
+		Set<String> identifierNames = new LinkedHashSet<>();
+		Set<String> commonMeasureNames = null;
+		for (String modeName : modeNames) {
+			identifierNames.addAll(vtlBindings.getDatasetIdentifierNames(modeName));
+			List<String> measureNames = vtlBindings.getDatasetMeasureNames(modeName);
+			if (commonMeasureNames == null) {
+				commonMeasureNames = new LinkedHashSet<>(measureNames);
+			} else {
+				commonMeasureNames.retainAll(measureNames);
+			}
+		}
+		commonMeasureNames.remove(Constants.MODE_VARIABLE_NAME);
+
+		// Union of the common measures
+		StringBuilder unionQuery = new StringBuilder();
+		for (int modeIndex = 0; modeIndex < modeNames.size(); modeIndex++) {
+			String modeName = modeNames.get(modeIndex);
+			Structured.DataStructure structure = vtlBindings.getDataset(modeName).getDataStructure();
+			List<String> columns = new ArrayList<>();
+			for (String identifierName : vtlBindings.getDatasetIdentifierNames(modeName)) {
+				columns.add("\"%s\"".formatted(identifierName));
+			}
+			for (String measureName : commonMeasureNames) {
+				columns.add((structure.get(measureName).getType() == Long.class
+						? "CAST(\"%1$s\" AS DOUBLE) AS \"%1$s\"" : "\"%s\"").formatted(measureName));
+			}
+			columns.add("'%s' AS \"%s\"".formatted(modeName.replace("'", "''"), Constants.MODE_VARIABLE_NAME));
+			columns.add("%d AS \"%s\"".formatted(modeIndex, MODE_ORDER_COLUMN));
+			columns.add("rowid AS \"%s\"".formatted(ROW_ORDER_COLUMN));
+			if (!unionQuery.isEmpty()) {
+				unionQuery.append(" UNION ALL BY NAME ");
+			}
+			unionQuery.append("SELECT %s FROM \"%s\"".formatted(String.join(", ", columns), modeName + WORK_SUFFIX));
+		}
+		StringBuilder baseQuery = new StringBuilder("SELECT * FROM (%s)".formatted(unionQuery));
+		if (!identifierNames.isEmpty()) {
+			baseQuery.append(" QUALIFY row_number() OVER (PARTITION BY ")
+					.append(toSqlColumns(identifierNames))
+					.append(" ORDER BY \"%s\") = 1".formatted(MODE_ORDER_COLUMN));
+		}
+
+		// Left joins of the other measures, each one coming from the first mode that has it
+		List<String> joinedColumns = new ArrayList<>();
+		StringBuilder joins = new StringBuilder();
+		Set<String> joinedMeasureNames = new HashSet<>(commonMeasureNames);
+		joinedMeasureNames.add(Constants.MODE_VARIABLE_NAME);
+		for (int modeIndex = 0; modeIndex < modeNames.size(); modeIndex++) {
+			String modeName = modeNames.get(modeIndex);
+			String modeAlias = "mode" + modeIndex;
+			List<String> modeColumns = new ArrayList<>();
+			for (String measureName : vtlBindings.getDatasetMeasureNames(modeName)) {
+				if (joinedMeasureNames.add(measureName)) {
+					modeColumns.add("\"%s\".\"%s\"".formatted(modeAlias, measureName));
+				}
+			}
+			if (modeColumns.isEmpty()) {
+				continue;
+			}
+			List<String> joinConditions = new ArrayList<>();
+			for (String identifierName : vtlBindings.getDatasetIdentifierNames(modeName)) {
+				joinConditions.add("\"base\".\"%1$s\" = \"%2$s\".\"%1$s\"".formatted(identifierName, modeAlias));
+			}
+			joinedColumns.addAll(modeColumns);
+			joins.append(" LEFT JOIN \"%s\" AS \"%s\" ON %s".formatted(
+					modeName + WORK_SUFFIX, modeAlias, String.join(" AND ", joinConditions)));
+		}
+
+		StringBuilder query = new StringBuilder("SELECT \"base\".* EXCLUDE (\"%s\", \"%s\")".formatted(
+				MODE_ORDER_COLUMN, ROW_ORDER_COLUMN));
+		for (String joinedColumn : joinedColumns) {
+			query.append(", ").append(joinedColumn);
+		}
+		query.append(" FROM (%s) AS \"base\"".formatted(baseQuery)).append(joins);
+		query.append(" ORDER BY \"base\".\"%s\", \"base\".\"%s\"".formatted(MODE_ORDER_COLUMN, ROW_ORDER_COLUMN));
+		return query.toString();
+	}
+
+	/**
+	 * Queries of the dataset of each group, in the order of the groups.
+	 * Each dataset keeps the identifiers of the multimodal dataset and the variables of its group,
+	 * renamed with their simple names. Group datasets only keep the rows of their group.
+	 * NOTE: for now, only works with at most one level of group under root group.
+	 */
+	static Map<String, String> getInformationLevelsQueries(String multimodeSource,
+														   Structured.DataStructure multimodeStructure,
+														   MetadataModel multimodeModel) {
+		Map<String, String> groupQueries = new LinkedHashMap<>();
+
+		// Root dataset
+		Set<String> rootVariableNames = multimodeModel.getVariables().getGroupVariableNames(Constants.ROOT_GROUP_NAME);
+		Map<String, String> rootColumns = new LinkedHashMap<>();
+		for (Structured.Component component : multimodeStructure.values()) {
+			if (component.getRole() == Dataset.Role.IDENTIFIER || rootVariableNames.contains(component.getName())) {
+				rootColumns.put(component.getName(), component.getName());
+			}
+		}
+		groupQueries.put(Constants.ROOT_GROUP_NAME, getGroupQuery(multimodeSource, rootColumns, null));
+
+		// Group datasets
+		for (String groupName : multimodeModel.getSubGroupNames()) {
+			Map<String, String> simpleNames = new LinkedHashMap<>();
+			for (String variableName : multimodeModel.getVariables().getGroupVariableNames(groupName)) {
+				simpleNames.put(multimodeModel.getFullyQualifiedName(variableName), variableName);
+			}
+			simpleNames.put(Constants.SURVEY_UNIT_IDENTIFIER_NAME, Constants.SURVEY_UNIT_IDENTIFIER_NAME);
+			simpleNames.put(Constants.MODE_VARIABLE_NAME, Constants.MODE_VARIABLE_NAME);
+			Map<String, String> groupColumns = new LinkedHashMap<>();
+			for (Structured.Component component : multimodeStructure.values()) {
+				if (component.getRole() == Dataset.Role.IDENTIFIER) {
+					groupColumns.put(component.getName(), component.getName());
+				} else if (simpleNames.containsKey(component.getName())) {
+					groupColumns.put(component.getName(), simpleNames.get(component.getName()));
+				}
+			}
+			// Empty lines are created to produce group level tables and need to be removed
+			String groupFilter = multimodeStructure.containsKey(groupName) ? "\"%s\" <> ''".formatted(groupName) : null;
+			groupQueries.put(groupName, getGroupQuery(multimodeSource, groupColumns, groupFilter));
+		}
+		return groupQueries;
+	}
+
+	private static String getGroupQuery(String multimodeSource, Map<String, String> columns, String filter) {
+		StringBuilder query = new StringBuilder("SELECT ");
+		boolean firstColumn = true;
+		for (Map.Entry<String, String> column : columns.entrySet()) {
+			if (!firstColumn) {
+				query.append(", ");
+			}
+			query.append("\"%s\"".formatted(column.getKey()));
+			if (!column.getKey().equals(column.getValue())) {
+				query.append(" AS \"%s\"".formatted(column.getValue()));
+			}
+			firstColumn = false;
+		}
+		query.append(" FROM \"%s\"".formatted(multimodeSource));
+		if (filter != null) {
+			query.append(" WHERE ").append(filter);
+		}
+		return query.toString();
+	}
+
+	/** Dataset without rows, with the columns of a table or a view */
+	private static Dataset getStructure(Statement database, String tableName, Set<String> identifierNames)
+			throws SQLException {
+		List<Structured.Component> components = new ArrayList<>();
+		for (Map.Entry<String, String> column : SqlUtils.getColumnTypes(database, tableName).entrySet()) {
+			components.add(new Structured.Component(column.getKey(), SqlUtils.getJavaType(column.getValue()),
+					identifierNames.contains(column.getKey()) ? Dataset.Role.IDENTIFIER : Dataset.Role.MEASURE));
+		}
+		return new InMemoryDataset(new ArrayList<>(), components);
+	}
+
+	private static String toSqlColumns(Set<String> columnNames) {
+		List<String> sqlColumns = new ArrayList<>();
+		for (String columnName : columnNames) {
+			sqlColumns.add("\"%s\"".formatted(columnName));
+		}
+		return String.join(", ", sqlColumns);
+	}
+
+	private static void executeQuery(Statement database, String query) throws SQLException {
+		log.debug("SQL Query : {}", query);
+		database.execute(query);
+	}
+
+	private static long countRows(Statement database, String tableName) throws SQLException {
+		try (ResultSet resultSet = database.executeQuery("SELECT count(*) FROM \"%s\"".formatted(tableName))) {
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		}
+	}
+
+	/**
+	 * Removes unimodal datasets, which are in the database
+	 * @param unimodalDatasetsNames names of unimodal datasets
+	 * @param vtlBindings bindings to affect
+	 */
+	private static void removeUnimodalDatasets(List<String> unimodalDatasetsNames, VtlBindings vtlBindings) {
+		for (String unimodalDatasetName : unimodalDatasetsNames) {
+			vtlBindings.remove(unimodalDatasetName);
+			log.debug("{} unimodal dataset removed from vtl bindings.", unimodalDatasetName);
+		}
+	}
+
+	private static String dropStatement(String objectType, String objectName) {
+		return "DROP %s IF EXISTS \"%s\"".formatted(objectType, objectName);
+	}
+
+	/** Drop the tables and views of the processing, in the reverse order of their creation */
+	private static void dropWorkObjects(Statement database, List<String> dropStatements) {
+		for (String dropStatement : dropStatements.reversed()) {
+			try {
+				database.execute(dropStatement);
+			} catch (SQLException e) {
+				log.warn("Can't execute {} : {}", dropStatement, e.toString());
+			}
+		}
+	}
+}
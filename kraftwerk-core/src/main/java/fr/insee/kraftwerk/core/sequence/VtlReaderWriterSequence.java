@@ -6,6 +6,8 @@ import java.nio.file.Path;
 import fr.insee.kraftwerk.core.dataprocessing.StepEnum;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.kraftwerk.core.vtl.ParquetDatasetStore;
+import fr.insee.kraftwerk.core.vtl.StepPersistenceFormat;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import fr.insee.kraftwerk.core.vtl.VtlExecute;
 
@@ -13,7 +15,8 @@ import fr.insee.kraftwerk.core.vtl.VtlExecute;
 public class VtlReaderWriterSequence {
 
 	VtlExecute vtlExecute;
-	private static final String JSON = ".json";
+	ParquetDatasetStore parquetDatasetStore;
+	StepPersistenceFormat stepPersistenceFormat;
 
 	FileUtilsInterface fileUtilsInterface;
 
@@ -21,20 +24,35 @@ public class VtlReaderWriterSequence {
 	public VtlReaderWriterSequence(FileUtilsInterface fileUtilsInterface,
 								   KraftwerkExecutionContext kraftwerkExecutionContext) {
 		vtlExecute = new VtlExecute(fileUtilsInterface, kraftwerkExecutionContext);
+		parquetDatasetStore = new ParquetDatasetStore(fileUtilsInterface);
+		stepPersistenceFormat = kraftwerkExecutionContext.getStepPersistenceFormat();
 		this.fileUtilsInterface = fileUtilsInterface;
 	}
 
+	/** Extension of the files of the bindings saved between two steps */
+	public String getFileExtension() {
+		return stepPersistenceFormat.getFileExtension();
+	}
+
 	public void readDataset(String path,String bindingName, StepEnum previousStep, VtlBindings vtlBindings) {
-		String pathBinding = path + File.separator + bindingName + "_" + previousStep.getStepLabel() +JSON;
+		String pathBinding = path + File.separator + bindingName + "_" + previousStep.getStepLabel() + getFileExtension();
 		readDataset(pathBinding, bindingName, vtlBindings);
 	}
 	
 	public void readDataset(String pathBindings,String bindingName,VtlBindings vtlBindings) {
+		if (pathBindings.endsWith(StepPersistenceFormat.PARQUET.getFileExtension())) {
+			parquetDatasetStore.putDataset(pathBindings, bindingName, vtlBindings);
+			return;
+		}
 		vtlExecute.putVtlDataset(pathBindings, bindingName, vtlBindings);
 	}
 
 	public void writeTempBindings(Path inDirectory, String dataMode, VtlBindings vtlBindings, StepEnum step)  {
-		Path tempOutputPath = FileUtilsInterface.transformToTemp(inDirectory).resolve(dataMode+"_"+step.getStepLabel()+JSON);
+		Path tempOutputPath = FileUtilsInterface.transformToTemp(inDirectory).resolve(dataMode+"_"+step.getStepLabel()+getFileExtension());
+		if (stepPersistenceFormat == StepPersistenceFormat.PARQUET) {
+			parquetDatasetStore.writeDataset(dataMode, tempOutputPath, vtlBindings);
+			return;
+		}
 		vtlExecute.writeJsonDataset(dataMode, tempOutputPath, vtlBindings);
 	}
 	
@@ -0,0 +1,156 @@
+package fr.insee.kraftwerk.core.utils;
+
+import fr.insee.bpm.metadata.model.VariableType;
+import fr.insee.kraftwerk.core.Constants;
+import fr.insee.vtl.model.Dataset;
+import lombok.extern.slf4j.Slf4j;
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a VTL dataset into a DuckDB table with the DuckDB appender.
+ * The appender of each column is chosen once from the VTL type of the column, and values are read
+ * by position in the data points : numbers and booleans are appended as they are,
+ * only values given as strings are parsed.
+ */
+@Slf4j
+class DatasetLoader {
+
+    /** Appends a value of a column, never null nor empty */
+    @FunctionalInterface
+    private interface ColumnAppender {
+        void append(DuckDBAppender appender, Object value) throws SQLException;
+    }
+
+    /** Marks a SQL column without variable in the VTL dataset */
+    private static final int ABSENT_COLUMN = -1;
+
+    private final String datasetName;
+    private final Dataset dataset;
+    /** Position in the data points of the variable of each SQL column */
+    private final int[] datasetIndexes;
+    private final ColumnAppender[] columnAppenders;
+    private final String[] sqlColumnNames;
+    private final VariableType[] vtlTypes;
+    private final int interrogationIdIndex;
+
+    /**
+     * @param datasetName name of the dataset and of the table
+     * @param dataset VTL dataset to load
+     * @param vtlSchema types of the variables of the dataset
+     * @param sqlTableColumnTypes SQL types of the columns of the table, in the order of the table
+     */
+    DatasetLoader(String datasetName, Dataset dataset, Map<String, VariableType> vtlSchema,
+                  Map<String, String> sqlTableColumnTypes) {
+        this.datasetName = datasetName;
+        this.dataset = dataset;
+        List<String> datasetColumnNames = new ArrayList<>(dataset.getDataStructure().keySet());
+        int columnCount = sqlTableColumnTypes.size();
+        this.datasetIndexes = new int[columnCount];
+        this.columnAppenders = new ColumnAppender[columnCount];
+        this.sqlColumnNames = new String[columnCount];
+        this.vtlTypes = new VariableType[columnCount];
+
+        int column = 0;
+        for (Map.Entry<String, String> sqlColumn : sqlTableColumnTypes.entrySet()) {
+            String sqlColumnName = sqlColumn.getKey();
+            VariableType vtlVariableType = vtlSchema.get(sqlColumnName);
+            sqlColumnNames[column] = sqlColumnName;
+            vtlTypes[column] = vtlVariableType;
+            if (vtlVariableType == null) { //variable not present in the schema extracted from VTL bindings
+                datasetIndexes[column] = ABSENT_COLUMN;
+            } else {
+                datasetIndexes[column] = datasetColumnNames.indexOf(sqlColumnName);
+                columnAppenders[column] = getColumnAppender(vtlVariableType);
+                if (!vtlVariableType.getSqlType().equals(sqlColumn.getValue())) {
+                    log.warn("""
+                            Difference between VTL and SQL types on column/variable {} !
+                            VTL: {}
+                            SQL: {}""", sqlColumnName, vtlVariableType, sqlColumn.getValue());
+                }
+            }
+            column++;
+        }
+        this.interrogationIdIndex = datasetColumnNames.indexOf(Constants.ROOT_IDENTIFIER_NAME);
+    }
+
+    /**
+     * Append all the data points of the dataset to the table
+     * @param duckDBConnection connection to the database
+     * @throws SQLException if a value can't be appended to its column
+     */
+    void load(DuckDBConnection duckDBConnection) throws SQLException {
+        try (DuckDBAppender appender = duckDBConnection.createAppender(DuckDBConnection.DEFAULT_SCHEMA, datasetName)) {
+            for (List<Object> dataPoint : dataset.getDataPoints()) {
+                appender.beginRow();
+                for (int column = 0; column < datasetIndexes.length; column++) {
+                    appendValue(appender, dataPoint, column);
+                }
+                appender.endRow();
+            }
+        }
+    }
+
+    private void appendValue(DuckDBAppender appender, List<Object> dataPoint, int column) throws SQLException {
+        int datasetIndex = datasetIndexes[column];
+        Object value = datasetIndex == ABSENT_COLUMN ? null : dataPoint.get(datasetIndex);
+        if (value instanceof String stringValue) {
+            value = removeNewLines(stringValue);
+        }
+        if (value == null || "".equals(value)) {
+            appender.appendNull();
+            return;
+        }
+        try {
+            columnAppenders[column].append(appender, value);
+        } catch (SQLException
+                 | NumberFormatException
+                 | DateTimeParseException e) {
+            log.error(e.toString());
+            String errorMessage = "Error Appender DuckDB"
+                    + " [columnName=" + sqlColumnNames[column]
+                    + ", vtlType=" + vtlTypes[column]
+                    + ", value=" + value
+                    + ", interrogationId=" + (interrogationIdIndex < 0 ? "unknown" : dataPoint.get(interrogationIdIndex))
+                    + "]";
+            throw new SQLException(errorMessage, e);
+        }
+    }
+
+    /** To avoid SQL script errors, we remove \n */
+    private static String removeNewLines(String value) {
+        return value.indexOf('\n') < 0 ? value : value.replace("\n", "");
+    }
+
+    private static ColumnAppender getColumnAppender(VariableType variableType) {
+        return switch (variableType) {
+            case NUMBER -> (appender, value) -> appender.append(value instanceof Number number ?
+                    number.doubleValue() : Double.parseDouble(value.toString()));
+            case INTEGER -> (appender, value) -> appender.append(value instanceof Number number ?
+                    number.longValue() : Long.parseLong(value.toString()));
+            case BOOLEAN -> (appender, value) -> appender.append(value instanceof Boolean booleanValue ?
+                    booleanValue : Boolean.parseBoolean(value.toString()));
+            case DATE -> (appender, value) -> appender.append(toLocalDateTime(value));
+            default -> (appender, value) -> appender.append(removeNewLines(value.toString()));
+        };
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        }
+        if (value instanceof LocalDate localDate) {
+            return localDate.atStartOfDay();
+        }
+        return LocalDateTime.parse(value.toString());
+    }
+
+}
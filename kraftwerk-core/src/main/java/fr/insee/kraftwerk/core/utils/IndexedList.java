@@ -0,0 +1,91 @@
+package fr.insee.kraftwerk.core.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * List of records that can be looked up by key, the first record of a key being kept.
+ * Records appended to the list are indexed at the next lookup. Any other change (replacement, insertion,
+ * removal, sort), even when the size of the list stays the same, makes the next lookup rebuild the index.
+ * The key of a record must not change once the record has been looked up.
+ */
+public class IndexedList<E> extends AbstractList<E> implements RandomAccess {
+
+	private final List<E> elements;
+	private final Function<E, String> keyFunction;
+	private final Map<String, E> elementsByKey = new HashMap<>();
+	/** Number of elements of the list already in the index. */
+	private int indexedCount = 0;
+	/** False when elements have been changed or moved since the index was built */
+	private boolean indexValid = true;
+
+	public IndexedList(Function<E, String> keyFunction) {
+		this.elements = new ArrayList<>();
+		this.keyFunction = keyFunction;
+	}
+
+	/** List indexing a copy of the given elements */
+	public IndexedList(Collection<? extends E> elements, Function<E, String> keyFunction) {
+		this.elements = new ArrayList<>(elements);
+		this.keyFunction = keyFunction;
+	}
+
+	/**
+	 * Return the first element with the given key, null if there is none.
+	 */
+	public E getByKey(String key) {
+		if (!indexValid) {
+			elementsByKey.clear();
+			indexedCount = 0;
+			indexValid = true;
+		}
+		for (; indexedCount < elements.size(); indexedCount++) {
+			E element = elements.get(indexedCount);
+			String elementKey = keyFunction.apply(element);
+			if (elementKey != null) {
+				elementsByKey.putIfAbsent(elementKey, element);
+			}
+		}
+		return elementsByKey.get(key);
+	}
+
+	@Override
+	public E get(int index) {
+		return elements.get(index);
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public E set(int index, E element) {
+		E previous = elements.set(index, element);
+		indexValid = false;
+		return previous;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		if (index != elements.size()) {
+			indexValid = false;
+		}
+		elements.add(index, element);
+		modCount++;
+	}
+
+	@Override
+	public E remove(int index) {
+		indexValid = false;
+		modCount++;
+		return elements.remove(index);
+	}
+
+}
@@ -2,18 +2,24 @@ package fr.insee.kraftwerk.core.utils;
 
 import fr.insee.kraftwerk.core.Constants;
 import fr.insee.kraftwerk.core.KraftwerkError;
+import fr.insee.kraftwerk.core.metadata.MetadataCache;
+import fr.insee.kraftwerk.core.outputs.parquet.ParquetOutputSettings;
+import fr.insee.kraftwerk.core.utils.duckdb.DuckDbSettings;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
+import fr.insee.kraftwerk.core.vtl.StepPersistenceFormat;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.script.CompiledScript;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @Setter
@@ -26,7 +32,10 @@ public class KraftwerkExecutionContext {
     private long startTimeStamp;
     private long endTimeStamp;
     private Map<String,Integer> lineCountByTableMap;
+    /** Time spent writing each output file, in milliseconds */
+    private Map<String,Long> exportDurationByTableMap;
     private List<String> okFileNames;
+    private ProcessingMetrics processingMetrics;
 
     private List<KraftwerkError> errors;
 
@@ -37,6 +46,23 @@ public class KraftwerkExecutionContext {
     private boolean withEncryption;
     private long limitSize;
     private boolean addStates;
+    private boolean jsonVtlDatasetConversion;
+    /** Multimodal steps done in DuckDB, VTL being only used for the user scripts */
+    private boolean sqlMultimodalProcessing;
+    /** Format of the bindings saved between two steps of the step by step processing */
+    private StepPersistenceFormat stepPersistenceFormat = StepPersistenceFormat.PARQUET;
+    /** Number of output tables written at the same time */
+    private int exportParallelism = 1;
+    /** Read Lunatic XML data files one survey unit at a time */
+    private boolean lunaticXmlStreaming;
+    /** Number of data files of a folder read at the same time, streamed Lunatic XML files being read one by one */
+    private int parseParallelism = 1;
+    /** Number of data modes processed at the same time */
+    private int modeParallelism = 1;
+    /** Settings of the DuckDB databases of the execution */
+    private DuckDbSettings duckDbSettings = DuckDbSettings.DEFAULT;
+    /** Settings of the Parquet output files */
+    private ParquetOutputSettings parquetOutputSettings = ParquetOutputSettings.DEFAULT;
 
     private Path outDirectory;
 
@@ -44,6 +70,10 @@ public class KraftwerkExecutionContext {
 
     //Caches
     private Map<Path, String> userVtlInstructionsCache;
+    /** VTL instructions compiled by the engine, shared by all the evaluations of the execution */
+    private Map<String, CompiledScript> compiledVtlScriptsCache;
+    /** Cache of the metadata models read from the specification files */
+    private MetadataCache metadataCache = MetadataCache.DISABLED;
 
     public KraftwerkExecutionContext(
             String inDirectoryParam,
@@ -55,8 +85,10 @@ public class KraftwerkExecutionContext {
     ) {
         this.startTimeStamp = System.currentTimeMillis();
         this.executionDateTime = LocalDateTime.now();
-        this.lineCountByTableMap = new HashMap<>();
+        this.lineCountByTableMap = new ConcurrentHashMap<>();
+        this.exportDurationByTableMap = new ConcurrentHashMap<>();
         this.okFileNames = new ArrayList<>();
+        this.processingMetrics = new ProcessingMetrics();
         this.errors = new ArrayList<>();
 
         this.inDirectoryParam = inDirectoryParam;
@@ -66,7 +98,54 @@ public class KraftwerkExecutionContext {
         this.limitSize = limitSize;
         this.addStates = addStates;
 
-        this.userVtlInstructionsCache = new HashMap<>();
+        this.userVtlInstructionsCache = new ConcurrentHashMap<>();
+        this.compiledVtlScriptsCache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create the context of a data mode processed alongside the other modes.
+     * Parameters, metrics and caches are shared with this context, errors and processed files
+     * are kept apart until {@link #addModeContext(KraftwerkExecutionContext)}.
+     */
+    public KraftwerkExecutionContext createModeContext() {
+        KraftwerkExecutionContext modeContext = new KraftwerkExecutionContext(
+                inDirectoryParam, fileByFile, withDDI, withEncryption, limitSize, addStates);
+        modeContext.startTimeStamp = startTimeStamp;
+        modeContext.executionDateTime = executionDateTime;
+        modeContext.lineCountByTableMap = lineCountByTableMap;
+        modeContext.exportDurationByTableMap = exportDurationByTableMap;
+        modeContext.processingMetrics = processingMetrics;
+        copySettingsTo(modeContext);
+        modeContext.outDirectory = outDirectory;
+        modeContext.recordedBefore = recordedBefore;
+        modeContext.userVtlInstructionsCache = userVtlInstructionsCache;
+        modeContext.compiledVtlScriptsCache = compiledVtlScriptsCache;
+        modeContext.metadataCache = metadataCache;
+        return modeContext;
+    }
+
+    /**
+     * Copy the processing settings of this context (conversions, parallelism, DuckDB and Parquet settings)
+     * to another context
+     */
+    public void copySettingsTo(KraftwerkExecutionContext context) {
+        context.jsonVtlDatasetConversion = jsonVtlDatasetConversion;
+        context.sqlMultimodalProcessing = sqlMultimodalProcessing;
+        context.stepPersistenceFormat = stepPersistenceFormat;
+        context.exportParallelism = exportParallelism;
+        context.lunaticXmlStreaming = lunaticXmlStreaming;
+        context.parseParallelism = parseParallelism;
+        context.modeParallelism = modeParallelism;
+        context.duckDbSettings = duckDbSettings;
+        context.parquetOutputSettings = parquetOutputSettings;
+    }
+
+    /**
+     * Add the errors and processed files of a data mode context to this context
+     */
+    public void addModeContext(KraftwerkExecutionContext modeContext) {
+        okFileNames.addAll(modeContext.okFileNames);
+        modeContext.errors.forEach(this::addUniqueError);
     }
 
     public String getFormattedString() {
@@ -84,6 +163,15 @@ public class KraftwerkExecutionContext {
             toWrite.append("\t").append(entry.getKey()).append(": ").append(entry.getValue()).append(Constants.END_LINE);
         }
 
+        toWrite.append("Durée d'écriture par fichier (ms):").append(Constants.END_LINE);
+
+        for(Map.Entry<String,Long> entry : exportDurationByTableMap.entrySet()){
+            toWrite.append("\t").append(entry.getKey()).append(": ").append(entry.getValue()).append(Constants.END_LINE);
+        }
+
+        toWrite.append("Métriques par étape:").append(Constants.END_LINE)
+                .append(processingMetrics.getFormattedString());
+
         toWrite.append("Fichiers traités avec succès: ").append(Constants.END_LINE);
 
         for (String fileName : okFileNames){
@@ -6,9 +6,9 @@ import fr.insee.kraftwerk.core.errors.DuckDBError;
 import fr.insee.kraftwerk.core.exceptions.DatasetNotFoundException;
 import fr.insee.kraftwerk.core.vtl.VtlBindings;
 import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
 import fr.insee.vtl.model.Structured;
 import lombok.extern.slf4j.Slf4j;
-import org.duckdb.DuckDBAppender;
 import org.duckdb.DuckDBConnection;
 
 import java.io.File;
@@ -20,9 +20,8 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -32,6 +31,11 @@ import java.util.Set;
 @Slf4j
 public class SqlUtils {
 
+    /** Suffix of the table receiving a dataset before its rows are merged into the dataset table */
+    private static final String STAGING_TABLE_SUFFIX = "__staging";
+    /** Suffix of the table keeping the rows of the batches until they are deduplicated into the dataset table */
+    private static final String PENDING_TABLE_SUFFIX = "__pending";
+
     private SqlUtils() {
         throw new IllegalStateException("Utility class");
     }
@@ -43,6 +47,20 @@ public class SqlUtils {
      */
     public static void convertVtlBindingsIntoSqlDatabase(VtlBindings vtlBindings, Statement statement,
                                                          KraftwerkExecutionContext kraftwerkExecutionContext) {
+        convertVtlBindingsIntoSqlDatabase(vtlBindings, statement, kraftwerkExecutionContext, true);
+    }
+
+    /**
+     * Convert vtl bindings to SQL DuckDB tables for further export.
+     * The rows of the tables with deduplication columns are kept pending until {@link #insertPendingRows}
+     * deduplicates them all at once : when the data comes by batches, only the last batch has to insert them.
+     * @param vtlBindings vtl bindings to send into database
+     * @param statement statement associated to database
+     * @param insertPendingRows true to insert the pending rows, false if other batches follow
+     */
+    public static void convertVtlBindingsIntoSqlDatabase(VtlBindings vtlBindings, Statement statement,
+                                                         KraftwerkExecutionContext kraftwerkExecutionContext,
+                                                         boolean insertPendingRows) {
         try {
             for (String datasetName : vtlBindings.getDatasetNames()) {
                 //Variables types map
@@ -52,7 +70,9 @@ public class SqlUtils {
                 );
                 createDataSQLTables(statement, datasetName, vtlSchema);
                 insertDataIntoTable(statement, datasetName, vtlBindings.getDataset(datasetName), vtlSchema);
-                deduplicateTable(statement, datasetName);
+            }
+            if (insertPendingRows) {
+                insertPendingRows(statement);
             }
         } catch (SQLException e) {
             log.error("SQL Error during VTL bindings conversion :\n{}",e.toString());
@@ -164,13 +184,23 @@ public class SqlUtils {
                 .toList());
 
         Structured.DataStructure structure = vtlBindings.getDataset(datasetName).getDataStructure();
-        LinkedHashMap<String, VariableType> schema = new LinkedHashMap<>();
         //Exclude loop identifiers
-        for (Structured.Component component : structure.values().stream()
+        return extractSchemaFromComponents(structure.values().stream()
                 .filter(component -> !(otherDatasetsNames.contains(component.getName())
                         && component.getRole().equals(Dataset.Role.IDENTIFIER)))
-                .toList()
-        ) {
+                .toList());
+    }
+
+    /**
+     * Extract variable types from components of a dataset
+     * @param components components to extract the schema from
+     * @return a (variable name,type) map
+     */
+    private static LinkedHashMap<String, VariableType> extractSchemaFromComponents(
+            Collection<Structured.Component> components
+    ) {
+        LinkedHashMap<String, VariableType> schema = new LinkedHashMap<>();
+        for (Structured.Component component : components) {
             VariableType type = VariableType.getTypeFromJavaClass(component.getType());
             if (type != null){
                 //If column not added yet (ignore case)
@@ -202,85 +232,186 @@ public class SqlUtils {
     }
 
     /**
-     * insert data into table associated with dataset
+     * insert data into table associated with dataset.
+     * If the table has deduplication columns, data is loaded into a staging table first, then added to
+     * the pending rows of the table : an error while loading the dataset leaves the pending rows unchanged.
      *
      * @param database DuckDB connection
      * @param dataset   dataset to convert
      * @param vtlSchema Schema extracted from VTL dataset
      */
     private static void insertDataIntoTable(Statement database, String datasetName, Dataset dataset, LinkedHashMap<String, VariableType> vtlSchema) throws SQLException {
-        if (dataset.getDataAsMap().isEmpty()) {
+        if (dataset.getDataPoints().isEmpty()) {
             return;
         }
 
         DuckDBConnection duckDBConnection = (DuckDBConnection) database.getConnection();
-        Map<String, String> sqlTableColumnTypes = getColumnTypes(database, datasetName);
-
         log.debug("URL de connexion : {}", duckDBConnection.getMetaData().getURL());
-        try(var appender = duckDBConnection.createAppender(DuckDBConnection.DEFAULT_SCHEMA,datasetName)){
-            //For each VTL data row
-            for (Map<String, Object> dataRow : dataset.getDataAsMap()) {
-                appender.beginRow();
-                //For each SQL column
-                for (Map.Entry<String,String> sqlColumn : sqlTableColumnTypes.entrySet()) {
-                    String sqlColumnName = sqlColumn.getKey();
-                    VariableType vtlVariableType = vtlSchema.get(sqlColumnName);
-                    if (vtlVariableType == null) { //variable not present in the schema extracted from VTL bindings
-                        appender.appendNull();
-                        continue;
-                    }
 
-                    //To avoid SQL script errors, we remove \n
-                    String data = dataRow.get(sqlColumnName) == null ?
-                            null
-                            : dataRow.get(sqlColumnName).toString().replace("\n","");
-
-                    try{
-                        String duckDBColumnType = sqlColumn.getValue();
-                        if(!vtlVariableType.getSqlType().equals(duckDBColumnType)){
-                            log.warn("""
-                                    Difference between VTL and SQL types on column/variable {} !
-                                    VTL: {}
-                                    SQL: {}""", sqlColumnName, vtlVariableType, duckDBColumnType);
-                        }
-
-                        appendValueWithType(appender, data, vtlVariableType);
-                    }catch (SQLException
-                            | NumberFormatException
-                            | DateTimeParseException e) {
-                        log.error(e.toString());
-                        String errorMessage = "Error Appender DuckDB"
-                                + " [columnName=" + sqlColumnName
-                                + ", vtlType=" + vtlSchema.get(sqlColumnName)
-                                + ", value=" + data
-                                //Cannot be replaced by getOrDefault, ignore the warning
-                                + ", interrogationId=" + (dataRow.containsKey("interrogationId") ? dataRow.get("interrogationId") : "unknown")
-                                + "]";
-                        throw new SQLException(errorMessage, e);
-                    }
-                }
-                appender.endRow();
+        Set<String> dedupColumns = getDedupColumns(database, datasetName);
+        if (dedupColumns.isEmpty()) {
+            appendDataset(database, datasetName, datasetName, dataset, vtlSchema);
+        } else {
+            String stagingTableName = datasetName.replace("\"", "") + STAGING_TABLE_SUFFIX;
+            try {
+                database.execute("CREATE OR REPLACE TABLE \"%s\" AS SELECT * FROM \"%s\" LIMIT 0"
+                        .formatted(stagingTableName, datasetName));
+                appendDataset(database, stagingTableName, datasetName, dataset, vtlSchema);
+                appendPendingRows(database, datasetName, stagingTableName);
+            } finally {
+                database.execute("DROP TABLE IF EXISTS \"%s\"".formatted(stagingTableName));
             }
         }
         database.execute("CHECKPOINT;"); //Force to write data on disk
     }
 
-    private static void appendValueWithType(DuckDBAppender appender,
-                                            String data,
-                                            VariableType variableType) throws SQLException {
-        if (data == null || data.isEmpty()){
-            appender.appendNull();
+    private static void appendDataset(Statement database, String tableName, String datasetName, Dataset dataset,
+                                      LinkedHashMap<String, VariableType> vtlSchema) throws SQLException {
+        Map<String, String> sqlTableColumnTypes = getColumnTypes(database, tableName);
+        new DatasetLoader(tableName, dataset, vtlSchema, sqlTableColumnTypes)
+                .load((DuckDBConnection) database.getConnection());
+        log.debug("Dataset {} appended to table {}", datasetName, tableName);
+    }
+
+    /**
+     * Load a dataset into a table with all its components, identifiers included.
+     * The table replaces any table of the same name.
+     *
+     * @param statement statement associated to database
+     * @param tableName name of the table to create
+     * @param dataset dataset to load
+     */
+    public static void loadDatasetIntoTable(Statement statement, String tableName, Dataset dataset) throws SQLException {
+        LinkedHashMap<String, VariableType> vtlSchema = extractSchemaFromComponents(dataset.getDataStructure().values());
+        statement.execute("DROP TABLE IF EXISTS \"%s\"".formatted(tableName));
+        if (vtlSchema.isEmpty()) {
+            log.warn("Empty schema for table {}", tableName);
             return;
         }
-        switch (variableType) {
-            case NUMBER -> appender.append(Double.parseDouble(data));
-            case BOOLEAN -> appender.append(Boolean.parseBoolean(data));
-            case INTEGER -> appender.append(Long.parseLong(data));
-            case STRING -> appender.append(data);
-            case DATE -> appender.append(LocalDateTime.parse(data));
+        statement.execute(getCreateTableQuery(tableName, vtlSchema));
+        if (!dataset.getDataPoints().isEmpty()) {
+            appendDataset(statement, tableName, tableName, dataset, vtlSchema);
         }
     }
 
+    /**
+     * Insert the rows of a query into the table of a dataset of the bindings.
+     * The table is created or completed from the structure of the dataset, as the tables of
+     * {@link #convertVtlBindingsIntoSqlDatabase}, but the rows come from the query instead of the data points.
+     * The query must give the columns of the table by name. Rows are deduplicated as the rows of a dataset :
+     * if the table has deduplication columns, they are only inserted by {@link #insertPendingRows}.
+     *
+     * @param vtlBindings bindings where the dataset is
+     * @param datasetName dataset of the table
+     * @param statement statement associated to database
+     * @param selectQuery query giving the rows of the dataset
+     */
+    public static void insertQueryIntoDatasetTable(VtlBindings vtlBindings, String datasetName, Statement statement,
+                                                   String selectQuery) throws SQLException {
+        LinkedHashMap<String, VariableType> vtlSchema = extractSchemaFromDataset(vtlBindings, datasetName);
+        createDataSQLTables(statement, datasetName, vtlSchema);
+        if (vtlSchema.isEmpty()) {
+            return;
+        }
+        StringBuilder columns = new StringBuilder();
+        for (String columnName : vtlSchema.keySet()) {
+            if (!columns.isEmpty()) {
+                columns.append(", ");
+            }
+            columns.append("\"").append(columnName).append("\"");
+        }
+        String schemaQuery = "SELECT %s FROM (%s)".formatted(columns, selectQuery);
+
+        Set<String> dedupColumns = getDedupColumns(statement, datasetName);
+        if (dedupColumns.isEmpty()) {
+            statement.execute("INSERT INTO \"%s\" BY NAME %s".formatted(datasetName, schemaQuery));
+        } else {
+            String stagingTableName = datasetName.replace("\"", "") + STAGING_TABLE_SUFFIX;
+            try {
+                statement.execute("CREATE OR REPLACE TABLE \"%s\" AS %s".formatted(stagingTableName, schemaQuery));
+                appendPendingRows(statement, datasetName, stagingTableName);
+            } finally {
+                statement.execute("DROP TABLE IF EXISTS \"%s\"".formatted(stagingTableName));
+            }
+        }
+        statement.execute("CHECKPOINT;"); //Force to write data on disk
+    }
+
+    /**
+     * Read a table or a view into an in-memory VTL dataset
+     *
+     * @param statement statement associated to database
+     * @param tableName table or view to read
+     * @param identifierNames columns with the identifier role, the other columns are measures
+     * @return a dataset with the rows of the table
+     */
+    public static Dataset readDataset(Statement statement, String tableName, Collection<String> identifierNames)
+            throws SQLException {
+        List<Structured.Component> components = new ArrayList<>();
+        for (Map.Entry<String, String> column : getColumnTypes(statement, tableName).entrySet()) {
+            components.add(new Structured.Component(column.getKey(), getJavaType(column.getValue()),
+                    identifierNames.contains(column.getKey()) ? Dataset.Role.IDENTIFIER : Dataset.Role.MEASURE));
+        }
+        return readDataset(statement, tableName, components);
+    }
+
+    /**
+     * Read a table or a view into an in-memory VTL dataset of a known structure
+     *
+     * @param statement statement associated to database
+     * @param tableName table or view to read
+     * @param components components of the dataset, a component without column in the table is left empty
+     * @return a dataset with the rows of the table
+     */
+    public static Dataset readDataset(Statement statement, String tableName, List<Structured.Component> components)
+            throws SQLException {
+        List<String> columnNames = getColumnNames(statement, tableName);
+        int[] columnIndexes = components.stream().mapToInt(component -> columnNames.indexOf(component.getName())).toArray();
+        List<List<Object>> dataPoints = new ArrayList<>();
+        try (ResultSet resultSet = getAllData(statement, tableName)) {
+            while (resultSet.next()) {
+                List<Object> dataPoint = new ArrayList<>(components.size());
+                for (int i = 0; i < components.size(); i++) {
+                    dataPoint.add(columnIndexes[i] < 0 ? null
+                            : toJavaValue(resultSet.getObject(columnIndexes[i] + 1), components.get(i).getType()));
+                }
+                dataPoints.add(dataPoint);
+            }
+        }
+        return new InMemoryDataset(dataPoints, components);
+    }
+
+    /**
+     * Java type used by Trevas for the values of a DuckDB column
+     * @param sqlType DuckDB type of the column
+     * @return the java class of the values of this type
+     */
+    public static Class<?> getJavaType(String sqlType) {
+        if (sqlType.startsWith("DECIMAL")) {
+            return Double.class;
+        }
+        return switch (sqlType) {
+            case "TINYINT", "SMALLINT", "INTEGER", "BIGINT", "HUGEINT",
+                 "UTINYINT", "USMALLINT", "UINTEGER", "UBIGINT" -> Long.class;
+            case "FLOAT", "DOUBLE" -> Double.class;
+            case "BOOLEAN" -> Boolean.class;
+            default -> String.class;
+        };
+    }
+
+    private static Object toJavaValue(Object value, Class<?> type) {
+        if (value == null) {
+            return null;
+        }
+        if (type == Long.class) {
+            return ((Number) value).longValue();
+        }
+        if (type == Double.class) {
+            return ((Number) value).doubleValue();
+        }
+        return type == Boolean.class ? value : value.toString();
+    }
+
     /**
      * Opens an in-memory duckdb connection
      * WARNING : Close the connection when finished or surround with try with ressources !
@@ -443,13 +574,14 @@ public class SqlUtils {
     }
 
     /**
-     * Deduplicates the table by the root identifier if root
-     * and by the root identifier + the group identifier if loop
+     * Columns identifying a row of the table : the root identifier if root,
+     * the root identifier and the group identifier if loop
      * @param statement DuckDB to apply to
      * @param tableName Name of the dataset/table
+     * @return the deduplication columns, empty if they are not all in the table
      * @throws SQLException if something went wrong
      */
-    private static void deduplicateTable(Statement statement, String tableName)
+    private static Set<String> getDedupColumns(Statement statement, String tableName)
     throws SQLException{
         //Dedup by interrogationId if root, by interrogationId and group identifier for loops
         Set<String> dedupColumns = tableName.equals(Constants.ROOT_GROUP_NAME) ?
@@ -458,20 +590,87 @@ public class SqlUtils {
 
         //Don't dedup if columns are not present
         if(!new HashSet<>(getColumnNames(statement, tableName)).containsAll(dedupColumns)){
-            return;
+            return Set.of();
+        }
+        return dedupColumns;
+    }
+
+    /**
+     * Add the rows of the staging table to the pending rows of the table.
+     * The pending table is completed with the columns added to the table since its creation.
+     * @param statement DuckDB to apply to
+     * @param tableName Name of the dataset/table
+     * @param stagingTableName Name of the table containing the new rows
+     * @throws SQLException if something went wrong
+     */
+    private static void appendPendingRows(Statement statement, String tableName, String stagingTableName)
+            throws SQLException {
+        String pendingTableName = tableName.replace("\"", "") + PENDING_TABLE_SUFFIX;
+        statement.execute("CREATE TABLE IF NOT EXISTS \"%s\" AS SELECT * FROM \"%s\" LIMIT 0"
+                .formatted(pendingTableName, tableName));
+        Set<String> pendingColumnNames = new HashSet<>(getColumnNames(statement, pendingTableName));
+        for (Map.Entry<String, String> column : getColumnTypes(statement, tableName).entrySet()) {
+            if (!pendingColumnNames.contains(column.getKey())) {
+                statement.execute("ALTER TABLE \"%s\" ADD COLUMN \"%s\" %s"
+                        .formatted(pendingTableName, column.getKey(), column.getValue()));
+            }
         }
+        statement.execute("INSERT INTO \"%s\" BY NAME SELECT * FROM \"%s\""
+                .formatted(pendingTableName, stagingTableName));
+    }
 
+    /**
+     * Insert the pending rows of all tables, deduplicated once for all the batches added since
+     * the last insertion. The first row of an identifier is kept, and the rows already in the tables
+     * are never rewritten.
+     * @param statement DuckDB to apply to
+     * @throws SQLException if something went wrong
+     */
+    public static void insertPendingRows(Statement statement) throws SQLException {
+        for (String pendingTableName : getTableNames(statement)) {
+            if (!pendingTableName.endsWith(PENDING_TABLE_SUFFIX)) {
+                continue;
+            }
+            String tableName = pendingTableName.substring(0, pendingTableName.length() - PENDING_TABLE_SUFFIX.length());
+            try {
+                insertNewRows(statement, tableName, pendingTableName, getDedupColumns(statement, tableName));
+            } finally {
+                statement.execute("DROP TABLE IF EXISTS \"%s\"".formatted(pendingTableName));
+            }
+        }
+        statement.execute("CHECKPOINT;"); //Force to write data on disk
+    }
+
+    /**
+     * Insert the rows of the staging table whose identifiers are not in the table yet,
+     * keeping the first row of each identifier in the staging table
+     * @param statement DuckDB to apply to
+     * @param tableName Name of the dataset/table
+     * @param stagingTableName Name of the table containing the new rows
+     * @param dedupColumns columns identifying a row
+     * @throws SQLException if something went wrong
+     */
+    private static void insertNewRows(Statement statement, String tableName, String stagingTableName,
+                                      Set<String> dedupColumns) throws SQLException {
         String dedupColumnsString = getDedupColumnsString(dedupColumns);
+        StringBuilder joinCondition = new StringBuilder();
+        for (String dedupColumn : dedupColumns) {
+            if (!joinCondition.isEmpty()) {
+                joinCondition.append(" AND ");
+            }
+            joinCondition.append("t.\"%1$s\" IS NOT DISTINCT FROM s.\"%1$s\"".formatted(dedupColumn));
+        }
         String sqlScript = """
-                CREATE OR REPLACE TABLE '%1$s' AS
+                INSERT INTO '%1$s' BY NAME
                 SELECT * EXCLUDE (rn)
                 FROM (
                     SELECT *,
-                    ROW_NUMBER() OVER (PARTITION BY %2$s ORDER BY rowid) AS rn
-                    FROM '%1$s'
-                )
-                WHERE rn = 1;
-                """.formatted(tableName.replace("\"", ""), dedupColumnsString);
+                    ROW_NUMBER() OVER (PARTITION BY %3$s ORDER BY rowid) AS rn
+                    FROM '%2$s'
+                ) s
+                WHERE rn = 1
+                AND NOT EXISTS (SELECT 1 FROM '%1$s' t WHERE %4$s);
+                """.formatted(tableName.replace("\"", ""), stagingTableName, dedupColumnsString, joinCondition);
         statement.execute(sqlScript);
     }
 
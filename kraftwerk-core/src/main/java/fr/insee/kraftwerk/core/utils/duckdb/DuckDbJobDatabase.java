@@ -0,0 +1,176 @@
+package fr.insee.kraftwerk.core.utils.duckdb;
+
+import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * DuckDB database of a job, configured with the shared settings profile.
+ * Each job spills to its own directory, which is watched to measure how much the job spilled to disk,
+ * and deleted when the database is closed.
+ * The statement of the database is reused until the database is closed.
+ */
+@Slf4j
+public class DuckDbJobDatabase implements AutoCloseable {
+
+	/** Interval between two measures of the spill directory */
+	private static final long SPILL_SAMPLING_INTERVAL_MS = 500;
+
+	private final String jobName;
+	@Getter
+	private final Connection connection;
+	@Getter
+	private final Path spillDirectory;
+	private final ProcessingMetrics processingMetrics;
+	/** Largest size of the spill directory seen, in bytes */
+	private final AtomicLong spilledBytes = new AtomicLong();
+	private final Thread spillSampler;
+	private Statement statement;
+
+	private DuckDbJobDatabase(String jobName, Connection connection, Path spillDirectory,
+							  ProcessingMetrics processingMetrics) {
+		this.jobName = jobName;
+		this.connection = connection;
+		this.spillDirectory = spillDirectory;
+		this.processingMetrics = processingMetrics;
+		this.spillSampler = spillDirectory == null ? null
+				: Thread.ofVirtual().name("duckdb-spill-" + jobName).start(this::sampleSpillUntilClosed);
+	}
+
+	/**
+	 * Open the database of a job
+	 * WARNING : Close the database when finished or surround with try with ressources !
+	 * @param jobName name of the job, used for its spill directory and in the logs
+	 * @param databaseFilePath path of the database file, null for an in-memory database
+	 * @param settings settings profile of the job databases, null for the DuckDB defaults
+	 * @param processingMetrics metrics of the job, in which the spill is recorded
+	 */
+	public static DuckDbJobDatabase open(String jobName, Path databaseFilePath, DuckDbSettings settings,
+										 ProcessingMetrics processingMetrics) throws SQLException {
+		Connection connection = databaseFilePath == null
+				? SqlUtils.openConnection()
+				: SqlUtils.openConnection(databaseFilePath);
+		if (connection == null) {
+			throw new SQLException("Error during internal database creation");
+		}
+		DuckDbSettings jobSettings = settings == null ? DuckDbSettings.DEFAULT : settings;
+		Path jobSpillDirectory = null;
+		try {
+			if (jobSettings.spillDirectory() != null) {
+				jobSpillDirectory = Files.createDirectories(jobSettings.spillDirectory()
+						.resolve("%s_%s".formatted(String.valueOf(jobName).replaceAll("[^\\w-]", "_"), UUID.randomUUID())));
+			}
+			try (Statement settingsStatement = connection.createStatement()) {
+				for (String settingStatement : jobSettings.toSqlStatements(jobSpillDirectory)) {
+					settingsStatement.execute(settingStatement);
+				}
+			}
+		} catch (IOException | SQLException e) {
+			connection.close();
+			deleteDirectory(jobSpillDirectory);
+			throw e instanceof SQLException sqlException ? sqlException
+					: new SQLException("Can't create spill directory of job " + jobName, e);
+		}
+		log.debug("DuckDB database of job {} opened with {}", jobName, jobSettings);
+		return new DuckDbJobDatabase(jobName, connection, jobSpillDirectory, processingMetrics);
+	}
+
+	/** Statement of the database, reused by the steps of the job */
+	public Statement getStatement() throws SQLException {
+		if (statement == null || statement.isClosed()) {
+			statement = connection.createStatement();
+		}
+		return statement;
+	}
+
+	/** Largest amount of data spilled to disk by the job so far, in bytes */
+	public long getSpilledBytes() {
+		sampleSpill();
+		return spilledBytes.get();
+	}
+
+	private void sampleSpillUntilClosed() {
+		while (!Thread.currentThread().isInterrupted()) {
+			sampleSpill();
+			try {
+				Thread.sleep(SPILL_SAMPLING_INTERVAL_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	void sampleSpill() {
+		if (spillDirectory == null) {
+			return;
+		}
+		try (Stream<Path> spillFiles = Files.walk(spillDirectory)) {
+			long spillSize = spillFiles.filter(Files::isRegularFile).mapToLong(DuckDbJobDatabase::sizeOf).sum();
+			spilledBytes.accumulateAndGet(spillSize, Math::max);
+		} catch (IOException | UncheckedIOException e) {
+			// Spill files deleted while measured
+			log.trace("Spill directory of job {} not measured : {}", jobName, e.toString());
+		}
+	}
+
+	private static long sizeOf(Path path) {
+		try {
+			return Files.size(path);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		try {
+			if (statement != null) {
+				statement.close();
+			}
+		} finally {
+			if (spillSampler != null) {
+				spillSampler.interrupt();
+			}
+			long jobSpilledBytes = getSpilledBytes();
+			connection.close();
+			deleteDirectory(spillDirectory);
+			if (jobSpilledBytes > 0) {
+				log.warn("Job {} spilled {} bytes to disk, its memory limit may be too low", jobName, jobSpilledBytes);
+			}
+			if (processingMetrics != null) {
+				processingMetrics.recordSpill(jobSpilledBytes);
+			}
+		}
+	}
+
+	private static void deleteDirectory(Path directory) {
+		if (directory == null) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException e) {
+					log.warn("Can't delete {} : {}", path, e.toString());
+				}
+			});
+		} catch (IOException e) {
+			log.warn("Can't delete spill directory {} : {}", directory, e.toString());
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package fr.insee.kraftwerk.core.utils.duckdb;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Engine settings shared by the DuckDB databases of the jobs.
+ * @param threads maximum number of threads of a job database, 0 for the DuckDB default (all cores)
+ * @param memoryLimitMb maximum memory of a job database in megabytes, 0 for the DuckDB default (80% of the RAM)
+ * @param spillDirectory directory in which each job database spills to disk, null for the DuckDB default
+ * @param preserveInsertionOrder false to let DuckDB reorder rows of queries without ORDER BY, which uses less memory
+ */
+public record DuckDbSettings(int threads, long memoryLimitMb, Path spillDirectory, boolean preserveInsertionOrder) {
+
+	/** Settings of DuckDB itself */
+	public static final DuckDbSettings DEFAULT = new DuckDbSettings(0, 0, null, true);
+
+	/**
+	 * Share the threads and the memory between the jobs running at the same time
+	 * @param totalThreads threads for all the jobs, 0 for the number of cores
+	 * @param totalMemoryMb memory for all the jobs in megabytes, 0 for no limit
+	 * @param concurrentJobs maximum number of jobs running at the same time
+	 */
+	public static DuckDbSettings forConcurrentJobs(int totalThreads, long totalMemoryMb, int concurrentJobs,
+												   Path spillDirectory, boolean preserveInsertionOrder) {
+		int jobs = Math.max(concurrentJobs, 1);
+		int threads = totalThreads > 0 ? totalThreads : Runtime.getRuntime().availableProcessors();
+		return new DuckDbSettings(
+				Math.max(threads / jobs, 1),
+				totalMemoryMb > 0 ? Math.max(totalMemoryMb / jobs, 1) : 0,
+				spillDirectory,
+				preserveInsertionOrder);
+	}
+
+	/**
+	 * SQL statements applying these settings to a database
+	 * @param jobSpillDirectory spill directory of the job database, null for the DuckDB default
+	 */
+	List<String> toSqlStatements(Path jobSpillDirectory) {
+		List<String> statements = new ArrayList<>();
+		if (threads > 0) {
+			statements.add("SET threads = %d".formatted(threads));
+		}
+		if (memoryLimitMb > 0) {
+			statements.add("SET memory_limit = '%dMB'".formatted(memoryLimitMb));
+		}
+		if (jobSpillDirectory != null) {
+			statements.add("SET temp_directory = '%s'".formatted(
+					jobSpillDirectory.toAbsolutePath().toString().replace("\\", "/").replace("'", "''")));
+		}
+		if (!preserveInsertionOrder) {
+			statements.add("SET preserve_insertion_order = false");
+		}
+		return statements;
+	}
+
+}
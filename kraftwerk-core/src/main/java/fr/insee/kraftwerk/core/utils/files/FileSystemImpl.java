@@ -173,6 +173,15 @@ public class FileSystemImpl implements FileUtilsInterface{
 		}
 	}
 
+	@Override
+	public void deleteFile(String path) {
+		try {
+			Files.deleteIfExists(Path.of(path));
+		} catch (IOException e) {
+			log.error(e.toString());
+		}
+	}
+
     @Override
     public void deleteDirectoryContent(Path directoryPath) throws KraftwerkException {
 
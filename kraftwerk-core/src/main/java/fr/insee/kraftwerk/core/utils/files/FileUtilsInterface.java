@@ -97,6 +97,12 @@ public interface FileUtilsInterface {
      */
     String findFile(String directory, String fileRegex) throws KraftwerkException;
 
+    /**
+     * Deletes a file, does nothing if it doesn't exist
+     * @param path path of file
+     */
+    void deleteFile(String path);
+
     //File listing
 
     void deleteDirectoryContent(Path directoryPath) throws KraftwerkException;
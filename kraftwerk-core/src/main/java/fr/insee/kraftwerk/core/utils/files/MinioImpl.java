@@ -304,7 +304,8 @@ public class MinioImpl implements FileUtilsInterface {
         return Path.of(filePath).getFileName().toString().replace("\\","/");
     }
 
-    private void deleteFile(String minioPath) {
+    @Override
+    public void deleteFile(String minioPath) {
         try {
             minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(minioPath.replace("\\","/")).build());
         } catch (Exception e) {
@@ -0,0 +1,197 @@
+package fr.insee.kraftwerk.core.utils.metrics;
+
+import fr.insee.kraftwerk.core.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures of the processing steps of an execution : wall time, rows in and out, and bytes allocated
+ * by the thread running the step.
+ * Measures are kept by step name for the execution log file, and published to Micrometer
+ * (global registry, which contains the actuator registry when running in the API).
+ */
+public class ProcessingMetrics {
+
+	public static final String STEP_BUILD_BINDINGS = "buildBindings";
+	public static final String STEP_UNIMODAL = "unimodal";
+	public static final String STEP_MULTIMODAL = "multimodal";
+	public static final String STEP_INSERT_DATABASE = "insertDatabase";
+	public static final String STEP_OUTPUT_FILE_WRITER = "outputFileWriter";
+	public static final String STEP_VTL_INSTRUCTION = "vtlInstruction";
+	/** Number of rows of a step input or output that is not known without reading the data */
+	public static final long UNKNOWN_ROWS = -1;
+
+	private static final String METER_PREFIX = "kraftwerk.step.";
+	private static final String DUCKDB_METER_PREFIX = "kraftwerk.duckdb.";
+	private static final String STEP_TAG = "step";
+	/** Maximum length of a VTL instruction used as a step name in the log file */
+	private static final int MAX_INSTRUCTION_LENGTH = 80;
+
+	private final MeterRegistry meterRegistry;
+	private final Map<String, StepMetric> stepMetrics = new LinkedHashMap<>();
+	/** Bytes spilled to disk by the DuckDB databases of the execution */
+	private final AtomicLong spilledBytes = new AtomicLong();
+
+	public ProcessingMetrics() {
+		this(Metrics.globalRegistry);
+	}
+
+	public ProcessingMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Start measuring a step
+	 * @param stepName name of the step
+	 * @param rowsIn number of rows given to the step, {@link #UNKNOWN_ROWS} if not known
+	 * @return the measure to stop at the end of the step
+	 */
+	public StepMeasure start(String stepName, long rowsIn) {
+		return new StepMeasure(stepName, rowsIn);
+	}
+
+	/**
+	 * Start measuring a VTL instruction.
+	 * Instructions are detailed in the log file, and counted as one step in Micrometer.
+	 */
+	public StepMeasure startVtlInstruction(String vtlInstruction, long rowsIn) {
+		return new StepMeasure(STEP_VTL_INSTRUCTION + " " + abbreviate(vtlInstruction), rowsIn, STEP_VTL_INSTRUCTION);
+	}
+
+	/** Beginning of a VTL instruction on one line, only the kept characters are read */
+	static String abbreviate(String vtlInstruction) {
+		StringBuilder instruction = new StringBuilder(MAX_INSTRUCTION_LENGTH + 3);
+		boolean whitespace = false;
+		for (int i = 0; i < vtlInstruction.length(); i++) {
+			char character = vtlInstruction.charAt(i);
+			if (Character.isWhitespace(character)) {
+				whitespace = !instruction.isEmpty();
+				continue;
+			}
+			if (instruction.length() + (whitespace ? 1 : 0) >= MAX_INSTRUCTION_LENGTH) {
+				return instruction.append("...").toString();
+			}
+			if (whitespace) {
+				instruction.append(' ');
+				whitespace = false;
+			}
+			instruction.append(character);
+		}
+		return instruction.toString();
+	}
+
+	private void record(String stepName, String meterStepName, long durationNanos, long rowsIn, long rowsOut, long allocatedBytes) {
+		StepMetric stepMetric;
+		synchronized (stepMetrics) {
+			stepMetric = stepMetrics.computeIfAbsent(stepName, StepMetric::new);
+		}
+		stepMetric.add(durationNanos, rowsIn, rowsOut, allocatedBytes);
+
+		Timer.builder(METER_PREFIX + "duration").tag(STEP_TAG, meterStepName)
+				.register(meterRegistry).record(durationNanos, TimeUnit.NANOSECONDS);
+		if (rowsIn != UNKNOWN_ROWS) {
+			DistributionSummary.builder(METER_PREFIX + "rows.in").tag(STEP_TAG, meterStepName)
+					.register(meterRegistry).record(rowsIn);
+		}
+		if (rowsOut != UNKNOWN_ROWS) {
+			DistributionSummary.builder(METER_PREFIX + "rows.out").tag(STEP_TAG, meterStepName)
+					.register(meterRegistry).record(rowsOut);
+		}
+		if (allocatedBytes >= 0) {
+			DistributionSummary.builder(METER_PREFIX + "allocated").baseUnit("bytes").tag(STEP_TAG, meterStepName)
+					.register(meterRegistry).record(allocatedBytes);
+		}
+	}
+
+	/**
+	 * Record the amount of data spilled to disk by a DuckDB database of the execution
+	 * @param jobSpilledBytes bytes spilled, 0 if the database stayed in memory
+	 */
+	public void recordSpill(long jobSpilledBytes) {
+		spilledBytes.addAndGet(jobSpilledBytes);
+		DistributionSummary.builder(DUCKDB_METER_PREFIX + "spilled").baseUnit("bytes")
+				.register(meterRegistry).record(jobSpilledBytes);
+		if (jobSpilledBytes > 0) {
+			Counter.builder(DUCKDB_METER_PREFIX + "spilling.jobs").register(meterRegistry).increment();
+		}
+	}
+
+	public long getSpilledBytes() {
+		return spilledBytes.get();
+	}
+
+	/** Return the measures of each step, in the order of their first execution. */
+	public List<StepMetric> getStepMetrics() {
+		synchronized (stepMetrics) {
+			return new ArrayList<>(stepMetrics.values());
+		}
+	}
+
+	public String getFormattedString() {
+		StringBuilder toWrite = new StringBuilder();
+		for (StepMetric stepMetric : getStepMetrics()) {
+			toWrite.append("\t").append(stepMetric).append(Constants.END_LINE);
+		}
+		if (spilledBytes.get() > 0) {
+			toWrite.append("\tDuckDB spilled to disk : ").append(spilledBytes.get()).append(" bytes").append(Constants.END_LINE);
+		}
+		return toWrite.toString();
+	}
+
+	/** Bytes allocated by the current thread since its start, -1 if the JVM can't measure it */
+	static long currentThreadAllocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean
+				&& sunThreadMXBean.isThreadAllocatedMemorySupported()
+				&& sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+			return sunThreadMXBean.getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+
+	/** Measure of a step in progress */
+	public final class StepMeasure {
+
+		private final String stepName;
+		private final String meterStepName;
+		private final long rowsIn;
+		private final long startNanos;
+		private final long startAllocatedBytes;
+
+		private StepMeasure(String stepName, long rowsIn) {
+			this(stepName, rowsIn, stepName);
+		}
+
+		private StepMeasure(String stepName, long rowsIn, String meterStepName) {
+			this.stepName = stepName;
+			this.meterStepName = meterStepName;
+			this.rowsIn = rowsIn;
+			this.startAllocatedBytes = currentThreadAllocatedBytes();
+			this.startNanos = System.nanoTime();
+		}
+
+		/**
+		 * Stop the measure and record it
+		 * @param rowsOut number of rows produced by the step, {@link #UNKNOWN_ROWS} if not known
+		 */
+		public void stop(long rowsOut) {
+			long durationNanos = System.nanoTime() - startNanos;
+			long endAllocatedBytes = currentThreadAllocatedBytes();
+			long allocatedBytes = startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+			record(stepName, meterStepName, durationNanos, rowsIn, rowsOut, allocatedBytes);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package fr.insee.kraftwerk.core.utils.metrics;
+
+import lombok.Getter;
+
+/**
+ * Accumulated measures of a processing step.
+ * A step can be executed several times (one time per file or per batch), measures are summed.
+ */
+@Getter
+public class StepMetric {
+
+	private final String stepName;
+	private long count;
+	private long durationNanos;
+	/** Rows given to the step, -1 if they were not counted */
+	private long rowsIn;
+	/** Rows produced by the step, -1 if they were not counted */
+	private long rowsOut;
+	/** Bytes allocated by the thread running the step, -1 if the JVM can't measure it */
+	private long allocatedBytes;
+
+	StepMetric(String stepName) {
+		this.stepName = stepName;
+	}
+
+	synchronized void add(long durationNanos, long rowsIn, long rowsOut, long allocatedBytes) {
+		this.count++;
+		this.durationNanos += durationNanos;
+		this.rowsIn = sum(this.rowsIn, rowsIn);
+		this.rowsOut = sum(this.rowsOut, rowsOut);
+		this.allocatedBytes = sum(this.allocatedBytes, allocatedBytes);
+	}
+
+	/** Sum of two measures, -1 if one of them is unknown */
+	private static long sum(long total, long measure) {
+		return total < 0 || measure < 0 ? -1 : total + measure;
+	}
+
+	public synchronized long getDurationMillis() {
+		return durationNanos / 1_000_000;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "%s: %d exécution(s), %d ms, lignes en entrée %d, lignes en sortie %d, octets alloués %d"
+				.formatted(stepName, count, getDurationMillis(), rowsIn, rowsOut, allocatedBytes);
+	}
+
+}
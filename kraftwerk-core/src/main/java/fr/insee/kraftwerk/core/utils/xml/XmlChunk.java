@@ -0,0 +1,18 @@
+package fr.insee.kraftwerk.core.utils.xml;
+
+/**
+ * Report of a chunk written by the {@link XmlSplitter}.
+ * The units are numbered from 0 in the order of the input file : a failed chunk can be written again alone
+ * with {@link XmlSplitter#redoChunk}.
+ * @param index number of the chunk, from 1, used in its file name
+ * @param path path of the chunk file
+ * @param firstUnit number of the first unit of the chunk in the input file
+ * @param unitCount number of units in the chunk
+ * @param startOffset character offset of the first unit in the input file, -1 if unknown to the parser
+ * @param endOffset character offset of the end of the last unit in the input file, -1 if unknown to the parser
+ * @param size size of the chunk file in bytes
+ * @param written false if the chunk file could not be written
+ */
+public record XmlChunk(int index, String path, long firstUnit, int unitCount,
+					   long startOffset, long endOffset, long size, boolean written) {
+}
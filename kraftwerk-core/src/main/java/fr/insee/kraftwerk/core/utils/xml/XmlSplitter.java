@@ -2,145 +2,389 @@ package fr.insee.kraftwerk.core.utils.xml;
 
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import lombok.extern.log4j.Log4j2;
 
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.EndDocument;
-import javax.xml.stream.events.StartDocument;
-import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+@Log4j2
 public class XmlSplitter {
 
+	private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newFactory();
+	private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+	/** Size of the pipe between the reading of the input file and the writer of a chunk */
+	private static final int PIPE_SIZE = 1024 * 1024;
+
 	// We use StAX in this class to deal with memory issues on huge XML files
 	private XmlSplitter() {
 		throw new IllegalStateException("Utility class");
 	}
 
 	public static void split(String inputfolder, String xmlfile, String outputFolder, String condition, int nbElementsByFile, FileUtilsInterface fileUtilsInterface) throws XMLStreamException, IOException, KraftwerkException {
-		String xmlResource = inputfolder + xmlfile;
-		List<XMLEvent> header = getHeader(xmlResource, condition, fileUtilsInterface);
+		List<XmlChunk> chunks = split(inputfolder, xmlfile, outputFolder, condition, nbElementsByFile, 0, 1, fileUtilsInterface);
+		List<XmlChunk> failedChunks = chunks.stream().filter(chunk -> !chunk.written()).toList();
+		if (!failedChunks.isEmpty()) {
+			throw new KraftwerkException(500, "Chunks not written : " + failedChunks);
+		}
+	}
+
+	/**
+	 * Split a XML file in one streaming pass. The file is cut between two elements named after the condition,
+	 * as soon as a chunk reaches the number of elements or the size budget. The elements preceding the first one
+	 * (header) are repeated in each chunk.
+	 * While the file is read, each chunk is streamed to its writer thread : the chunks are not kept in memory,
+	 * and at most writerParallelism chunks are written at the same time.
+	 * @param nbElementsByFile maximum number of elements by chunk, 0 for no limit
+	 * @param maxBytesByFile size from which a chunk is closed, 0 for no limit
+	 * @param writerParallelism maximum number of chunks written at the same time
+	 * @return the chunks, in the order of the input file, with the ones which could not be written
+	 */
+	public static List<XmlChunk> split(String inputfolder, String xmlfile, String outputFolder, String condition,
+									   int nbElementsByFile, long maxBytesByFile, int writerParallelism,
+									   FileUtilsInterface fileUtilsInterface) throws XMLStreamException, IOException, KraftwerkException {
+		return splitFile(inputfolder + xmlfile, outputFolder, condition, nbElementsByFile, maxBytesByFile,
+				writerParallelism, null, fileUtilsInterface);
+	}
 
-		XMLEventFactory xef = XMLEventFactory.newFactory();
+	/**
+	 * Write again a chunk of a previous split, for instance one that could not be written.
+	 * The input file is read up to the last unit of the chunk.
+	 * @return the report of the chunk written again
+	 */
+	public static XmlChunk redoChunk(String inputfolder, String xmlfile, String outputFolder, String condition,
+									 XmlChunk chunk, FileUtilsInterface fileUtilsInterface) throws XMLStreamException, IOException, KraftwerkException {
+		List<XmlChunk> chunks = splitFile(inputfolder + xmlfile, outputFolder, condition, chunk.unitCount(), 0,
+				1, chunk, fileUtilsInterface);
+		if (chunks.isEmpty()) {
+			throw new KraftwerkException(404, "Units of chunk %d not found in %s".formatted(chunk.index(), xmlfile));
+		}
+		return chunks.getFirst();
+	}
+
+	private static List<XmlChunk> splitFile(String xmlResource, String outputFolder, String condition,
+											int nbElementsByFile, long maxBytesByFile, int writerParallelism,
+											XmlChunk chunkToRedo, FileUtilsInterface fileUtilsInterface) throws XMLStreamException, IOException, KraftwerkException {
 		XMLInputFactory xif = XMLInputFactory.newInstance();
 		xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
 		xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
 
-		try (InputStream inputStream = fileUtilsInterface.readFile(xmlResource)) {
-			XMLEventReader xer = xif.createXMLEventReader(inputStream);
-			StartElement rootStartElement = xer.nextTag().asStartElement();
-			StartDocument startDocument = xef.createStartDocument();
-			EndDocument endDocument = xef.createEndDocument();
-
-			XMLOutputFactory xof = XMLOutputFactory.newFactory();
-			int fileCount = 1;
-			while (xer.hasNext() && !xer.peek().isEndDocument()) {
-				XMLEvent xmlEvent = xer.nextEvent();
-
-				if (isStartElementWithName(condition, xmlEvent)) {
-					// Create a temp file for the fragment, the name is derived from the value of the id attribute
-					String tempFileName = "split" + fileCount;
-					File tempFile = File.createTempFile(outputFolder + tempFileName,null);
-					FileWriter fileWriter = new FileWriter(tempFile);
-
-					// A StAX XMLEventWriter will be used to write the XML fragment
-					XMLEventWriter xew = xof.createXMLEventWriter(fileWriter);
-					xew.add(startDocument);
-
-					// Add the elements which are common to all split files
-					addHeadersToNewFile(header, xew);
-
-					// Write the XMLEvents that are part of SurveyUnit element
-					xew.add(xmlEvent);
-					xmlEvent = xer.nextEvent();
-					int nbResponses = 1;
-					// We loop until we reach the end tag Survey units indicating the near end of the document
-					iterateOnSurveyUnits(condition, nbElementsByFile, xer, xmlEvent, xew, nbResponses);
-
-					// Write the file, close everything we opened and
-					xew.add(xef.createEndElement(rootStartElement.getName(), null));
-					xew.add(endDocument);
-					fileWriter.close();
-
-					//Move to outputFolder
-					fileUtilsInterface.moveFile(tempFile.toPath(), outputFolder + "/" + tempFileName + ".xml");
-
-					//Update the file's counter
-					fileCount++;
+		List<XmlChunk> chunks = new ArrayList<>();
+		Deque<ChunkWrite> chunkWrites = new ArrayDeque<>();
+		try (InputStream inputStream = fileUtilsInterface.readFile(xmlResource);
+			 ExecutorService writerExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+			try {
+				XMLEventReader xer = xif.createXMLEventReader(inputStream);
+				// Elements which are common to all split files, read in the same pass
+				List<XMLEvent> header = new ArrayList<>();
+				Deque<QName> openHeaderElements = new ArrayDeque<>();
+				readHeader(xer, condition, header, openHeaderElements);
+
+				long firstUnitToWrite = chunkToRedo == null ? 0 : chunkToRedo.firstUnit();
+				long lastUnitToWrite = chunkToRedo == null ? Long.MAX_VALUE : chunkToRedo.firstUnit() + chunkToRedo.unitCount() - 1;
+				int chunkIndex = chunkToRedo == null ? 1 : chunkToRedo.index();
+				long unitNumber = 0;
+				ChunkBuilder chunkBuilder = null;
+				while (xer.hasNext() && unitNumber <= lastUnitToWrite) {
+					XMLEvent xmlEvent = xer.nextEvent();
+					if (xmlEvent.isEndElement() || xmlEvent.isEndDocument()) {
+						// End of the element containing the units
+						break;
+					}
+					if (!isStartElementWithName(condition, xmlEvent)) {
+						if (xmlEvent.isStartElement()) {
+							copyElement(xmlEvent, xer, chunkBuilder);
+						} else if (chunkBuilder != null) {
+							chunkBuilder.add(xmlEvent);
+						}
+						continue;
+					}
+					boolean unitToWrite = unitNumber >= firstUnitToWrite;
+					if (unitToWrite && chunkBuilder == null) {
+						// Waits for the oldest chunk when all the writers are busy
+						if (chunkWrites.size() >= Math.max(writerParallelism, 1)) {
+							chunks.add(waitForChunk(chunkWrites.removeFirst(), fileUtilsInterface));
+						}
+						chunkBuilder = new ChunkBuilder(chunkIndex++, unitNumber, getOffset(xmlEvent), outputFolder);
+						chunkWrites.addLast(chunkBuilder.start(header, writerExecutor, fileUtilsInterface));
+					}
+					XMLEvent unitEndEvent = copyElement(xmlEvent, xer, unitToWrite ? chunkBuilder : null);
+					unitNumber++;
+					if (unitToWrite) {
+						chunkBuilder.endUnit(getOffset(unitEndEvent));
+						if (chunkBuilder.isFull(nbElementsByFile, maxBytesByFile)) {
+							chunkBuilder.close(openHeaderElements);
+							chunkBuilder = null;
+						}
+					}
+				}
+				if (chunkBuilder != null) {
+					chunkBuilder.close(openHeaderElements);
+				}
+				xer.close();
+				while (!chunkWrites.isEmpty()) {
+					chunks.add(waitForChunk(chunkWrites.removeFirst(), fileUtilsInterface));
 				}
+			} catch (XMLStreamException | IOException | KraftwerkException | RuntimeException e) {
+				// Ends the chunks being written before the executor waits for their writers
+				chunkWrites.forEach(chunkWrite -> chunkWrite.chunkBuilder().abort());
+				throw e;
 			}
 		}
+		log.info("{} split in {} chunk(s)", xmlResource, chunks.size());
+		return chunks;
 	}
 
-	private static void iterateOnSurveyUnits(String condition, int nbElementsByFile, XMLEventReader xer,
-											 XMLEvent xmlEvent, XMLEventWriter xew, int nbResponses) throws XMLStreamException {
-		while (xer.hasNext() && !(isEndElementWithName(xmlEvent,"SurveyUnits"))) {
-			// We exit the specified number of elements by file is reached
-			if (isEndElementWithName(xmlEvent, condition) && nbResponses >= nbElementsByFile) {
-				break;
+	/** Read the events preceding the first element named after the condition, and the elements left open */
+	private static void readHeader(XMLEventReader xer, String condition, List<XMLEvent> header,
+								   Deque<QName> openHeaderElements) throws XMLStreamException {
+		while (xer.hasNext() && !isStartElementWithName(condition, xer.peek())) {
+			XMLEvent xmlEvent = xer.nextEvent();
+			if (xmlEvent.isStartDocument() || xmlEvent.isEndDocument()) {
+				continue;
 			}
-			xew.add(xmlEvent);
-			xmlEvent = xer.nextEvent();
-			// We count the number of survey unit in the file
-			if (isStartElementWithName(condition, xmlEvent)) {
-				nbResponses++;
+			if (xmlEvent.isStartElement()) {
+				openHeaderElements.push(xmlEvent.asStartElement().getName());
+			} else if (xmlEvent.isEndElement()) {
+				openHeaderElements.pop();
+			}
+			header.add(xmlEvent);
+		}
+	}
+
+	/**
+	 * Copy an element to the chunk, or skip it if the chunk is null
+	 * @return the end event of the element
+	 */
+	private static XMLEvent copyElement(XMLEvent startEvent, XMLEventReader xer, ChunkBuilder chunkBuilder) throws XMLStreamException {
+		XMLEvent xmlEvent = startEvent;
+		int depth = 0;
+		while (true) {
+			if (chunkBuilder != null) {
+				chunkBuilder.add(xmlEvent);
+			}
+			if (xmlEvent.isStartElement()) {
+				depth++;
+			} else if (xmlEvent.isEndElement() && --depth == 0) {
+				return xmlEvent;
 			}
+			xmlEvent = xer.nextEvent();
 		}
 	}
 
-	private static void addHeadersToNewFile(List<XMLEvent> header, XMLEventWriter xew) throws XMLStreamException {
-		for (XMLEvent headerEvents : header) {
-			xew.add(headerEvents);
+	private static XmlChunk waitForChunk(ChunkWrite chunkWrite, FileUtilsInterface fileUtilsInterface) throws KraftwerkException {
+		try {
+			return chunkWrite.chunkBuilder().toXmlChunk(chunkWrite.written().get(), fileUtilsInterface);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new KraftwerkException(500, "Interrupted while writing chunks");
+		} catch (ExecutionException e) {
+			throw new KraftwerkException(500, "Error while writing chunk : " + e.getCause().getMessage());
 		}
 	}
 
+	private static long getOffset(XMLEvent xmlEvent) {
+		return xmlEvent.getLocation() == null ? -1 : xmlEvent.getLocation().getCharacterOffset();
+	}
+
 	private static boolean isStartElementWithName(String condition, XMLEvent xmlEvent) {
 		return xmlEvent.isStartElement() && xmlEvent.asStartElement().getName().getLocalPart().equals(condition);
 	}
 
-	private static boolean isEndElementWithName(XMLEvent xmlEvent, String condition) {
-		return xmlEvent.isEndElement() && xmlEvent.asEndElement().getName().getLocalPart().equals(condition);
-	}
+	/** Chunk and the result of its writer */
+	private record ChunkWrite(ChunkBuilder chunkBuilder, Future<Boolean> written) {}
 
-	private static List<XMLEvent> getHeader(String xmlResource, String condition, FileUtilsInterface fileUtilsInterface) throws IOException, XMLStreamException {
-		try(InputStream inputStream = fileUtilsInterface.readFile(xmlResource)) {
-			XMLInputFactory xif = XMLInputFactory.newInstance();
-			xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-			xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-			XMLEventReader xer = xif.createXMLEventReader(inputStream);
-
-			List<XMLEvent> cachedXMLEvents = new ArrayList<>();
-			while (xer.hasNext() && !xer.peek().isEndDocument()) {
-				XMLEvent xmlEvent = xer.nextTag();
-				if (!xmlEvent.isStartElement()) {
-					break;
-				}
-				StartElement breakStartElement = xmlEvent.asStartElement();
-
-				cachedXMLEvents.add(breakStartElement);
-				xmlEvent = xer.nextEvent();
-				while (!(xmlEvent.isEndElement() && xmlEvent.asEndElement().getName().equals(breakStartElement.getName()))) {
-					if (isStartElementWithName(condition, xmlEvent)) {
-						xer.close();
-						return cachedXMLEvents;
-					}
-					cachedXMLEvents.add(xmlEvent);
-					xmlEvent = xer.nextEvent();
+	/**
+	 * Chunk serialized while the input file is read, and streamed to its writer through a pipe :
+	 * at most the size of the pipe is kept in memory for each chunk being written.
+	 */
+	private static final class ChunkBuilder {
+
+		private final int index;
+		private final long firstUnit;
+		private final long startOffset;
+		private final String path;
+		private final PipedInputStream pipeInputStream = new PipedInputStream(PIPE_SIZE);
+		private final ChunkOutputStream content;
+		private final XMLEventWriter xew;
+		private int unitCount = 0;
+		private long endOffset = -1;
+		private volatile boolean aborted;
+
+		private ChunkBuilder(int index, long firstUnit, long startOffset, String outputFolder) throws XMLStreamException, IOException {
+			this.index = index;
+			this.firstUnit = firstUnit;
+			this.startOffset = startOffset;
+			this.path = outputFolder + "/split" + index + ".xml";
+			this.content = new ChunkOutputStream(new PipedOutputStream(pipeInputStream));
+			this.xew = XML_OUTPUT_FACTORY.createXMLEventWriter(content, StandardCharsets.UTF_8.name());
+		}
+
+		/** Start the writer of the chunk, then write the header */
+		private ChunkWrite start(List<XMLEvent> header, ExecutorService writerExecutor,
+								 FileUtilsInterface fileUtilsInterface) throws XMLStreamException {
+			ChunkWrite chunkWrite = new ChunkWrite(this, writerExecutor.submit(() -> write(fileUtilsInterface)));
+			xew.add(XML_EVENT_FACTORY.createStartDocument(StandardCharsets.UTF_8.name()));
+			for (XMLEvent headerEvent : header) {
+				xew.add(headerEvent);
+			}
+			return chunkWrite;
+		}
+
+		/**
+		 * Write the chunk as it is serialized
+		 * @return true if the whole chunk has been given to the storage
+		 */
+		private boolean write(FileUtilsInterface fileUtilsInterface) {
+			try (InputStream inputStream = pipeInputStream) {
+				fileUtilsInterface.writeFile(path, inputStream, true);
+				// The storage stops reading when the write fails : the end of the chunk is then left in the pipe
+				boolean entirelyRead = inputStream.read() == -1;
+				if (aborted) {
+					fileUtilsInterface.deleteFile(path);
+					return false;
 				}
+				return entirelyRead;
+			} catch (IOException | RuntimeException e) {
+				log.error("Chunk {} not written : {}", path, e.toString());
+				return false;
+			}
+		}
+
+		private void add(XMLEvent xmlEvent) throws XMLStreamException {
+			xew.add(xmlEvent);
+		}
+
+		private void endUnit(long unitEndOffset) {
+			unitCount++;
+			endOffset = unitEndOffset;
+		}
+
+		private boolean isFull(int nbElementsByFile, long maxBytesByFile) throws XMLStreamException {
+			if (nbElementsByFile > 0 && unitCount >= nbElementsByFile) {
+				return true;
+			}
+			if (maxBytesByFile > 0) {
+				xew.flush();
+				return content.getCount() >= maxBytesByFile;
+			}
+			return false;
+		}
+
+		/** Close the elements of the header left open and the document, which ends the chunk file */
+		private void close(Deque<QName> openHeaderElements) throws XMLStreamException {
+			for (QName openHeaderElement : openHeaderElements) {
+				xew.add(XML_EVENT_FACTORY.createEndElement(openHeaderElement, null));
+			}
+			xew.add(XML_EVENT_FACTORY.createEndDocument());
+			xew.close();
+			content.close();
+		}
+
+		/** Stop the chunk when the split fails : the chunk file is deleted once its writer ends */
+		private void abort() {
+			aborted = true;
+			content.close();
+		}
+
+		private XmlChunk toXmlChunk(boolean entirelyWritten, FileUtilsInterface fileUtilsInterface) {
+			boolean written = entirelyWritten && !content.isFailed()
+					&& fileUtilsInterface.isFileExists(path)
+					&& fileUtilsInterface.getSizeOf(path) == content.getCount();
+			if (!written) {
+				log.error("Chunk {} (units {} to {}) not written", path, firstUnit, firstUnit + unitCount - 1);
+			}
+			return new XmlChunk(index, path, firstUnit, unitCount, startOffset, endOffset, content.getCount(), written);
+		}
+	}
+
+	/**
+	 * Stream of a chunk to its writer, counting the bytes of the chunk.
+	 * When the writer stops reading, the rest of the chunk is counted and discarded so that the split goes on.
+	 */
+	private static final class ChunkOutputStream extends OutputStream {
+
+		private final OutputStream pipeOutputStream;
+		private long count = 0;
+		private boolean failed = false;
+
+		private ChunkOutputStream(OutputStream pipeOutputStream) {
+			this.pipeOutputStream = pipeOutputStream;
+		}
+
+		@Override
+		public void write(int b) {
+			count++;
+			if (failed) {
+				return;
+			}
+			try {
+				pipeOutputStream.write(b);
+			} catch (IOException e) {
+				failed = true;
+			}
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			count += length;
+			if (failed) {
+				return;
+			}
+			try {
+				pipeOutputStream.write(bytes, offset, length);
+			} catch (IOException e) {
+				failed = true;
 			}
-			xer.close();
 		}
-		return List.of();
+
+		@Override
+		public void flush() {
+			if (failed) {
+				return;
+			}
+			try {
+				pipeOutputStream.flush();
+			} catch (IOException e) {
+				failed = true;
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				pipeOutputStream.close();
+			} catch (IOException e) {
+				failed = true;
+			}
+		}
+
+		private long getCount() {
+			return count;
+		}
+
+		private boolean isFailed() {
+			return failed;
+		}
 	}
 
 }
@@ -0,0 +1,73 @@
+package fr.insee.kraftwerk.core.utils.xml;
+
+import nu.xom.Attribute;
+import nu.xom.Element;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * StAX helpers to read huge XML files one fragment at a time,
+ * each fragment being built as a XOM element.
+ */
+public class XmlStreamUtils {
+
+	private XmlStreamUtils() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Create a StAX reader on the given stream, DTD and external entities are not supported.
+	 * Adjacent text is coalesced, as in a XOM document.
+	 */
+	public static XMLStreamReader createXmlStreamReader(InputStream inputStream) throws XMLStreamException {
+		XMLInputFactory xif = XMLInputFactory.newInstance();
+		xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		xif.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return xif.createXMLStreamReader(inputStream);
+	}
+
+	/**
+	 * Read the element the reader is positioned on (START_ELEMENT) with all its content.
+	 * The reader is left on the END_ELEMENT of the element.
+	 * @param reader StAX reader positioned on a start element
+	 * @return the element, detached from any document
+	 */
+	public static Element readElement(XMLStreamReader reader) throws XMLStreamException {
+		Element element = new Element(getQualifiedName(reader.getPrefix(), reader.getLocalName()),
+				nullToEmpty(reader.getNamespaceURI()));
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			element.addAttribute(new Attribute(
+					getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+					nullToEmpty(reader.getAttributeNamespace(i)),
+					reader.getAttributeValue(i)));
+		}
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT -> element.appendChild(readElement(reader));
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+						element.appendChild(reader.getText());
+				case XMLStreamConstants.END_ELEMENT -> {
+					return element;
+				}
+				default -> {
+					// Comments and processing instructions are not kept
+				}
+			}
+		}
+		return element;
+	}
+
+	private static String getQualifiedName(String prefix, String localName) {
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+
+	private static String nullToEmpty(String value) {
+		return value == null ? "" : value;
+	}
+
+}
@@ -0,0 +1,191 @@
+package fr.insee.kraftwerk.core.vtl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.TextFileWriter;
+import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.vtl.jackson.TrevasModule;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Save VTL datasets as Parquet files written by DuckDB, and read them back.
+ * The structure of each dataset (types and roles of the components) is saved next to its data,
+ * in a Trevas JSON file without data points, so that the dataset is put in the bindings without reading its data.
+ * The data points are read the first time they are used.
+ */
+@Log4j2
+public class ParquetDatasetStore {
+
+    private static final String DATASET_TABLE_NAME = "dataset";
+    private static final String PARQUET = ".parquet";
+    private static final String STRUCTURE = ".structure.json";
+
+    /** Mapper to convert the structure files into VTL Datasets. */
+    private final ObjectMapper mapper;
+    private final FileUtilsInterface fileUtilsInterface;
+
+    public ParquetDatasetStore(FileUtilsInterface fileUtilsInterface) {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new TrevasModule());
+        this.fileUtilsInterface = fileUtilsInterface;
+    }
+
+    /** Path of the structure file of a Parquet dataset file */
+    public static String getStructurePath(String parquetPath) {
+        String basePath = parquetPath.endsWith(PARQUET)
+                ? parquetPath.substring(0, parquetPath.length() - PARQUET.length())
+                : parquetPath;
+        return basePath + STRUCTURE;
+    }
+
+    /**
+     * Write the dataset registered under given name as a Parquet file, and its structure as a JSON file.
+     * @param bindingName Name of a dataset stored in the bindings.
+     * @param parquetOutFile Path to write the output Parquet file.
+     */
+    public void writeDataset(String bindingName, Path parquetOutFile, VtlBindings bindings) {
+        if (!bindings.containsKey(bindingName)) {
+            log.debug("No dataset under name '{}' in the bindings.", bindingName);
+            return;
+        }
+        Dataset dataset = bindings.getDataset(bindingName);
+        fileUtilsInterface.createDirectoryIfNotExist(parquetOutFile.getParent());
+        Path tmpOutputFile = null;
+        try (Connection connection = SqlUtils.openConnection();
+             Statement statement = connection.createStatement()) {
+            //Structure
+            Dataset structure = new InMemoryDataset(List.of(), new ArrayList<>(dataset.getDataStructure().values()));
+            TextFileWriter.writeFile(Path.of(getStructurePath(parquetOutFile.toString())),
+                    mapper.writeValueAsString(structure), fileUtilsInterface);
+            //Data
+            SqlUtils.loadDatasetIntoTable(statement, DATASET_TABLE_NAME, dataset);
+            if (!SqlUtils.getTableNames(statement).contains(DATASET_TABLE_NAME)) {
+                return;
+            }
+            Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
+            tmpOutputFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")), bindingName, PARQUET);
+            Files.deleteIfExists(tmpOutputFile);
+            statement.execute("COPY \"%s\" TO '%s' (FORMAT PARQUET)".formatted(DATASET_TABLE_NAME, tmpOutputFile));
+            fileUtilsInterface.moveFile(tmpOutputFile, parquetOutFile.toString());
+            log.debug("Dataset {} written in {}", bindingName, parquetOutFile);
+        } catch (IOException | SQLException | KraftwerkException e) {
+            log.error("Unable to write dataset stored under name '{}' in {}", bindingName, parquetOutFile, e);
+        } finally {
+            deleteTempFile(tmpOutputFile);
+        }
+    }
+
+    /**
+     * Put the dataset of the given Parquet file in the bindings.
+     * Only its structure is read, the data points are read from the file when they are first used.
+     *
+     * @param parquetPath Path to the Parquet file.
+     * @param bindingName The name the dataset will be referred to when executing VTL instructions.
+     */
+    public void putDataset(String parquetPath, String bindingName, VtlBindings bindings) {
+        try (InputStream structureStream = fileUtilsInterface.readFile(getStructurePath(parquetPath))) {
+            if (structureStream == null) {
+                log.error("No structure file for dataset {}", parquetPath);
+                return;
+            }
+            Structured.DataStructure structure = mapper.readValue(structureStream, Dataset.class).getDataStructure();
+            bindings.put(bindingName, new LazyParquetDataset(parquetPath, structure, fileUtilsInterface));
+        } catch (IOException e) {
+            log.error("Unable to read structure of dataset {}: {}", parquetPath, e.toString());
+        }
+    }
+
+    /**
+     * Read the data points of a Parquet file
+     * @param parquetPath Path to the Parquet file.
+     * @param structure structure of the dataset
+     * @return an in-memory dataset, empty if there is no Parquet file
+     */
+    static Dataset readDataset(String parquetPath, Structured.DataStructure structure,
+                               FileUtilsInterface fileUtilsInterface) throws IOException, SQLException {
+        List<Structured.Component> components = new ArrayList<>(structure.values());
+        if (!fileUtilsInterface.isFileExists(parquetPath)) {
+            return new InMemoryDataset(List.of(), components);
+        }
+        Path tmpInputFile = null;
+        try (InputStream parquetStream = fileUtilsInterface.readFile(parquetPath);
+             Connection connection = SqlUtils.openConnection();
+             Statement statement = connection.createStatement()) {
+            if (parquetStream == null) {
+                throw new IOException("Can't read file " + parquetPath);
+            }
+            Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir")));
+            tmpInputFile = Files.createTempFile(Path.of(System.getProperty("java.io.tmpdir")), DATASET_TABLE_NAME, PARQUET);
+            Files.copy(parquetStream, tmpInputFile, StandardCopyOption.REPLACE_EXISTING);
+            statement.execute("CREATE VIEW \"%s\" AS SELECT * FROM read_parquet('%s')"
+                    .formatted(DATASET_TABLE_NAME, tmpInputFile));
+            Dataset dataset = SqlUtils.readDataset(statement, DATASET_TABLE_NAME, components);
+            log.debug("{} data points read from {}", dataset.getDataPoints().size(), parquetPath);
+            return dataset;
+        } finally {
+            deleteTempFile(tmpInputFile);
+        }
+    }
+
+    private static void deleteTempFile(Path tmpFile) {
+        if (tmpFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmpFile);
+        } catch (IOException e) {
+            log.debug("Impossible to delete file {}", tmpFile);
+        }
+    }
+
+    /**
+     * Dataset saved in a Parquet file, whose data points are read the first time they are asked for
+     */
+    private static final class LazyParquetDataset implements Dataset {
+
+        private final String parquetPath;
+        private final Structured.DataStructure structure;
+        private final FileUtilsInterface fileUtilsInterface;
+        private Dataset dataset;
+
+        private LazyParquetDataset(String parquetPath, Structured.DataStructure structure,
+                                   FileUtilsInterface fileUtilsInterface) {
+            this.parquetPath = parquetPath;
+            this.structure = structure;
+            this.fileUtilsInterface = fileUtilsInterface;
+        }
+
+        @Override
+        public Structured.DataStructure getDataStructure() {
+            return structure;
+        }
+
+        @Override
+        public synchronized List<DataPoint> getDataPoints() {
+            if (dataset == null) {
+                try {
+                    dataset = readDataset(parquetPath, structure, fileUtilsInterface);
+                } catch (IOException | SQLException e) {
+                    throw new IllegalStateException("Unable to read dataset " + parquetPath, e);
+                }
+            }
+            return dataset.getDataPoints();
+        }
+    }
+
+}
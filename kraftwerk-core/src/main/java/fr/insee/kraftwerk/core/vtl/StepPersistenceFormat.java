@@ -0,0 +1,38 @@
+package fr.insee.kraftwerk.core.vtl;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Format of the bindings saved in the temp folder between two steps of the step by step processing.
+ */
+@Getter
+public enum StepPersistenceFormat {
+	/** Parquet file of the data points, with a JSON file of the structure. Data points are read when used */
+	PARQUET(".parquet"),
+	/** Trevas JSON file of the whole dataset, readable but large and slow (debug only) */
+	JSON(".json");
+
+	private final String fileExtension;
+
+	StepPersistenceFormat(String fileExtension) {
+		this.fileExtension = fileExtension;
+	}
+
+	/**
+	 * @param label name of the format, case-insensitive, blank for parquet
+	 * @throws IllegalArgumentException if the format is unknown
+	 */
+	public static StepPersistenceFormat fromLabel(String label) {
+		if (label == null || label.isBlank()) {
+			return PARQUET;
+		}
+		try {
+			return valueOf(label.strip().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown step persistence format : " + label);
+		}
+	}
+
+}
@@ -5,7 +5,9 @@ import fr.insee.bpm.metadata.model.MetadataModel;
 import fr.insee.bpm.metadata.model.Variable;
 import fr.insee.bpm.metadata.model.VariableType;
 import fr.insee.kraftwerk.core.Constants;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
 import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
 import fr.insee.vtl.model.Structured;
 import fr.insee.vtl.model.Structured.Component;
 import lombok.extern.log4j.Log4j2;
@@ -31,8 +33,35 @@ public class VtlBindings extends SimpleBindings {
         return datasetNames.toList();
     }
 
-    
+    /**
+     * Return the number of rows of all the datasets registered in the bindings,
+     * {@link ProcessingMetrics#UNKNOWN_ROWS} if one of them is not in memory.
+     */
+    public long countRows() {
+        long rowCount = 0;
+        for (String datasetName : getDatasetNames()) {
+            long datasetRowCount = countRows(datasetName);
+            if (datasetRowCount == ProcessingMetrics.UNKNOWN_ROWS) {
+                return ProcessingMetrics.UNKNOWN_ROWS;
+            }
+            rowCount += datasetRowCount;
+        }
+        return rowCount;
+    }
 
+    /**
+     * Return the number of rows of the dataset registered under the given name, 0 if there is no such dataset.
+     * Rows are only counted when the dataset is in memory : the data of other datasets (Parquet files,
+     * VTL expressions evaluated when read) is not read to count them, and {@link ProcessingMetrics#UNKNOWN_ROWS}
+     * is returned.
+     */
+    public long countRows(String datasetName) {
+        Object dataset = datasetName == null ? null : this.get(datasetName);
+        if (dataset instanceof InMemoryDataset inMemoryDataset) {
+            return inMemoryDataset.getDataPoints().size();
+        }
+        return dataset instanceof Dataset ? ProcessingMetrics.UNKNOWN_ROWS : 0;
+    }
 
     /**
      * Get a dataset stored in the bindings.
@@ -0,0 +1,127 @@
+package fr.insee.kraftwerk.core.vtl;
+
+import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import lombok.extern.log4j.Log4j2;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class to build VTL datasets directly in memory from survey data.
+ * The data structure and the data points are the same as the ones written by VtlJsonDatasetWriter,
+ * but no temporary JSON file is written and read back.
+ */
+@Log4j2
+public class VtlDatasetBuilder {
+
+	private static final String ROLE = "role";
+	private static final String TYPE = "type";
+	private static final String NAME = "name";
+
+	/** Gives the layout (columns and rows) of the dataset */
+	private final VtlJsonDatasetWriter layout;
+	private final int expectedRowCount;
+
+	/**
+	 * @param surveyData  Survey data parsed into a SurveyRawData object.
+	 * @param datasetName The name of the dataset which will be built.
+	 */
+	public VtlDatasetBuilder(SurveyRawData surveyData,
+							 String datasetName,
+							 KraftwerkExecutionContext kraftwerkExecutionContext
+	) {
+		this.layout = new VtlJsonDatasetWriter(surveyData, datasetName, kraftwerkExecutionContext);
+		this.expectedRowCount = surveyData.getQuestionnaires().size();
+	}
+
+	/**
+	 * Build the VTL dataset corresponding to the survey data.
+	 * Values are converted to the java type of their column, as the Trevas JSON module would do.
+	 *
+	 * @return An in-memory VTL dataset.
+	 */
+	public Dataset buildVtlDataset() {
+		List<Structured.Component> components = getComponents(layout.getDataStructureJSONArray());
+		Class<?>[] columnTypes = components.stream().map(Structured.Component::getType).toArray(Class<?>[]::new);
+
+		List<List<Object>> dataPoints = new ArrayList<>(expectedRowCount);
+		layout.forEachDataPoint(rowValues -> dataPoints.add(convertRow(rowValues, columnTypes)));
+
+		return new InMemoryDataset(dataPoints, components);
+	}
+
+	private static List<Structured.Component> getComponents(JSONArray dataStructure) {
+		List<Structured.Component> components = new ArrayList<>(dataStructure.size());
+		for (Object element : dataStructure) {
+			JSONObject jsonComponent = (JSONObject) element;
+			components.add(new Structured.Component(
+					(String) jsonComponent.get(NAME),
+					getJavaType((String) jsonComponent.get(TYPE)),
+					Dataset.Role.valueOf((String) jsonComponent.get(ROLE))
+			));
+		}
+		return components;
+	}
+
+	/**
+	 * Java type used by Trevas for a VTL type name.
+	 * @param vtlType VTL type (cf. VariableType VTL names)
+	 * @return the java class of the values of this type
+	 */
+	static Class<?> getJavaType(String vtlType) {
+		if (vtlType == null) {
+			return String.class;
+		}
+		return switch (vtlType) {
+			case "INTEGER" -> Long.class;
+			case "NUMBER" -> Double.class;
+			case "BOOLEAN" -> Boolean.class;
+			default -> String.class;
+		};
+	}
+
+	private static List<Object> convertRow(String[] rowValues, Class<?>[] columnTypes) {
+		Object[] row = new Object[columnTypes.length];
+		for (int i = 0; i < columnTypes.length && i < rowValues.length; i++) {
+			row[i] = convertValue(rowValues[i], columnTypes[i]);
+		}
+		return Arrays.asList(row);
+	}
+
+	/**
+	 * Convert a string value from survey data to the given type.
+	 * Empty and unreadable values become null.
+	 */
+	static Object convertValue(String value, Class<?> type) {
+		if (value == null || type == String.class) {
+			return value;
+		}
+		String trimmedValue = value.trim();
+		if (trimmedValue.isEmpty()) {
+			return null;
+		}
+		try {
+			if (type == Long.class) {
+				return Long.parseLong(trimmedValue);
+			}
+			if (type == Double.class) {
+				return Double.parseDouble(trimmedValue);
+			}
+			if (type == Boolean.class) {
+				return Boolean.parseBoolean(trimmedValue);
+			}
+		} catch (NumberFormatException e) {
+			log.debug("Value \"{}\" cannot be read as {}, null value used.", value, type.getSimpleName());
+			return null;
+		}
+		return value;
+	}
+
+}
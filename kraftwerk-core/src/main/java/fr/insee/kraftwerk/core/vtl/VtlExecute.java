@@ -7,10 +7,13 @@ import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.TextFileWriter;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
 import fr.insee.vtl.jackson.TrevasModule;
 import fr.insee.vtl.model.Dataset;
 import lombok.extern.log4j.Log4j2;
 
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
@@ -22,6 +25,8 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class that provide method to use the Trevas library.
@@ -30,6 +35,9 @@ import java.nio.file.Paths;
 public class VtlExecute {
 
     private static final String TEMP_DATASET_NAME = "TEMP";
+    /** Number of prepared instructions kept, the cache is emptied beyond */
+    private static final int MAX_PREPARED_INSTRUCTIONS = 50_000;
+    private static final Map<String, PreparedInstruction> PREPARED_INSTRUCTIONS = new ConcurrentHashMap<>();
 
     /** Mapper to convert json files into VTL Datasets. */
     private final ObjectMapper mapper;
@@ -49,12 +57,12 @@ public class VtlExecute {
         this.kraftwerkExecutionContext = kraftwerkExecutionContext;
     }
 
-    //TODO Remove JSON temp file writing (not cloud native)
     /**
      * Transform the given data object into a Trevas VTL dataset, and put it in the bindings.
      * The variables map of the given data object is also stored and can later be get using the method
      * getDatasetVariablesMap.
      * The given binding name will be the reference name of the dataset during the evaluation of VTL scripts.
+     * The dataset is built in memory, unless the JSON conversion is enabled in the execution context.
      *
      * @param surveyRawData Data object.
      * Path to the local json file.
@@ -62,6 +70,19 @@ public class VtlExecute {
      * The name the dataset will be referred to when executing VTL instructions.
      */
     public void convertToVtlDataset(SurveyRawData surveyRawData, String bindingName, VtlBindings bindings){
+        if(kraftwerkExecutionContext.isJsonVtlDatasetConversion()){
+            convertToVtlDatasetWithJson(surveyRawData, bindingName, bindings);
+            return;
+        }
+        VtlDatasetBuilder vtlDatasetBuilder = new VtlDatasetBuilder(surveyRawData, bindingName, kraftwerkExecutionContext);
+        bindings.put(bindingName, vtlDatasetBuilder.buildVtlDataset());
+    }
+
+    /**
+     * Same as convertToVtlDataset, but through a temporary json file read with the Trevas module.
+     * Kept to compare both conversions.
+     */
+    private void convertToVtlDatasetWithJson(SurveyRawData surveyRawData, String bindingName, VtlBindings bindings){
         // Write data in a json file
         var vtlJsonDatasetWriter = new VtlJsonDatasetWriter(surveyRawData, bindingName, kraftwerkExecutionContext);
         String tempDatasetPath = vtlJsonDatasetWriter.writeVtlJsonDataset();
@@ -159,23 +180,30 @@ public class VtlExecute {
      */
     public void evalVtlScript(String vtlScript, VtlBindings bindings, KraftwerkExecutionContext kraftwerkExecutionContext){
         if(vtlScript != null && !vtlScript.isEmpty()) {
+            PreparedInstruction preparedInstruction = prepareInstruction(vtlScript);
+            String destinationDatasetName = preparedInstruction.destinationDatasetName();
+            ProcessingMetrics.StepMeasure stepMeasure = kraftwerkExecutionContext.getProcessingMetrics()
+                    .startVtlInstruction(vtlScript, bindings.countRows(destinationDatasetName));
             try {
                 // set script context
                 ScriptContext context = engine.getContext();
                 context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
 
-                // Replace destination dataset name to TEMP
-                if(bindings.getDatasetNames().contains(TEMP_DATASET_NAME)){
-                    bindings.remove(TEMP_DATASET_NAME);
-                }
-                String destinationDatasetName = getDestinationDatasetName(vtlScript);
-                String vtlScriptToUse = vtlScript;
-                if(destinationDatasetName != null) {
-                    vtlScriptToUse = vtlScript.replaceFirst(destinationDatasetName, TEMP_DATASET_NAME);
-                }
+                // Destination dataset name is replaced by TEMP in the prepared instruction
+                bindings.remove(TEMP_DATASET_NAME);
 
                 // eval and create temp table
-                engine.eval(vtlScriptToUse);
+                if (engine instanceof Compilable compilable) {
+                    Map<String, CompiledScript> compiledScripts = kraftwerkExecutionContext.getCompiledVtlScriptsCache();
+                    CompiledScript compiledScript = compiledScripts.get(preparedInstruction.vtlScriptToUse());
+                    if (compiledScript == null) {
+                        compiledScript = compilable.compile(preparedInstruction.vtlScriptToUse());
+                        compiledScripts.putIfAbsent(preparedInstruction.vtlScriptToUse(), compiledScript);
+                    }
+                    compiledScript.eval(context);
+                } else {
+                    engine.eval(preparedInstruction.vtlScriptToUse());
+                }
 
                 // overwrite bindings with the resulted temp one
                 createOrOverwriteBindingFromTemp(destinationDatasetName, bindings);
@@ -197,33 +225,59 @@ public class VtlExecute {
             } catch (Exception e) {
                 log.warn("Exception - UNKNOWN EXCEPTION PLEASE REPORT IT!");
                 kraftwerkExecutionContext.addUniqueError(new ErrorVtlTransformation(vtlScript, e.getMessage()));
+            } finally {
+                stepMeasure.stop(bindings.countRows(destinationDatasetName));
             }
         } else {
             log.info("null or empty VTL instruction given. VTL bindings has not been changed.");
         }
     }
 
+    /**
+     * Instruction ready to be evaluated : the destination dataset name, and the instruction
+     * with its destination replaced by TEMP.
+     * The same instructions are evaluated for each file or batch, so they are prepared once.
+     */
+    static PreparedInstruction prepareInstruction(String vtlScript) {
+        PreparedInstruction preparedInstruction = PREPARED_INSTRUCTIONS.get(vtlScript);
+        if (preparedInstruction == null) {
+            if (PREPARED_INSTRUCTIONS.size() >= MAX_PREPARED_INSTRUCTIONS) {
+                PREPARED_INSTRUCTIONS.clear();
+            }
+            String destinationDatasetName = getDestinationDatasetName(vtlScript);
+            String vtlScriptToUse = vtlScript;
+            if (destinationDatasetName != null) {
+                int destinationIndex = vtlScript.indexOf(destinationDatasetName);
+                vtlScriptToUse = vtlScript.substring(0, destinationIndex) + TEMP_DATASET_NAME
+                        + vtlScript.substring(destinationIndex + destinationDatasetName.length());
+            }
+            preparedInstruction = new PreparedInstruction(destinationDatasetName, vtlScriptToUse);
+            PREPARED_INSTRUCTIONS.put(vtlScript, preparedInstruction);
+        }
+        return preparedInstruction;
+    }
+
     /**
      * @param vtlScript a VTL script
      * @return the name of the dataset produced by the script
      */
-    private String getDestinationDatasetName(String vtlScript) {
-        if(vtlScript.contains(":=") && !vtlScript.contains("<-")){
-            return vtlScript.substring(0, vtlScript.indexOf(":=")).trim();
+    private static String getDestinationDatasetName(String vtlScript) {
+        int assignmentIndex = vtlScript.indexOf("<-");
+        if (assignmentIndex < 0) {
+            assignmentIndex = vtlScript.indexOf(":=");
         }
-        if(vtlScript.contains("<-")){
-            return vtlScript.substring(0, vtlScript.indexOf("<-")).trim();
-        }
-        return null;
+        return assignmentIndex < 0 ? null : vtlScript.substring(0, assignmentIndex).trim();
     }
 
     private void createOrOverwriteBindingFromTemp(String destinationDatasetName, VtlBindings bindings) {
-        if(bindings.getDatasetNames().contains(TEMP_DATASET_NAME)){
+        if(bindings.containsKey(TEMP_DATASET_NAME)){
             bindings.put(destinationDatasetName, bindings.getDataset(TEMP_DATASET_NAME));
             bindings.remove(TEMP_DATASET_NAME);
         }
     }
 
+    record PreparedInstruction(String destinationDatasetName, String vtlScriptToUse) {}
+
     /**
      * Evaluate the given VTL instructions and update the bindings.
      * The name of the input datasets in the script must refer to the names given in the bindings.
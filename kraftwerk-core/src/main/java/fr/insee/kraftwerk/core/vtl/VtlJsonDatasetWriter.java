@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Class to write temporary VTL datasets. These datasets are JSON files that has
@@ -41,6 +42,13 @@ public class VtlJsonDatasetWriter {
 	private static final String MEASURE = "MEASURE";
 	private static final String STRING = "STRING";
 
+	/** Root level variables that are not described in the metadata model */
+	private static final Set<String> ROOT_LEVEL_VARIABLES = Set.of(
+			Constants.SURVEY_UNIT_IDENTIFIER_NAME,
+			Constants.VALIDATION_DATE_NAME,
+			Constants.QUESTIONNAIRE_STATE_NAME
+	);
+
 	private final SurveyRawData surveyData;
 	private final MetadataModel metadataModel;
 	private final String datasetName;
@@ -232,13 +240,26 @@ public class VtlJsonDatasetWriter {
 
 	@SuppressWarnings("unchecked")
 	protected JSONArray getDataPointsJSONArray() {
-
 		JSONArray dataPoints = new JSONArray();
+		forEachDataPoint(rowValues -> {
+			JSONArray array = new JSONArray();
+			array.addAll(Arrays.asList(rowValues));
+			dataPoints.add(array);
+		});
+		return dataPoints;
+	}
 
+	/**
+	 * Walks the survey data and gives each data point to the consumer, in the column order of the data structure.
+	 * The data structure must have been built before (see getDataStructureJSONArray).
+	 * @param rowConsumer consumer of the data points (one array of string values per row)
+	 */
+	void forEachDataPoint(Consumer<String[]> rowConsumer) {
+		int datasetWidth = datasetWidth();
 		for (QuestionnaireData questionnaireData : surveyData.getQuestionnaires()) {
 			GroupInstance rootInstance = questionnaireData.getAnswers();
 
-			String[] rowValues = new String[datasetWidth()];
+			String[] rowValues = new String[datasetWidth];
 			Arrays.fill(rowValues, null); // NOTE: recent change here to differentiate empty string and non-response
 			// (previous implementation was: fill with empty strings ("")
 
@@ -255,9 +276,7 @@ public class VtlJsonDatasetWriter {
 
 			// If no subgroups, write line right away
 			if (! rootInstance.hasSubGroups()) {
-				JSONArray array = new JSONArray();
-				array.addAll(Arrays.asList(rowValues));
-				dataPoints.add(array);
+				rowConsumer.accept(rowValues);
 			}
 
 			else {
@@ -273,23 +292,17 @@ public class VtlJsonDatasetWriter {
 						groupRowValues[columnsMapping.get(groupName)] = groupInstance.getId();
 						addValuesToRow(groupInstance, groupRowValues);
 
-						JSONArray array = new JSONArray();
-						array.addAll(Arrays.asList(groupRowValues));
-						dataPoints.add(array);
+						rowConsumer.accept(groupRowValues);
 						emptySubGroups = false;
 					}
 				}
 
 				// If all subgroups are empty, write a single line
 				if (emptySubGroups) {
-					JSONArray array = new JSONArray();
-					array.addAll(Arrays.asList(rowValues));
-					dataPoints.add(array);
+					rowConsumer.accept(rowValues);
 				}
 			}
 		}
-
-		return dataPoints;
 	}
 
 	private void addValuesToRow(GroupInstance groupInstance, String[] rowValues) {
@@ -299,13 +312,8 @@ public class VtlJsonDatasetWriter {
 				continue;
 			}
 			String value = groupInstance.getValue(variableName);
-			Set<String> rootLevelVariables = Set.of(
-					Constants.SURVEY_UNIT_IDENTIFIER_NAME,
-					Constants.VALIDATION_DATE_NAME,
-					Constants.QUESTIONNAIRE_STATE_NAME
-			);
 			if (
-					!rootLevelVariables.contains(variableName)
+					!ROOT_LEVEL_VARIABLES.contains(variableName)
 					&& metadataModel.getVariables().getVariable(variableName).getType() == VariableType.BOOLEAN
 			) {
 				value = convertBooleanValue(value);
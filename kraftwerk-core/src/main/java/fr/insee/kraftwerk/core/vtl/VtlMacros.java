@@ -1,6 +1,7 @@
 package fr.insee.kraftwerk.core.vtl;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.StringJoiner;
 
 /**
@@ -27,4 +28,21 @@ public class VtlMacros {
         }
         return res.toString();
     }
+
+    /**
+     * Return a VTL instruction renaming several variables of a dataset in a single clause,
+     * so that the dataset is copied once whatever the number of variables.
+     *
+     * @param datasetName Name of the dataset, which is replaced by the renamed dataset.
+     * @param newNames New name of each variable to rename.
+     *
+     * @return A string like "DS := DS [rename A to B, C to D];".
+     */
+    public static String toVtlRenameInstruction(String datasetName, Map<String, String> newNames) {
+        StringJoiner renames = new StringJoiner(", ");
+        for (Map.Entry<String, String> newName : newNames.entrySet()) {
+            renames.add(newName.getKey() + " to " + newName.getValue());
+        }
+        return String.format("%1$s := %1$s [rename %2$s];", datasetName, renames);
+    }
 }
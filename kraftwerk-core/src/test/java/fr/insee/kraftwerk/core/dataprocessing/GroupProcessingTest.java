@@ -15,7 +15,9 @@ import fr.insee.vtl.model.Structured;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -57,4 +59,76 @@ class GroupProcessingTest {
         //THEN
         Assertions.assertThat(outDataset.getDataStructure().keySet()).containsExactlyInAnyOrder("ID", "FOO", "DEPTH1.FOO1", "DEPTH1.DEPTH2.FOO2");
     }
+
+    @Test
+    void addPrefixes_oneInstruction_absentVariableIgnored() {
+        //GIVEN
+        Dataset initialDataset = new InMemoryDataset(
+                List.of(
+                        List.of("T01", 1L, 2L)
+                ),
+                List.of(
+                        new Structured.Component("ID", String.class, Dataset.Role.IDENTIFIER),
+                        new Structured.Component("FOO1", Long.class, Dataset.Role.MEASURE),
+                        new Structured.Component("FOO2", Long.class, Dataset.Role.MEASURE)
+                )
+        );
+        KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+        VtlBindings vtlBindings = new VtlBindings();
+        vtlBindings.put("TEST", initialDataset);
+
+        MetadataModel metadata = new MetadataModel();
+        metadata.putGroup(new Group("LOOP", metadata.getRootGroup().getName()));
+        metadata.getVariables().putVariable(new Variable("FOO1", metadata.getGroup("LOOP"), VariableType.NUMBER));
+        metadata.getVariables().putVariable(new Variable("FOO2", metadata.getGroup("LOOP"), VariableType.NUMBER));
+        metadata.getVariables().putVariable(new Variable("ABSENT", metadata.getGroup("LOOP"), VariableType.NUMBER));
+
+        //WHEN
+        String vtlScript = new GroupProcessing(
+                vtlBindings, metadata, fileUtilsInterface, kraftwerkExecutionContext
+        ).applyAutomatedVtlInstructions("TEST", kraftwerkExecutionContext);
+
+        //THEN
+        Assertions.assertThat(vtlScript).containsOnlyOnce("rename").doesNotContain("ABSENT");
+        Assertions.assertThat(vtlBindings.getDataset("TEST").getDataStructure().keySet())
+                .containsExactlyInAnyOrder("ID", "LOOP.FOO1", "LOOP.FOO2");
+        Assertions.assertThat(kraftwerkExecutionContext.getErrors()).isEmpty();
+    }
+
+    /**
+     * Group prefixes step time against the number of variables, run with -Dkraftwerk.benchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kraftwerk.benchmark", matches = "true")
+    void addPrefixes_benchmark() {
+        for (int variableCount : List.of(100, 300, 600)) {
+            List<Structured.Component> components = new ArrayList<>();
+            components.add(new Structured.Component("ID", String.class, Dataset.Role.IDENTIFIER));
+            MetadataModel metadata = new MetadataModel();
+            metadata.putGroup(new Group("LOOP", metadata.getRootGroup().getName()));
+            for (int variable = 0; variable < variableCount; variable++) {
+                components.add(new Structured.Component("VAR" + variable, Long.class, Dataset.Role.MEASURE));
+                metadata.getVariables().putVariable(new Variable("VAR" + variable, metadata.getGroup("LOOP"), VariableType.INTEGER));
+            }
+            List<List<Object>> rows = new ArrayList<>();
+            for (int row = 0; row < 1000; row++) {
+                List<Object> values = new ArrayList<>();
+                values.add("T" + row);
+                for (int variable = 0; variable < variableCount; variable++) {
+                    values.add((long) variable);
+                }
+                rows.add(values);
+            }
+            KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+            VtlBindings vtlBindings = new VtlBindings();
+            vtlBindings.put("TEST", new InMemoryDataset(rows, components));
+
+            long start = System.nanoTime();
+            new GroupProcessing(
+                    vtlBindings, metadata, fileUtilsInterface, kraftwerkExecutionContext
+            ).applyAutomatedVtlInstructions("TEST", kraftwerkExecutionContext);
+            log.info("Group prefixes of {} variables x 1000 rows in {} ms", variableCount, (System.nanoTime() - start) / 1_000_000);
+            Assertions.assertThat(vtlBindings.getDataset("TEST").getDataStructure()).hasSize(variableCount + 1);
+        }
+    }
 }
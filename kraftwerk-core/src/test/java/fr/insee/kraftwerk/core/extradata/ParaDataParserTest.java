@@ -3,6 +3,7 @@ package fr.insee.kraftwerk.core.extradata;
 import fr.insee.kraftwerk.core.TestConstants;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.exceptions.NullException;
+import fr.insee.kraftwerk.core.extradata.paradata.ParaDataUE;
 import fr.insee.kraftwerk.core.extradata.paradata.Paradata;
 import fr.insee.kraftwerk.core.extradata.paradata.ParadataParser;
 import fr.insee.bpm.metadata.model.MetadataModel;
@@ -102,6 +103,42 @@ class ParaDataParserTest {
 		Assertions.assertEquals("1641920202155", Long.valueOf(paradata.getParadataUE("RR100144").getSurveyValidationDateTimeStamp()).toString());
 	}
 
+	@Test
+	void parallelParsing_sameResultAsSequential() throws NullException {
+		FileSystemImpl fileSystem = new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY);
+		SurveyRawData sequentialData = new SurveyRawData();
+		sequentialData.setMetadataModel(new MetadataModel());
+		addIdToTest(sequentialData, "PL1100000101");
+		addIdToTest(sequentialData, "RR100144");
+		Paradata sequentialParadata = new Paradata(Paths.get(TestConstants.UNIT_TESTS_DIRECTORY + "/paradata"));
+		new ParadataParser(fileSystem).parseParadata(sequentialParadata, sequentialData);
+
+		SurveyRawData parallelData = new SurveyRawData();
+		parallelData.setMetadataModel(new MetadataModel());
+		addIdToTest(parallelData, "PL1100000101");
+		addIdToTest(parallelData, "RR100144");
+		Paradata parallelParadata = new Paradata(Paths.get(TestConstants.UNIT_TESTS_DIRECTORY + "/paradata"));
+		new ParadataParser(fileSystem, 4).parseParadata(parallelParadata, parallelData);
+
+		Assertions.assertEquals(2, parallelParadata.getListParadataUE().size());
+		for (int i = 0; i < sequentialParadata.getListParadataUE().size(); i++) {
+			ParaDataUE sequentialParaDataUE = sequentialParadata.getListParadataUE().get(i);
+			ParaDataUE parallelParaDataUE = parallelParadata.getListParadataUE().get(i);
+			Assertions.assertEquals(sequentialParaDataUE.getIdentifier(), parallelParaDataUE.getIdentifier());
+			Assertions.assertEquals(sequentialParaDataUE.createLengthSessionsVariable(), parallelParaDataUE.createLengthSessionsVariable());
+			Assertions.assertEquals(sequentialParaDataUE.createLengthOrchestratorsVariable(), parallelParaDataUE.createLengthOrchestratorsVariable());
+			// Only the summary is kept once integrated
+			Assertions.assertTrue(parallelParaDataUE.getEvents().isEmpty());
+		}
+		for (String identifier : List.of("PL1100000101", "RR100144")) {
+			QuestionnaireData sequentialQuestionnaire = sequentialData.getQuestionnaire(identifier);
+			QuestionnaireData parallelQuestionnaire = parallelData.getQuestionnaire(identifier);
+			for (String variableName : sequentialQuestionnaire.getAnswers().getVariableNames()) {
+				Assertions.assertEquals(sequentialQuestionnaire.getValue(variableName), parallelQuestionnaire.getValue(variableName));
+			}
+		}
+	}
+
 	@Test
 	void shouldNotThrowExceptionWhenParadataFileNonParsable() {
 		SurveyRawData srd = new SurveyRawData();
@@ -15,8 +15,10 @@ import fr.insee.kraftwerk.core.rawdata.QuestionnaireData;
 import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -25,8 +27,10 @@ import java.util.Map;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@Slf4j
 class ReportingDataParserTest {
 
     private ReportingDataParser reportingDataParser;
@@ -114,4 +118,43 @@ class ReportingDataParserTest {
 
         assertEquals(2, reportingDataParser.countMaxStates(reportingData));
     }
+
+    @Test
+    void testGetReportingDataUE() {
+        ReportingDataUE reportingDataUE = new ReportingDataUE("Q654321");
+        reportingData.addReportingDataUE(reportingDataUE);
+
+        assertSame(reportingDataUE, reportingData.getReportingDataUE("Q654321"));
+        assertEquals("INT001", reportingData.getReportingDataUE("Q123456").getInterviewerId());
+        assertNull(reportingData.getReportingDataUE("UNKNOWN"));
+        assertTrue(reportingData.containsReportingDataUE("Q654321"));
+    }
+
+    /**
+     * Integration of reporting data for 10 000, 100 000 and 1 000 000 units,
+     * run with -Dkraftwerk.benchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kraftwerk.benchmark", matches = "true")
+    void benchmarkIntegrateReportingDataIntoUE() {
+        for (int unitCount : new int[]{10_000, 100_000, 1_000_000}) {
+            SurveyRawData benchmarkData = new SurveyRawData();
+            benchmarkData.setMetadataModel(new MetadataModel());
+            ReportingData benchmarkReportingData = new ReportingData(Path.of("filepath"), new ArrayList<>());
+            for (int i = 0; i < unitCount; i++) {
+                QuestionnaireData questionnaire = new QuestionnaireData(benchmarkData.getColumns());
+                questionnaire.setIdentifier("ID" + i);
+                benchmarkData.addQuestionnaire(questionnaire);
+                ReportingDataUE reportingDataUE = new ReportingDataUE("ID" + (unitCount - 1 - i));
+                reportingDataUE.setInterviewerId("INT" + i);
+                benchmarkReportingData.addReportingDataUE(reportingDataUE);
+            }
+
+            long start = System.nanoTime();
+            reportingDataParser.integrateReportingDataIntoUE(benchmarkData, benchmarkReportingData, false, null);
+            log.info("{} units : reporting data integrated in {} ms", unitCount, (System.nanoTime() - start) / 1_000_000);
+
+            assertEquals(unitCount, benchmarkData.getQuestionnairesCount());
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package fr.insee.kraftwerk.core.metadata;
+
+import fr.insee.bpm.exceptions.MetadataParserException;
+import fr.insee.bpm.metadata.model.MetadataModel;
+import fr.insee.bpm.metadata.model.Variable;
+import fr.insee.bpm.metadata.model.VariableType;
+import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.dataprocessing.GroupProcessing;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import fr.insee.kraftwerk.core.vtl.VtlBindings;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataCacheTest {
+
+    @TempDir
+    Path cacheDirectory;
+
+    private static final byte[] DDI = "<DDIInstance/>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LUNATIC = "{}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void computeKey_contentAddressed() {
+        String key = MetadataCache.computeKey("KIND", DDI, LUNATIC);
+
+        assertEquals(key, MetadataCache.computeKey("KIND", DDI.clone(), LUNATIC.clone()));
+        assertNotEquals(key, MetadataCache.computeKey("OTHER_KIND", DDI, LUNATIC));
+        assertNotEquals(key, MetadataCache.computeKey("KIND", DDI, null));
+        assertNotEquals(MetadataCache.computeKey("KIND", DDI, null), MetadataCache.computeKey("KIND", DDI, new byte[0]));
+        assertNotEquals(key, MetadataCache.computeKey("KIND", LUNATIC, DDI));
+    }
+
+    @Test
+    void getMetadata_disabled_alwaysRead() throws MetadataParserException {
+        MetadataCache metadataCache = new MetadataCache(0, cacheDirectory);
+        AtomicInteger readCount = new AtomicInteger();
+        String key = MetadataCache.computeKey("KIND", DDI);
+
+        metadataCache.getMetadata(key, () -> createMetadataModel(readCount));
+        metadataCache.getMetadata(key, () -> createMetadataModel(readCount));
+
+        assertFalse(metadataCache.isEnabled());
+        assertEquals(2, readCount.get());
+    }
+
+    @Test
+    void getMetadata_cachedCopy() throws MetadataParserException {
+        AtomicInteger readCount = new AtomicInteger();
+        String key = MetadataCache.computeKey("KIND", DDI, LUNATIC);
+        MetadataCache metadataCache = new MetadataCache(2, cacheDirectory);
+
+        MetadataModel firstModel = metadataCache.getMetadata(key, () -> createMetadataModel(readCount));
+        firstModel.getVariables().putVariable(new Variable("ADDED", firstModel.getRootGroup(), VariableType.STRING));
+        MetadataModel secondModel = metadataCache.getMetadata(key, () -> createMetadataModel(readCount));
+
+        assertEquals(1, readCount.get());
+        assertNotSame(firstModel, secondModel);
+        assertTrue(secondModel.getVariables().hasVariable("FOO"));
+        assertFalse(secondModel.getVariables().hasVariable("ADDED"));
+
+        // A new cache on the same directory doesn't read the specification files again
+        MetadataModel persistedModel = new MetadataCache(2, cacheDirectory)
+                .getMetadata(key, () -> createMetadataModel(readCount));
+        assertEquals(1, readCount.get());
+        assertTrue(persistedModel.getVariables().hasVariable("FOO"));
+        assertEquals(VariableType.STRING, persistedModel.getVariables().getVariable("FOO").getType());
+        assertTrue(Files.exists(cacheDirectory.resolve(key + ".json")));
+    }
+
+    @Test
+    @EnabledOnOs({OS.LINUX, OS.MAC})
+    void cacheDirectory_createdForOwnerOnly() throws IOException {
+        Path newDirectory = cacheDirectory.resolve("metadata-cache");
+
+        MetadataCache metadataCache = new MetadataCache(2, newDirectory);
+
+        assertEquals(newDirectory, metadataCache.getCacheDirectory());
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(newDirectory));
+    }
+
+    @Test
+    @EnabledOnOs({OS.LINUX, OS.MAC})
+    void cacheDirectory_writableByOthers_memoryOnly() throws IOException, MetadataParserException {
+        Files.setPosixFilePermissions(cacheDirectory, PosixFilePermissions.fromString("rwxrwxrwx"));
+        AtomicInteger readCount = new AtomicInteger();
+        String key = MetadataCache.computeKey("KIND", DDI);
+
+        MetadataCache metadataCache = new MetadataCache(2, cacheDirectory);
+        metadataCache.getMetadata(key, () -> createMetadataModel(readCount));
+        metadataCache.getMetadata(key, () -> createMetadataModel(readCount));
+
+        assertNull(metadataCache.getCacheDirectory());
+        assertEquals(1, readCount.get());
+        assertFalse(Files.exists(cacheDirectory.resolve(key + ".json")));
+    }
+
+    @Test
+    void getMetadata_leastRecentlyUsedEvicted() throws MetadataParserException {
+        AtomicInteger readCount = new AtomicInteger();
+        MetadataCache metadataCache = new MetadataCache(1, null);
+        String firstKey = MetadataCache.computeKey("KIND", DDI);
+        String secondKey = MetadataCache.computeKey("KIND", LUNATIC);
+
+        metadataCache.getMetadata(firstKey, () -> createMetadataModel(readCount));
+        metadataCache.getMetadata(secondKey, () -> createMetadataModel(readCount));
+        metadataCache.getMetadata(firstKey, () -> createMetadataModel(readCount));
+
+        assertEquals(3, readCount.get());
+    }
+
+    @Test
+    void getMetadata_ddi_cachedModelSameAsParsed() throws IOException, MetadataParserException, KraftwerkException {
+        Path ddiPath = Path.of(TestConstants.UNIT_TESTS_DIRECTORY, "ddi", "ddi-simpsons-v1.xml");
+        byte[] ddiContent = Files.readAllBytes(ddiPath);
+        MetadataModel parsedModel = MetadataUtils.getMetadataFromDDIAndLunatic(ddiPath.toString(), ddiContent, null,
+                false, MetadataCache.DISABLED);
+        MetadataCache metadataCache = new MetadataCache(2, cacheDirectory);
+        MetadataUtils.getMetadataFromDDIAndLunatic(ddiPath.toString(), ddiContent, null, false, metadataCache);
+        MetadataModel cachedModel = MetadataUtils.getMetadataFromDDIAndLunatic(ddiPath.toString(), ddiContent, null,
+                false, metadataCache);
+
+        // Variables
+        Set<String> variableNames = new TreeSet<>(parsedModel.getVariables().getVariableNames());
+        assertFalse(variableNames.isEmpty());
+        assertEquals(variableNames, new TreeSet<>(cachedModel.getVariables().getVariableNames()));
+        for (String variableName : variableNames) {
+            Variable parsedVariable = parsedModel.getVariables().getVariable(variableName);
+            Variable cachedVariable = cachedModel.getVariables().getVariable(variableName);
+            assertEquals(parsedVariable.getType(), cachedVariable.getType(), variableName);
+            assertEquals(parsedVariable.getGroupName(), cachedVariable.getGroupName(), variableName);
+            assertEquals(parsedModel.getFullyQualifiedName(variableName), cachedModel.getFullyQualifiedName(variableName));
+        }
+        // Groups
+        Set<String> groupNames = new TreeSet<>(parsedModel.getGroups().keySet());
+        assertTrue(groupNames.size() > 1);
+        assertEquals(groupNames, new TreeSet<>(cachedModel.getGroups().keySet()));
+        for (String groupName : groupNames) {
+            assertEquals(parsedModel.getGroup(groupName).getParentName(), cachedModel.getGroup(groupName).getParentName());
+        }
+        assertEquals(parsedModel.getSubGroupNames(), cachedModel.getSubGroupNames());
+        // Group prefixes step
+        assertEquals(getGroupPrefixedNames(parsedModel), getGroupPrefixedNames(cachedModel));
+    }
+
+    /** Variable names of a dataset with all the variables of the model, after the group prefixes step */
+    private static Set<String> getGroupPrefixedNames(MetadataModel metadataModel) throws KraftwerkException {
+        List<Structured.Component> components = new ArrayList<>();
+        components.add(new Structured.Component("ID", String.class, Dataset.Role.IDENTIFIER));
+        for (String variableName : metadataModel.getVariables().getVariableNames()) {
+            components.add(new Structured.Component(variableName, String.class, Dataset.Role.MEASURE));
+        }
+        VtlBindings vtlBindings = new VtlBindings();
+        vtlBindings.put("TEST", new InMemoryDataset(new ArrayList<>(), components));
+        KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+        new GroupProcessing(vtlBindings, metadataModel, new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY),
+                kraftwerkExecutionContext).applyVtlTransformations("TEST", null, kraftwerkExecutionContext);
+        assertTrue(kraftwerkExecutionContext.getErrors().isEmpty());
+        return new TreeSet<>(vtlBindings.getDataset("TEST").getDataStructure().keySet());
+    }
+
+    private static MetadataModel createMetadataModel(AtomicInteger readCount) {
+        readCount.incrementAndGet();
+        MetadataModel metadataModel = new MetadataModel();
+        metadataModel.getVariables().putVariable(new Variable("FOO", metadataModel.getRootGroup(), VariableType.STRING));
+        return metadataModel;
+    }
+
+}
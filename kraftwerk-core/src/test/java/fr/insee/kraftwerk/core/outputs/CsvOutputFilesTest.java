@@ -10,6 +10,7 @@ import fr.insee.kraftwerk.core.encryption.EncryptionUtilsStub;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.inputs.UserInputsFile;
 import fr.insee.kraftwerk.core.outputs.csv.CsvOutputFiles;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.SqlUtils;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
@@ -31,6 +32,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -123,6 +125,84 @@ class CsvOutputFilesTest {
 		Assertions.assertNotEquals(0, f.length());
 	}
 
+	@Test
+	@Order(4)
+	void testWriteCsv_nullAndBooleanValues() throws KraftwerkException, IOException, SQLException {
+		Dataset dataset = new InMemoryDataset(
+				List.of(
+						Arrays.asList("ID1", "foo", true, 1.5),
+						Arrays.asList("ID2", null, false, null),
+						Arrays.asList("ID3", "", null, 2.0)
+				),
+				List.of(
+						new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+						new Structured.Component("FOO_STR", String.class, Dataset.Role.MEASURE),
+						new Structured.Component("FOO_BOOL", Boolean.class, Dataset.Role.MEASURE),
+						new Structured.Component("FOO_NUM", Double.class, Dataset.Role.MEASURE)
+				));
+		VtlBindings vtlBindings = new VtlBindings();
+		vtlBindings.put("TYPES", dataset);
+		try (Connection typesDatabase = SqlUtils.openConnection()) {
+			SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, typesDatabase.createStatement(), TestConstants.getKraftwerkExecutionContext());
+			OutputFiles typesOutputFiles = new CsvOutputFiles(Paths.get(TestConstants.UNIT_TESTS_DUMP),
+					vtlBindings,
+					List.of(),
+					typesDatabase.createStatement(),
+					fileUtilsInterface,
+					TestConstants.getKraftwerkExecutionContext(),
+					new EncryptionUtilsStub());
+			Files.createDirectories(typesOutputFiles.getOutputFolder());
+
+			typesOutputFiles.writeOutputTables();
+
+			Path typesPath = typesOutputFiles.getOutputFolder()
+					.resolve(typesOutputFiles.outputFileName("TYPES", typesOutputFiles.getKraftwerkExecutionContext()));
+			List<String> lines = Files.readAllLines(typesPath);
+			Assertions.assertEquals(List.of(
+					"\"interrogationId\";\"FOO_STR\";\"FOO_BOOL\";\"FOO_NUM\"",
+					"\"ID1\";\"foo\";\"1\";\"1.5\"",
+					"\"ID2\";\"\";\"0\";\"\"",
+					"\"ID3\";\"\";\"\";\"2.0\""
+			), lines);
+		}
+	}
+
+	@Test
+	@Order(5)
+	void testWriteCsv_parallel() throws KraftwerkException, SQLException {
+		VtlBindings vtlBindings = new VtlBindings();
+		List<String> datasetNames = List.of(Constants.ROOT_GROUP_NAME, "LOOP1", "LOOP2", "LOOP3");
+		for (String datasetName : datasetNames) {
+			vtlBindings.put(datasetName, new InMemoryDataset(
+					List.of(List.of("ID1", datasetName)),
+					List.of(
+							new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+							new Structured.Component("FOO_STR", String.class, Dataset.Role.MEASURE)
+					)));
+		}
+		KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+		kraftwerkExecutionContext.setExportParallelism(3);
+		try (Connection parallelDatabase = SqlUtils.openConnection()) {
+			SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, parallelDatabase.createStatement(), kraftwerkExecutionContext);
+			OutputFiles parallelOutputFiles = new CsvOutputFiles(Paths.get(TestConstants.UNIT_TESTS_DUMP),
+					vtlBindings,
+					List.of(),
+					parallelDatabase.createStatement(),
+					fileUtilsInterface,
+					kraftwerkExecutionContext,
+					new EncryptionUtilsStub());
+
+			parallelOutputFiles.writeOutputTables();
+
+			for (String datasetName : datasetNames) {
+				String outputFileName = parallelOutputFiles.outputFileName(datasetName, kraftwerkExecutionContext);
+				assertTrue(parallelOutputFiles.getOutputFolder().resolve(outputFileName).toFile().exists());
+				assertTrue(kraftwerkExecutionContext.getExportDurationByTableMap().containsKey(outputFileName));
+				Assertions.assertEquals(1, kraftwerkExecutionContext.getLineCountByTableMap().get(datasetName));
+			}
+		}
+	}
+
 	@AfterAll
     static void closeConnection() throws SQLException {
 		database.close();
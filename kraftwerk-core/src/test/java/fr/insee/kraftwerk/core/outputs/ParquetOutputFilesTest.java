@@ -10,6 +10,7 @@ import fr.insee.kraftwerk.core.encryption.EncryptionUtilsStub;
 import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.inputs.UserInputsFile;
 import fr.insee.kraftwerk.core.outputs.parquet.ParquetOutputFiles;
+import fr.insee.kraftwerk.core.outputs.parquet.ParquetOutputSettings;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.SqlUtils;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
@@ -23,16 +24,21 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -128,6 +134,49 @@ class ParquetOutputFilesTest {
 		Assertions.assertNotEquals(0, f.length());
 	}
 
+	@Test
+	void writePartitionedParquetTest(@TempDir Path tempDirectory) throws KraftwerkException, IOException, SQLException {
+		KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+		// Files of at most 2 rows, compressed with zstd
+		kraftwerkExecutionContext.setParquetOutputSettings(new ParquetOutputSettings(true, "zstd", 9, 1, 2));
+		ParquetOutputFiles partitionedOutputFiles = new ParquetOutputFiles(
+				tempDirectory.resolve("CAMPAIGN").resolve("out"),
+				outputFiles.getVtlBindings(),
+				testUserInputs.getModes(),
+				testDatabase,
+				new FileSystemImpl(tempDirectory.toString()),
+				kraftwerkExecutionContext,
+				new EncryptionUtilsStub());
+
+		partitionedOutputFiles.writeOutputTables();
+		partitionedOutputFiles.writeImportScripts(new HashMap<>(), kraftwerkExecutionContext);
+
+		Path partitionDirectory = partitionedOutputFiles.getOutputFolder()
+				.resolve(partitionedOutputFiles.outputDirectoryName(Constants.ROOT_GROUP_NAME))
+				.resolve(ParquetOutputFiles.EXTRACTION_DATE_PARTITION_NAME + "="
+						+ kraftwerkExecutionContext.getExecutionDateTime().toLocalDate());
+		try (Stream<Path> partitionFiles = Files.list(partitionDirectory)) {
+			Assertions.assertEquals(2, partitionFiles.count());
+		}
+		String partitionFilesPattern = partitionedOutputFiles.getOutputFolder()
+				.resolve(partitionedOutputFiles.outputDirectoryName(Constants.ROOT_GROUP_NAME)) + "/**/*.parquet";
+		try (ResultSet resultSet = testDatabase.executeQuery(
+				"SELECT count(*), CAST(max(EXTRACTION_DATE) AS VARCHAR) FROM read_parquet('%s', hive_partitioning = true)"
+						.formatted(partitionFilesPattern))) {
+			Assertions.assertTrue(resultSet.next());
+			Assertions.assertEquals(3, resultSet.getLong(1));
+			Assertions.assertEquals(kraftwerkExecutionContext.getExecutionDateTime().toLocalDate().toString(),
+					resultSet.getString(2));
+		}
+		try (ResultSet resultSet = testDatabase.executeQuery(
+				"SELECT DISTINCT compression FROM parquet_metadata('%s')".formatted(partitionFilesPattern))) {
+			Assertions.assertTrue(resultSet.next());
+			Assertions.assertEquals("ZSTD", resultSet.getString(1));
+		}
+		Assertions.assertTrue(Files.readString(partitionedOutputFiles.getOutputFolder().resolve("import_parquet.R"))
+				.contains("arrow::open_dataset(\"CAMPAIGN_RACINE\""));
+	}
+
 	@AfterAll
     static void closeConnection() throws SQLException {
 		testDatabase.getConnection().close();
@@ -9,10 +9,14 @@ import fr.insee.kraftwerk.core.outputs.scripts.ImportScriptTest;
 import fr.insee.kraftwerk.core.rawdata.GroupData;
 import fr.insee.kraftwerk.core.rawdata.QuestionnaireData;
 import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -21,6 +25,7 @@ import java.util.List;
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LunaticXmlDataParserTest {
 
@@ -60,6 +65,32 @@ class LunaticXmlDataParserTest {
 		}
 	}
 
+	@Test
+	void parseLunaticDataFolder_parallel_sameDataAsSequential() throws NullException {
+		Path dataPath = Paths.get(dataSamplesFolder + "/lunatic_xml/fake-multiple-files");
+		KraftwerkExecutionContext sequentialContext = TestConstants.getKraftwerkExecutionContext();
+		SurveyRawData sequentialData = new SurveyRawData("TEST");
+		sequentialData.setMetadataModel(ImportScriptTest.createVariablesMap_oneLevel());
+		new LunaticXmlDataParser(sequentialData, fileUtilsInterface, false).parseSurveyData(dataPath, sequentialContext);
+		KraftwerkExecutionContext parallelContext = TestConstants.getKraftwerkExecutionContext();
+		parallelContext.setParseParallelism(4);
+		SurveyRawData parallelData = new SurveyRawData("TEST");
+		parallelData.setMetadataModel(ImportScriptTest.createVariablesMap_oneLevel());
+		new LunaticXmlDataParser(parallelData, fileUtilsInterface, false).parseSurveyData(dataPath, parallelContext);
+
+		assertEquals(sequentialData.getIdSurveyUnits(), parallelData.getIdSurveyUnits());
+		assertEquals(sequentialContext.getOkFileNames(), parallelContext.getOkFileNames());
+		assertEquals(new ArrayList<>(sequentialData.getMetadataModel().getVariables().getVariableNames()),
+				new ArrayList<>(parallelData.getMetadataModel().getVariables().getVariableNames()));
+		for (int i = 0; i < sequentialData.getQuestionnairesCount(); i++) {
+			QuestionnaireData sequentialQuestionnaire = sequentialData.getQuestionnaires().get(i);
+			QuestionnaireData parallelQuestionnaire = parallelData.getQuestionnaires().get(i);
+			for (String variableName : sequentialQuestionnaire.getAnswers().getVariableNames()) {
+				assertEquals(sequentialQuestionnaire.getValue(variableName), parallelQuestionnaire.getValue(variableName));
+			}
+		}
+	}
+
 	@Test
 	void parseLunaticXml_rootOnly() throws NullException {
 		//
@@ -142,4 +173,80 @@ class LunaticXmlDataParserTest {
 		assertEquals(1, data.getQuestionnairesCount());
 	}
 
-}
\ No newline at end of file
+	@Test
+	void parseLunaticXml_streaming_oneLevel() throws NullException {
+		//
+		SurveyRawData data = new SurveyRawData("TEST");
+		data.setMetadataModel(ImportScriptTest.createVariablesMap_oneLevel());
+		Path dataPath = Paths.get(dataSamplesFolder + "/lunatic_xml/fake-lunatic-data-1.xml");
+		LunaticXmlDataParser parser = new LunaticXmlDataParser(data, fileUtilsInterface, true);
+		parser.parseSurveyData(dataPath,null);
+
+		//
+		assertEquals(5, data.getQuestionnairesCount());
+		//
+		checkRootContent(data);
+		checkLevelOneContent(data);
+	}
+
+	@Test
+	void parseLunaticXml_streaming_sameDataAsDocument() throws NullException {
+		for (String fileName : List.of("fake-lunatic-data-1.xml", "fake-lunatic-data-2.xml", "fake-lunatic-data-3.xml")) {
+			Path dataPath = Paths.get(dataSamplesFolder + "/lunatic_xml/" + fileName);
+			SurveyRawData documentData = new SurveyRawData("TEST");
+			documentData.setMetadataModel(ImportScriptTest.createVariablesMap_oneLevel());
+			new LunaticXmlDataParser(documentData, fileUtilsInterface, false).parseSurveyData(dataPath, null);
+			SurveyRawData streamingData = new SurveyRawData("TEST");
+			streamingData.setMetadataModel(ImportScriptTest.createVariablesMap_oneLevel());
+			new LunaticXmlDataParser(streamingData, fileUtilsInterface, true).parseSurveyData(dataPath, null);
+
+			assertEquals(documentData.getIdSurveyUnits(), streamingData.getIdSurveyUnits());
+			assertEquals(documentData.getQuestionnairesCount(), streamingData.getQuestionnairesCount());
+			for (int i = 0; i < documentData.getQuestionnairesCount(); i++) {
+				QuestionnaireData documentQuestionnaire = documentData.getQuestionnaires().get(i);
+				QuestionnaireData streamingQuestionnaire = streamingData.getQuestionnaires().get(i);
+				assertEquals(documentQuestionnaire.getIdentifier(), streamingQuestionnaire.getIdentifier());
+				for (String variableName : documentQuestionnaire.getAnswers().getVariableNames()) {
+					assertEquals(documentQuestionnaire.getValue(variableName), streamingQuestionnaire.getValue(variableName));
+				}
+				for (String groupName : documentQuestionnaire.getAnswers().getSubGroupNames()) {
+					GroupData documentGroup = documentQuestionnaire.getAnswers().getSubGroup(groupName);
+					GroupData streamingGroup = streamingQuestionnaire.getAnswers().getSubGroup(groupName);
+					assertEquals(documentGroup.getInstanceIds(), streamingGroup.getInstanceIds());
+					for (String instanceId : documentGroup.getInstanceIds()) {
+						for (String variableName : documentGroup.getInstance(instanceId).getVariableNames()) {
+							assertEquals(documentGroup.getInstance(instanceId).getValue(variableName),
+									streamingGroup.getInstance(instanceId).getValue(variableName));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void parseLunaticXml_streaming_truncatedFile(@TempDir Path tempDirectory) throws IOException, NullException {
+		// File cut after its first survey unit
+		String content = Files.readString(Paths.get(dataSamplesFolder + "/lunatic_xml/fake-lunatic-data-1.xml"));
+		Path dataPath = tempDirectory.resolve("truncated-lunatic-data.xml");
+		Files.writeString(dataPath, content.substring(0, content.indexOf("</SurveyUnit>") + "</SurveyUnit>".length()));
+
+		SurveyRawData data = new SurveyRawData("TEST");
+		data.setMetadataModel(ImportScriptTest.createVariablesMap_oneLevel());
+		new LunaticXmlDataParser(data, fileUtilsInterface, true).parseSurveyData(dataPath, null);
+
+		// Nothing is added from a malformed file
+		assertEquals(0, data.getQuestionnairesCount());
+		assertTrue(data.getIdSurveyUnits().isEmpty());
+	}
+
+	@Test
+	void readXmlFile_streaming_notFound() {
+		SurveyRawData data = new SurveyRawData("TEST");
+		LunaticXmlDataParser parser = new LunaticXmlDataParser(data, fileUtilsInterface, true);
+
+		parser.parseDataFile(Path.of("notfound.xml"));
+		assertEquals(new ArrayList<QuestionnaireData>(), data.getQuestionnaires());
+	}
+
+}
@@ -0,0 +1,56 @@
+package fr.insee.kraftwerk.core.rawdata;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupColumnsTest {
+
+    private GroupColumns groupColumns;
+
+    @BeforeEach
+    void setUp() {
+        groupColumns = new RawDataColumns().getGroupColumns("TestGroup");
+    }
+
+    @Test
+    void testGetOrCreateIndex() {
+        assertEquals(-1, groupColumns.indexOf("var1"));
+        assertEquals(0, groupColumns.getOrCreateIndex("var1"));
+        assertEquals(1, groupColumns.getOrCreateIndex("var2"));
+        assertEquals(0, groupColumns.getOrCreateIndex("var1"));
+        assertEquals(1, groupColumns.indexOf("var2"));
+        assertEquals(2, groupColumns.size());
+        assertEquals("var2", groupColumns.getVariableName(1));
+    }
+
+    @Test
+    void testSameColumnsForSameGroupName() {
+        RawDataColumns rawDataColumns = groupColumns.getRawDataColumns();
+        assertSame(groupColumns, rawDataColumns.getGroupColumns("TestGroup"));
+        assertNotSame(groupColumns, rawDataColumns.getGroupColumns("OtherGroup"));
+    }
+
+    @Test
+    void testGetInstanceId() {
+        assertEquals("TestGroup-01", groupColumns.getInstanceId(0));
+        assertEquals("TestGroup-10", groupColumns.getInstanceId(9));
+        assertSame(groupColumns.getInstanceId(3), groupColumns.getInstanceId(3));
+    }
+
+    @Test
+    void testEncode_dictionaryLimit() {
+        int index = groupColumns.getOrCreateIndex("var1");
+        String value = groupColumns.encode(index, new String("A"));
+        assertSame(value, groupColumns.encode(index, new String("A")));
+
+        for (int i = 0; i <= GroupColumns.MAX_DICTIONARY_SIZE; i++) {
+            groupColumns.encode(index, String.valueOf(i));
+        }
+        // Too many distinct values: the column is no longer dictionary encoded
+        String otherValue = new String("A");
+        assertSame(otherValue, groupColumns.encode(index, otherValue));
+    }
+
+}
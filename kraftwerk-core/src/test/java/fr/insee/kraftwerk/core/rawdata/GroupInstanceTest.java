@@ -3,6 +3,8 @@ package fr.insee.kraftwerk.core.rawdata;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -47,6 +49,44 @@ class GroupInstanceTest {
         assertTrue(variableNames.contains("var2"));
     }
 
+    @Test
+    void testNullValue() {
+        groupInstance.putValue("var1", null);
+
+        assertNull(groupInstance.getValue("var1"));
+        assertNull(groupInstance.getValue("var2"));
+        assertTrue(groupInstance.getVariableNames().contains("var1"));
+        assertFalse(groupInstance.getVariableNames().contains("var2"));
+    }
+
+    @Test
+    void testGetVariableNames_view() {
+        Set<String> variableNames = groupInstance.getVariableNames();
+        assertTrue(variableNames.isEmpty());
+
+        groupInstance.putValue("var1", "value1");
+        groupInstance.putValue("var2", "value2");
+
+        assertEquals(2, variableNames.size());
+        assertEquals(List.of("var1", "var2"), new ArrayList<>(variableNames));
+    }
+
+    @Test
+    void testColumnsSharedBetweenInstances() {
+        GroupData subGroup = groupInstance.getSubGroup("SubGroup1");
+        GroupInstance instance1 = subGroup.getInstance(0);
+        GroupInstance instance2 = subGroup.getInstance(1);
+        instance1.putValue("var1", new String("1"));
+        instance2.putValue("var2", "value2");
+        instance2.putValue("var1", new String("1"));
+
+        assertEquals(Set.of("var1"), instance1.getVariableNames());
+        assertEquals(Set.of("var1", "var2"), instance2.getVariableNames());
+        assertNull(instance1.getValue("var2"));
+        // Equal values are stored once
+        assertSame(instance1.getValue("var1"), instance2.getValue("var1"));
+    }
+
     @Test
     void testGetSubGroup() {
         GroupData subGroup = groupInstance.getSubGroup("SubGroup1");
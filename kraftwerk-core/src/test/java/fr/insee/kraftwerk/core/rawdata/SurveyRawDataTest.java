@@ -6,6 +6,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class SurveyRawDataTest {
 
@@ -30,6 +32,39 @@ public class SurveyRawDataTest {
 		assertEquals(2, data.getQuestionnairesCount());
 	}
 
+	@Test
+	void getQuestionnaireTest() {
+		SurveyRawData data = new SurveyRawData();
+		QuestionnaireData q1 = new QuestionnaireData();
+		q1.setIdentifier("ID1");
+		data.addQuestionnaire(q1);
+		assertSame(q1, data.getQuestionnaire("ID1"));
+		assertNull(data.getQuestionnaire("ID2"));
+
+		// Questionnaires added after a lookup, also directly in the list
+		QuestionnaireData q2 = new QuestionnaireData();
+		q2.setIdentifier("ID2");
+		data.getQuestionnaires().add(q2);
+		QuestionnaireData duplicate = new QuestionnaireData();
+		duplicate.setIdentifier("ID1");
+		data.addQuestionnaire(duplicate);
+		assertSame(q2, data.getQuestionnaire("ID2"));
+		assertSame(q1, data.getQuestionnaire("ID1"));
+
+		// Questionnaires removed from the list
+		data.getQuestionnaires().remove(q1);
+		data.getQuestionnaires().remove(q2);
+		assertSame(duplicate, data.getQuestionnaire("ID1"));
+		assertNull(data.getQuestionnaire("ID2"));
+
+		// Questionnaire replaced, the size of the list is the same
+		QuestionnaireData q3 = new QuestionnaireData();
+		q3.setIdentifier("ID3");
+		data.getQuestionnaires().set(0, q3);
+		assertSame(q3, data.getQuestionnaire("ID3"));
+		assertNull(data.getQuestionnaire("ID1"));
+	}
+
 	@Test
 	void surveyRawDataTest(){
 		SurveyRawData testData = createFakeCawiSurveyRawData();
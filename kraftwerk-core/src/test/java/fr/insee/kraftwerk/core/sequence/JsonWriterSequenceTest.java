@@ -0,0 +1,124 @@
+package fr.insee.kraftwerk.core.sequence;
+
+import fr.insee.bpm.metadata.model.Group;
+import fr.insee.bpm.metadata.model.MetadataModel;
+import fr.insee.kraftwerk.core.Constants;
+import fr.insee.kraftwerk.core.data.model.InterrogationId;
+import fr.insee.kraftwerk.core.data.model.Mode;
+import fr.insee.kraftwerk.core.data.model.SurveyUnitUpdateLatest;
+import fr.insee.kraftwerk.core.utils.SqlUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonWriterSequenceTest {
+
+    private static final int INTERROGATION_COUNT = 2500;
+    private static final String LOOP_NAME = "LOOP1";
+
+    private Connection connection;
+    private Statement database;
+    private final List<InterrogationId> interrogationIds = new ArrayList<>();
+    private final List<SurveyUnitUpdateLatest> suLatest = new ArrayList<>();
+    private Map<String, MetadataModel> metadataModelsByMode;
+
+    @BeforeEach
+    void init() throws Exception {
+        connection = SqlUtils.openConnection();
+        database = connection.createStatement();
+        database.execute("CREATE TABLE %s (interrogationId VARCHAR, VAR1 VARCHAR, VAR2 DOUBLE)"
+                .formatted(Constants.ROOT_GROUP_NAME));
+        database.execute("CREATE TABLE %s (interrogationId VARCHAR, %s VARCHAR, VAR3 BIGINT)"
+                .formatted(LOOP_NAME, LOOP_NAME));
+
+        // Synthetic data : one root row and 0 to 2 loop iterations by interrogation
+        for (int i = 0; i < INTERROGATION_COUNT; i++) {
+            String id = "ID%05d".formatted(i);
+            InterrogationId interrogationId = new InterrogationId();
+            interrogationId.setId(id);
+            interrogationIds.add(interrogationId);
+
+            SurveyUnitUpdateLatest surveyUnit = new SurveyUnitUpdateLatest();
+            surveyUnit.setInterrogationId(id);
+            surveyUnit.setUsualSurveyUnitId("UE" + i);
+            surveyUnit.setCollectionInstrumentId("TESTQUEST");
+            surveyUnit.setMode(Mode.WEB);
+            suLatest.add(surveyUnit);
+
+            database.execute("INSERT INTO %s VALUES ('%s', 'value%d', %d.5)"
+                    .formatted(Constants.ROOT_GROUP_NAME, id, i, i));
+            for (int iteration = 1; iteration <= i % 3; iteration++) {
+                database.execute("INSERT INTO %s VALUES ('%s', '%s-0%d', %d)"
+                        .formatted(LOOP_NAME, id, LOOP_NAME, iteration, iteration * i));
+            }
+        }
+        // Interrogation without survey unit : not written
+        InterrogationId unknownId = new InterrogationId();
+        unknownId.setId("UNKNOWN");
+        interrogationIds.add(unknownId);
+
+        MetadataModel metadataModel = new MetadataModel();
+        metadataModel.putGroup(new Group(Constants.ROOT_GROUP_NAME));
+        metadataModel.putGroup(new Group(LOOP_NAME, Constants.ROOT_GROUP_NAME));
+        metadataModelsByMode = Map.of("WEB", metadataModel);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        database.close();
+        connection.close();
+    }
+
+    @Test
+    void setBasedQueries_sameOutputAsQueriesByInterrogation() throws Exception {
+        String outputByInterrogation = writeJson(new JsonWriterSequence(false));
+        String setBasedOutput = writeJson(new JsonWriterSequence(true));
+
+        assertEquals(outputByInterrogation, setBasedOutput);
+        assertTrue(setBasedOutput.contains("\"interrogationId\":\"ID00005\""));
+        assertTrue(setBasedOutput.contains("{\"LOOP1\":\"LOOP1-02\",\"VAR3\":10}"));
+        assertTrue(setBasedOutput.contains("\"VAR2\":5.5"));
+        assertFalse(setBasedOutput.contains("UNKNOWN"));
+    }
+
+    @Test
+    void setBasedQueries_batchOrderKept() throws Exception {
+        // Batch in the reverse order of the tables
+        Collections.reverse(interrogationIds);
+
+        String outputByInterrogation = writeJson(new JsonWriterSequence(false));
+        String setBasedOutput = writeJson(new JsonWriterSequence(true));
+
+        assertEquals(outputByInterrogation, setBasedOutput);
+        assertTrue(setBasedOutput.indexOf("\"interrogationId\":\"ID02499\"")
+                < setBasedOutput.indexOf("\"interrogationId\":\"ID00000\""));
+        assertTrue(setBasedOutput.contains("[{\"LOOP1\":\"LOOP1-01\",\"VAR3\":5},{\"LOOP1\":\"LOOP1-02\",\"VAR3\":10}]"));
+    }
+
+    private String writeJson(JsonWriterSequence jsonWriterSequence) throws Exception {
+        JsonMapper objectMapper = JsonMapper.builder().build();
+        StringWriter stringWriter = new StringWriter();
+        try (JsonGenerator jsonGenerator = objectMapper.createGenerator(stringWriter)) {
+            jsonGenerator.writeStartArray();
+            jsonWriterSequence.tmpJsonOutput(interrogationIds, suLatest, objectMapper, jsonGenerator,
+                    metadataModelsByMode, database);
+            jsonGenerator.writeEndArray();
+        }
+        return stringWriter.toString();
+    }
+
+}
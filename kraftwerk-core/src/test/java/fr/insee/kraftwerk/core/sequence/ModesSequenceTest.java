@@ -0,0 +1,62 @@
+package fr.insee.kraftwerk.core.sequence;
+
+import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.vtl.ErrorVtlTransformation;
+import fr.insee.kraftwerk.core.vtl.VtlBindings;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModesSequenceTest {
+
+	private static final List<String> DATA_MODES = List.of("CAWI", "CAPI", "CATI", "PAPI");
+
+	private static final ModesSequence.ModeProcessing MODE_PROCESSING = (dataMode, vtlBindings, kraftwerkExecutionContext) -> {
+		vtlBindings.put(dataMode, dataMode.toLowerCase());
+		kraftwerkExecutionContext.getOkFileNames().add(dataMode + ".xml");
+		kraftwerkExecutionContext.addUniqueError(new ErrorVtlTransformation(dataMode, "error"));
+		kraftwerkExecutionContext.addUniqueError(new ErrorVtlTransformation("common", "error"));
+	};
+
+	@Test
+	void applyToModes_parallel_sameResultAsSequential() throws KraftwerkException {
+		KraftwerkExecutionContext sequentialContext = TestConstants.getKraftwerkExecutionContext();
+		VtlBindings sequentialBindings = new VtlBindings();
+		new ModesSequence().applyToModes(DATA_MODES, sequentialBindings, sequentialContext, MODE_PROCESSING);
+
+		KraftwerkExecutionContext parallelContext = TestConstants.getKraftwerkExecutionContext();
+		parallelContext.setModeParallelism(4);
+		VtlBindings parallelBindings = new VtlBindings();
+		new ModesSequence().applyToModes(DATA_MODES, parallelBindings, parallelContext, MODE_PROCESSING);
+
+		assertEquals(sequentialBindings, parallelBindings);
+		assertEquals(List.of("CAWI.xml", "CAPI.xml", "CATI.xml", "PAPI.xml"), parallelContext.getOkFileNames());
+		assertEquals(sequentialContext.getOkFileNames(), parallelContext.getOkFileNames());
+		assertEquals(5, parallelContext.getErrors().size());
+		assertEquals(sequentialContext.getErrors(), parallelContext.getErrors());
+	}
+
+	@Test
+	void applyToModes_parallel_exceptionOfMode() {
+		KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+		kraftwerkExecutionContext.setModeParallelism(2);
+		ModesSequence modesSequence = new ModesSequence();
+		VtlBindings vtlBindings = new VtlBindings();
+
+		KraftwerkException exception = assertThrows(KraftwerkException.class, () ->
+				modesSequence.applyToModes(DATA_MODES, vtlBindings, kraftwerkExecutionContext,
+						(dataMode, modeVtlBindings, modeExecutionContext) -> {
+							if ("CATI".equals(dataMode)) {
+								throw new KraftwerkException(400, "CATI failed");
+							}
+						}));
+		assertEquals("CATI failed", exception.getMessage());
+		assertEquals(0, vtlBindings.size());
+	}
+
+}
@@ -0,0 +1,225 @@
+package fr.insee.kraftwerk.core.sequence;
+
+import fr.insee.bpm.metadata.model.MetadataModel;
+import fr.insee.kraftwerk.core.Constants;
+import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
+import fr.insee.kraftwerk.core.inputs.UserInputs;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.SqlUtils;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.kraftwerk.core.vtl.VtlBindings;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.Dataset.Role;
+import fr.insee.vtl.model.InMemoryDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlMultimodalSequenceTest {
+
+    private static final String ROOT_ID = Constants.ROOT_IDENTIFIER_NAME;
+
+    private FileUtilsInterface fileUtilsInterface;
+    private UserInputs userInputs;
+
+    @BeforeEach
+    void setUp() {
+        new File("target/tmp").mkdirs();
+        fileUtilsInterface = new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY) {
+            @Override
+            public Path getTempVtlFilePath(UserInputs inputs, String processName, String datasetName) {
+                return Path.of("target/tmp/" + processName + "_" + datasetName + ".vtl");
+            }
+        };
+        userInputs = new UserInputs(Path.of("inputDir"), fileUtilsInterface);
+    }
+
+    private static Map<String, Dataset> getModeDatasets() {
+        Map<String, Dataset> modeDatasets = new HashMap<>();
+        modeDatasets.put("CAPI", new InMemoryDataset(
+                List.of(
+                        Map.of(ROOT_ID, "T01", "LOOP", "LOOP-01", "FOO", "foo1", "AGE", 31L, "CAPI_SPECIFIC", "capi", "LOOP.FOO1", "foo11"),
+                        Map.of(ROOT_ID, "T01", "LOOP", "LOOP-02", "FOO", "foo1", "AGE", 31L, "CAPI_SPECIFIC", "capi", "LOOP.FOO1", "foo12")
+                ),
+                Map.of(ROOT_ID, String.class, "LOOP", String.class, "FOO", String.class, "AGE", Long.class,
+                        "CAPI_SPECIFIC", String.class, "LOOP.FOO1", String.class),
+                Map.of(ROOT_ID, Role.IDENTIFIER, "LOOP", Role.IDENTIFIER, "FOO", Role.MEASURE, "AGE", Role.MEASURE,
+                        "CAPI_SPECIFIC", Role.MEASURE, "LOOP.FOO1", Role.MEASURE)
+        ));
+        modeDatasets.put("CAWI", new InMemoryDataset(
+                List.of(
+                        Map.of(ROOT_ID, "T02", "LOOP", "LOOP-01", "FOO", "foo2", "AGE", 42L, "CAWI_SPECIFIC", 2L, "LOOP.FOO1", "foo21"),
+                        Map.of(ROOT_ID, "T03", "LOOP", "LOOP-01", "FOO", "foo3", "AGE", 53L, "CAWI_SPECIFIC", 3L, "LOOP.FOO1", "foo31"),
+                        Map.of(ROOT_ID, "T03", "LOOP", "LOOP-02", "FOO", "foo3", "AGE", 53L, "CAWI_SPECIFIC", 3L, "LOOP.FOO1", "foo32")
+                ),
+                Map.of(ROOT_ID, String.class, "LOOP", String.class, "FOO", String.class, "AGE", Long.class,
+                        "CAWI_SPECIFIC", Long.class, "LOOP.FOO1", String.class),
+                Map.of(ROOT_ID, Role.IDENTIFIER, "LOOP", Role.IDENTIFIER, "FOO", Role.MEASURE, "AGE", Role.MEASURE,
+                        "CAWI_SPECIFIC", Role.MEASURE, "LOOP.FOO1", Role.MEASURE)
+        ));
+        modeDatasets.put("PAPI", new InMemoryDataset(
+                List.of(
+                        Map.of(ROOT_ID, "T04", "LOOP", "LOOP-01", "AGE", 64.5, "LOOP.FOO1", "foo41", "LOOP.PAPER_SPECIFIC", "papi"),
+                        Map.of(ROOT_ID, "T04", "LOOP", "LOOP-02", "AGE", 64.5, "LOOP.FOO1", "foo42", "LOOP.PAPER_SPECIFIC", "papi")
+                ),
+                Map.of(ROOT_ID, String.class, "LOOP", String.class, "AGE", Double.class,
+                        "LOOP.FOO1", String.class, "LOOP.PAPER_SPECIFIC", String.class),
+                Map.of(ROOT_ID, Role.IDENTIFIER, "LOOP", Role.IDENTIFIER, "AGE", Role.MEASURE,
+                        "LOOP.FOO1", Role.MEASURE, "LOOP.PAPER_SPECIFIC", Role.MEASURE)
+        ));
+        // Interrogation T01 is also collected in CAPI
+        modeDatasets.put("CATI", new InMemoryDataset(
+                List.of(
+                        Map.of(ROOT_ID, "T01", "LOOP", "LOOP-01", "FOO", "foo5", "AGE", 75L, "CATI_SPECIFIC", "cati", "LOOP.FOO1", "foo51"),
+                        Map.of(ROOT_ID, "T05", "LOOP", "LOOP-01", "FOO", "foo6", "AGE", 86L, "CATI_SPECIFIC", "cati", "LOOP.FOO1", "foo61")
+                ),
+                Map.of(ROOT_ID, String.class, "LOOP", String.class, "FOO", String.class, "AGE", Long.class,
+                        "CATI_SPECIFIC", String.class, "LOOP.FOO1", String.class),
+                Map.of(ROOT_ID, Role.IDENTIFIER, "LOOP", Role.IDENTIFIER, "FOO", Role.MEASURE, "AGE", Role.MEASURE,
+                        "CATI_SPECIFIC", Role.MEASURE, "LOOP.FOO1", Role.MEASURE)
+        ));
+        return modeDatasets;
+    }
+
+    /** Run the VTL multimodal processing and the database insertion, as the main processing does */
+    private void runVtlProcessing(List<String> modes, Statement database) throws KraftwerkException {
+        KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+        VtlBindings vtlBindings = new VtlBindings();
+        Map<String, MetadataModel> metadataModels = new HashMap<>();
+        for (String mode : modes) {
+            vtlBindings.put(mode, getModeDatasets().get(mode));
+            metadataModels.put(mode, new MetadataModel());
+        }
+        new MultimodalSequence().multimodalProcessing(userInputs, vtlBindings, kraftwerkExecutionContext,
+                metadataModels, fileUtilsInterface);
+        new InsertDatabaseSequence().insertDatabaseProcessing(vtlBindings, database, kraftwerkExecutionContext);
+    }
+
+    private VtlBindings runSqlProcessing(List<String> modes, Statement database) throws KraftwerkException {
+        KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+        VtlBindings vtlBindings = new VtlBindings();
+        for (String mode : modes) {
+            vtlBindings.put(mode, getModeDatasets().get(mode));
+        }
+        new SqlMultimodalSequence().multimodalProcessing(userInputs, vtlBindings, kraftwerkExecutionContext,
+                fileUtilsInterface, database);
+        new InsertDatabaseSequence().insertDatabaseProcessing(vtlBindings, database, kraftwerkExecutionContext);
+        return vtlBindings;
+    }
+
+    /** Rows of a table, with the columns in alphabetical order, sorted */
+    private static List<String> getSortedRows(Statement database, String tableName) throws SQLException {
+        List<String> columnNames = new ArrayList<>(SqlUtils.getColumnNames(database, tableName));
+        columnNames.sort(String::compareTo);
+        List<String> rows = new ArrayList<>();
+        try (ResultSet resultSet = SqlUtils.getAllData(database, tableName)) {
+            while (resultSet.next()) {
+                StringBuilder row = new StringBuilder();
+                for (String columnName : columnNames) {
+                    row.append(columnName).append('=').append(resultSet.getObject(columnName)).append(';');
+                }
+                rows.add(row.toString());
+            }
+        }
+        rows.sort(String::compareTo);
+        return rows;
+    }
+
+    private static void assertSameTables(List<String> modes, Statement vtlDatabase, Statement sqlDatabase)
+            throws SQLException {
+        for (String tableName : List.of(Constants.ROOT_GROUP_NAME, "LOOP")) {
+            assertEquals(SqlUtils.getColumnTypes(vtlDatabase, tableName).entrySet().stream().sorted(Map.Entry.comparingByKey()).toList(),
+                    SqlUtils.getColumnTypes(sqlDatabase, tableName).entrySet().stream().sorted(Map.Entry.comparingByKey()).toList(),
+                    "Columns of table " + tableName + " with modes " + modes);
+            assertEquals(getSortedRows(vtlDatabase, tableName), getSortedRows(sqlDatabase, tableName),
+                    "Rows of table " + tableName + " with modes " + modes);
+        }
+    }
+
+    @Test
+    void multimodalProcessing_sameTablesAsVtl() throws Exception {
+        for (List<String> modes : List.of(List.of("CAPI"), List.of("CAPI", "CAWI"), List.of("CAWI", "PAPI"),
+                List.of("CAPI", "CAWI", "PAPI"), List.of("CAPI", "CATI"))) {
+            try (Connection vtlConnection = SqlUtils.openConnection();
+                 Connection sqlConnection = SqlUtils.openConnection();
+                 Statement vtlDatabase = vtlConnection.createStatement();
+                 Statement sqlDatabase = sqlConnection.createStatement()) {
+                runVtlProcessing(modes, vtlDatabase);
+                runSqlProcessing(modes, sqlDatabase);
+
+                assertSameTables(modes, vtlDatabase, sqlDatabase);
+            }
+        }
+    }
+
+    @Test
+    void multimodalProcessing_structuresInBindings() throws Exception {
+        try (Connection connection = SqlUtils.openConnection();
+             Statement database = connection.createStatement()) {
+            VtlBindings vtlBindings = runSqlProcessing(List.of("CAPI", "CAWI"), database);
+
+            // Only the structures of the group datasets are kept, the rows are in the database
+            assertEquals(List.of(Constants.ROOT_GROUP_NAME, "LOOP"), vtlBindings.getDatasetNames().stream().sorted().toList());
+            assertEquals(0, vtlBindings.countRows());
+            assertTrue(vtlBindings.getDataset("LOOP").getDataStructure().containsKey("FOO1"));
+            assertEquals(Role.IDENTIFIER,
+                    vtlBindings.getDataset("LOOP").getDataStructure().get(Constants.MODE_VARIABLE_NAME).getRole());
+            // Work tables and views are dropped
+            assertFalse(SqlUtils.getTableNames(database).stream().anyMatch(name -> name.endsWith("__multimodal")));
+            assertEquals(5, getSortedRows(database, "LOOP").size());
+        }
+    }
+
+    @Test
+    void multimodalProcessing_identifierInTwoModes_otherModeVariablesJoined() throws Exception {
+        try (Connection connection = SqlUtils.openConnection();
+             Statement database = connection.createStatement()) {
+            runSqlProcessing(List.of("CAPI", "CATI"), database);
+
+            // T01 keeps the common variables of its CAPI rows
+            List<String> loopRows = new ArrayList<>();
+            try (ResultSet resultSet = database.executeQuery(
+                    "SELECT \"%s\", \"LOOP\", \"%s\", \"FOO1\" FROM \"LOOP\" ORDER BY 1, 2"
+                            .formatted(ROOT_ID, Constants.MODE_VARIABLE_NAME))) {
+                while (resultSet.next()) {
+                    loopRows.add(String.join(";", resultSet.getString(1), resultSet.getString(2),
+                            resultSet.getString(3), resultSet.getString(4)));
+                }
+            }
+            assertEquals(List.of(
+                    "T01;LOOP-01;CAPI;foo11",
+                    "T01;LOOP-02;CAPI;foo12",
+                    "T05;LOOP-01;CATI;foo61"
+            ), loopRows);
+
+            // and gets back the variable specific to CATI
+            List<String> rootRows = new ArrayList<>();
+            try (ResultSet resultSet = database.executeQuery(
+                    "SELECT DISTINCT \"%s\", \"%s\", \"CAPI_SPECIFIC\", \"CATI_SPECIFIC\" FROM \"%s\" WHERE \"CATI_SPECIFIC\" IS NOT NULL ORDER BY 1"
+                            .formatted(ROOT_ID, Constants.MODE_VARIABLE_NAME, Constants.ROOT_GROUP_NAME))) {
+                while (resultSet.next()) {
+                    rootRows.add(String.join(";", resultSet.getString(1), resultSet.getString(2),
+                            resultSet.getString(3), resultSet.getString(4)));
+                }
+            }
+            assertEquals(List.of("T01;CAPI;capi;cati", "T05;CATI;null;cati"), rootRows);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package fr.insee.kraftwerk.core.utils;
+
+import fr.insee.bpm.metadata.model.VariableType;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import lombok.extern.slf4j.Slf4j;
+import org.duckdb.DuckDBConnection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class DatasetLoaderTest {
+
+    private static final String TABLE_NAME = "TEST_TABLE";
+
+    @Test
+    void load_nativeAndStringValues() throws Exception {
+        try (Connection connection = SqlUtils.openConnection();
+             Statement database = connection.createStatement()) {
+            database.execute("CREATE TABLE %s (interrogationId VARCHAR, NUM DOUBLE, INT BIGINT, BOOL BOOLEAN, TXT VARCHAR, ABSENT VARCHAR)"
+                    .formatted(TABLE_NAME));
+            List<Structured.Component> components = List.of(
+                    new Structured.Component("interrogationId", String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("NUM", Double.class, Dataset.Role.MEASURE),
+                    new Structured.Component("INT", Long.class, Dataset.Role.MEASURE),
+                    new Structured.Component("BOOL", Boolean.class, Dataset.Role.MEASURE),
+                    new Structured.Component("TXT", String.class, Dataset.Role.MEASURE));
+            Dataset dataset = new InMemoryDataset(List.<List<Object>>of(
+                    Arrays.<Object>asList("ID1", 1.5, 2L, true, "line\nbreak"),
+                    Arrays.<Object>asList("ID2", "2.5", "3", "false", ""),
+                    Arrays.<Object>asList("ID3", null, null, null, null)
+            ), components);
+
+            new DatasetLoader(TABLE_NAME, dataset, schema(), SqlUtils.getColumnTypes(database, TABLE_NAME))
+                    .load(connection.unwrap(DuckDBConnection.class));
+
+            try (ResultSet resultSet = database.executeQuery("SELECT * FROM %s ORDER BY interrogationId".formatted(TABLE_NAME))) {
+                assertTrue(resultSet.next());
+                assertEquals(1.5, resultSet.getDouble("NUM"));
+                assertEquals(2L, resultSet.getLong("INT"));
+                assertTrue(resultSet.getBoolean("BOOL"));
+                assertEquals("linebreak", resultSet.getString("TXT"));
+                assertNull(resultSet.getString("ABSENT"));
+                assertTrue(resultSet.next());
+                assertEquals(2.5, resultSet.getDouble("NUM"));
+                assertEquals(3L, resultSet.getLong("INT"));
+                assertFalse(resultSet.getBoolean("BOOL"));
+                assertNull(resultSet.getString("TXT"));
+                assertTrue(resultSet.next());
+                assertNull(resultSet.getObject("NUM"));
+                assertNull(resultSet.getObject("INT"));
+                assertNull(resultSet.getObject("BOOL"));
+                assertFalse(resultSet.next());
+            }
+        }
+    }
+
+    /**
+     * Load of 500 000 rows of 300 columns, run with -Dkraftwerk.benchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kraftwerk.benchmark", matches = "true")
+    void load_benchmark() throws Exception {
+        int rowCount = 500_000;
+        int columnCount = 300;
+        List<Structured.Component> components = new ArrayList<>();
+        LinkedHashMap<String, VariableType> vtlSchema = new LinkedHashMap<>();
+        StringBuilder createTableQuery = new StringBuilder("CREATE TABLE %s (".formatted(TABLE_NAME));
+        for (int column = 0; column < columnCount; column++) {
+            String name = "VAR" + column;
+            VariableType type = switch (column % 3) {
+                case 0 -> VariableType.STRING;
+                case 1 -> VariableType.NUMBER;
+                default -> VariableType.INTEGER;
+            };
+            Class<?> javaType = switch (type) {
+                case NUMBER -> Double.class;
+                case INTEGER -> Long.class;
+                default -> String.class;
+            };
+            components.add(new Structured.Component(name, javaType, Dataset.Role.MEASURE));
+            vtlSchema.put(name, type);
+            createTableQuery.append(column == 0 ? "" : ", ").append(name).append(" ").append(type.getSqlType());
+        }
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            List<Object> values = new ArrayList<>(columnCount);
+            for (int column = 0; column < columnCount; column++) {
+                values.add(switch (column % 3) {
+                    case 0 -> "value" + (row % 100);
+                    case 1 -> row + 0.5;
+                    default -> (long) row;
+                });
+            }
+            rows.add(values);
+        }
+        Dataset dataset = new InMemoryDataset(rows, components);
+
+        try (Connection connection = SqlUtils.openConnection();
+             Statement database = connection.createStatement()) {
+            database.execute(createTableQuery.append(")").toString());
+            long start = System.nanoTime();
+            new DatasetLoader(TABLE_NAME, dataset, vtlSchema, SqlUtils.getColumnTypes(database, TABLE_NAME))
+                    .load(connection.unwrap(DuckDBConnection.class));
+            long durationMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Loaded {} rows x {} columns in {} ms", rowCount, columnCount, durationMillis);
+            try (ResultSet resultSet = database.executeQuery("SELECT COUNT(*) FROM %s".formatted(TABLE_NAME))) {
+                assertTrue(resultSet.next());
+                assertEquals(rowCount, resultSet.getLong(1));
+            }
+        }
+    }
+
+    private static LinkedHashMap<String, VariableType> schema() {
+        LinkedHashMap<String, VariableType> vtlSchema = new LinkedHashMap<>();
+        vtlSchema.put("interrogationId", VariableType.STRING);
+        vtlSchema.put("NUM", VariableType.NUMBER);
+        vtlSchema.put("INT", VariableType.INTEGER);
+        vtlSchema.put("BOOL", VariableType.BOOLEAN);
+        vtlSchema.put("TXT", VariableType.STRING);
+        return vtlSchema;
+    }
+
+}
@@ -0,0 +1,50 @@
+package fr.insee.kraftwerk.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IndexedListTest {
+
+	/** Elements are "key:value" strings */
+	private static IndexedList<String> createList(List<String> elements) {
+		return new IndexedList<>(elements, element -> element.substring(0, element.indexOf(':')));
+	}
+
+	@Test
+	void getByKey_firstElementKept() {
+		IndexedList<String> indexedList = createList(List.of("A:1", "B:1", "A:2"));
+		assertEquals("A:1", indexedList.getByKey("A"));
+		indexedList.add("C:1");
+		assertEquals("C:1", indexedList.getByKey("C"));
+		assertNull(indexedList.getByKey("D"));
+	}
+
+	@Test
+	void getByKey_sameSizeChanges() {
+		IndexedList<String> indexedList = createList(List.of("A:1", "B:1"));
+		assertEquals("A:1", indexedList.getByKey("A"));
+
+		// Replacement
+		indexedList.set(0, "C:1");
+		assertNull(indexedList.getByKey("A"));
+		assertEquals("C:1", indexedList.getByKey("C"));
+
+		// Removal then append
+		indexedList.remove("C:1");
+		indexedList.add("A:2");
+		assertNull(indexedList.getByKey("C"));
+		assertEquals("A:2", indexedList.getByKey("A"));
+
+		// Sort : the first element of a key changes
+		indexedList.add("A:0");
+		assertEquals("A:2", indexedList.getByKey("A"));
+		indexedList.sort(Comparator.naturalOrder());
+		assertEquals("A:0", indexedList.getByKey("A"));
+	}
+
+}
@@ -32,12 +32,13 @@ class KraftwerkExecutionContextTest {
 
         kraftwerkExecutionContext.getOkFileNames().add("TEST.xml");
         kraftwerkExecutionContext.getLineCountByTableMap().put("RACINE",1);
+        kraftwerkExecutionContext.getExportDurationByTableMap().put("TEST_LOOP.parquet",12L);
 
         //WHEN
         String formattedString = kraftwerkExecutionContext.getFormattedString();
 
         //THEN
-        Assertions.assertThat(formattedString).contains("TEST.xml", "RACINE", simpleDateFormat.format(start), simpleDateFormat.format(stop));
+        Assertions.assertThat(formattedString).contains("TEST.xml", "RACINE", "TEST_LOOP.parquet: 12", simpleDateFormat.format(start), simpleDateFormat.format(stop));
     }
 
     @Test
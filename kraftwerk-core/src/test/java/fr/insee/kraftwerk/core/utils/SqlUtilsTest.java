@@ -23,6 +23,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -209,6 +210,112 @@ class SqlUtilsTest {
         }
     }
 
+    @Test
+    void convertVTLBindingTest_deduplication_between_batches() throws SQLException {
+        try(Statement testDatabaseStatement = SqlUtils.openConnection().createStatement()) {
+            List<Structured.Component> rootComponents = List.of(
+                    new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("VAR", String.class, Dataset.Role.MEASURE));
+            List<Structured.Component> loopComponents = List.of(
+                    new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("LOOP", String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("LOOP_VAR", String.class, Dataset.Role.MEASURE));
+
+            //First batch, with a duplicate inside the batch
+            VtlBindings vtlBindings = new VtlBindings();
+            vtlBindings.put(Constants.ROOT_GROUP_NAME, new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID1", "first"), List.of("ID1", "duplicate"), List.of("ID2", "first")), rootComponents));
+            vtlBindings.put("LOOP", new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID1", "LOOP-01", "first"), List.of("ID1", "LOOP-02", "first")), loopComponents));
+            SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, testDatabaseStatement, TestConstants.getKraftwerkExecutionContext());
+
+            //Second batch, with already inserted identifiers
+            vtlBindings = new VtlBindings();
+            vtlBindings.put(Constants.ROOT_GROUP_NAME, new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID2", "second"), List.of("ID3", "second")), rootComponents));
+            vtlBindings.put("LOOP", new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID1", "LOOP-02", "second"), List.of("ID3", "LOOP-01", "second")), loopComponents));
+            SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, testDatabaseStatement, TestConstants.getKraftwerkExecutionContext());
+
+            //First row of each identifier is kept
+            Map<String, String> rootValues = new HashMap<>();
+            try (ResultSet resultSet = testDatabaseStatement.executeQuery("SELECT * FROM " + Constants.ROOT_GROUP_NAME)) {
+                while (resultSet.next()) {
+                    rootValues.put(resultSet.getString(Constants.ROOT_IDENTIFIER_NAME), resultSet.getString("VAR"));
+                }
+            }
+            Assertions.assertThat(rootValues).containsExactlyInAnyOrderEntriesOf(
+                    Map.of("ID1", "first", "ID2", "first", "ID3", "second"));
+
+            Map<String, String> loopValues = new HashMap<>();
+            try (ResultSet resultSet = testDatabaseStatement.executeQuery("SELECT * FROM LOOP")) {
+                while (resultSet.next()) {
+                    loopValues.put(resultSet.getString(Constants.ROOT_IDENTIFIER_NAME) + resultSet.getString("LOOP"),
+                            resultSet.getString("LOOP_VAR"));
+                }
+            }
+            Assertions.assertThat(loopValues).containsExactlyInAnyOrderEntriesOf(
+                    Map.of("ID1LOOP-01", "first", "ID1LOOP-02", "first", "ID3LOOP-01", "second"));
+
+            //No staging table left
+            Assertions.assertThat(SqlUtils.getTableNames(testDatabaseStatement))
+                    .containsExactlyInAnyOrder(Constants.ROOT_GROUP_NAME, "LOOP");
+        }
+    }
+
+    @Test
+    void convertVTLBindingTest_pendingRows_deduplicatedWithLastBatch() throws SQLException {
+        try(Statement testDatabaseStatement = SqlUtils.openConnection().createStatement()) {
+            List<Structured.Component> rootComponents = List.of(
+                    new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("VAR", String.class, Dataset.Role.MEASURE));
+
+            //First batches, rows kept pending
+            VtlBindings vtlBindings = new VtlBindings();
+            vtlBindings.put(Constants.ROOT_GROUP_NAME, new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID1", "first"), List.of("ID1", "duplicate"), List.of("ID2", "first")), rootComponents));
+            SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, testDatabaseStatement,
+                    TestConstants.getKraftwerkExecutionContext(), false);
+
+            vtlBindings = new VtlBindings();
+            vtlBindings.put(Constants.ROOT_GROUP_NAME, new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID3", "second"), List.of("ID2", "second")), rootComponents));
+            SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, testDatabaseStatement,
+                    TestConstants.getKraftwerkExecutionContext(), false);
+
+            try (ResultSet resultSet = testDatabaseStatement.executeQuery("SELECT count(*) FROM " + Constants.ROOT_GROUP_NAME)) {
+                Assertions.assertThat(resultSet.next()).isTrue();
+                Assertions.assertThat(resultSet.getLong(1)).isZero();
+            }
+
+            //Last batch, with a new column
+            List<Structured.Component> lastBatchComponents = List.of(
+                    new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+                    new Structured.Component("VAR", String.class, Dataset.Role.MEASURE),
+                    new Structured.Component("NEW_VAR", String.class, Dataset.Role.MEASURE));
+            vtlBindings = new VtlBindings();
+            vtlBindings.put(Constants.ROOT_GROUP_NAME, new InMemoryDataset(List.<List<Object>>of(
+                    List.of("ID1", "third", "new"), List.of("ID4", "third", "new")), lastBatchComponents));
+            SqlUtils.convertVtlBindingsIntoSqlDatabase(vtlBindings, testDatabaseStatement,
+                    TestConstants.getKraftwerkExecutionContext(), true);
+
+            //First row of each identifier is kept, in the order of the batches
+            List<String> rows = new ArrayList<>();
+            try (ResultSet resultSet = testDatabaseStatement.executeQuery("SELECT * FROM " + Constants.ROOT_GROUP_NAME)) {
+                while (resultSet.next()) {
+                    rows.add(resultSet.getString(Constants.ROOT_IDENTIFIER_NAME) + ";" + resultSet.getString("VAR")
+                            + ";" + resultSet.getString("NEW_VAR"));
+                }
+            }
+            Assertions.assertThat(rows).containsExactly(
+                    "ID1;first;null", "ID2;first;null", "ID3;second;null", "ID4;third;new");
+
+            //No pending table left
+            Assertions.assertThat(SqlUtils.getTableNames(testDatabaseStatement))
+                    .containsExactly(Constants.ROOT_GROUP_NAME);
+        }
+    }
+
     @Test
     void getColumnNamesTest() throws SQLException {
         try(Statement testDatabaseStatement = SqlUtils.openConnection().createStatement()){
@@ -1,8 +1,10 @@
 package fr.insee.kraftwerk.core.utils;
 
 import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.exceptions.KraftwerkException;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.kraftwerk.core.utils.xml.XmlChunk;
 import fr.insee.kraftwerk.core.utils.xml.XmlSplitter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -17,13 +19,16 @@ import javax.xml.stream.events.XMLEvent;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
 class XmlSplitterTest {
 
 	static final String OUT_DIRECTORY = TestConstants.UNIT_TESTS_DUMP+"/split/";
+	static final String INPUT_DIRECTORY = TestConstants.UNIT_TESTS_DIRECTORY+"/data/lunatic_xml/";
 
 	static final FileUtilsInterface fileUtilsInterface = new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY);
 
@@ -70,5 +75,82 @@ class XmlSplitterTest {
 		Assertions.assertEquals(2, count);
 	}
 
+	@Test
+	@DisplayName("Chunks cut by size should cover all the survey units, in order")
+	void splitBySizeTest() throws XMLStreamException, IOException, KraftwerkException {
+		String outDirectory = TestConstants.UNIT_TESTS_DUMP + "/split_by_size";
+		// Budget smaller than a survey unit : one survey unit by chunk
+		List<XmlChunk> chunks = XmlSplitter.split(INPUT_DIRECTORY, "fake-lunatic-data-1.xml",
+				outDirectory, "SurveyUnit", 0, 100, 3, fileUtilsInterface);
+
+		Assertions.assertEquals(5, chunks.size());
+		for (int i = 0; i < chunks.size(); i++) {
+			XmlChunk chunk = chunks.get(i);
+			Assertions.assertEquals(i + 1, chunk.index());
+			Assertions.assertEquals(i, chunk.firstUnit());
+			Assertions.assertEquals(1, chunk.unitCount());
+			Assertions.assertTrue(chunk.written());
+			Assertions.assertEquals(1, countSurveyUnits(chunk.path()));
+			if (i > 0 && chunk.startOffset() >= 0) {
+				Assertions.assertTrue(chunk.startOffset() > chunks.get(i - 1).endOffset());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("A chunk written again alone should be identical")
+	void redoChunkTest() throws XMLStreamException, IOException, KraftwerkException {
+		String outDirectory = TestConstants.UNIT_TESTS_DUMP + "/split_redo";
+		List<XmlChunk> chunks = XmlSplitter.split(INPUT_DIRECTORY, "fake-lunatic-data-1.xml",
+				outDirectory, "SurveyUnit", 2, 0, 2, fileUtilsInterface);
+		XmlChunk secondChunk = chunks.get(1);
+		byte[] secondChunkContent = Files.readAllBytes(Path.of(secondChunk.path()));
+		Files.delete(Path.of(secondChunk.path()));
+
+		XmlChunk redoneChunk = XmlSplitter.redoChunk(INPUT_DIRECTORY, "fake-lunatic-data-1.xml",
+				outDirectory, "SurveyUnit", secondChunk, fileUtilsInterface);
+
+		Assertions.assertEquals(secondChunk, redoneChunk);
+		Assertions.assertArrayEquals(secondChunkContent, Files.readAllBytes(Path.of(secondChunk.path())));
+	}
+
+	@Test
+	@DisplayName("Chunks whose write stops should be reported as not written")
+	void splitFailedWriteTest() throws XMLStreamException, IOException, KraftwerkException {
+		String outDirectory = TestConstants.UNIT_TESTS_DUMP + "/split_failed";
+		// The storage logs the write error, like FileSystemImpl, and leaves a truncated chunk
+		FileUtilsInterface failingFileUtils = new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY) {
+			@Override
+			public void writeFile(String path, InputStream inputStream, boolean replace) {
+				try {
+					Files.createDirectories(Path.of(path).getParent());
+					Files.write(Path.of(path), inputStream.readNBytes(100));
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+		List<XmlChunk> chunks = XmlSplitter.split(INPUT_DIRECTORY, "fake-lunatic-data-1.xml",
+				outDirectory, "SurveyUnit", 2, 0, 2, failingFileUtils);
+
+		Assertions.assertEquals(3, chunks.size());
+		Assertions.assertTrue(chunks.stream().noneMatch(XmlChunk::written));
+		Assertions.assertEquals(List.of(0L, 2L, 4L), chunks.stream().map(XmlChunk::firstUnit).toList());
+	}
+
+	private static int countSurveyUnits(String path) throws XMLStreamException, IOException {
+		int count = 0;
+		try (FileInputStream inputStream = new FileInputStream(path)) {
+			XMLEventReader eventReader = XMLInputFactory.newInstance().createXMLEventReader(inputStream);
+			while (eventReader.hasNext()) {
+				XMLEvent event = eventReader.nextEvent();
+				if (event.isStartElement() && event.asStartElement().getName().getLocalPart().equals("SurveyUnit")) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
 
 }
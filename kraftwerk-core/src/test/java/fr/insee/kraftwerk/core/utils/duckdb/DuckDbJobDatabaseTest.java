@@ -0,0 +1,83 @@
+package fr.insee.kraftwerk.core.utils.duckdb;
+
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuckDbJobDatabaseTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void forConcurrentJobs_sharedResources() {
+        DuckDbSettings settings = DuckDbSettings.forConcurrentJobs(8, 4096, 4, spillDirectory, false);
+
+        assertEquals(2, settings.threads());
+        assertEquals(1024, settings.memoryLimitMb());
+        // At least one thread by job, no memory limit if none is given
+        DuckDbSettings manyJobsSettings = DuckDbSettings.forConcurrentJobs(2, 0, 10, null, true);
+        assertEquals(1, manyJobsSettings.threads());
+        assertEquals(0, manyJobsSettings.memoryLimitMb());
+    }
+
+    @Test
+    void open_settingsApplied() throws SQLException {
+        DuckDbSettings settings = new DuckDbSettings(2, 256, spillDirectory, false);
+
+        try (DuckDbJobDatabase jobDatabase = DuckDbJobDatabase.open("CAMPAIGN/1", null, settings, null);
+             ResultSet resultSet = jobDatabase.getStatement().executeQuery(
+                     "SELECT current_setting('threads'), current_setting('temp_directory'), current_setting('preserve_insertion_order')")) {
+            assertTrue(resultSet.next());
+            assertEquals(2, resultSet.getInt(1));
+            assertEquals(jobDatabase.getSpillDirectory().toAbsolutePath().toString().replace("\\", "/"), resultSet.getString(2));
+            assertFalse(resultSet.getBoolean(3));
+            // One spill directory by job
+            assertEquals(spillDirectory, jobDatabase.getSpillDirectory().getParent());
+            assertSame(jobDatabase.getStatement(), jobDatabase.getStatement());
+        }
+    }
+
+    @Test
+    void open_defaultSettings_noSpillDirectory() throws SQLException {
+        try (DuckDbJobDatabase jobDatabase = DuckDbJobDatabase.open("CAMPAIGN", null, DuckDbSettings.DEFAULT, null)) {
+            assertNull(jobDatabase.getSpillDirectory());
+            assertEquals(0, jobDatabase.getSpilledBytes());
+        }
+    }
+
+    @Test
+    void close_spillRecorded() throws SQLException, IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ProcessingMetrics processingMetrics = new ProcessingMetrics(meterRegistry);
+        Path jobSpillDirectory;
+
+        try (DuckDbJobDatabase jobDatabase = DuckDbJobDatabase.open("CAMPAIGN",
+                null, new DuckDbSettings(1, 0, spillDirectory, true), processingMetrics)) {
+            jobSpillDirectory = jobDatabase.getSpillDirectory();
+            // Temporary file as written by DuckDB when a query doesn't fit in memory
+            Files.write(jobSpillDirectory.resolve("duckdb_temp_storage-0.tmp"), new byte[4096]);
+            assertEquals(4096, jobDatabase.getSpilledBytes());
+        }
+
+        assertFalse(Files.exists(jobSpillDirectory));
+        assertEquals(4096, processingMetrics.getSpilledBytes());
+        assertEquals(4096, meterRegistry.get("kraftwerk.duckdb.spilled").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("kraftwerk.duckdb.spilling.jobs").counter().count());
+        assertTrue(processingMetrics.getFormattedString().contains("4096 bytes"));
+    }
+
+}
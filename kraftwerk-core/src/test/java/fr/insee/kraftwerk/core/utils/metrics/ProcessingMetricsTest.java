@@ -0,0 +1,76 @@
+package fr.insee.kraftwerk.core.utils.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class ProcessingMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProcessingMetrics processingMetrics;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        processingMetrics = new ProcessingMetrics(meterRegistry);
+    }
+
+    @Test
+    void stepMeasures_summedByStep() {
+        processingMetrics.start(ProcessingMetrics.STEP_UNIMODAL, 10).stop(12);
+        processingMetrics.start(ProcessingMetrics.STEP_UNIMODAL, 5).stop(6);
+        processingMetrics.start(ProcessingMetrics.STEP_MULTIMODAL, 18).stop(18);
+
+        List<StepMetric> stepMetrics = processingMetrics.getStepMetrics();
+        Assertions.assertThat(stepMetrics).extracting(StepMetric::getStepName)
+                .containsExactly(ProcessingMetrics.STEP_UNIMODAL, ProcessingMetrics.STEP_MULTIMODAL);
+        StepMetric unimodal = stepMetrics.getFirst();
+        Assertions.assertThat(unimodal.getCount()).isEqualTo(2);
+        Assertions.assertThat(unimodal.getRowsIn()).isEqualTo(15);
+        Assertions.assertThat(unimodal.getRowsOut()).isEqualTo(18);
+        Assertions.assertThat(unimodal.getDurationNanos()).isPositive();
+    }
+
+    @Test
+    void stepMeasures_publishedToMeterRegistry() {
+        processingMetrics.start(ProcessingMetrics.STEP_INSERT_DATABASE, 10).stop(10);
+
+        Assertions.assertThat(meterRegistry.get("kraftwerk.step.duration")
+                .tag("step", ProcessingMetrics.STEP_INSERT_DATABASE).timer().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("kraftwerk.step.rows.in")
+                .tag("step", ProcessingMetrics.STEP_INSERT_DATABASE).summary().totalAmount()).isEqualTo(10);
+    }
+
+    @Test
+    void vtlInstructions_detailedInLogAndGroupedInMeterRegistry() {
+        processingMetrics.startVtlInstruction("RACINE := RACINE [calc A := 1];", 3).stop(3);
+        processingMetrics.startVtlInstruction("RACINE := RACINE [calc B := 2];", 3).stop(3);
+
+        Assertions.assertThat(processingMetrics.getStepMetrics()).hasSize(2);
+        Assertions.assertThat(processingMetrics.getFormattedString()).contains("RACINE := RACINE [calc B := 2];");
+        Assertions.assertThat(meterRegistry.get("kraftwerk.step.duration")
+                .tag("step", ProcessingMetrics.STEP_VTL_INSTRUCTION).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownRows_notPublished() {
+        processingMetrics.start(ProcessingMetrics.STEP_MULTIMODAL, 10).stop(ProcessingMetrics.UNKNOWN_ROWS);
+
+        Assertions.assertThat(processingMetrics.getStepMetrics().getFirst().getRowsOut()).isEqualTo(-1);
+        Assertions.assertThat(meterRegistry.find("kraftwerk.step.rows.out").summary()).isNull();
+        Assertions.assertThat(meterRegistry.get("kraftwerk.step.rows.in")
+                .tag("step", ProcessingMetrics.STEP_MULTIMODAL).summary().totalAmount()).isEqualTo(10);
+    }
+
+    @Test
+    void abbreviate_oneLineAndTruncated() {
+        Assertions.assertThat(ProcessingMetrics.abbreviate("  RACINE :=\n\tRACINE  [calc A := 1];\n"))
+                .isEqualTo("RACINE := RACINE [calc A := 1];");
+        Assertions.assertThat(ProcessingMetrics.abbreviate("A".repeat(100)))
+                .isEqualTo("A".repeat(80) + "...");
+    }
+
+}
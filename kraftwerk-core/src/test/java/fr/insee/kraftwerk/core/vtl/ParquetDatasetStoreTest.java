@@ -0,0 +1,87 @@
+package fr.insee.kraftwerk.core.vtl;
+
+import fr.insee.kraftwerk.core.Constants;
+import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParquetDatasetStoreTest {
+
+	@TempDir
+	Path tempDirectory;
+
+	private final ParquetDatasetStore parquetDatasetStore =
+			new ParquetDatasetStore(new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY));
+
+	private static Dataset createDataset(String suffix) {
+		List<Structured.Component> components = List.of(
+				new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+				new Structured.Component("NAME", String.class, Dataset.Role.MEASURE),
+				new Structured.Component("AGE", Long.class, Dataset.Role.MEASURE),
+				new Structured.Component("SCORE", Double.class, Dataset.Role.MEASURE),
+				new Structured.Component("ADULT", Boolean.class, Dataset.Role.MEASURE)
+		);
+		List<List<Object>> dataPoints = new ArrayList<>();
+		dataPoints.add(Arrays.asList("ID1", "name1" + suffix, 31L, 1.5, true));
+		dataPoints.add(Arrays.asList("ID2", null, null, null, null));
+		return new InMemoryDataset(dataPoints, components);
+	}
+
+	@Test
+	void writeAndPutDataset_sameDataset() {
+		VtlBindings vtlBindings = new VtlBindings();
+		vtlBindings.put("DS", createDataset(""));
+		Path parquetFile = tempDirectory.resolve("DS_UNIMODAL_PROCESSING.parquet");
+
+		parquetDatasetStore.writeDataset("DS", parquetFile, vtlBindings);
+		assertTrue(Files.exists(parquetFile));
+		assertTrue(Files.exists(Path.of(ParquetDatasetStore.getStructurePath(parquetFile.toString()))));
+
+		VtlBindings readBindings = new VtlBindings();
+		parquetDatasetStore.putDataset(parquetFile.toString(), "DS", readBindings);
+
+		Dataset dataset = readBindings.getDataset("DS");
+		assertEquals(createDataset("").getDataStructure(), dataset.getDataStructure());
+		assertEquals(createDataset("").getDataAsList(), dataset.getDataAsList());
+		assertEquals(31L, dataset.getDataPoints().getFirst().get("AGE"));
+	}
+
+	@Test
+	void putDataset_dataReadWhenUsed() {
+		VtlBindings vtlBindings = new VtlBindings();
+		vtlBindings.put("DS", createDataset(""));
+		Path parquetFile = tempDirectory.resolve("DS_MULTIMODAL_PROCESSING.parquet");
+		parquetDatasetStore.writeDataset("DS", parquetFile, vtlBindings);
+
+		VtlBindings readBindings = new VtlBindings();
+		parquetDatasetStore.putDataset(parquetFile.toString(), "DS", readBindings);
+		assertEquals(5, readBindings.getDataset("DS").getDataStructure().size());
+
+		// The file is replaced before the data points are used : the new data points are read
+		vtlBindings.put("DS", createDataset("-new"));
+		parquetDatasetStore.writeDataset("DS", parquetFile, vtlBindings);
+		assertEquals("name1-new", readBindings.getDataset("DS").getDataPoints().getFirst().get("NAME"));
+	}
+
+	@Test
+	void putDataset_noFile() {
+		VtlBindings vtlBindings = new VtlBindings();
+		parquetDatasetStore.putDataset(tempDirectory.resolve("MISSING.parquet").toString(), "DS", vtlBindings);
+		assertFalse(vtlBindings.containsKey("DS"));
+	}
+
+}
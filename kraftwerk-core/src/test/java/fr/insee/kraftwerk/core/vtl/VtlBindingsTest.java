@@ -9,6 +9,7 @@ import fr.insee.kraftwerk.core.rawdata.SurveyRawDataTest;
 import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
 import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
 import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.metrics.ProcessingMetrics;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.Dataset.Role;
 import fr.insee.vtl.model.InMemoryDataset;
@@ -59,6 +60,29 @@ class VtlBindingsTest {
 		Assertions.assertDoesNotThrow(() -> vtlBindings.remove("NOT_IN_BINDINGS"));
 	}
 
+	@Test
+	void countRows_onlyInMemoryDatasets() {
+		vtlBindings.put("TEST", ds1);
+		assertEquals(4, vtlBindings.countRows("TEST"));
+		assertEquals(0, vtlBindings.countRows("NOT_IN_BINDINGS"));
+
+		// The data points of other datasets are not read to count them
+		Dataset notInMemory = new Dataset() {
+			@Override
+			public List<DataPoint> getDataPoints() {
+				throw new IllegalStateException("Data points read");
+			}
+
+			@Override
+			public Structured.DataStructure getDataStructure() {
+				return ds1.getDataStructure();
+			}
+		};
+		vtlBindings.put("NOT_IN_MEMORY", notInMemory);
+		assertEquals(ProcessingMetrics.UNKNOWN_ROWS, vtlBindings.countRows("NOT_IN_MEMORY"));
+		assertEquals(ProcessingMetrics.UNKNOWN_ROWS, vtlBindings.countRows());
+	}
+
 	@Test
 	void constructorsAndDataModeTest() {
 		SurveyRawData surveyRawData = SurveyRawDataTest.createFakePapiSurveyRawData();
@@ -0,0 +1,73 @@
+package fr.insee.kraftwerk.core.vtl;
+
+import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.rawdata.SurveyRawData;
+import fr.insee.kraftwerk.core.rawdata.SurveyRawDataTest;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import fr.insee.kraftwerk.core.utils.files.FileUtilsInterface;
+import fr.insee.vtl.model.Dataset;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VtlDatasetBuilderTest {
+
+	private final FileUtilsInterface fileUtilsInterface = new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY);
+
+	@Test
+	void buildVtlDataset_sameAsJsonConversion_cawi() {
+		assertSameAsJsonConversion(SurveyRawDataTest::createFakeCawiSurveyRawData);
+	}
+
+	@Test
+	void buildVtlDataset_sameAsJsonConversion_capi() {
+		assertSameAsJsonConversion(SurveyRawDataTest::createFakeCapiSurveyRawData);
+	}
+
+	@Test
+	void buildVtlDataset_sameAsJsonConversion_papi() {
+		assertSameAsJsonConversion(SurveyRawDataTest::createFakePapiSurveyRawData);
+	}
+
+	@Test
+	void convertValue_test() {
+		assertEquals("foo", VtlDatasetBuilder.convertValue("foo", String.class));
+		assertEquals("", VtlDatasetBuilder.convertValue("", String.class));
+		assertEquals(12L, VtlDatasetBuilder.convertValue("12", Long.class));
+		assertEquals(1.5, VtlDatasetBuilder.convertValue("1.5", Double.class));
+		assertEquals(true, VtlDatasetBuilder.convertValue("true", Boolean.class));
+		assertNull(VtlDatasetBuilder.convertValue("", Long.class));
+		assertNull(VtlDatasetBuilder.convertValue("not a number", Double.class));
+		assertNull(VtlDatasetBuilder.convertValue(null, Long.class));
+	}
+
+	private void assertSameAsJsonConversion(Supplier<SurveyRawData> surveyRawDataSupplier) {
+		KraftwerkExecutionContext inMemoryContext = TestConstants.getKraftwerkExecutionContext();
+		VtlBindings inMemoryBindings = new VtlBindings();
+		new VtlExecute(fileUtilsInterface, inMemoryContext)
+				.convertToVtlDataset(surveyRawDataSupplier.get(), "TEST", inMemoryBindings);
+
+		KraftwerkExecutionContext jsonContext = TestConstants.getKraftwerkExecutionContext();
+		jsonContext.setJsonVtlDatasetConversion(true);
+		VtlBindings jsonBindings = new VtlBindings();
+		new VtlExecute(fileUtilsInterface, jsonContext)
+				.convertToVtlDataset(surveyRawDataSupplier.get(), "TEST", jsonBindings);
+
+		Dataset inMemoryDataset = inMemoryBindings.getDataset("TEST");
+		Dataset jsonDataset = jsonBindings.getDataset("TEST");
+		assertEquals(describeStructure(jsonDataset), describeStructure(inMemoryDataset));
+		assertEquals(jsonDataset.getDataAsList(), inMemoryDataset.getDataAsList());
+	}
+
+	private static List<String> describeStructure(Dataset dataset) {
+		return dataset.getDataStructure().values().stream()
+				.map(component -> component.getName() + " " + component.getType().getSimpleName() + " " + component.getRole())
+				.toList();
+	}
+
+}
@@ -0,0 +1,118 @@
+package fr.insee.kraftwerk.core.vtl;
+
+import fr.insee.kraftwerk.core.Constants;
+import fr.insee.kraftwerk.core.TestConstants;
+import fr.insee.kraftwerk.core.utils.KraftwerkExecutionContext;
+import fr.insee.kraftwerk.core.utils.files.FileSystemImpl;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.Structured;
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.script.CompiledScript;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Log4j2
+class VtlExecuteTest {
+
+	@Test
+	void prepareInstruction_destinationReplacedByTemp() {
+		VtlExecute.PreparedInstruction preparedInstruction =
+				VtlExecute.prepareInstruction("  MULTIMODE.A := MULTIMODE [calc A := MULTIMODE.B];");
+		assertEquals("MULTIMODE.A", preparedInstruction.destinationDatasetName());
+		assertEquals("  TEMP := MULTIMODE [calc A := MULTIMODE.B];", preparedInstruction.vtlScriptToUse());
+
+		preparedInstruction = VtlExecute.prepareInstruction("DS <- DS [calc X := 1];");
+		assertEquals("DS", preparedInstruction.destinationDatasetName());
+		assertEquals("TEMP <- DS [calc X := 1];", preparedInstruction.vtlScriptToUse());
+
+		preparedInstruction = VtlExecute.prepareInstruction("no assignment");
+		assertNull(preparedInstruction.destinationDatasetName());
+		assertEquals("no assignment", preparedInstruction.vtlScriptToUse());
+	}
+
+	@Test
+	void prepareInstruction_cached() {
+		String instruction = "DS := DS [calc Y := 2];";
+		assertSame(VtlExecute.prepareInstruction(instruction), VtlExecute.prepareInstruction(instruction));
+	}
+
+	@Test
+	void evalVtlScript_sameResultOnEachEvaluation() {
+		KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+		VtlExecute vtlExecute = new VtlExecute(new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY), kraftwerkExecutionContext);
+		for (int evaluation = 0; evaluation < 2; evaluation++) {
+			VtlBindings vtlBindings = createBindings(3);
+			vtlExecute.evalVtlScript("DS := DS [calc NEW_VAR := VAR * 2];", vtlBindings, kraftwerkExecutionContext);
+			Dataset dataset = vtlBindings.getDataset("DS");
+			assertEquals(4L, dataset.getDataPoints().get(2).get("NEW_VAR"));
+			assertTrue(kraftwerkExecutionContext.getErrors().isEmpty());
+		}
+	}
+
+	@Test
+	void evalVtlScript_compiledScriptSharedByContext() {
+		KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+		String instruction = "DS := DS [calc NEW_VAR := VAR * 3];";
+		new VtlExecute(new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY), kraftwerkExecutionContext)
+				.evalVtlScript(instruction, createBindings(3), kraftwerkExecutionContext);
+		String scriptToUse = VtlExecute.prepareInstruction(instruction).vtlScriptToUse();
+		CompiledScript compiledScript = kraftwerkExecutionContext.getCompiledVtlScriptsCache().get(scriptToUse);
+		assertNotNull(compiledScript);
+
+		// Another instance, on the same context or on a mode context, doesn't compile the instruction again
+		KraftwerkExecutionContext modeContext = kraftwerkExecutionContext.createModeContext();
+		for (KraftwerkExecutionContext context : List.of(kraftwerkExecutionContext, modeContext)) {
+			VtlBindings vtlBindings = createBindings(3);
+			new VtlExecute(new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY), context)
+					.evalVtlScript(instruction, vtlBindings, context);
+			assertEquals(6L, vtlBindings.getDataset("DS").getDataPoints().get(2).get("NEW_VAR"));
+			assertSame(compiledScript, context.getCompiledVtlScriptsCache().get(scriptToUse));
+			assertTrue(context.getErrors().isEmpty());
+		}
+		assertEquals(1, kraftwerkExecutionContext.getCompiledVtlScriptsCache().size());
+	}
+
+	/**
+	 * Evaluation of a 2 000 instructions script on 3 batches, run with -Dkraftwerk.benchmark=true
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "kraftwerk.benchmark", matches = "true")
+	void evalVtlScript_benchmark() {
+		KraftwerkExecutionContext kraftwerkExecutionContext = TestConstants.getKraftwerkExecutionContext();
+		VtlExecute vtlExecute = new VtlExecute(new FileSystemImpl(TestConstants.TEST_RESOURCES_DIRECTORY), kraftwerkExecutionContext);
+		VtlScript vtlScript = new VtlScript();
+		for (int i = 0; i < 2000; i++) {
+			vtlScript.add("DS := DS [calc VAR_%d := VAR + %d];".formatted(i, i));
+		}
+		for (int batch = 0; batch < 3; batch++) {
+			VtlBindings vtlBindings = createBindings(100);
+			long start = System.nanoTime();
+			vtlExecute.evalVtlScript(vtlScript, vtlBindings, kraftwerkExecutionContext);
+			log.info("Batch {} : 2000 instructions evaluated in {} ms", batch, (System.nanoTime() - start) / 1_000_000);
+			assertEquals(2002, vtlBindings.getDataset("DS").getDataStructure().size());
+		}
+	}
+
+	private static VtlBindings createBindings(int rowCount) {
+		List<List<Object>> rows = new ArrayList<>();
+		for (int i = 0; i < rowCount; i++) {
+			rows.add(List.of("ID" + i, (long) i));
+		}
+		VtlBindings vtlBindings = new VtlBindings();
+		vtlBindings.put("DS", new InMemoryDataset(rows, List.of(
+				new Structured.Component(Constants.ROOT_IDENTIFIER_NAME, String.class, Dataset.Role.IDENTIFIER),
+				new Structured.Component("VAR", Long.class, Dataset.Role.MEASURE))));
+		return vtlBindings;
+	}
+
+}
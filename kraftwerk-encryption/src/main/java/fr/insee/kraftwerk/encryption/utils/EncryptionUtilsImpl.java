@@ -57,13 +57,31 @@ public class EncryptionUtilsImpl implements EncryptionUtils {
     public InputStream encryptOutputFile(
             Path pathOfFileToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext
     ) throws KraftwerkException {
-        SymmetricEncryptionEndpoint symmetricEncryptionEndpoint = getSymmetricEncryptionEndpoint();
         try{
             FileInputStream fileInputStream = new FileInputStream(pathOfFileToEncrypt.toFile());
-            return symmetricEncryptionEndpoint.getEncryptedInputStream(fileInputStream, ENCRYPTION_BUFFER_SIZE);
+            return encryptInputStream(fileInputStream, kraftwerkExecutionContext);
         }catch (IOException e){
             throw new KraftwerkException(500,
-                    "IO Exception during encryption : %s caused by %s !".formatted(e.toString(), e.getCause().toString()));
+                    "IO Exception during encryption : %s caused by %s !".formatted(e.toString(), e.getCause()));
+        }
+    }
+
+    /**
+     * Encrypts a stream, the content being encrypted as the returned stream is read
+     * @param inputStreamToEncrypt stream of the content to encrypt
+     * @param kraftwerkExecutionContext Context
+     * @throws KraftwerkException if any problem
+     */
+    @Override
+    public InputStream encryptInputStream(
+            InputStream inputStreamToEncrypt, KraftwerkExecutionContext kraftwerkExecutionContext
+    ) throws KraftwerkException {
+        SymmetricEncryptionEndpoint symmetricEncryptionEndpoint = getSymmetricEncryptionEndpoint();
+        try{
+            return symmetricEncryptionEndpoint.getEncryptedInputStream(inputStreamToEncrypt, ENCRYPTION_BUFFER_SIZE);
+        }catch (Exception e){
+            throw new KraftwerkException(500,
+                    "Exception during encryption : %s caused by %s !".formatted(e.toString(), e.getCause()));
         }
     }
 